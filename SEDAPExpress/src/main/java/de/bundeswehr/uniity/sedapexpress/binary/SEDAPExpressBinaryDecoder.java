@@ -0,0 +1,223 @@
+/**
+ * Note: This license has also been called the “Simplified BSD License” and the “FreeBSD License”.
+ *
+ * Copyright 2024-2025 UNIITY POC: Volker Voß, Federal Armed Forces of Germany
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS “AS IS” AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSEnARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ * OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY
+ * OF SUCH DAMAGE.
+ */
+package de.bundeswehr.uniity.sedapexpress.binary;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.protobuf.CodedInputStream;
+
+import de.bundeswehr.uniity.sedapexpress.binary.SEDAPExpressBinaryEncoder.Track;
+import de.bundeswehr.uniity.sedapexpress.binary.SEDAPExpressBinaryFormat.Kind;
+import de.bundeswehr.uniity.sedapexpress.binary.SEDAPExpressBinaryFormat.TrackLayout;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage.DeleteFlag;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage.MessageType;
+import de.bundeswehr.uniity.sedapexpress.protobuf.SEDAPExpressProtobufCodec;
+
+/**
+ * Decoder for the compact binary format of SEDAP-Express, see {@link SEDAPExpressBinaryFormat} and {@link SEDAPExpressBinaryEncoder}.
+ * <p>
+ * The decoder has to get all records of one encoder in the original order. The decoder is not thread safe.
+ *
+ * @author Volker Voß
+ *
+ */
+public class SEDAPExpressBinaryDecoder {
+
+    private static final MessageType[] MESSAGE_TYPES = MessageType.values();
+
+    private final List<String> symbols = new ArrayList<>();
+
+    private final EnumMap<MessageType, Map<String, Track>> tracks = new EnumMap<>(MessageType.class);
+
+    /**
+     * @return Number of tracks with a known state
+     */
+    public int getTrackCount() {
+	return this.tracks.values().stream().mapToInt(Map::size).sum();
+    }
+
+    /**
+     * Forgets all tracks and symbols
+     */
+    public void reset() {
+	this.symbols.clear();
+	this.tracks.clear();
+    }
+
+    /**
+     * Decodes one record
+     *
+     * @param record encoded record
+     * @return decoded message
+     * @throws IOException Record is invalid or does not fit to the state of the stream
+     */
+    public SEDAPExpressMessage decode(byte[] record) throws IOException {
+	return decode(ByteBuffer.wrap(record));
+    }
+
+    /**
+     * Decodes the next record of the buffer, the position will be behind the record afterwards
+     *
+     * @param buffer Buffer with the record
+     * @return decoded message
+     * @throws IOException Record is invalid or does not fit to the state of the stream
+     */
+    public SEDAPExpressMessage decode(ByteBuffer buffer) throws IOException {
+
+	if (!buffer.hasRemaining()) {
+	    throw new IOException("Empty SEDAP-Express binary record");
+	}
+
+	final int header = buffer.get() & 0xFF;
+	if ((header >> 5) != SEDAPExpressBinaryFormat.VERSION) {
+	    throw new IOException("Unsupported version " + (header >> 5) + " of the SEDAP-Express binary format");
+	}
+	if ((header & 0x1F) >= MESSAGE_TYPES.length) {
+	    throw new IOException("Unknown message type " + (header & 0x1F) + " in SEDAP-Express binary record");
+	}
+
+	final MessageType type = MESSAGE_TYPES[header & 0x1F];
+	final TrackLayout layout = SEDAPExpressBinaryFormat.layout(type);
+
+	if (layout == null) {
+	    final byte[] content = SEDAPExpressBinaryFormat.readBytes(buffer);
+	    return SEDAPExpressProtobufCodec.readContent(CodedInputStream.newInstance(content), type);
+	}
+
+	if (!buffer.hasRemaining()) {
+	    throw new IOException("Truncated SEDAP-Express binary record");
+	}
+	final int flags = buffer.get() & 0xFF;
+	final String key = readSymbol(buffer);
+
+	final Map<String, Track> typeTracks = tracks(type);
+	final String trackKey = (key != null) ? key : SEDAPExpressBinaryFormat.NO_KEY;
+	Track track = typeTracks.get(trackKey);
+
+	final Object[] values = new Object[layout.kinds.length];
+	long presence;
+
+	if ((flags & SEDAPExpressBinaryFormat.FLAG_KEYFRAME) != 0) {
+	    presence = SEDAPExpressBinaryFormat.readVarint(buffer);
+	    for (int i = 0; i < values.length; i++) {
+		if ((presence & (1L << i)) != 0) {
+		    values[i] = readValue(buffer, layout.kinds[i], null);
+		}
+	    }
+	} else {
+	    if (track == null) {
+		throw new IOException("Update of the unknown track " + key + " in SEDAP-Express binary record");
+	    }
+
+	    final long changed = SEDAPExpressBinaryFormat.readVarint(buffer);
+	    presence = ((changed & 1) != 0) ? SEDAPExpressBinaryFormat.readVarint(buffer) : track.presence;
+	    for (int i = 0; i < values.length; i++) {
+		if ((changed & (1L << (i + 1))) != 0) {
+		    values[i] = readValue(buffer, layout.kinds[i], track.values[i]);
+		} else if ((presence & (1L << i)) != 0) {
+		    values[i] = track.values[i];
+		}
+	    }
+	}
+
+	if (SEDAPExpressBinaryFormat.deleteFlag(flags) == DeleteFlag.TRUE) {
+	    typeTracks.remove(trackKey);
+	} else {
+	    if (track == null) {
+		track = new Track();
+		typeTracks.put(trackKey, track);
+	    }
+	    track.values = values;
+	    track.presence = presence;
+	}
+
+	return layout.create(key, flags, values);
+    }
+
+    private Map<String, Track> tracks(MessageType type) {
+
+	return this.tracks.computeIfAbsent(type, t -> new LinkedHashMap<>(16, 0.75f, true) {
+
+	    private static final long serialVersionUID = 1L;
+
+	    @Override
+	    protected boolean removeEldestEntry(Map.Entry<String, Track> eldest) {
+		return size() > SEDAPExpressBinaryFormat.MAX_TRACKS;
+	    }
+	});
+    }
+
+    private String readSymbol(ByteBuffer buffer) throws IOException {
+
+	final long value = SEDAPExpressBinaryFormat.readVarint(buffer);
+	if (value == 0) {
+	    return null;
+	}
+	if (value == 1) {
+	    return SEDAPExpressBinaryFormat.readString(buffer);
+	}
+	if (value == 2) {
+	    final long index = SEDAPExpressBinaryFormat.readVarint(buffer);
+	    if (index >= SEDAPExpressBinaryFormat.MAX_SYMBOLS) {
+		throw new IOException("Invalid symbol " + index + " in SEDAP-Express binary record");
+	    }
+	    final String symbol = SEDAPExpressBinaryFormat.readString(buffer);
+	    while (this.symbols.size() <= index) {
+		this.symbols.add(null);
+	    }
+	    this.symbols.set((int) index, symbol);
+	    return symbol;
+	}
+
+	final long index = value - 3;
+	final String symbol = (index < this.symbols.size()) ? this.symbols.get((int) index) : null;
+	if (symbol == null) {
+	    throw new IOException("Unknown symbol " + index + " in SEDAP-Express binary record");
+	}
+	return symbol;
+    }
+
+    private Object readValue(ByteBuffer buffer, Kind kind, Object previous) throws IOException {
+
+	return switch (kind) {
+	case NUMBER -> {
+	    final long value = SEDAPExpressBinaryFormat.readZigZag(buffer);
+	    yield (previous != null) ? Long.valueOf((Long) previous + value) : Long.valueOf(value);
+	}
+	case STRING -> SEDAPExpressBinaryFormat.readString(buffer);
+	case SYMBOL -> readSymbol(buffer);
+	case BITS -> SEDAPExpressBinaryFormat.readVarint(buffer);
+	case BYTES -> SEDAPExpressBinaryFormat.readBytes(buffer);
+	};
+    }
+}
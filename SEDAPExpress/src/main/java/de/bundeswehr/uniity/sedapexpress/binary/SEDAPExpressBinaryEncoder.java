@@ -0,0 +1,243 @@
+/**
+ * Note: This license has also been called the “Simplified BSD License” and the “FreeBSD License”.
+ *
+ * Copyright 2024-2025 UNIITY POC: Volker Voß, Federal Armed Forces of Germany
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS “AS IS” AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSEnARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ * OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY
+ * OF SUCH DAMAGE.
+ */
+package de.bundeswehr.uniity.sedapexpress.binary;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import de.bundeswehr.uniity.sedapexpress.binary.SEDAPExpressBinaryFormat.Kind;
+import de.bundeswehr.uniity.sedapexpress.binary.SEDAPExpressBinaryFormat.Output;
+import de.bundeswehr.uniity.sedapexpress.binary.SEDAPExpressBinaryFormat.TrackLayout;
+import de.bundeswehr.uniity.sedapexpress.messages.CONTACT;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage.DeleteFlag;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage.MessageType;
+import de.bundeswehr.uniity.sedapexpress.protobuf.SEDAPExpressProtobufCodec;
+
+/**
+ * Encoder for the compact binary format of SEDAP-Express, see {@link SEDAPExpressBinaryFormat}.
+ * <p>
+ * The encoder keeps the last state of every CONTACT and OWNUNIT track and of the symbol dictionary, so an update only contains the changed
+ * fields, positions, speeds and courses as differences. Therefore one encoder belongs to exactly one stream, the records have to be decoded in
+ * the same order by one {@link SEDAPExpressBinaryDecoder}. After a reconnect both sides have to call reset().
+ * <p>
+ * Numeric values are rounded to 1e-7 degrees for latitude/longitude and to 0.01 for all other values. The encoder is not thread safe.
+ *
+ * @author Volker Voß
+ *
+ */
+public class SEDAPExpressBinaryEncoder {
+
+    private final Output output = new Output();
+
+    private final Map<String, Integer> symbols = new HashMap<>();
+
+    private final EnumMap<MessageType, Map<String, Track>> tracks = new EnumMap<>(MessageType.class);
+
+    private int keyframeInterval = 0;
+
+    /**
+     * Last encoded state of a track
+     */
+    static final class Track {
+
+	Object[] values;
+
+	long presence;
+
+	int updates;
+    }
+
+    /**
+     * Sends every n-th update of a track completely, 0 (default) sends only the first record of a track completely
+     *
+     * @param keyframeInterval interval in updates
+     */
+    public void setKeyframeInterval(int keyframeInterval) {
+
+	if (keyframeInterval < 0) {
+	    throw new IllegalArgumentException("keyframeInterval must not be negative");
+	}
+	this.keyframeInterval = keyframeInterval;
+    }
+
+    public int getKeyframeInterval() {
+	return this.keyframeInterval;
+    }
+
+    /**
+     * @return Number of tracks with a known state
+     */
+    public int getTrackCount() {
+	return this.tracks.values().stream().mapToInt(Map::size).sum();
+    }
+
+    /**
+     * Forgets all tracks and symbols, the next records are complete
+     */
+    public void reset() {
+	this.symbols.clear();
+	this.tracks.clear();
+    }
+
+    /**
+     * Encodes the message as record
+     *
+     * @param message Message to encode
+     * @return encoded record
+     */
+    public byte[] encode(SEDAPExpressMessage message) {
+
+	final MessageType type = message.getMessageType();
+
+	this.output.reset();
+	this.output.write(SEDAPExpressBinaryFormat.header(type));
+
+	final TrackLayout layout = SEDAPExpressBinaryFormat.layout(type);
+	if (layout == null) {
+	    this.output.writeBytes(SEDAPExpressProtobufCodec.encodeContent(message));
+	    return this.output.toByteArray();
+	}
+
+	final String key = layout.key(message);
+	final Object[] values = new Object[layout.kinds.length];
+	layout.values(message, values);
+
+	long presence = 0;
+	for (int i = 0; i < values.length; i++) {
+	    if (values[i] != null) {
+		presence |= 1L << i;
+	    }
+	}
+
+	final Map<String, Track> typeTracks = tracks(type);
+	final String trackKey = (key != null) ? key : SEDAPExpressBinaryFormat.NO_KEY;
+	Track track = typeTracks.get(trackKey);
+
+	final boolean keyframe = (track == null) || ((this.keyframeInterval > 0) && (track.updates >= this.keyframeInterval));
+
+	this.output.write(layout.flags(message) | (keyframe ? SEDAPExpressBinaryFormat.FLAG_KEYFRAME : 0));
+	writeSymbol(key, keyframe);
+
+	if (keyframe) {
+	    this.output.writeVarint(presence);
+	    for (int i = 0; i < values.length; i++) {
+		if (values[i] != null) {
+		    writeValue(layout.kinds[i], values[i], null, true);
+		}
+	    }
+	} else {
+	    long changed = 0;
+	    for (int i = 0; i < values.length; i++) {
+		if ((values[i] != null) && !Objects.deepEquals(values[i], track.values[i])) {
+		    changed |= 1L << i;
+		}
+	    }
+
+	    final boolean presenceChanged = presence != track.presence;
+	    this.output.writeVarint((changed << 1) | (presenceChanged ? 1 : 0));
+	    if (presenceChanged) {
+		this.output.writeVarint(presence);
+	    }
+	    for (int i = 0; i < values.length; i++) {
+		if ((changed & (1L << i)) != 0) {
+		    writeValue(layout.kinds[i], values[i], track.values[i], false);
+		}
+	    }
+	}
+
+	if ((message instanceof CONTACT contact) && (contact.getDeleteFlag() == DeleteFlag.TRUE)) {
+	    typeTracks.remove(trackKey);
+	} else {
+	    if (track == null) {
+		track = new Track();
+		typeTracks.put(trackKey, track);
+	    }
+	    track.values = values;
+	    track.presence = presence;
+	    track.updates = keyframe ? 1 : track.updates + 1;
+	}
+
+	return this.output.toByteArray();
+    }
+
+    private Map<String, Track> tracks(MessageType type) {
+
+	return this.tracks.computeIfAbsent(type, t -> new LinkedHashMap<>(16, 0.75f, true) {
+
+	    private static final long serialVersionUID = 1L;
+
+	    @Override
+	    protected boolean removeEldestEntry(Map.Entry<String, Track> eldest) {
+		return size() > SEDAPExpressBinaryFormat.MAX_TRACKS;
+	    }
+	});
+    }
+
+    /**
+     * Writes 0 for null, 1 followed by the string for a symbol outside the dictionary, 2 followed by the index and the string for a definition or
+     * the index of a known symbol plus 3. Keyframes define their symbols again, so a decoder can start with any keyframe.
+     */
+    private void writeSymbol(String value, boolean keyframe) {
+
+	if (value == null) {
+	    this.output.writeVarint(0);
+	    return;
+	}
+
+	Integer index = this.symbols.get(value);
+	if ((index == null) && (this.symbols.size() < SEDAPExpressBinaryFormat.MAX_SYMBOLS)) {
+	    index = this.symbols.size();
+	    this.symbols.put(value, index);
+	    keyframe = true;
+	}
+
+	if (index == null) {
+	    this.output.writeVarint(1);
+	    this.output.writeString(value);
+	} else if (keyframe) {
+	    this.output.writeVarint(2);
+	    this.output.writeVarint(index);
+	    this.output.writeString(value);
+	} else {
+	    this.output.writeVarint(index + 3L);
+	}
+    }
+
+    private void writeValue(Kind kind, Object value, Object previous, boolean keyframe) {
+
+	switch (kind) {
+	case NUMBER -> this.output.writeZigZag((previous != null) ? ((Long) value - (Long) previous) : (Long) value);
+	case STRING -> this.output.writeString((String) value);
+	case SYMBOL -> writeSymbol((String) value, keyframe);
+	case BITS -> this.output.writeVarint((Long) value);
+	case BYTES -> this.output.writeBytes((byte[]) value);
+	}
+    }
+}
@@ -0,0 +1,378 @@
+/**
+ * Note: This license has also been called the “Simplified BSD License” and the “FreeBSD License”.
+ *
+ * Copyright 2024-2025 UNIITY POC: Volker Voß, Federal Armed Forces of Germany
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS “AS IS” AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSEnARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ * OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY
+ * OF SUCH DAMAGE.
+ */
+package de.bundeswehr.uniity.sedapexpress.binary;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import de.bundeswehr.uniity.sedapexpress.messages.CONTACT;
+import de.bundeswehr.uniity.sedapexpress.messages.CONTACT.Source;
+import de.bundeswehr.uniity.sedapexpress.messages.OWNUNIT;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage.Acknowledgement;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage.Classification;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage.DeleteFlag;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage.MessageType;
+
+/**
+ * Definitions of the compact binary format shared by {@link SEDAPExpressBinaryEncoder} and {@link SEDAPExpressBinaryDecoder}.
+ * <p>
+ * Every record starts with one byte: the format version in the upper 3 bits, the position of the message type in {@link MessageType} in the
+ * lower 5 bits.
+ * <p>
+ * CONTACT and OWNUNIT are track records:
+ * <ul>
+ * <li>flags byte: classification (3 bits), acknowledgement (2 bits), delete flag (2 bits), keyframe (1 bit); 0 means not set</li>
+ * <li>key: contactID for CONTACT, sender for OWNUNIT, as symbol</li>
+ * <li>keyframe: presence mask as varint, followed by all present fields</li>
+ * <li>update: varint with the mask of the changed fields shifted by one, the lowest bit signals a following presence mask; only the changed
+ * fields follow</li>
+ * </ul>
+ * Numeric fields are fixed-point values (latitude/longitude 1e-7 degrees, all others 0.01) written as zigzag varint, as difference to the
+ * previous value of the same track, if there is one. Strings are UTF-8 with varint length, symbols are indices into a dictionary of the stream,
+ * which keyframes define again.
+ * <p>
+ * All other message types are written as varint length and the typed protobuf message of sedapexpress_messages.proto.
+ *
+ * @author Volker Voß
+ *
+ */
+final class SEDAPExpressBinaryFormat {
+
+    static final int VERSION = 1;
+
+    static final int FLAG_KEYFRAME = 0x80;
+
+    /** Maximum number of strings in the symbol dictionary of a stream */
+    static final int MAX_SYMBOLS = 4096;
+
+    /** Maximum number of tracks per message type, the least recently updated track will be dropped */
+    static final int MAX_TRACKS = 65536;
+
+    /** Key of the tracks without key */
+    static final String NO_KEY = "";
+
+    private static final Source[] SOURCES = Source.values();
+    private static final Classification[] CLASSIFICATIONS = Classification.values();
+    private static final Acknowledgement[] ACKNOWLEDGEMENTS = Acknowledgement.values();
+    private static final DeleteFlag[] DELETE_FLAGS = DeleteFlag.values();
+
+    enum Kind {
+	NUMBER, STRING, SYMBOL, BITS, BYTES
+    }
+
+    private SEDAPExpressBinaryFormat() {
+	// static utility class
+    }
+
+    static int header(MessageType type) {
+	return (VERSION << 5) | type.ordinal();
+    }
+
+    static TrackLayout layout(MessageType type) {
+
+	return switch (type) {
+	case CONTACT -> CONTACT_LAYOUT;
+	case OWNUNIT -> OWNUNIT_LAYOUT;
+	default -> null;
+	};
+    }
+
+    /**
+     * Mapping between a message type and the fields of its track record
+     */
+    abstract static class TrackLayout {
+
+	final Kind[] kinds;
+
+	final double[] scales;
+
+	TrackLayout(Kind[] kinds, double[] scales) {
+	    this.kinds = kinds;
+	    this.scales = scales;
+	}
+
+	abstract String key(SEDAPExpressMessage message);
+
+	abstract void values(SEDAPExpressMessage message, Object[] values);
+
+	abstract int flags(SEDAPExpressMessage message);
+
+	abstract SEDAPExpressMessage create(String key, int flags, Object[] values);
+
+	Long quantize(int index, Double value) {
+	    return ((value != null) && Double.isFinite(value)) ? Long.valueOf(Math.round(value * this.scales[index])) : null;
+	}
+
+	Double restore(int index, Object value) {
+	    return (value != null) ? Double.valueOf((Long) value / this.scales[index]) : null;
+	}
+    }
+
+    private static final double POSITION = 1e7;
+    private static final double FIXED = 100.0;
+
+    // number, time, sender, mac, latitude, longitude, altitude, relative x/y/z, speed, course, heading, roll, pitch, width, length, height, name,
+    // source, sidc, mmsi, icao, image data, comment
+    static final TrackLayout CONTACT_LAYOUT = new TrackLayout(
+	    new Kind[] { Kind.NUMBER, Kind.NUMBER, Kind.SYMBOL, Kind.STRING, Kind.NUMBER, Kind.NUMBER, Kind.NUMBER, Kind.NUMBER, Kind.NUMBER, Kind.NUMBER, Kind.NUMBER, Kind.NUMBER, Kind.NUMBER,
+		    Kind.NUMBER, Kind.NUMBER, Kind.NUMBER, Kind.NUMBER, Kind.NUMBER, Kind.STRING, Kind.BITS, Kind.STRING, Kind.STRING, Kind.STRING, Kind.BYTES, Kind.STRING },
+	    new double[] { 1, 1, 0, 0, POSITION, POSITION, FIXED, FIXED, FIXED, FIXED, FIXED, FIXED, FIXED, FIXED, FIXED, FIXED, FIXED, FIXED, 0, 0, 0, 0, 0, 0, 0 }) {
+
+	@Override
+	String key(SEDAPExpressMessage message) {
+	    return ((CONTACT) message).getContactID();
+	}
+
+	@Override
+	void values(SEDAPExpressMessage message, Object[] values) {
+
+	    final CONTACT contact = (CONTACT) message;
+	    header(message, values);
+	    values[2] = message.getSender();
+	    values[3] = message.getMAC();
+	    values[4] = quantize(4, contact.getLatitude());
+	    values[5] = quantize(5, contact.getLongitude());
+	    values[6] = quantize(6, contact.getAltitude());
+	    values[7] = quantize(7, contact.getRelativeXDistance());
+	    values[8] = quantize(8, contact.getRelativeYDistance());
+	    values[9] = quantize(9, contact.getRelativeZDistance());
+	    values[10] = quantize(10, contact.getSpeed());
+	    values[11] = quantize(11, contact.getCourse());
+	    values[12] = quantize(12, contact.getHeading());
+	    values[13] = quantize(13, contact.getRoll());
+	    values[14] = quantize(14, contact.getPitch());
+	    values[15] = quantize(15, contact.getWidth());
+	    values[16] = quantize(16, contact.getLength());
+	    values[17] = quantize(17, contact.getHeight());
+	    values[18] = contact.getName();
+	    if (contact.getSource() != null) {
+		long bits = 0;
+		for (final Source source : contact.getSource()) {
+		    bits |= 1L << source.ordinal();
+		}
+		values[19] = bits;
+	    }
+	    values[20] = (contact.getSIDC() != null) ? String.valueOf(contact.getSIDC()) : null;
+	    values[21] = contact.getMMSI();
+	    values[22] = contact.getICAO();
+	    values[23] = contact.getImageData();
+	    values[24] = contact.getComment();
+	}
+
+	@Override
+	int flags(SEDAPExpressMessage message) {
+	    return SEDAPExpressBinaryFormat.flags(message.getClassification(), message.getAcknowledgement(), ((CONTACT) message).getDeleteFlag());
+	}
+
+	@Override
+	SEDAPExpressMessage create(String key, int flags, Object[] values) {
+
+	    final StringBuilder source = new StringBuilder();
+	    if (values[19] != null) {
+		final long bits = (Long) values[19];
+		for (final Source value : SOURCES) {
+		    if ((bits & (1L << value.ordinal())) != 0) {
+			source.append(value.getSourceValue());
+		    }
+		}
+	    }
+
+	    return new CONTACT(number(values[0]), (Long) values[1], (String) values[2], classification(flags), acknowledgement(flags), (String) values[3], key, deleteFlag(flags), restore(4, values[4]),
+		    restore(5, values[5]), restore(6, values[6]), restore(7, values[7]), restore(8, values[8]), restore(9, values[9]), restore(10, values[10]), restore(11, values[11]), restore(12, values[12]),
+		    restore(13, values[13]), restore(14, values[14]), restore(15, values[15]), restore(16, values[16]), restore(17, values[17]), (String) values[18], source.toString(),
+		    (values[20] != null) ? ((String) values[20]).toCharArray() : null, (String) values[21], (String) values[22], (byte[]) values[23], (String) values[24]);
+	}
+    };
+
+    // number, time, mac, latitude, longitude, altitude, speed, course, heading, roll, pitch, name, sidc
+    static final TrackLayout OWNUNIT_LAYOUT = new TrackLayout(
+	    new Kind[] { Kind.NUMBER, Kind.NUMBER, Kind.STRING, Kind.NUMBER, Kind.NUMBER, Kind.NUMBER, Kind.NUMBER, Kind.NUMBER, Kind.NUMBER, Kind.NUMBER, Kind.NUMBER, Kind.STRING, Kind.STRING },
+	    new double[] { 1, 1, 0, POSITION, POSITION, FIXED, FIXED, FIXED, FIXED, FIXED, FIXED, 0, 0 }) {
+
+	@Override
+	String key(SEDAPExpressMessage message) {
+	    return message.getSender();
+	}
+
+	@Override
+	void values(SEDAPExpressMessage message, Object[] values) {
+
+	    final OWNUNIT ownUnit = (OWNUNIT) message;
+	    header(message, values);
+	    values[2] = message.getMAC();
+	    values[3] = quantize(3, ownUnit.getLatitude());
+	    values[4] = quantize(4, ownUnit.getLongitude());
+	    values[5] = quantize(5, ownUnit.getAltitude());
+	    values[6] = quantize(6, ownUnit.getSpeed());
+	    values[7] = quantize(7, ownUnit.getCourse());
+	    values[8] = quantize(8, ownUnit.getHeading());
+	    values[9] = quantize(9, ownUnit.getRoll());
+	    values[10] = quantize(10, ownUnit.getPitch());
+	    values[11] = ownUnit.getName();
+	    values[12] = (ownUnit.getSIDC() != null) ? String.valueOf(ownUnit.getSIDC()) : null;
+	}
+
+	@Override
+	int flags(SEDAPExpressMessage message) {
+	    return SEDAPExpressBinaryFormat.flags(message.getClassification(), message.getAcknowledgement(), null);
+	}
+
+	@Override
+	SEDAPExpressMessage create(String key, int flags, Object[] values) {
+
+	    return new OWNUNIT(number(values[0]), (Long) values[1], key, classification(flags), acknowledgement(flags), (String) values[2], restore(3, values[3]), restore(4, values[4]), restore(5, values[5]),
+		    restore(6, values[6]), restore(7, values[7]), restore(8, values[8]), restore(9, values[9]), restore(10, values[10]), (String) values[11],
+		    (values[12] != null) ? ((String) values[12]).toCharArray() : null);
+	}
+    };
+
+    private static void header(SEDAPExpressMessage message, Object[] values) {
+	values[0] = (message.getNumber() != null) ? Long.valueOf(message.getNumber() & 0xFF) : null;
+	values[1] = message.getTime();
+    }
+
+    private static Byte number(Object value) {
+	return (value != null) ? Byte.valueOf(((Long) value).byteValue()) : null;
+    }
+
+    static int flags(Classification classification, Acknowledgement acknowledgement, DeleteFlag deleteFlag) {
+	return ((classification != null) ? (classification.ordinal() + 1) : 0) | (((acknowledgement != null) ? (acknowledgement.ordinal() + 1) : 0) << 3)
+		| (((deleteFlag != null) ? (deleteFlag.ordinal() + 1) : 0) << 5);
+    }
+
+    static Classification classification(int flags) {
+	final int value = flags & 0x07;
+	return ((value > 0) && (value <= CLASSIFICATIONS.length)) ? CLASSIFICATIONS[value - 1] : null;
+    }
+
+    static Acknowledgement acknowledgement(int flags) {
+	final int value = (flags >> 3) & 0x03;
+	return ((value > 0) && (value <= 2)) ? ACKNOWLEDGEMENTS[value - 1] : null;
+    }
+
+    static DeleteFlag deleteFlag(int flags) {
+	final int value = (flags >> 5) & 0x03;
+	return ((value > 0) && (value <= 2)) ? DELETE_FLAGS[value - 1] : null;
+    }
+
+    /**
+     * Growable output buffer with varint encoding
+     */
+    static final class Output {
+
+	private byte[] buffer = new byte[256];
+
+	private int size = 0;
+
+	void reset() {
+	    this.size = 0;
+	}
+
+	private void ensure(int additional) {
+	    if ((this.size + additional) > this.buffer.length) {
+		this.buffer = Arrays.copyOf(this.buffer, Math.max(this.buffer.length * 2, this.size + additional));
+	    }
+	}
+
+	void write(int value) {
+	    ensure(1);
+	    this.buffer[this.size++] = (byte) value;
+	}
+
+	void writeVarint(long value) {
+
+	    ensure(10);
+	    while ((value & ~0x7FL) != 0) {
+		this.buffer[this.size++] = (byte) ((value & 0x7F) | 0x80);
+		value >>>= 7;
+	    }
+	    this.buffer[this.size++] = (byte) value;
+	}
+
+	void writeZigZag(long value) {
+	    writeVarint((value << 1) ^ (value >> 63));
+	}
+
+	void writeBytes(byte[] value) {
+	    writeVarint(value.length);
+	    writeRaw(value);
+	}
+
+	void writeRaw(byte[] value) {
+	    ensure(value.length);
+	    System.arraycopy(value, 0, this.buffer, this.size, value.length);
+	    this.size += value.length;
+	}
+
+	void writeString(String value) {
+	    writeBytes(value.getBytes(StandardCharsets.UTF_8));
+	}
+
+	byte[] toByteArray() {
+	    return Arrays.copyOf(this.buffer, this.size);
+	}
+    }
+
+    static long readVarint(ByteBuffer buffer) throws IOException {
+
+	long result = 0;
+	for (int shift = 0; shift < 64; shift += 7) {
+	    if (!buffer.hasRemaining()) {
+		throw new IOException("Truncated SEDAP-Express binary record");
+	    }
+	    final byte b = buffer.get();
+	    result |= (long) (b & 0x7F) << shift;
+	    if (b >= 0) {
+		return result;
+	    }
+	}
+
+	throw new IOException("Malformed varint in SEDAP-Express binary record");
+    }
+
+    static long readZigZag(ByteBuffer buffer) throws IOException {
+	final long value = readVarint(buffer);
+	return (value >>> 1) ^ -(value & 1);
+    }
+
+    static byte[] readBytes(ByteBuffer buffer) throws IOException {
+
+	final long length = readVarint(buffer);
+	if ((length < 0) || (length > buffer.remaining())) {
+	    throw new IOException("Truncated SEDAP-Express binary record");
+	}
+	final byte[] result = new byte[(int) length];
+	buffer.get(result);
+	return result;
+    }
+
+    static String readString(ByteBuffer buffer) throws IOException {
+	return new String(readBytes(buffer), StandardCharsets.UTF_8);
+    }
+}
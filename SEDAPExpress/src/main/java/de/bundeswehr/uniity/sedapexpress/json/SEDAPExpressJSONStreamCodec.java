@@ -0,0 +1,132 @@
+/**
+ * Note: This license has also been called the “Simplified BSD License” and the “FreeBSD License”.
+ *
+ * Copyright 2024-2025 UNIITY POC: Volker Voß, Federal Armed Forces of Germany
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS “AS IS” AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSEnARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ * OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY
+ * OF SUCH DAMAGE.
+ */
+package de.bundeswehr.uniity.sedapexpress.json;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Streaming codec for batches of SEDAP-Express messages in the JSON format {"messages":[{"message":"..."}, ...]}.
+ * <p>
+ * Unlike {@link SEDAPExpressJSONMessage}, the batch is never held completely in memory: while decoding, every message is handed over as soon as
+ * it has been read from the stream; while encoding, every message is written directly to the stream.
+ *
+ * @author Volker Voß
+ *
+ */
+public class SEDAPExpressJSONStreamCodec {
+
+    private SEDAPExpressJSONStreamCodec() {
+	// static utility class
+    }
+
+    /**
+     * Reads a JSON batch from the stream and hands over every contained message immediately.
+     *
+     * @param inputStream Stream with the UTF-8 encoded JSON batch
+     * @param consumer    Consumer for the serialized SEDAP-Express messages
+     * @return number of read messages
+     * @throws IOException Stream could not be read or does not contain a valid JSON batch
+     */
+    public static int read(InputStream inputStream, Consumer<String> consumer) throws IOException {
+
+	int count = 0;
+
+	try (JsonReader reader = new JsonReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+
+	    reader.beginObject();
+	    while (reader.hasNext()) {
+
+		if ("messages".equals(reader.nextName()) && (reader.peek() == JsonToken.BEGIN_ARRAY)) {
+
+		    reader.beginArray();
+		    while (reader.hasNext()) {
+
+			reader.beginObject();
+			while (reader.hasNext()) {
+			    if ("message".equals(reader.nextName()) && (reader.peek() == JsonToken.STRING)) {
+				consumer.accept(reader.nextString());
+				count++;
+			    } else {
+				reader.skipValue();
+			    }
+			}
+			reader.endObject();
+		    }
+		    reader.endArray();
+
+		} else {
+		    reader.skipValue();
+		}
+	    }
+	    reader.endObject();
+	} catch (IllegalStateException e) {
+	    throw new IOException("Invalid SEDAP-Express JSON batch", e);
+	}
+
+	return count;
+    }
+
+    /**
+     * Writes the messages as JSON batch to the stream. The stream will be closed afterwards.
+     *
+     * @param outputStream Stream for the UTF-8 encoded JSON batch
+     * @param messages     Messages to write, every element will be serialized with toString()
+     * @return number of written messages
+     * @throws IOException Stream could not be written
+     */
+    public static int write(OutputStream outputStream, Iterable<?> messages) throws IOException {
+
+	int count = 0;
+
+	try (JsonWriter writer = new JsonWriter(new OutputStreamWriter(new BufferedOutputStream(outputStream), StandardCharsets.UTF_8))) {
+
+	    writer.beginObject();
+	    writer.name("messages");
+	    writer.beginArray();
+	    for (final Object message : messages) {
+		writer.beginObject();
+		writer.name("message").value(message.toString());
+		writer.endObject();
+		count++;
+	    }
+	    writer.endArray();
+	    writer.endObject();
+	}
+
+	return count;
+    }
+}
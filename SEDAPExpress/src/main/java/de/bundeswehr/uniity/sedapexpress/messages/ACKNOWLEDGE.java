@@ -146,6 +146,11 @@ public class ACKNOWLEDGE extends SEDAPExpressMessage {
 	}
     }
 
+    @Override
+    public MessageType getMessageType() {
+	return MessageType.ACKNOWLEDGE;
+    }
+
     @Override
     public boolean equals(Object obj) {
 
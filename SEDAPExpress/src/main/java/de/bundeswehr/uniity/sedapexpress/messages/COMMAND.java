@@ -297,6 +297,11 @@ public class COMMAND extends SEDAPExpressMessage {
 
     }
 
+    @Override
+    public MessageType getMessageType() {
+	return MessageType.COMMAND;
+    }
+
     @Override
     public boolean equals(Object obj) {
 
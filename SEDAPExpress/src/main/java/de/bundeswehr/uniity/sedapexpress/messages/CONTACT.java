@@ -789,6 +789,11 @@ public class CONTACT extends SEDAPExpressMessage {
 	}
     }
 
+    @Override
+    public MessageType getMessageType() {
+	return MessageType.CONTACT;
+    }
+
     @Override
     public boolean equals(Object obj) {
 
@@ -691,6 +691,11 @@ public class EMISSION extends SEDAPExpressMessage {
 	}
     }
 
+    @Override
+    public MessageType getMessageType() {
+	return MessageType.EMISSION;
+    }
+
     @Override
     public boolean equals(Object obj) {
 	if (obj == null) {
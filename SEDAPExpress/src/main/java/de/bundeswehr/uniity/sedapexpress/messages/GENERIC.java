@@ -149,14 +149,17 @@ public class GENERIC extends SEDAPExpressMessage {
 	    value = message.next();
 	    if (value.isEmpty()) {
 		SEDAPExpressMessage.logger.logp(Level.SEVERE, "GENERIC", "GENERIC(Iterator<String> message)", "Mandatory field \"content\" is empty!");
-	    } else if (SEDAPExpressMessage.matchesPattern(SEDAPExpressMessage.NUMBER_MATCHER, value)) {
+	    } else {
 		this.content = value;
-	    } else if (!value.isBlank()) {
-		SEDAPExpressMessage.logger.logp(Level.SEVERE, "GENERIC", "GENERIC(Iterator<String> message)", "Mandatory field \"content\" contains invalid value!", value);
 	    }
 	}
     }
 
+    @Override
+    public MessageType getMessageType() {
+	return MessageType.GENERIC;
+    }
+
     @Override
     public boolean equals(Object obj) {
 
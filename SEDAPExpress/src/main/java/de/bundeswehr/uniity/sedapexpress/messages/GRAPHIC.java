@@ -352,6 +352,11 @@ public class GRAPHIC extends SEDAPExpressMessage {
 
     }
 
+    @Override
+    public MessageType getMessageType() {
+	return MessageType.GRAPHIC;
+    }
+
     @Override
     public boolean equals(Object obj) {
 
@@ -152,6 +152,11 @@ public class HEARTBEAT extends SEDAPExpressMessage {
 
     }
 
+    @Override
+    public MessageType getMessageType() {
+	return MessageType.HEARTBEAT;
+    }
+
     @Override
     public boolean equals(Object obj) {
 
@@ -373,6 +373,11 @@ public class KEYEXCHANGE extends SEDAPExpressMessage {
 
     }
 
+    @Override
+    public MessageType getMessageType() {
+	return MessageType.KEYEXCHANGE;
+    }
+
     @Override
     public boolean equals(Object obj) {
 	if (obj == null) {
@@ -393,6 +393,11 @@ public class METEO extends SEDAPExpressMessage {
 	}
     }
 
+    @Override
+    public MessageType getMessageType() {
+	return MessageType.METEO;
+    }
+
     @Override
     public boolean equals(Object obj) {
 	if (obj == null) {
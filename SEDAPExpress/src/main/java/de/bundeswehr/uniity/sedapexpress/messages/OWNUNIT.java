@@ -309,6 +309,11 @@ public class OWNUNIT extends SEDAPExpressMessage {
 
     }
 
+    @Override
+    public MessageType getMessageType() {
+	return MessageType.OWNUNIT;
+    }
+
     @Override
     public boolean equals(Object obj) {
 
@@ -145,6 +145,11 @@ public class RESEND extends SEDAPExpressMessage {
 	}
     }
 
+    @Override
+    public MessageType getMessageType() {
+	return MessageType.RESEND;
+    }
+
     @Override
     public boolean equals(Object obj) {
 
@@ -58,6 +58,17 @@ public abstract class SEDAPExpressMessage implements Comparable<SEDAPExpressMess
 
 	ACKNOWLEDGE, COMMAND, CONTACT, EMISSION, GENERIC, GRAPHIC, HEARTBEAT, KEYEXCHANGE, METEO, OWNUNIT, RESEND, STATUS, TEXT, TIMESYNC;
 
+	private final String wireName = name();
+
+	/**
+	 * Returns the name of the message type in the text format and in MQTT topics
+	 *
+	 * @return name, e.g. "CONTACT"
+	 */
+	public String getWireName() {
+	    return this.wireName;
+	}
+
 	public static MessageType valueOfMessageType(String type) {
 	    return MessageType.valueOf(type.toUpperCase());
 	}
@@ -243,14 +254,37 @@ public abstract class SEDAPExpressMessage implements Comparable<SEDAPExpressMess
 	this.mac = mac;
     }
 
+    /**
+     * Returns the type of the message. Every message class returns its constant type, the name of the class is only evaluated once for other
+     * subclasses.
+     *
+     * @return type of the message
+     */
     public MessageType getMessageType() {
-	return MessageType.valueOfMessageType(this.getClass().getSimpleName());
+	return SEDAPExpressMessage.messageTypes.get(this.getClass());
+    }
+
+    private static final ClassValue<MessageType> messageTypes = new ClassValue<>() {
+
+	@Override
+	protected MessageType computeValue(Class<?> type) {
+	    return MessageType.valueOfMessageType(type.getSimpleName());
+	}
+    };
+
+    /**
+     * Returns the name of the message type in the text format
+     *
+     * @return name, e.g. "CONTACT"
+     */
+    public String getWireName() {
+	return getMessageType().getWireName();
     }
 
     @Override
     public int compareTo(final SEDAPExpressMessage otherMessage) {
 
-	return this.getClass().getSimpleName().compareTo(otherMessage.getClass().getSimpleName());
+	return getWireName().compareTo(otherMessage.getWireName());
     }
 
     @Override
@@ -748,7 +782,7 @@ public abstract class SEDAPExpressMessage implements Comparable<SEDAPExpressMess
 
     protected StringBuilder serializeHeader() {
 
-	StringBuilder result = new StringBuilder(this.getClass().getSimpleName()).append(';');
+	StringBuilder result = new StringBuilder(getWireName()).append(';');
 
 	if (this.number != null) {
 	    result.append(SEDAPExpressMessage.HexFormater.toHexDigits(this.number));
@@ -537,6 +537,11 @@ public class STATUS extends SEDAPExpressMessage {
 
     }
 
+    @Override
+    public MessageType getMessageType() {
+	return MessageType.STATUS;
+    }
+
     @Override
     public boolean equals(Object obj) {
 
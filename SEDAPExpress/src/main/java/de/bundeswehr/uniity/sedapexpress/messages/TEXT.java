@@ -244,6 +244,11 @@ public class TEXT extends SEDAPExpressMessage {
 
     }
 
+    @Override
+    public MessageType getMessageType() {
+	return MessageType.TEXT;
+    }
+
     @Override
     public boolean equals(Object obj) {
 
@@ -111,6 +111,11 @@ public class TIMESYNC extends SEDAPExpressMessage {
 	}
     }
 
+    @Override
+    public MessageType getMessageType() {
+	return MessageType.TIMESYNC;
+    }
+
     @Override
     public boolean equals(Object obj) {
 
@@ -0,0 +1,433 @@
+/**
+ * Note: This license has also been called the “Simplified BSD License” and the “FreeBSD License”.
+ *
+ * Copyright 2024-2025 UNIITY POC: Volker Voß, Federal Armed Forces of Germany
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS “AS IS” AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSEnARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ * OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY
+ * OF SUCH DAMAGE.
+ */
+package de.bundeswehr.uniity.sedapexpress.network;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.google.protobuf.CodedOutputStream;
+
+import de.bundeswehr.uniity.sedapexpress.messages.GENERIC;
+import de.bundeswehr.uniity.sedapexpress.messages.GENERIC.ContentType;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage.DataEncoding;
+import de.bundeswehr.uniity.sedapexpress.protobuf.SEDAPExpressProtobufCodec;
+import de.bundeswehr.uniity.sedapexpress.utils.CompressUtils;
+
+/**
+ * Capabilities of a SEDAP-Express node, exchanged at the start of a connection.
+ * <p>
+ * Both sides send their capabilities as first message, a GENERIC message with the content type ASCII and the content
+ * "SEDAPEXPRESS-CAPABILITIES V1 ENCODINGS=... COMPRESSION=... MAXFRAMESIZE=... BATCHING=...". Until the capabilities of the peer have been
+ * received, only the plain SEDAP-Express text format is used. A legacy node never sends its capabilities, so the connection stays at the text
+ * format, and just receives an ordinary GENERIC message.
+ * <p>
+ * The result of {@link #negotiate(SEDAPExpressCapabilities)} is the same on both sides: the best common encoding and compression, the smaller
+ * maximum frame size and batching only if both sides support it. Every line or frame based transport (TCP, WebSocket, serial lines) can use
+ * the same exchange.
+ *
+ * @author Volker Voß
+ *
+ */
+public final class SEDAPExpressCapabilities {
+
+    /**
+     * Prefix of the content of the GENERIC message
+     */
+    public static final String PREFIX = "SEDAPEXPRESS-CAPABILITIES";
+
+    /**
+     * Version of the capability exchange
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Encodings of the messages, in ascending order of preference
+     */
+    public enum Encoding {
+
+	/**
+	 * SEDAP-Express text format
+	 */
+	TEXT,
+
+	/**
+	 * Deflate compressed text format in Base64, see CompressUtils
+	 */
+	COMPRESSED,
+
+	/**
+	 * Compact binary format of SEDAPExpressBinaryEncoder
+	 */
+	BINARY,
+
+	/**
+	 * Typed protobuf messages of SEDAPExpressProtobufCodec
+	 */
+	PROTOBUF
+    }
+
+    /**
+     * Compression algorithms, in ascending order of preference
+     */
+    public enum Compression {
+	NONE, DEFLATE, GZIP
+    }
+
+    /**
+     * Capabilities of a node without capability exchange: text format, batches of lines in one frame
+     */
+    public static final SEDAPExpressCapabilities LEGACY = new SEDAPExpressCapabilities(EnumSet.of(Encoding.TEXT), EnumSet.of(Compression.NONE), 0, true);
+
+    private final Set<Encoding> encodings;
+
+    private final Set<Compression> compressions;
+
+    private final int maxFrameSize;
+
+    private final boolean batching;
+
+    /**
+     * Instantiate new capabilities, TEXT and NONE are always supported
+     *
+     * @param encodings    Supported encodings
+     * @param compressions Supported compression algorithms
+     * @param maxFrameSize Maximum size of a received frame in bytes, 0 if unlimited
+     * @param batching     true, if several messages can be received in one frame
+     */
+    public SEDAPExpressCapabilities(Collection<Encoding> encodings, Collection<Compression> compressions, int maxFrameSize, boolean batching) {
+
+	if (maxFrameSize < 0) {
+	    throw new IllegalArgumentException("maxFrameSize must not be negative");
+	}
+
+	this.encodings = EnumSet.of(Encoding.TEXT);
+	this.encodings.addAll(encodings);
+	this.compressions = EnumSet.of(Compression.NONE);
+	this.compressions.addAll(compressions);
+	this.maxFrameSize = maxFrameSize;
+	this.batching = batching;
+    }
+
+    public Set<Encoding> getEncodings() {
+	return EnumSet.copyOf(this.encodings);
+    }
+
+    public Set<Compression> getCompressions() {
+	return EnumSet.copyOf(this.compressions);
+    }
+
+    public int getMaxFrameSize() {
+	return this.maxFrameSize;
+    }
+
+    public boolean isBatching() {
+	return this.batching;
+    }
+
+    public boolean supports(Encoding encoding) {
+	return this.encodings.contains(encoding);
+    }
+
+    /**
+     * Returns the preferred encoding, after the negotiation the encoding of the connection
+     *
+     * @return encoding
+     */
+    public Encoding getEncoding() {
+	return SEDAPExpressCapabilities.last(this.encodings, Encoding.TEXT);
+    }
+
+    /**
+     * Returns the preferred compression, after the negotiation the compression of the connection
+     *
+     * @return compression
+     */
+    public Compression getCompression() {
+	return SEDAPExpressCapabilities.last(this.compressions, Compression.NONE);
+    }
+
+    /**
+     * Determines the capabilities of a connection
+     *
+     * @param peer Capabilities of the peer, LEGACY if the peer has not sent any
+     * @return capabilities with only one encoding and compression
+     */
+    public SEDAPExpressCapabilities negotiate(SEDAPExpressCapabilities peer) {
+
+	final EnumSet<Compression> compression = EnumSet.copyOf(this.compressions);
+	compression.retainAll(peer.compressions);
+	final Compression selectedCompression = SEDAPExpressCapabilities.last(compression, Compression.NONE);
+
+	final EnumSet<Encoding> encoding = EnumSet.copyOf(this.encodings);
+	encoding.retainAll(peer.encodings);
+	if (selectedCompression == Compression.NONE) {
+	    encoding.remove(Encoding.COMPRESSED);
+	}
+	final Encoding selectedEncoding = SEDAPExpressCapabilities.last(encoding, Encoding.TEXT);
+
+	final int frameSize;
+	if ((this.maxFrameSize == 0) || (peer.maxFrameSize == 0)) {
+	    frameSize = Math.max(this.maxFrameSize, peer.maxFrameSize);
+	} else {
+	    frameSize = Math.min(this.maxFrameSize, peer.maxFrameSize);
+	}
+
+	return new SEDAPExpressCapabilities(EnumSet.of(selectedEncoding), EnumSet.of(selectedCompression), frameSize, this.batching && peer.batching);
+    }
+
+    /**
+     * Returns the capabilities without the encodings and compressions a transport cannot use
+     *
+     * @param encodings    Encodings of the transport
+     * @param compressions Compressions of the transport
+     * @return restricted capabilities
+     */
+    public SEDAPExpressCapabilities restrict(Collection<Encoding> encodings, Collection<Compression> compressions) {
+
+	final EnumSet<Encoding> encoding = EnumSet.copyOf(this.encodings);
+	encoding.retainAll(encodings);
+	final EnumSet<Compression> compression = EnumSet.copyOf(this.compressions);
+	compression.retainAll(compressions);
+
+	return new SEDAPExpressCapabilities(encoding, compression, this.maxFrameSize, this.batching);
+    }
+
+    /**
+     * Creates the GENERIC message of the capability exchange
+     *
+     * @param sender Sender of the message, may be null
+     * @return message
+     */
+    public GENERIC toMessage(String sender) {
+
+	final String content = SEDAPExpressCapabilities.PREFIX + " V" + SEDAPExpressCapabilities.VERSION + " ENCODINGS=" + join(this.encodings) + " COMPRESSION=" + join(this.compressions)
+		+ " MAXFRAMESIZE=" + this.maxFrameSize + " BATCHING=" + (this.batching ? "TRUE" : "FALSE");
+
+	return new GENERIC((byte) 0, System.currentTimeMillis(), sender, null, null, null, ContentType.ASCII, DataEncoding.NONE, content);
+    }
+
+    /**
+     * Reads the capabilities of the peer from a received message
+     *
+     * @param message Received message
+     * @return capabilities or null, if the message is not a message of the capability exchange
+     */
+    public static SEDAPExpressCapabilities fromMessage(SEDAPExpressMessage message) {
+
+	if (!(message instanceof GENERIC generic) || (generic.getContent() == null) || !generic.getContent().startsWith(SEDAPExpressCapabilities.PREFIX + " ")) {
+	    return null;
+	}
+
+	final Set<Encoding> encodings = EnumSet.noneOf(Encoding.class);
+	final Set<Compression> compressions = EnumSet.noneOf(Compression.class);
+	int maxFrameSize = 0;
+	boolean batching = false;
+
+	// Unknown values and parameters of newer versions are ignored
+	for (String parameter : generic.getContent().substring(SEDAPExpressCapabilities.PREFIX.length()).trim().split("\\s+")) {
+
+	    final int index = parameter.indexOf('=');
+	    if (index < 0) {
+		continue;
+	    }
+
+	    final String value = parameter.substring(index + 1);
+	    switch (parameter.substring(0, index).toUpperCase(Locale.ROOT)) {
+	    case "ENCODINGS" -> {
+		for (String name : value.split(",")) {
+		    for (Encoding encoding : Encoding.values()) {
+			if (encoding.name().equalsIgnoreCase(name)) {
+			    encodings.add(encoding);
+			}
+		    }
+		}
+	    }
+	    case "COMPRESSION" -> {
+		for (String name : value.split(",")) {
+		    for (Compression compression : Compression.values()) {
+			if (compression.name().equalsIgnoreCase(name)) {
+			    compressions.add(compression);
+			}
+		    }
+		}
+	    }
+	    case "MAXFRAMESIZE" -> {
+		try {
+		    maxFrameSize = Math.max(0, Integer.parseInt(value));
+		} catch (NumberFormatException e) {
+		    maxFrameSize = 0;
+		}
+	    }
+	    case "BATCHING" -> batching = "TRUE".equalsIgnoreCase(value);
+	    default -> {
+		// Parameter of a newer version
+	    }
+	    }
+	}
+
+	return new SEDAPExpressCapabilities(encodings, compressions, maxFrameSize, batching);
+    }
+
+    /**
+     * Reads the capabilities of the peer from a received line. Only lines containing the prefix are decoded, so the capability exchange can be
+     * handled by the receiving thread before the other lines are handed over for decoding.
+     *
+     * @param line Received line
+     * @return capabilities or null, if the line is not a message of the capability exchange
+     */
+    static SEDAPExpressCapabilities fromLine(String line) {
+
+	if (!line.contains(SEDAPExpressCapabilities.PREFIX)) {
+	    return null;
+	}
+	return SEDAPExpressCapabilities.fromMessage(SEDAPExpressCapabilities.decodeLine(line));
+    }
+
+    /**
+     * Decodes a received line, lines without a field separator are compressed messages
+     *
+     * @param line Received line
+     * @return message or null, if the line could not be decoded
+     */
+    static SEDAPExpressMessage decodeLine(String line) {
+
+	if (!line.isEmpty() && (line.indexOf(';') < 0)) {
+	    return CompressUtils.decompressMessage(line);
+	}
+	return SEDAPExpressMessage.deserialize(line);
+    }
+
+    /**
+     * Encodes a message as line without line feed
+     *
+     * @param message    Message to encode
+     * @param connection Negotiated capabilities or null
+     * @return line
+     */
+    static String encodeLine(SEDAPExpressMessage message, SEDAPExpressCapabilities connection) {
+
+	if ((connection != null) && (connection.getEncoding() == Encoding.COMPRESSED)) {
+	    return CompressUtils.compressMessage(message);
+	}
+	return message.toString();
+    }
+
+    /**
+     * Creates the payloads of the frames for the messages: the lines separated by line feeds or the entries of a protobuf Batch. Without
+     * batching every message gets its own frame, otherwise a frame is filled up to the maximum frame size.
+     *
+     * @param messages   Messages to send
+     * @param connection Negotiated capabilities or null for a legacy connection
+     * @return payloads
+     */
+    static List<byte[]> createPayloads(Collection<SEDAPExpressMessage> messages, SEDAPExpressCapabilities connection) {
+
+	final SEDAPExpressCapabilities capabilities = (connection != null) ? connection : SEDAPExpressCapabilities.LEGACY;
+	final boolean protobuf = capabilities.getEncoding() == Encoding.PROTOBUF;
+
+	final List<byte[]> payloads = new ArrayList<>();
+	final ByteArrayOutputStream payload = new ByteArrayOutputStream();
+
+	try {
+	    for (SEDAPExpressMessage message : messages) {
+
+		final byte[] part;
+		if (protobuf) {
+		    final ByteArrayOutputStream entry = new ByteArrayOutputStream();
+		    final CodedOutputStream output = CodedOutputStream.newInstance(entry);
+		    SEDAPExpressProtobufCodec.writeBatchEntry(output, message);
+		    output.flush();
+		    part = entry.toByteArray();
+		} else {
+		    part = SEDAPExpressCapabilities.encodeLine(message, connection).getBytes(StandardCharsets.UTF_8);
+		}
+
+		final int separator = (protobuf || (payload.size() == 0)) ? 0 : 1;
+		if ((payload.size() > 0) && (!capabilities.batching || ((capabilities.maxFrameSize > 0) && ((payload.size() + separator + part.length) > capabilities.maxFrameSize)))) {
+		    payloads.add(payload.toByteArray());
+		    payload.reset();
+		} else if (separator > 0) {
+		    payload.write('\n');
+		}
+		payload.write(part);
+	    }
+	} catch (IOException e) {
+	    throw new UncheckedIOException(e);
+	}
+
+	if (payload.size() > 0) {
+	    payloads.add(payload.toByteArray());
+	}
+
+	return payloads;
+    }
+
+    private static <E> E last(Set<E> values, E defaultValue) {
+
+	E result = defaultValue;
+	for (E value : values) {
+	    result = value;
+	}
+	return result;
+    }
+
+    private static String join(Set<? extends Enum<?>> values) {
+	return values.stream().map(Enum::name).collect(Collectors.joining(","));
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+
+	if (this == obj) {
+	    return true;
+	}
+	if (!(obj instanceof SEDAPExpressCapabilities other)) {
+	    return false;
+	}
+	return this.encodings.equals(other.encodings) && this.compressions.equals(other.compressions) && (this.maxFrameSize == other.maxFrameSize) && (this.batching == other.batching);
+    }
+
+    @Override
+    public int hashCode() {
+	return Objects.hash(this.encodings, this.compressions, this.maxFrameSize, this.batching);
+    }
+
+    @Override
+    public String toString() {
+	return "ENCODINGS=" + join(this.encodings) + " COMPRESSION=" + join(this.compressions) + " MAXFRAMESIZE=" + this.maxFrameSize + " BATCHING=" + (this.batching ? "TRUE" : "FALSE");
+    }
+}
@@ -32,11 +32,14 @@ import java.util.Arrays;
 import java.util.Base64;
 import java.util.Calendar;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HexFormat;
+import java.util.Map;
 import java.util.Set;
 import java.util.TimeZone;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -108,10 +111,34 @@ public abstract class SEDAPExpressCommunicator {
 	this.outputLogger.forEach(il -> il.processSEDAPExpressOutputLoggingMessage(message));
     }
 
-    protected ConcurrentHashMap<MessageType, Set<SEDAPExpressSubscriber>> subscriptions = new ConcurrentHashMap<>();
+    /**
+     * Subscribers per message type. The map is an EnumMap created by {@link #createSubscriptions()}, it contains a set for every message type
+     * and is never changed afterwards, so it can be read without locking, only the sets are changed.
+     */
+    protected Map<MessageType, Set<SEDAPExpressSubscriber>> subscriptions = SEDAPExpressCommunicator.createSubscriptions();
+
+    /**
+     * Returns the subscribers per message type. The map itself can not be changed, the subscriptions are changed by
+     * {@link #subscribeMessages(SEDAPExpressSubscriber, Collection)} and {@link #unsubscribeMessages(SEDAPExpressSubscriber, Collection)}.
+     *
+     * @return subscribers per message type
+     */
+    public Map<MessageType, Set<SEDAPExpressSubscriber>> getSubscriptions() {
+	return Collections.unmodifiableMap(this.subscriptions);
+    }
+
+    /**
+     * Creates a subscription table with an empty set for every message type
+     *
+     * @return subscription table
+     */
+    protected static EnumMap<MessageType, Set<SEDAPExpressSubscriber>> createSubscriptions() {
 
-    public ConcurrentHashMap<MessageType, Set<SEDAPExpressSubscriber>> getSubscriptions() {
-	return this.subscriptions;
+	final EnumMap<MessageType, Set<SEDAPExpressSubscriber>> subscriptions = new EnumMap<>(MessageType.class);
+	for (MessageType type : MessageType.values()) {
+	    subscriptions.put(type, new CopyOnWriteArraySet<>());
+	}
+	return subscriptions;
     }
 
     /**
@@ -122,12 +149,7 @@ public abstract class SEDAPExpressCommunicator {
      */
     public void subscribeMessages(SEDAPExpressSubscriber subscriber, Collection<MessageType> clazzes) {
 
-	clazzes.forEach(clazz -> {
-
-	    this.subscriptions.computeIfAbsent(clazz, x -> new CopyOnWriteArraySet<SEDAPExpressSubscriber>());
-
-	    this.subscriptions.get(clazz).add(subscriber);
-	});
+	clazzes.forEach(clazz -> this.subscriptions.get(clazz).add(subscriber));
 
     }
 
@@ -150,12 +172,7 @@ public abstract class SEDAPExpressCommunicator {
      * @param clazzes    Collection of message types which should be unsubscribe
      */
     public void unsubscribeMessages(SEDAPExpressSubscriber subscriber, Collection<MessageType> clazzes) {
-	clazzes.forEach(clazz ->
-
-	this.subscriptions.computeIfPresent(clazz, (x, value) -> {
-	    value.remove(subscriber);
-	    return value;
-	}));
+	clazzes.forEach(clazz -> this.subscriptions.get(clazz).remove(subscriber));
     }
 
     /**
@@ -185,8 +202,71 @@ public abstract class SEDAPExpressCommunicator {
      */
     protected void distributeReceivedSEDAPExpressMessage(SEDAPExpressMessage message) {
 
-	if ((message != null) && this.subscriptions.containsKey(message.getMessageType())) {
-	    this.subscriptions.get(message.getMessageType()).forEach(subscriber -> subscriber.processSEDAPExpressMessage(message));
+	if (message != null) {
+	    for (SEDAPExpressSubscriber subscriber : this.subscriptions.get(message.getMessageType())) {
+		subscriber.processSEDAPExpressMessage(message);
+	    }
+	}
+    }
+
+    protected volatile SEDAPExpressReceivePipeline receivePipeline = null;
+
+    /**
+     * Enables the staged receive pipeline with one decode thread per available processor
+     *
+     * @return the new pipeline
+     */
+    public SEDAPExpressReceivePipeline enableReceivePipeline() {
+	return enableReceivePipeline(SEDAPExpressReceivePipeline.DEFAULT_BUFFER_SIZE, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Enables the staged receive pipeline: the received frames are decoded in parallel and distributed in the received order by one thread, see
+     * {@link SEDAPExpressReceivePipeline}. An already enabled pipeline will be closed.
+     *
+     * @param bufferSize    Number of slots of the ring
+     * @param decodeThreads Number of decode threads
+     * @return the new pipeline
+     */
+    public SEDAPExpressReceivePipeline enableReceivePipeline(int bufferSize, int decodeThreads) {
+
+	final SEDAPExpressReceivePipeline pipeline = new SEDAPExpressReceivePipeline(bufferSize, decodeThreads, this::distributeReceivedSEDAPExpressMessage);
+	final SEDAPExpressReceivePipeline old = this.receivePipeline;
+	this.receivePipeline = pipeline;
+	if (old != null) {
+	    old.close();
+	}
+	return pipeline;
+    }
+
+    /**
+     * Disables the staged receive pipeline, the received frames will be decoded and distributed by the receive thread again
+     */
+    public void disableReceivePipeline() {
+
+	final SEDAPExpressReceivePipeline old = this.receivePipeline;
+	this.receivePipeline = null;
+	if (old != null) {
+	    old.close();
+	}
+    }
+
+    public SEDAPExpressReceivePipeline getReceivePipeline() {
+	return this.receivePipeline;
+    }
+
+    /**
+     * Handles a received frame: publishes it to the receive pipeline, if enabled, otherwise decodes and distributes it directly
+     *
+     * @param <F>     Type of the frame
+     * @param frame   Received frame
+     * @param decoder Decoder of the frame, returns null for frames which must not be distributed
+     */
+    protected <F> void receiveFrame(F frame, Function<? super F, SEDAPExpressMessage> decoder) {
+
+	final SEDAPExpressReceivePipeline pipeline = this.receivePipeline;
+	if ((pipeline == null) || !pipeline.publish(frame, decoder)) {
+	    distributeReceivedSEDAPExpressMessage(decoder.apply(frame));
 	}
     }
 
@@ -0,0 +1,155 @@
+/**
+ * Note: This license has also been called the “Simplified BSD License” and the “FreeBSD License”.
+ *
+ * Copyright 2024-2025 UNIITY POC: Volker Voß, Federal Armed Forces of Germany
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS “AS IS” AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSEnARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ * OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY
+ * OF SUCH DAMAGE.
+ */
+package de.bundeswehr.uniity.sedapexpress.network;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency metrics of a communicator (e.g. the request latency of the REST server).
+ * <p>
+ * The latencies are counted in a histogram with power-of-two buckets in microseconds, so percentiles are estimated with a resolution of a
+ * factor of two, which is sufficient for sizing gateways.
+ *
+ * @author Volker Voß
+ *
+ */
+public class SEDAPExpressLatencyMetrics {
+
+    private static final int BUCKETS = 40;
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final LongAdder totalNanos = new LongAdder();
+
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    private final AtomicLongArray histogram = new AtomicLongArray(SEDAPExpressLatencyMetrics.BUCKETS);
+
+    /**
+     * Records the latency of one processed request
+     *
+     * @param nanos Latency in nanoseconds
+     */
+    public void record(long nanos) {
+
+	final long micros = Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos));
+
+	this.count.increment();
+	this.totalNanos.add(nanos);
+	this.maxNanos.accumulate(nanos);
+	this.histogram.incrementAndGet(Math.min(SEDAPExpressLatencyMetrics.BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros)));
+    }
+
+    /**
+     * Records one rejected request
+     */
+    public void recordRejected() {
+	this.rejected.increment();
+    }
+
+    public long getCount() {
+	return this.count.sum();
+    }
+
+    public long getRejected() {
+	return this.rejected.sum();
+    }
+
+    /**
+     * Returns the mean latency
+     *
+     * @return mean latency in milliseconds
+     */
+    public double getMeanMillis() {
+
+	final long n = this.count.sum();
+
+	return (n == 0) ? 0.0 : (this.totalNanos.sum() / (double) n) / 1000000.0;
+    }
+
+    /**
+     * Returns the maximum latency
+     *
+     * @return maximum latency in milliseconds
+     */
+    public double getMaxMillis() {
+	return this.maxNanos.get() / 1000000.0;
+    }
+
+    /**
+     * Estimates a percentile of the latency (upper bound of the histogram bucket)
+     *
+     * @param percentile Percentile between 0 and 100
+     * @return latency in milliseconds
+     */
+    public double getPercentileMillis(double percentile) {
+
+	long total = 0;
+	for (int i = 0; i < SEDAPExpressLatencyMetrics.BUCKETS; i++) {
+	    total += this.histogram.get(i);
+	}
+
+	if (total == 0) {
+	    return 0.0;
+	}
+
+	final long rank = (long) Math.ceil((Math.min(100.0, Math.max(0.0, percentile)) / 100.0) * total);
+
+	long seen = 0;
+	for (int i = 0; i < SEDAPExpressLatencyMetrics.BUCKETS; i++) {
+	    seen += this.histogram.get(i);
+	    if ((seen >= rank) && (seen > 0)) {
+		return Math.min((1L << i) / 1000.0, getMaxMillis());
+	    }
+	}
+
+	return getMaxMillis();
+    }
+
+    /**
+     * Resets all values
+     */
+    public void reset() {
+
+	this.count.reset();
+	this.rejected.reset();
+	this.totalNanos.reset();
+	this.maxNanos.reset();
+	for (int i = 0; i < SEDAPExpressLatencyMetrics.BUCKETS; i++) {
+	    this.histogram.set(i, 0);
+	}
+    }
+
+    @Override
+    public String toString() {
+	return String.format("count=%d rejected=%d mean=%.2fms p50=%.2fms p99=%.2fms max=%.2fms", getCount(), getRejected(), getMeanMillis(), getPercentileMillis(50), getPercentileMillis(99), getMaxMillis());
+    }
+}
@@ -29,17 +29,30 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import org.eclipse.paho.mqttv5.client.DisconnectedBufferOptions;
 import org.eclipse.paho.mqttv5.client.IMqttToken;
+import org.eclipse.paho.mqttv5.client.MqttActionListener;
+import org.eclipse.paho.mqttv5.client.MqttAsyncClient;
 import org.eclipse.paho.mqttv5.client.MqttCallback;
-import org.eclipse.paho.mqttv5.client.MqttClient;
+import org.eclipse.paho.mqttv5.client.MqttClientException;
 import org.eclipse.paho.mqttv5.client.MqttConnectionOptions;
 import org.eclipse.paho.mqttv5.client.MqttDisconnectResponse;
 import org.eclipse.paho.mqttv5.client.persist.MemoryPersistence;
@@ -47,11 +60,45 @@ import org.eclipse.paho.mqttv5.common.MqttException;
 import org.eclipse.paho.mqttv5.common.MqttMessage;
 import org.eclipse.paho.mqttv5.common.MqttSecurityException;
 import org.eclipse.paho.mqttv5.common.packet.MqttProperties;
+import org.eclipse.paho.mqttv5.common.packet.UserProperty;
 
+import de.bundeswehr.uniity.sedapexpress.messages.CONTACT;
+import de.bundeswehr.uniity.sedapexpress.messages.EMISSION;
+import de.bundeswehr.uniity.sedapexpress.messages.OWNUNIT;
 import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage.DeleteFlag;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage.MessageType;
+import de.bundeswehr.uniity.sedapexpress.network.SEDAPExpressOutboundJournal.Entry;
 
 /**
  * MQTT Client for the communication with a MQTT SEDAP-Express server (e.g. Eclipse Mosquitto)
+ * <p>
+ * Messages are published asynchronously: up to the in-flight window messages can be waiting for their acknowledgement at the same time, so the
+ * throughput is not limited by the round trip time to the broker. If the window is full, the publisher waits; if the outgoing queue is full,
+ * {@link #sendSEDAPExpressMessage(SEDAPExpressMessage)} blocks until there is space again.
+ * <p>
+ * With {@link #enableBatching(int, long)} several newline separated messages of the same type are packed into one publish. Batched payloads
+ * are flagged with the user property {@value #BATCH_PROPERTY}, unflagged payloads are always handled as a single message, so batching and
+ * non-batching clients can be mixed.
+ * <p>
+ * With {@link #enableRetainedTopics()} CONTACT, EMISSION and OWNUNIT messages are published retained on one topic per object (e.g.
+ * <code>SEDAP-X/&lt;name&gt;/CONTACT/&lt;contactID&gt;</code>), so a new subscriber gets the current picture from the broker at once. A
+ * deletion is published to the current subscribers and afterwards clears the retained message.
+ * <p>
+ * QoS, retain flag and message expiry interval can be set per message type with {@link #setDeliveryPolicy(MessageType, DeliveryPolicy)},
+ * e.g. CONTACT with QoS 0 and a short expiry, COMMAND and ACKNOWLEDGE with QoS 2. Topic aliases are assigned to the published topics by the
+ * client as far as the broker allows (Topic Alias Maximum of the broker).
+ * <p>
+ * By default the client subscribes to <code>&lt;root&gt;/+/+</code>. With {@link #setSubscribedTypes(Collection)} only the topics of the
+ * given message types are subscribed, with {@link #setSharedSubscription(String)} the subscriptions are MQTT 5 shared subscriptions
+ * (<code>$share/&lt;group&gt;/...</code>), so the broker distributes the messages between all clients of the group.
+ * <p>
+ * With {@link #setOutboundJournal(SEDAPExpressOutboundJournal)} the outgoing messages are stored in a persistent journal instead of the
+ * queue. They stay in the journal while the connection to the broker is lost and are removed after the acknowledgement of the broker.
+ * <p>
+ * The first connection starts a clean session, automatic reconnects resume it (see {@link #setSessionExpiryInterval(long)}). So the broker
+ * keeps the subscriptions and the messages for this client while the connection is lost, e.g. the messages another client replays from its
+ * journal before this client is back.
  *
  * @author Volker Voß
  *
@@ -63,6 +110,65 @@ public class SEDAPExpressMQTTClient extends SEDAPExpressCommunicator implements
 	SEDAPExpressTCPClient.logger.setLevel(Level.ALL);
     }
 
+    /**
+     * Default maximum number of published, but not yet acknowledged messages
+     */
+    public static final int DEFAULT_MAX_INFLIGHT = 1000;
+
+    /**
+     * Default capacity of the queue of outgoing messages
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 100000;
+
+    /**
+     * Default quality of service of the published messages
+     */
+    public static final int QOS = 1;
+
+    /**
+     * Delivery policy of a message type
+     *
+     * @param qos            Quality of service (0, 1 or 2)
+     * @param retained       Publish retained on the topic of the message type (per object topics are always retained)
+     * @param expiryInterval Message expiry interval in seconds, 0 means no expiry
+     */
+    public record DeliveryPolicy(int qos, boolean retained, long expiryInterval) {
+
+	public DeliveryPolicy {
+	    if (qos < 0 || qos > 2) {
+		throw new IllegalArgumentException("Invalid QoS: " + qos);
+	    }
+	    if (expiryInterval < 0 || expiryInterval > 0xFFFFFFFFL) {
+		throw new IllegalArgumentException("Invalid message expiry interval: " + expiryInterval);
+	    }
+	}
+    }
+
+    /**
+     * Default delivery policy: QoS 1, not retained, no expiry
+     */
+    public static final DeliveryPolicy DEFAULT_POLICY = new DeliveryPolicy(SEDAPExpressMQTTClient.QOS, false, 0);
+
+    /**
+     * Name of the MQTT v5 user property flagging a payload with several newline separated messages, the value is the number of messages
+     */
+    public static final String BATCH_PROPERTY = "SEDAP-X-Batch";
+
+    /**
+     * Default maximum size of a batched payload in bytes
+     */
+    public static final int DEFAULT_BATCH_BYTES = 16384;
+
+    /**
+     * Default time in milliseconds a message waits for further messages of the same type
+     */
+    public static final long DEFAULT_BATCH_LINGER = 5;
+
+    /**
+     * Default time in seconds the broker keeps the session after the connection has been lost
+     */
+    public static final long DEFAULT_SESSION_EXPIRY_INTERVAL = 300;
+
     private Exception lastException = null;
 
     private final String mqttAddress;
@@ -83,9 +189,60 @@ public class SEDAPExpressMQTTClient extends SEDAPExpressCommunicator implements
 
     private boolean status = true;
 
-    private MqttClient client;
+    private MqttAsyncClient client;
+
+    private Thread publisher;
+
+    private int maxInflight = SEDAPExpressMQTTClient.DEFAULT_MAX_INFLIGHT;
+
+    /**
+     * Current size of the in-flight window, at most {@link #maxInflight} and the "Receive Maximum" of the broker
+     */
+    private volatile int inflightWindow = SEDAPExpressMQTTClient.DEFAULT_MAX_INFLIGHT;
 
-    private final LinkedBlockingQueue<SEDAPExpressMessage> outQueue = new LinkedBlockingQueue<>();
+    private InflightPermits inflightPermits = new InflightPermits(SEDAPExpressMQTTClient.DEFAULT_MAX_INFLIGHT);
+
+    /**
+     * Permits of the in-flight window, which can be shrunk while messages are in flight
+     */
+    private static final class InflightPermits extends Semaphore {
+
+	private static final long serialVersionUID = 1L;
+
+	InflightPermits(int permits) {
+	    super(permits);
+	}
+
+	void shrink(int permits) {
+	    reducePermits(permits);
+	}
+    }
+
+    private final AtomicLong failedDeliveries = new AtomicLong();
+
+    private final SEDAPExpressLatencyMetrics deliveryMetrics = new SEDAPExpressLatencyMetrics();
+
+    private final LinkedBlockingQueue<SEDAPExpressMessage> outQueue;
+
+    private SEDAPExpressOutboundJournal journal = null;
+
+    private boolean batching = false;
+
+    private int batchBytes = SEDAPExpressMQTTClient.DEFAULT_BATCH_BYTES;
+
+    private long batchLinger = SEDAPExpressMQTTClient.DEFAULT_BATCH_LINGER;
+
+    private boolean retainedTopics = false;
+
+    private final EnumMap<MessageType, DeliveryPolicy> deliveryPolicies = new EnumMap<>(MessageType.class);
+
+    private int topicAliasMaximum = 0;
+
+    private long sessionExpiryInterval = SEDAPExpressMQTTClient.DEFAULT_SESSION_EXPIRY_INTERVAL;
+
+    private String sharedGroup = null;
+
+    private EnumSet<MessageType> subscribedTypes = null;
 
     /**
      * Instantiate a new SEDAP-Express MQTT client
@@ -154,6 +311,262 @@ public class SEDAPExpressMQTTClient extends SEDAPExpressCommunicator implements
 	this.clientKeyFileStream = clientKeyFileStream;
 	this.filterTopics = new HashSet<>(filterNames);
 
+	this.outQueue = new LinkedBlockingQueue<>(SEDAPExpressMQTTClient.DEFAULT_QUEUE_CAPACITY);
+
+	for (MessageType type : MessageType.values()) {
+	    this.deliveryPolicies.put(type, SEDAPExpressMQTTClient.DEFAULT_POLICY);
+	}
+    }
+
+    /**
+     * Sets the delivery policy of a message type, has to be called before {@link #connect()}
+     *
+     * @param type   Message type
+     * @param policy QoS, retain flag and expiry interval of the message type
+     */
+    public void setDeliveryPolicy(MessageType type, DeliveryPolicy policy) {
+
+	this.deliveryPolicies.put(type, (policy != null) ? policy : SEDAPExpressMQTTClient.DEFAULT_POLICY);
+    }
+
+    /**
+     * Returns the delivery policy of a message type
+     *
+     * @param type Message type
+     * @return Delivery policy
+     */
+    public DeliveryPolicy getDeliveryPolicy(MessageType type) {
+
+	return this.deliveryPolicies.get(type);
+    }
+
+    /**
+     * Subscribes the topics as shared subscription of the given group, has to be called before {@link #connect()}
+     *
+     * @param group Name of the share group or null for normal subscriptions
+     */
+    public void setSharedSubscription(String group) {
+
+	if (group != null && (group.isEmpty() || group.contains("/") || group.contains("+") || group.contains("#"))) {
+	    throw new IllegalArgumentException("Invalid share group: " + group);
+	}
+
+	this.sharedGroup = group;
+    }
+
+    /**
+     * Subscribes only the topics of the given message types, has to be called before {@link #connect()}
+     *
+     * @param types Message types or null/empty for all topics below the root
+     */
+    public void setSubscribedTypes(Collection<MessageType> types) {
+
+	this.subscribedTypes = (types == null || types.isEmpty()) ? null : EnumSet.copyOf(types);
+    }
+
+    /**
+     * Returns the topic filters this client subscribes to
+     *
+     * @return Topic filters
+     */
+    public List<String> getSubscriptionTopics() {
+
+	return SEDAPExpressMQTTClient.createSubscriptionTopics(this.mqttRoot, this.sharedGroup, this.subscribedTypes);
+    }
+
+    /**
+     * Creates the topic filters for the subscription. The topic filter of a message type covers the type topic as well as the per object
+     * topics.
+     *
+     * @param mqttRoot    Root topic of the client
+     * @param sharedGroup Name of the share group or null
+     * @param types       Message types or null/empty for all topics below the root
+     * @return Topic filters
+     */
+    public static List<String> createSubscriptionTopics(String mqttRoot, String sharedGroup, Collection<MessageType> types) {
+
+	final String prefix = (sharedGroup != null) ? "$share/" + sharedGroup + "/" : "";
+
+	if (types == null || types.isEmpty()) {
+	    return List.of(prefix + mqttRoot + "/+/+");
+	}
+
+	final List<String> topics = new ArrayList<>();
+	for (MessageType type : EnumSet.copyOf(types)) {
+	    topics.add(prefix + mqttRoot + "/" + type.name() + "/#");
+	}
+	return topics;
+    }
+
+    /**
+     * Sets the maximum number of topic aliases the broker may use for the messages sent to this client (default 0 = none), has to be
+     * called before {@link #connect()}
+     *
+     * @param topicAliasMaximum Maximum number of topic aliases
+     */
+    public void setTopicAliasMaximum(int topicAliasMaximum) {
+
+	if (topicAliasMaximum < 0 || topicAliasMaximum > 0xFFFF) {
+	    throw new IllegalArgumentException("Invalid topic alias maximum: " + topicAliasMaximum);
+	}
+
+	this.topicAliasMaximum = topicAliasMaximum;
+    }
+
+    /**
+     * Sets the time the broker keeps the session (subscriptions and undelivered messages) after the connection has been lost, has to be called
+     * before {@link #connect()}
+     *
+     * @param sessionExpiryInterval Session expiry interval in seconds, 0 means every reconnect starts a clean session
+     */
+    public void setSessionExpiryInterval(long sessionExpiryInterval) {
+
+	if (sessionExpiryInterval < 0 || sessionExpiryInterval > 0xFFFFFFFFL) {
+	    throw new IllegalArgumentException("Invalid session expiry interval: " + sessionExpiryInterval);
+	}
+
+	this.sessionExpiryInterval = sessionExpiryInterval;
+    }
+
+    /**
+     * Enables the batching of several messages of the same type into one publish (default disabled), has to be called before
+     * {@link #connect()}
+     *
+     * @param batchBytes  Maximum size of a batched payload in bytes, a single larger message is published alone
+     * @param batchLinger Maximum time in milliseconds a message waits for further messages
+     */
+    public void enableBatching(int batchBytes, long batchLinger) {
+
+	if (batchBytes <= 0 || batchLinger < 0) {
+	    throw new IllegalArgumentException("Invalid batch size or linger time: " + batchBytes + "/" + batchLinger);
+	}
+
+	this.batchBytes = batchBytes;
+	this.batchLinger = batchLinger;
+	this.batching = true;
+    }
+
+    /**
+     * Disables the batching, every message is published on its own
+     */
+    public void disableBatching() {
+
+	this.batching = false;
+    }
+
+    /**
+     * Enables the retained per object topics for CONTACT (by contact ID), EMISSION (by emission ID) and OWNUNIT (by sender) messages
+     * (default disabled). These messages are never batched.
+     */
+    public void enableRetainedTopics() {
+
+	this.retainedTopics = true;
+    }
+
+    /**
+     * Disables the retained per object topics, all messages are published non-retained on the topic of their type
+     */
+    public void disableRetainedTopics() {
+
+	this.retainedTopics = false;
+    }
+
+    /**
+     * Returns the object key of the retained topic of the given message
+     *
+     * @param message SEDAP-Express message
+     * @return Contact ID, emission ID or sender, or null if the message has no retained topic
+     */
+    static String getRetainedTopicKey(SEDAPExpressMessage message) {
+
+	final String key;
+	if (message instanceof CONTACT contact) {
+	    key = contact.getContactID();
+	} else if (message instanceof EMISSION emission) {
+	    key = emission.getEmissionID();
+	} else if (message instanceof OWNUNIT) {
+	    key = message.getSender();
+	} else {
+	    return null;
+	}
+
+	if (key == null || key.isEmpty()) {
+	    return null;
+	}
+
+	// Wildcards and level separators are not allowed in topic names
+	return key.replace('/', '_').replace('+', '_').replace('#', '_');
+    }
+
+    /**
+     * Sets the maximum number of published, but not yet acknowledged messages, has to be called before {@link #connect()}. The broker may
+     * limit this further with its "Receive Maximum".
+     *
+     * @param maxInflight Size of the in-flight window
+     */
+    public void setMaxInflight(int maxInflight) {
+	this.maxInflight = Math.max(1, maxInflight);
+	this.inflightWindow = this.maxInflight;
+	this.inflightPermits = new InflightPermits(this.maxInflight);
+    }
+
+    /**
+     * Limits the in-flight window to the "Receive Maximum" of the broker, so the client never rejects a publish because of a full window
+     *
+     * @param receiveMaximum "Receive Maximum" of the CONNACK or null, if the broker has no limit
+     */
+    private synchronized void limitInflightWindow(Integer receiveMaximum) {
+
+	if ((receiveMaximum != null) && (receiveMaximum > 0) && (receiveMaximum < this.inflightWindow)) {
+	    SEDAPExpressMQTTClient.logger.logp(Level.INFO, "SEDAPExpressMQTTClient", "limitInflightWindow()", "In-flight window limited to the receive maximum of the broker: " + receiveMaximum);
+	    this.inflightPermits.shrink(this.inflightWindow - receiveMaximum);
+	    this.inflightWindow = receiveMaximum;
+	}
+    }
+
+    /**
+     * Returns the number of published, but not yet acknowledged messages
+     *
+     * @return number of messages in flight
+     */
+    public int getInflightCount() {
+	return this.inflightWindow - this.inflightPermits.availablePermits();
+    }
+
+    /**
+     * Returns the number of queued, not yet published messages
+     *
+     * @return number of queued messages
+     */
+    public int getQueuedCount() {
+	return (this.journal != null) ? (int) this.journal.getPendingCount() : this.outQueue.size();
+    }
+
+    /**
+     * Stores the outgoing messages in the given journal instead of the in-memory queue, has to be called before {@link #connect()}
+     *
+     * @param journal Persistent outbound journal or null
+     */
+    public void setOutboundJournal(SEDAPExpressOutboundJournal journal) {
+	this.journal = journal;
+    }
+
+    /**
+     * Returns the latency metrics from publishing a message until its acknowledgement by the broker
+     *
+     * @return delivery metrics
+     */
+    public SEDAPExpressLatencyMetrics getDeliveryMetrics() {
+	return this.deliveryMetrics;
+    }
+
+    /**
+     * Returns the number of messages, which could not be delivered to the broker
+     *
+     * @return number of failed deliveries
+     */
+    public long getFailedDeliveries() {
+	return this.failedDeliveries.get();
     }
 
     /**
@@ -216,42 +629,54 @@ public class SEDAPExpressMQTTClient extends SEDAPExpressCommunicator implements
 
 		try {
 
-		    this.client = new MqttClient(this.mqttAddress, this.clientUsername, new MemoryPersistence());
+		    this.client = new MqttAsyncClient(this.mqttAddress, this.clientUsername, new MemoryPersistence());
 		    this.client.setCallback(this);
 
+		    // Messages published while the connection is lost will be buffered by the client
+		    final DisconnectedBufferOptions bufferOptions = new DisconnectedBufferOptions();
+		    bufferOptions.setBufferEnabled(this.journal == null);
+		    bufferOptions.setBufferSize(SEDAPExpressMQTTClient.DEFAULT_QUEUE_CAPACITY);
+		    bufferOptions.setDeleteOldestMessages(true);
+		    this.client.setBufferOpts(bufferOptions);
+
 		    final MqttConnectionOptions options = new MqttConnectionOptions();
 		    options.setUserName(this.clientUsername);
 		    options.setPassword(this.clientPassword.getBytes(StandardCharsets.ISO_8859_1));
 		    options.setAutomaticReconnect(true);
 		    options.setCleanStart(true);
+		    if (this.sessionExpiryInterval > 0) {
+			options.setSessionExpiryInterval(this.sessionExpiryInterval);
+		    }
 		    options.setKeepAliveInterval(60);
 		    options.setMaxReconnectDelay(10);
+		    if (this.topicAliasMaximum > 0) {
+			options.setTopicAliasMaximum(this.topicAliasMaximum);
+		    }
 
 		    if (this.mqttAddress.startsWith("ssl")) {
 
 			options.setSocketFactory(SSLUtils.getSocketFactory(this.caCertificateStream, this.clientCertificateStream, this.clientKeyFileStream, ""));
 		    }
 
-		    this.client.connect(options);
+		    final IMqttToken connectToken = this.client.connect(options);
+		    connectToken.waitForCompletion();
 
-		    this.client.subscribe(this.mqttRoot + "/+/+", 1);
+		    final MqttProperties connack = connectToken.getResponseProperties();
+		    limitInflightWindow((connack != null) ? connack.getReceiveMaximum() : null);
 
-		    while (this.status) {
+		    // The automatic reconnects use the same options and resume the session
+		    options.setCleanStart(this.sessionExpiryInterval == 0);
 
-			final MqttMessage mqttMmessage = new MqttMessage();
+		    subscribe().waitForCompletion();
 
-			final SEDAPExpressMessage msg = this.outQueue.take();
+		    this.publisher = Thread.currentThread();
 
-			logInput(msg.toString());
-			mqttMmessage.setPayload(msg.toString().getBytes());
+		    runPublisher();
 
-			try {
-			    SEDAPExpressMQTTClient.this.client.publish(this.mqttRoot + "/" + msg.getClass().getSimpleName(), mqttMmessage);
-			} catch (final MqttException e) {
-			    e.printStackTrace();
-			}
+		} catch (final InterruptedException e) {
 
-		    }
+		    // Stopped by stopCommunicator()
+		    this.status = false;
 
 		} catch (final MqttSecurityException e) {
 
@@ -281,7 +706,7 @@ public class SEDAPExpressMQTTClient extends SEDAPExpressCommunicator implements
 
 	    }
 
-	}).start();
+	}, "SEDAPExpressMQTTClient").start();
 
 	// Warten solange Status ob irgendwann verbunden
 	// Wenn Verbindung fehlschlägt, dann auch status == false
@@ -301,14 +726,309 @@ public class SEDAPExpressMQTTClient extends SEDAPExpressCommunicator implements
 
     }
 
+    /**
+     * Subscribes the topics of this client
+     *
+     * @return Token of the subscription
+     */
+    private IMqttToken subscribe() throws MqttException {
+
+	// Messages are delivered with the QoS of the publisher, up to the QoS of the subscription
+	final int subscriptionQos = this.deliveryPolicies.values().stream().mapToInt(DeliveryPolicy::qos).max().orElse(SEDAPExpressMQTTClient.QOS);
+	final List<String> topics = getSubscriptionTopics();
+	final int[] qos = new int[topics.size()];
+	Arrays.fill(qos, subscriptionQos);
+
+	return this.client.subscribe(topics.toArray(new String[topics.size()]), qos);
+    }
+
+    /**
+     * Publishes the queued messages asynchronously. The number of unacknowledged messages is limited by the in-flight window, if the window is
+     * full, the publisher waits for acknowledgements, and if the queue is full, the senders wait for the publisher (backpressure).
+     */
+    private void runPublisher() throws InterruptedException {
+
+	while (this.status) {
+
+	    final Entry entry = nextMessage(TimeUnit.SECONDS.toNanos(1));
+	    if (entry == null) {
+		continue;
+	    }
+
+	    if (this.batching) {
+		runBatch(entry);
+	    } else {
+		publishMessage(entry);
+	    }
+	}
+    }
+
+    /**
+     * Takes the next message from the journal or the queue
+     *
+     * @param timeout Maximum waiting time in nanoseconds
+     * @return Next message or null
+     */
+    private Entry nextMessage(long timeout) throws InterruptedException {
+
+	if (this.journal != null) {
+
+	    // The messages stay in the journal while the connection is lost
+	    if (!this.client.isConnected()) {
+		TimeUnit.NANOSECONDS.sleep(Math.min(timeout, TimeUnit.MILLISECONDS.toNanos(100)));
+		return null;
+	    }
+	    return this.journal.poll(timeout, TimeUnit.NANOSECONDS);
+	}
+
+	final SEDAPExpressMessage msg = this.outQueue.poll(timeout, TimeUnit.NANOSECONDS);
+	return (msg != null) ? new Entry(-1, msg) : null;
+    }
+
+    /**
+     * Publishes a single message on the topic of its type, or retained on its object topic
+     *
+     * @param entry Message to publish
+     */
+    private void publishMessage(Entry entry) throws InterruptedException {
+
+	final SEDAPExpressMessage msg = entry.message();
+	final String line = msg.toString();
+	logInput(line);
+
+	final String topic = this.mqttRoot + "/" + msg.getWireName();
+	final DeliveryPolicy policy = getDeliveryPolicy(msg);
+	final String key = this.retainedTopics ? SEDAPExpressMQTTClient.getRetainedTopicKey(msg) : null;
+
+	if (key == null) {
+	    publish(topic, line.getBytes(), policy, policy.retained(), null, List.of(entry));
+	} else if (isDeleted(msg)) {
+	    // The current subscribers get the deletion, late joiners nothing at all
+	    publish(topic + "/" + key, line.getBytes(), policy, false, null, List.of());
+	    publish(topic + "/" + key, new byte[0], policy, true, null, List.of(entry));
+	} else {
+	    publish(topic + "/" + key, line.getBytes(), policy, true, null, List.of(entry));
+	}
+    }
+
+    private DeliveryPolicy getDeliveryPolicy(SEDAPExpressMessage msg) {
+
+	return this.deliveryPolicies.get(msg.getMessageType());
+    }
+
+    private static boolean isDeleted(SEDAPExpressMessage msg) {
+
+	if (msg instanceof CONTACT contact) {
+	    return contact.getDeleteFlag() == DeleteFlag.TRUE;
+	} else if (msg instanceof EMISSION emission) {
+	    return emission.getDeleteFlag() == DeleteFlag.TRUE;
+	}
+	return false;
+    }
+
+    /**
+     * Collects the messages arriving within the linger time, starting with the given message, into one batch per topic. A batch is published
+     * as soon as the next message would exceed the maximum size, the rest when the linger time is over.
+     *
+     * @param first First message of the batches
+     */
+    private void runBatch(Entry first) throws InterruptedException {
+
+	final Map<String, Batch> batches = new LinkedHashMap<>();
+	final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.batchLinger);
+
+	Entry entry = first;
+	while (entry != null) {
+
+	    final SEDAPExpressMessage msg = entry.message();
+	    if (this.retainedTopics && SEDAPExpressMQTTClient.getRetainedTopicKey(msg) != null) {
+		publishMessage(entry);
+	    } else {
+
+		final String line = msg.toString();
+		logInput(line);
+
+		final String topic = this.mqttRoot + "/" + msg.getWireName();
+		Batch batch = batches.get(topic);
+		if (batch != null && batch.payload.length() + line.length() + 1 > this.batchBytes) {
+		    publishBatch(topic, batches.remove(topic));
+		    batch = null;
+		}
+		if (batch == null) {
+		    batch = new Batch(getDeliveryPolicy(msg));
+		    batches.put(topic, batch);
+		} else {
+		    batch.payload.append('\n');
+		}
+		batch.payload.append(line);
+		batch.entries.add(entry);
+	    }
+
+	    final long remaining = deadline - System.nanoTime();
+	    entry = (remaining > 0) ? nextMessage(remaining) : null;
+	}
+
+	for (Map.Entry<String, Batch> batch : batches.entrySet()) {
+	    publishBatch(batch.getKey(), batch.getValue());
+	}
+    }
+
+    /**
+     * Publishes a batch, a batch with only one message is published without the batch flag
+     *
+     * @param topic Topic of the batch
+     * @param batch Collected messages
+     */
+    private void publishBatch(String topic, Batch batch) throws InterruptedException {
+
+	List<UserProperty> userProperties = null;
+	if (batch.entries.size() > 1) {
+	    userProperties = List.of(new UserProperty(SEDAPExpressMQTTClient.BATCH_PROPERTY, String.valueOf(batch.entries.size())));
+	}
+
+	publish(topic, batch.payload.toString().getBytes(), batch.policy, batch.policy.retained(), userProperties, batch.entries);
+    }
+
+    /**
+     * Messages of one topic collected for a batched publish
+     */
+    private static class Batch {
+
+	private final DeliveryPolicy policy;
+
+	private final StringBuilder payload = new StringBuilder();
+
+	private final List<Entry> entries = new ArrayList<>();
+
+	private Batch(DeliveryPolicy policy) {
+	    this.policy = policy;
+	}
+    }
+
+    /**
+     * Checks if the payload of the given MQTT message is flagged as batch
+     *
+     * @param message MQTT message
+     * @return true, if the payload contains several newline separated messages
+     */
+    static boolean isBatch(MqttMessage message) {
+
+	final MqttProperties properties = message.getProperties();
+	if (properties != null && properties.getUserProperties() != null) {
+	    for (UserProperty property : properties.getUserProperties()) {
+		if (SEDAPExpressMQTTClient.BATCH_PROPERTY.equals(property.getKey())) {
+		    return true;
+		}
+	    }
+	}
+	return false;
+    }
+
+    /**
+     * Publishes one MQTT message within the in-flight window, the acknowledgement is handled asynchronously
+     *
+     * @param topic          Topic of the message
+     * @param payload        Payload of the message
+     * @param policy         QoS and expiry interval
+     * @param retained       Retain flag
+     * @param userProperties MQTT v5 user properties or null
+     * @param entries        Messages to acknowledge in the journal after the acknowledgement of the broker
+     */
+    private void publish(String topic, byte[] payload, DeliveryPolicy policy, boolean retained, List<UserProperty> userProperties, List<Entry> entries)
+	    throws InterruptedException {
+
+	this.inflightPermits.acquire();
+
+	// Always new properties, the client sets the topic alias in them
+	final MqttProperties properties = new MqttProperties();
+	if (policy.expiryInterval() > 0) {
+	    properties.setMessageExpiryInterval(policy.expiryInterval());
+	}
+	if (userProperties != null) {
+	    properties.setUserProperties(userProperties);
+	}
+
+	final MqttMessage mqttMessage = new MqttMessage(payload, policy.qos(), retained, properties);
+	final long start = System.nanoTime();
+
+	while (true) {
+	    try {
+		this.client.publish(topic, mqttMessage, null, new MqttActionListener() {
+
+		    @Override
+		    public void onSuccess(IMqttToken token) {
+			SEDAPExpressMQTTClient.this.inflightPermits.release();
+			SEDAPExpressMQTTClient.this.deliveryMetrics.record(System.nanoTime() - start);
+
+			if (SEDAPExpressMQTTClient.this.journal != null) {
+			    entries.forEach(SEDAPExpressMQTTClient.this.journal::acknowledge);
+			}
+		    }
+
+		    @Override
+		    public void onFailure(IMqttToken token, Throwable exception) {
+			SEDAPExpressMQTTClient.this.inflightPermits.release();
+			SEDAPExpressMQTTClient.this.failedDeliveries.incrementAndGet();
+			SEDAPExpressMQTTClient.this.lastException = (exception instanceof Exception) ? (Exception) exception : new Exception(exception);
+
+			if (SEDAPExpressMQTTClient.this.journal != null) {
+			    SEDAPExpressMQTTClient.this.journal.rewind(entries);
+			}
+		    }
+		});
+		return;
+
+	    } catch (final MqttException e) {
+
+		if (e.getReasonCode() == MqttClientException.REASON_CODE_MAX_INFLIGHT) {
+		    // The broker has lowered its "Receive Maximum" on a reconnect: the held permit is removed from the window and the message is
+		    // published again with the permit released by the next acknowledgement
+		    synchronized (this) {
+			this.inflightWindow--;
+		    }
+		    this.inflightPermits.acquire();
+		    continue;
+		}
+
+		if ((e.getReasonCode() == MqttClientException.REASON_CODE_CLIENT_NOT_CONNECTED) && (this.journal != null) && this.status) {
+		    // Connection lost just after taking the message, it is published in order after the reconnect. A rewind would publish the
+		    // messages in flight twice, the resumed session publishes them again by itself.
+		    Thread.sleep(100);
+		    continue;
+		}
+
+		this.inflightPermits.release();
+		this.failedDeliveries.incrementAndGet();
+		this.lastException = e;
+		SEDAPExpressMQTTClient.logger.logp(Level.SEVERE, "SEDAPExpressMQTTClient", "publish()", "Could not publish message: " + e.getLocalizedMessage());
+
+		if (this.journal != null) {
+		    this.journal.rewind(entries);
+		}
+		return;
+	    }
+	}
+    }
+
     @Override
     public void messageArrived(final String topic, final MqttMessage message) throws Exception {
 
 	try {
-	    if (message != null) {
+	    // An empty payload only clears a retained object topic
+	    if (message != null && message.getPayload().length > 0) {
 
-		if (!this.filterTopics.contains(topic.substring(topic.lastIndexOf("/"))))
-		    distributeReceivedSEDAPExpressMessage(SEDAPExpressMessage.deserialize(new String(message.getPayload())));
+		if (!isFiltered(topic)) {
+
+		    if (SEDAPExpressMQTTClient.isBatch(message)) {
+			for (String line : new String(message.getPayload()).split("\n")) {
+			    if (!line.isBlank()) {
+				receiveFrame(line, SEDAPExpressMessage::deserialize);
+			    }
+			}
+		    } else {
+			receiveFrame(new String(message.getPayload()), SEDAPExpressMessage::deserialize);
+		    }
+		}
 	    }
 	} catch (Exception e) {
 
@@ -320,12 +1040,40 @@ public class SEDAPExpressMQTTClient extends SEDAPExpressCommunicator implements
 	}
     }
 
+    /**
+     * Checks the levels of the received topic below the root against the filtered topics
+     *
+     * @param topic Received topic
+     * @return true, if the message should be ignored
+     */
+    private boolean isFiltered(String topic) {
+
+	final String levels = topic.startsWith(this.mqttRoot) ? topic.substring(this.mqttRoot.length()) : topic.substring(topic.lastIndexOf("/"));
+	for (String level : levels.split("/")) {
+	    if (!level.isEmpty() && this.filterTopics.contains("/" + level)) {
+		return true;
+	    }
+	}
+	return false;
+    }
+
     @Override
     public void stopCommunicator() {
 
 	logInput("Stopping MQTT Client...");
 
 	this.status = false;
+
+	if (this.publisher != null) {
+	    this.publisher.interrupt();
+	}
+
+	if (this.client != null) {
+	    try {
+		this.client.disconnect();
+	    } catch (MqttException e) {
+	    }
+	}
     }
 
     public boolean isReady() {
@@ -339,9 +1087,19 @@ public class SEDAPExpressMQTTClient extends SEDAPExpressCommunicator implements
     }
 
     @Override
-    public void connectComplete(final boolean arg0, final String arg1) {
+    public void connectComplete(final boolean reconnect, final String serverURI) {
 	SEDAPExpressMQTTClient.logger.logp(Level.INFO, "SEDAPExpressMQTTClient", "connectComplete()", "Successfully connected to MQTT server ...");
 	logInput("Successfully connected to MQTT server ...");
+
+	// The broker might have lost the session (expired or restarted), subscribing again is harmless otherwise
+	if (reconnect) {
+	    try {
+		subscribe();
+	    } catch (MqttException e) {
+		this.lastException = e;
+		SEDAPExpressMQTTClient.logger.logp(Level.SEVERE, "SEDAPExpressMQTTClient", "connectComplete()", "Could not subscribe: " + e.getLocalizedMessage());
+	    }
+	}
     }
 
     @Override
@@ -353,6 +1111,11 @@ public class SEDAPExpressMQTTClient extends SEDAPExpressCommunicator implements
     public void disconnected(final MqttDisconnectResponse response) {
 	SEDAPExpressMQTTClient.logger.logp(Level.INFO, "SEDAPExpressMQTTClient", "disconnected()", "Disconnected from MQTT server ...");
 	logInput("Disconnected from MQTT server ...");
+
+	// Unacknowledged messages will be published again after the reconnect. A resumed session publishes them again by itself.
+	if ((this.journal != null) && (this.sessionExpiryInterval == 0)) {
+	    this.journal.rewind();
+	}
     }
 
     @Override
@@ -364,7 +1127,18 @@ public class SEDAPExpressMQTTClient extends SEDAPExpressCommunicator implements
     @Override
     public boolean sendSEDAPExpressMessage(SEDAPExpressMessage message) throws IOException {
 
-	this.outQueue.add(message);
+	if (this.journal != null) {
+	    this.journal.append(message);
+	    return true;
+	}
+
+	try {
+	    // Blocks, if the queue is full
+	    this.outQueue.put(message);
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	    throw new InterruptedIOException("Interrupted while waiting for free space in the MQTT queue");
+	}
 
 	return true;
     }
@@ -0,0 +1,283 @@
+/**
+ * Note: This license has also been called the “Simplified BSD License” and the “FreeBSD License”.
+ *
+ * Copyright 2024-2025 UNIITY POC: Volker Voß, Federal Armed Forces of Germany
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS “AS IS” AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSEnARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ * OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY
+ * OF SUCH DAMAGE.
+ */
+package de.bundeswehr.uniity.sedapexpress.network;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import de.bundeswehr.uniity.sedapexpress.messages.CONTACT;
+import de.bundeswehr.uniity.sedapexpress.messages.EMISSION;
+import de.bundeswehr.uniity.sedapexpress.messages.OWNUNIT;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage.Classification;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage.MessageType;
+
+/**
+ * Filter for SEDAP-Express messages, e.g. for the GET requests of the REST server.
+ * <p>
+ * A message passes the filter, if it matches all given criteria: the message type, the sender ID, the maximum classification (messages
+ * without classification always pass) and for CONTACT, EMISSION and OWNUNIT the geographic bounding box (messages without position always
+ * pass, so e.g. deletions are not lost). For EMISSION the position of the emitter, or if unknown the position of the sensor, is used. A
+ * bounding box with a minimum longitude greater than the maximum longitude crosses the antimeridian.
+ * <p>
+ * The filter can be created from the query parameters "types", "senders", "maxClassification" and "bbox", e.g.
+ * "types=CONTACT,OWNUNIT&amp;senders=89AD&amp;maxClassification=R&amp;bbox=53.0,8.0,54.0,9.5" (bbox: minLat,minLon,maxLat,maxLon).
+ *
+ * @author Volker Voß
+ *
+ */
+public class SEDAPExpressMessageFilter implements Predicate<SEDAPExpressMessage> {
+
+    public static final String TYPES_PARAMETER = "types";
+
+    public static final String SENDERS_PARAMETER = "senders";
+
+    public static final String MAX_CLASSIFICATION_PARAMETER = "maxClassification";
+
+    public static final String BBOX_PARAMETER = "bbox";
+
+    /**
+     * Filter without any criteria
+     */
+    public static final SEDAPExpressMessageFilter ACCEPT_ALL = new SEDAPExpressMessageFilter(null, null, null, null);
+
+    private final Set<MessageType> types;
+
+    private final Set<String> senders;
+
+    private final Classification maxClassification;
+
+    private final double[] bbox;
+
+    /**
+     * Instantiate a new filter, every criterion may be null
+     *
+     * @param types             Accepted message types
+     * @param senders           Accepted sender IDs
+     * @param maxClassification Maximum accepted classification
+     * @param bbox              Bounding box as array {minLatitude, minLongitude, maxLatitude, maxLongitude}
+     */
+    public SEDAPExpressMessageFilter(Collection<MessageType> types, Collection<String> senders, Classification maxClassification, double[] bbox) {
+
+	this.types = ((types == null) || types.isEmpty()) ? null : Collections.unmodifiableSet(EnumSet.copyOf(types));
+
+	this.senders = ((senders == null) || senders.isEmpty()) ? null : Set.copyOf(senders.stream().map(String::toUpperCase).toList());
+
+	this.maxClassification = maxClassification;
+
+	if (bbox != null) {
+	    if ((bbox.length != 4) || (bbox[0] > bbox[2]) || (Math.abs(bbox[0]) > 90) || (Math.abs(bbox[2]) > 90) || (Math.abs(bbox[1]) > 180) || (Math.abs(bbox[3]) > 180)) {
+		throw new IllegalArgumentException("Invalid bounding box");
+	    }
+	    this.bbox = bbox.clone();
+	} else {
+	    this.bbox = null;
+	}
+    }
+
+    /**
+     * Creates a filter from the query parameters of a request
+     *
+     * @param query Decoded query parameters
+     * @return filter, ACCEPT_ALL if no filter parameter is given
+     * @throws IllegalArgumentException Invalid parameter value
+     */
+    public static SEDAPExpressMessageFilter fromQuery(Map<String, String> query) {
+
+	final String typesParameter = query.get(SEDAPExpressMessageFilter.TYPES_PARAMETER);
+	final String sendersParameter = query.get(SEDAPExpressMessageFilter.SENDERS_PARAMETER);
+	final String classificationParameter = query.get(SEDAPExpressMessageFilter.MAX_CLASSIFICATION_PARAMETER);
+	final String bboxParameter = query.get(SEDAPExpressMessageFilter.BBOX_PARAMETER);
+
+	if ((typesParameter == null) && (sendersParameter == null) && (classificationParameter == null) && (bboxParameter == null)) {
+	    return SEDAPExpressMessageFilter.ACCEPT_ALL;
+	}
+
+	List<MessageType> types = null;
+	if (typesParameter != null) {
+	    types = new ArrayList<>();
+	    for (String type : SEDAPExpressMessageFilter.split(typesParameter)) {
+		types.add(MessageType.valueOfMessageType(type));
+	    }
+	}
+
+	final List<String> senders = (sendersParameter != null) ? SEDAPExpressMessageFilter.split(sendersParameter) : null;
+
+	Classification maxClassification = null;
+	if ((classificationParameter != null) && !classificationParameter.isBlank()) {
+	    maxClassification = SEDAPExpressMessageFilter.parseClassification(classificationParameter.trim());
+	}
+
+	double[] bbox = null;
+	if (bboxParameter != null) {
+	    final List<String> values = SEDAPExpressMessageFilter.split(bboxParameter);
+	    if (values.size() != 4) {
+		throw new IllegalArgumentException("Bounding box needs four values");
+	    }
+	    bbox = new double[4];
+	    for (int i = 0; i < 4; i++) {
+		bbox[i] = Double.parseDouble(values.get(i));
+	    }
+	}
+
+	return new SEDAPExpressMessageFilter(types, senders, maxClassification, bbox);
+    }
+
+    /**
+     * Parses a classification given by its letter or by the name of the enumeration, both case-insensitively
+     *
+     * @param value Letter or name of the classification
+     * @return classification
+     * @throws IllegalArgumentException Unknown classification
+     */
+    private static Classification parseClassification(String value) {
+
+	for (Classification classification : Classification.values()) {
+	    if (((value.length() == 1) && (Character.toUpperCase(value.charAt(0)) == classification.getClassification())) || classification.name().equalsIgnoreCase(value)) {
+		return classification;
+	    }
+	}
+
+	throw new IllegalArgumentException("Unknown classification: " + value);
+    }
+
+    private static List<String> split(String value) {
+
+	final List<String> result = new ArrayList<>();
+	for (String part : value.split(",")) {
+	    if (!part.isBlank()) {
+		result.add(part.trim());
+	    }
+	}
+	return result;
+    }
+
+    /**
+     * Checks, if the filter has no criteria
+     *
+     * @return true, if every message passes the filter
+     */
+    public boolean isAcceptAll() {
+	return (this.types == null) && (this.senders == null) && (this.maxClassification == null) && (this.bbox == null);
+    }
+
+    /**
+     * Creates the query parameters of this filter for a GET request
+     *
+     * @return query parameters without leading separator, empty if the filter has no criteria
+     */
+    public String toQuery() {
+
+	final List<String> parameters = new ArrayList<>();
+
+	if (this.types != null) {
+	    parameters.add(SEDAPExpressMessageFilter.TYPES_PARAMETER + "=" + this.types.stream().map(Enum::name).collect(Collectors.joining(",")));
+	}
+	if (this.senders != null) {
+	    parameters.add(SEDAPExpressMessageFilter.SENDERS_PARAMETER + "=" + URLEncoder.encode(String.join(",", this.senders), StandardCharsets.UTF_8));
+	}
+	if (this.maxClassification != null) {
+	    parameters.add(SEDAPExpressMessageFilter.MAX_CLASSIFICATION_PARAMETER + "=" + this.maxClassification.getClassification());
+	}
+	if (this.bbox != null) {
+	    parameters.add(SEDAPExpressMessageFilter.BBOX_PARAMETER + "=" + this.bbox[0] + "," + this.bbox[1] + "," + this.bbox[2] + "," + this.bbox[3]);
+	}
+
+	return String.join("&", parameters);
+    }
+
+    @Override
+    public boolean test(SEDAPExpressMessage message) {
+
+	if ((this.types != null) && !this.types.contains(message.getMessageType())) {
+	    return false;
+	}
+
+	if ((this.senders != null) && ((message.getSender() == null) || !this.senders.contains(message.getSender().toUpperCase()))) {
+	    return false;
+	}
+
+	if ((this.maxClassification != null) && (message.getClassification() != null) && (message.getClassification().compareTo(this.maxClassification) > 0)) {
+	    return false;
+	}
+
+	if (this.bbox != null) {
+
+	    Double latitude = null;
+	    Double longitude = null;
+
+	    if (message instanceof CONTACT contact) {
+		latitude = contact.getLatitude();
+		longitude = contact.getLongitude();
+	    } else if (message instanceof OWNUNIT ownunit) {
+		latitude = ownunit.getLatitude();
+		longitude = ownunit.getLongitude();
+	    } else if (message instanceof EMISSION emission) {
+		if ((emission.getEmitterLatitude() != null) && (emission.getEmitterLongitude() != null)) {
+		    latitude = emission.getEmitterLatitude();
+		    longitude = emission.getEmitterLongitude();
+		} else {
+		    latitude = emission.getSensorLatitude();
+		    longitude = emission.getSensorLongitude();
+		}
+	    }
+
+	    if ((latitude != null) && (longitude != null) && !isInBoundingBox(latitude, longitude)) {
+		return false;
+	    }
+	}
+
+	return true;
+    }
+
+    private boolean isInBoundingBox(double latitude, double longitude) {
+
+	if ((latitude < this.bbox[0]) || (latitude > this.bbox[2])) {
+	    return false;
+	}
+
+	if (this.bbox[1] <= this.bbox[3]) {
+	    return (longitude >= this.bbox[1]) && (longitude <= this.bbox[3]);
+	} else {
+	    // Crossing the antimeridian
+	    return (longitude >= this.bbox[1]) || (longitude <= this.bbox[3]);
+	}
+    }
+
+    @Override
+    public String toString() {
+	return toQuery();
+    }
+}
@@ -0,0 +1,201 @@
+/**
+ * Note: This license has also been called the “Simplified BSD License” and the “FreeBSD License”.
+ *
+ * Copyright 2024-2025 UNIITY POC: Volker Voß, Federal Armed Forces of Germany
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS “AS IS” AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSEnARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ * OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY
+ * OF SUCH DAMAGE.
+ */
+package de.bundeswehr.uniity.sedapexpress.network;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage;
+
+/**
+ * Bounded ring buffer of outgoing SEDAP-Express messages with monotonically increasing sequence numbers.
+ * <p>
+ * Every appended message gets the next sequence number (starting with 1). Readers keep their own cursor (the last sequence number they have
+ * seen) and get only the messages after it, so any number of readers can consume the same messages independently. If the buffer is full, the
+ * oldest message will be overwritten; readers which are too slow will notice this by a gap in the sequence numbers.
+ *
+ * @author Volker Voß
+ *
+ */
+public class SEDAPExpressMessageRingBuffer {
+
+    public static final int DEFAULT_CAPACITY = 10000;
+
+    private final SEDAPExpressMessage[] messages;
+
+    private long newestSequence = 0;
+
+    /**
+     * Instantiate a new ring buffer with the given capacity
+     *
+     * @param capacity Maximum number of retained messages
+     */
+    public SEDAPExpressMessageRingBuffer(int capacity) {
+
+	if (capacity < 1) {
+	    throw new IllegalArgumentException("Capacity must be at least 1");
+	}
+
+	this.messages = new SEDAPExpressMessage[capacity];
+    }
+
+    public int getCapacity() {
+	return this.messages.length;
+    }
+
+    /**
+     * Appends a message and wakes up all waiting readers
+     *
+     * @param message Message to append
+     * @return the sequence number of the message
+     */
+    public synchronized long append(SEDAPExpressMessage message) {
+
+	this.newestSequence++;
+	this.messages[(int) (this.newestSequence % this.messages.length)] = message;
+
+	notifyAll();
+
+	return this.newestSequence;
+    }
+
+    /**
+     * Returns the sequence number of the newest message, or 0 if no message has been appended yet
+     *
+     * @return sequence number of the newest message
+     */
+    public synchronized long getNewestSequence() {
+	return this.newestSequence;
+    }
+
+    /**
+     * Returns the sequence number of the oldest retained message. If the buffer is empty, this is the sequence number of the next message.
+     *
+     * @return sequence number of the oldest retained message
+     */
+    public synchronized long getOldestSequence() {
+	return Math.max(1, (this.newestSequence - this.messages.length) + 1);
+    }
+
+    /**
+     * Reads the retained messages after the given sequence number
+     *
+     * @param since       Last sequence number already seen by the reader (0 for all retained messages)
+     * @param maxMessages Maximum number of messages to read
+     * @return the read messages
+     */
+    public synchronized Batch readSince(long since, int maxMessages) {
+
+	// A cursor beyond the newest message belongs to an earlier instance (e.g. before a restart), so start again with all retained messages
+	if (since > this.newestSequence) {
+	    since = 0;
+	}
+
+	final long oldest = getOldestSequence();
+	final long first = Math.max(since + 1, oldest);
+	final long last = Math.min(this.newestSequence, (first + maxMessages) - 1);
+
+	final List<SEDAPExpressMessage> result = new ArrayList<>((int) Math.max(0, (last - first) + 1));
+	for (long sequence = first; sequence <= last; sequence++) {
+	    result.add(this.messages[(int) (sequence % this.messages.length)]);
+	}
+
+	return new Batch(result, Math.max(since, last), first > (since + 1), oldest);
+    }
+
+    /**
+     * Reads the retained messages after the given sequence number, if there are none, waits until new messages are available or the timeout is
+     * reached
+     *
+     * @param since       Last sequence number already seen by the reader (0 for all retained messages)
+     * @param maxMessages Maximum number of messages to read
+     * @param timeout     Maximum time to wait in milliseconds
+     * @return the read messages, which may be empty if the timeout has been reached
+     * @throws InterruptedException Waiting has been interrupted
+     */
+    public synchronized Batch awaitSince(long since, int maxMessages, long timeout) throws InterruptedException {
+
+	final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+
+	long remaining = timeout;
+	while ((this.newestSequence == since) && (remaining > 0)) {
+	    wait(remaining);
+	    remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+	}
+
+	return readSince(since, maxMessages);
+    }
+
+    /**
+     * Result of a read operation on the ring buffer
+     */
+    public static class Batch {
+
+	private final List<SEDAPExpressMessage> messages;
+
+	private final long lastSequence;
+
+	private final boolean gap;
+
+	private final long oldestSequence;
+
+	Batch(List<SEDAPExpressMessage> messages, long lastSequence, boolean gap, long oldestSequence) {
+	    this.messages = messages;
+	    this.lastSequence = lastSequence;
+	    this.gap = gap;
+	    this.oldestSequence = oldestSequence;
+	}
+
+	/**
+	 * @return the read messages in order of their sequence numbers
+	 */
+	public List<SEDAPExpressMessage> getMessages() {
+	    return this.messages;
+	}
+
+	/**
+	 * @return the sequence number of the last read message, which is the cursor for the next read
+	 */
+	public long getLastSequence() {
+	    return this.lastSequence;
+	}
+
+	/**
+	 * @return true, if messages after the given sequence number have already been overwritten
+	 */
+	public boolean hasGap() {
+	    return this.gap;
+	}
+
+	/**
+	 * @return the sequence number of the oldest retained message at the time of the read
+	 */
+	public long getOldestSequence() {
+	    return this.oldestSequence;
+	}
+    }
+}
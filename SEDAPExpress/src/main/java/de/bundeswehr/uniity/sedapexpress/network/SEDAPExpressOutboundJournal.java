@@ -0,0 +1,758 @@
+/**
+ * Note: This license has also been called the “Simplified BSD License” and the “FreeBSD License”.
+ *
+ * Copyright 2024-2025 UNIITY POC: Volker Voß, Federal Armed Forces of Germany
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS “AS IS” AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSEnARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ * OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY
+ * OF SUCH DAMAGE.
+ */
+package de.bundeswehr.uniity.sedapexpress.network;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage.MessageType;
+
+/**
+ * Persistent outbound journal for store-and-forward links (MQTT, REST and TCP client)
+ * <p>
+ * Outgoing messages are appended to memory-mapped segment files in a directory, the communicator takes them in order, sends them and
+ * acknowledges them afterwards. After a connection loss {@link #rewind()} delivers all unacknowledged messages again, after a failed request
+ * {@link #rewind(Collection)} delivers only its messages again. Acknowledgements of messages, which are delivered again, remain effective.
+ * After a restart of the process the journal continues with the first unacknowledged message.
+ * <p>
+ * The delivery guarantee depends on the acknowledgement of the communicator: MQTT (QoS 1 and 2) and REST acknowledge after the broker or
+ * server has confirmed the messages (at-least-once). The TCP client has no confirmation of the peer and acknowledges as soon as a message
+ * has been written to the socket, so the messages still in the send buffers at a connection loss are lost (at-most-once for this tail).
+ * <p>
+ * The size of the journal is limited. If a new segment would exceed the limit, the oldest segment containing messages of the lowest pending
+ * priority is evicted: these messages are dropped, the messages of a higher priority are moved to the new segment and delivered before the
+ * newer messages. So e.g. COMMANDs survive a long outage, while outdated CONTACT updates are dropped, even if every segment contains both.
+ *
+ * @author Volker Voß
+ *
+ */
+public class SEDAPExpressOutboundJournal implements Closeable {
+
+    protected static Logger logger = Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
+
+    /**
+     * Priority of the messages of a type in case of an eviction
+     */
+    public enum Priority {
+	LOW, NORMAL, HIGH
+    }
+
+    /**
+     * Message taken from the journal
+     *
+     * @param position Position in the journal, used for the acknowledgement
+     * @param message  SEDAP-Express message
+     */
+    public record Entry(long position, SEDAPExpressMessage message) {
+    }
+
+    /**
+     * Default maximum size of the journal in bytes
+     */
+    public static final long DEFAULT_MAX_SIZE = 64L * 1024 * 1024;
+
+    private static final int MIN_SEGMENT_SIZE = 64 * 1024;
+
+    private static final int MAX_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    private static final int MAGIC = 0x53454A31; // "SEJ1"
+
+    private static final int SEGMENT_ACTIVE = 0;
+
+    private static final int SEGMENT_EVICTED = 1;
+
+    // Magic and state
+    private static final int SEGMENT_HEADER = 8;
+
+    // Length of the payload, priority and state
+    private static final int RECORD_HEADER = 6;
+
+    private static final byte RECORD_PENDING = 0;
+
+    private static final byte RECORD_ACKNOWLEDGED = 1;
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private final Path directory;
+
+    private final int segmentSize;
+
+    private final int maxSegments;
+
+    private final FileChannel indexChannel;
+
+    private final MappedByteBuffer index;
+
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+
+    private final EnumMap<MessageType, Priority> priorities = new EnumMap<>(MessageType.class);
+
+    private final TreeSet<Long> inFlight = new TreeSet<>();
+
+    // Messages, which will be delivered again before the messages after the read position: position by original position
+    private final TreeMap<Long, Long> redeliver = new TreeMap<>();
+
+    // Original positions of the messages moved by an eviction, the order of the delivery
+    private final HashMap<Long, Long> origins = new HashMap<>();
+
+    private long writePosition;
+
+    private long readPosition;
+
+    private long committedPosition;
+
+    private long pendingCount = 0;
+
+    private long evictedCount = 0;
+
+    private boolean closed = false;
+
+    /**
+     * One memory-mapped segment file
+     */
+    private static class Segment {
+
+	private final long number;
+
+	private final Path path;
+
+	private final FileChannel channel;
+
+	private final MappedByteBuffer buffer;
+
+	// Number of pending messages per priority
+	private final int[] pendingByPriority = new int[Priority.values().length];
+
+	private int pending = 0;
+
+	private Segment(long number, Path path, int size) throws IOException {
+
+	    this.number = number;
+	    this.path = path;
+	    this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+	    this.buffer = this.channel.map(MapMode.READ_WRITE, 0, size);
+	}
+
+	private void addPending(Priority priority) {
+
+	    this.pendingByPriority[priority.ordinal()]++;
+	    this.pending++;
+	}
+
+	private void removePending(Priority priority) {
+
+	    this.pendingByPriority[priority.ordinal()]--;
+	    this.pending--;
+	}
+    }
+
+    /**
+     * Pending message of an evicted segment, which is moved to the new segment
+     *
+     * @param origin   Original position of the message
+     * @param priority Priority of the message
+     * @param payload  Serialized message
+     */
+    private record Survivor(long origin, Priority priority, byte[] payload) {
+    }
+
+    /**
+     * Returns the default priority of a message type: HIGH for COMMAND, ACKNOWLEDGE, KEYEXCHANGE and RESEND, LOW for the periodically updated
+     * CONTACT, EMISSION, OWNUNIT, HEARTBEAT, METEO and TIMESYNC and NORMAL for all others
+     *
+     * @param type Message type
+     * @return Priority
+     */
+    public static Priority getDefaultPriority(MessageType type) {
+
+	return switch (type) {
+	case COMMAND, ACKNOWLEDGE, KEYEXCHANGE, RESEND -> Priority.HIGH;
+	case CONTACT, EMISSION, OWNUNIT, HEARTBEAT, METEO, TIMESYNC -> Priority.LOW;
+	default -> Priority.NORMAL;
+	};
+    }
+
+    /**
+     * Opens or creates a journal with the default maximum size
+     *
+     * @param directory Directory of the journal files
+     * @throws IOException
+     */
+    public SEDAPExpressOutboundJournal(Path directory) throws IOException {
+
+	this(directory, SEDAPExpressOutboundJournal.DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Opens or creates a journal, the unacknowledged messages of an existing journal will be delivered again
+     *
+     * @param directory Directory of the journal files
+     * @param maxSize   Maximum size of all segment files in bytes, the journal uses at least two segments of 64 KB
+     * @throws IOException
+     */
+    public SEDAPExpressOutboundJournal(Path directory, long maxSize) throws IOException {
+
+	this.directory = directory;
+	this.segmentSize = (int) Math.max(SEDAPExpressOutboundJournal.MIN_SEGMENT_SIZE, Math.min(SEDAPExpressOutboundJournal.MAX_SEGMENT_SIZE, maxSize / 16));
+	this.maxSegments = (int) Math.max(2, maxSize / this.segmentSize);
+
+	for (MessageType type : MessageType.values()) {
+	    this.priorities.put(type, SEDAPExpressOutboundJournal.getDefaultPriority(type));
+	}
+
+	Files.createDirectories(directory);
+
+	this.indexChannel = FileChannel.open(directory.resolve("journal.idx"), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+	this.index = this.indexChannel.map(MapMode.READ_WRITE, 0, Long.BYTES);
+	this.committedPosition = this.index.getLong(0);
+
+	recover();
+    }
+
+    /**
+     * Maps the existing segments and restores the positions
+     */
+    private void recover() throws IOException {
+
+	try (DirectoryStream<Path> files = Files.newDirectoryStream(this.directory, "*" + SEDAPExpressOutboundJournal.SEGMENT_SUFFIX)) {
+	    for (Path file : files) {
+
+		final String name = file.getFileName().toString();
+		final long number;
+		try {
+		    number = Long.parseLong(name.substring(0, name.length() - SEDAPExpressOutboundJournal.SEGMENT_SUFFIX.length()));
+		} catch (NumberFormatException e) {
+		    continue;
+		}
+
+		if (Files.size(file) != this.segmentSize || number < segmentOf(this.committedPosition)) {
+		    // Other segment size or already delivered
+		    Files.deleteIfExists(file);
+		    continue;
+		}
+
+		final Segment segment = new Segment(number, file, this.segmentSize);
+		if (segment.buffer.getInt(0) != SEDAPExpressOutboundJournal.MAGIC || segment.buffer.getInt(4) != SEDAPExpressOutboundJournal.SEGMENT_ACTIVE) {
+		    segment.channel.close();
+		    Files.deleteIfExists(file);
+		    continue;
+		}
+		this.segments.put(number, segment);
+	    }
+	}
+
+	this.writePosition = this.committedPosition;
+
+	for (Segment segment : this.segments.values()) {
+
+	    int offset = SEDAPExpressOutboundJournal.SEGMENT_HEADER;
+	    int length;
+	    while ((length = readLength(segment, offset)) > 0) {
+
+		final long position = segment.number * this.segmentSize + offset;
+		if (isPending(segment, position)) {
+		    segment.addPending(priorityOf(segment, offset));
+		    this.pendingCount++;
+		}
+		offset += SEDAPExpressOutboundJournal.RECORD_HEADER + length;
+	    }
+	    this.writePosition = segment.number * this.segmentSize + offset;
+	}
+
+	this.readPosition = this.committedPosition;
+    }
+
+    /**
+     * Sets the priority of a message type
+     *
+     * @param type     Message type
+     * @param priority Priority in case of an eviction
+     */
+    public synchronized void setPriority(MessageType type, Priority priority) {
+
+	this.priorities.put(type, priority);
+    }
+
+    /**
+     * Appends a message to the journal, if necessary a segment is evicted
+     *
+     * @param message Message to append
+     * @throws IOException If the message is larger than a segment or the journal could not be written
+     */
+    public synchronized void append(SEDAPExpressMessage message) throws IOException {
+
+	if (this.closed) {
+	    throw new IOException("Journal is closed");
+	}
+
+	final byte[] payload = message.toString().getBytes(StandardCharsets.UTF_8);
+	if (SEDAPExpressOutboundJournal.RECORD_HEADER + payload.length > this.segmentSize - SEDAPExpressOutboundJournal.SEGMENT_HEADER) {
+	    throw new IOException("Message too large for the journal: " + payload.length + " bytes");
+	}
+
+	write(this.priorities.get(message.getMessageType()), payload);
+
+	notifyAll();
+    }
+
+    /**
+     * Writes a record at the write position, if necessary a new segment is started and a segment is evicted
+     *
+     * @param priority Priority of the message
+     * @param payload  Serialized message
+     * @return Position of the record
+     */
+    private long write(Priority priority, byte[] payload) throws IOException {
+
+	final int size = SEDAPExpressOutboundJournal.RECORD_HEADER + payload.length;
+
+	Segment segment = this.segments.get(segmentOf(this.writePosition));
+	if (segment == null || offsetOf(this.writePosition) + size > this.segmentSize) {
+
+	    final List<Survivor> survivors = new ArrayList<>();
+	    final long number = segmentOf(this.writePosition) + 1;
+	    while (this.segments.size() >= this.maxSegments) {
+		survivors.addAll(evict());
+	    }
+
+	    segment = new Segment(number, this.directory.resolve(number + SEDAPExpressOutboundJournal.SEGMENT_SUFFIX), this.segmentSize);
+	    segment.buffer.putInt(0, SEDAPExpressOutboundJournal.MAGIC);
+	    segment.buffer.putInt(4, SEDAPExpressOutboundJournal.SEGMENT_ACTIVE);
+	    this.segments.put(number, segment);
+	    this.writePosition = number * this.segmentSize + SEDAPExpressOutboundJournal.SEGMENT_HEADER;
+
+	    // The moved messages keep their place before the newer messages
+	    for (Survivor survivor : survivors) {
+		final long position = write(survivor.priority(), survivor.payload());
+		this.origins.put(position, survivor.origin());
+		this.redeliver.put(survivor.origin(), position);
+	    }
+	    if (!survivors.isEmpty()) {
+		return write(priority, payload);
+	    }
+	}
+
+	final long position = this.writePosition;
+	final int offset = offsetOf(position);
+
+	segment.buffer.put(offset + 4, (byte) priority.ordinal());
+	segment.buffer.put(offset + 5, SEDAPExpressOutboundJournal.RECORD_PENDING);
+	segment.buffer.put(offset + SEDAPExpressOutboundJournal.RECORD_HEADER, payload);
+	// The length is written last, a partially written record is not visible after a crash
+	segment.buffer.putInt(offset, payload.length);
+
+	segment.addPending(priority);
+	this.pendingCount++;
+	this.writePosition += size;
+
+	return position;
+    }
+
+    /**
+     * Evicts a segment: a segment without pending messages or otherwise the oldest segment containing messages of the lowest pending
+     * priority. These messages are dropped, the pending messages of a higher priority are returned to be moved to the new segment.
+     *
+     * @return messages to move
+     */
+    private List<Survivor> evict() {
+
+	Segment victim = null;
+	int lowest = Integer.MAX_VALUE;
+	for (Segment segment : this.segments.values()) {
+	    if (segment.pending == 0) {
+		victim = segment;
+		lowest = -1;
+		break;
+	    }
+	    for (int priority = 0; priority < lowest; priority++) {
+		if (segment.pendingByPriority[priority] > 0) {
+		    victim = segment;
+		    lowest = priority;
+		    break;
+		}
+	    }
+	}
+
+	final List<Survivor> survivors = new ArrayList<>();
+	int dropped = 0;
+
+	int offset = SEDAPExpressOutboundJournal.SEGMENT_HEADER;
+	int length;
+	while ((length = readLength(victim, offset)) > 0) {
+
+	    final long position = victim.number * this.segmentSize + offset;
+	    if (isPending(victim, position)) {
+		final Priority priority = priorityOf(victim, offset);
+		if (priority.ordinal() > lowest) {
+		    final byte[] payload = new byte[length];
+		    victim.buffer.get(offset + SEDAPExpressOutboundJournal.RECORD_HEADER, payload);
+		    survivors.add(new Survivor(originOf(position), priority, payload));
+		} else {
+		    dropped++;
+		}
+	    }
+	    offset += SEDAPExpressOutboundJournal.RECORD_HEADER + length;
+	}
+
+	if (dropped > 0) {
+	    SEDAPExpressOutboundJournal.logger.logp(Level.WARNING, "SEDAPExpressOutboundJournal", "evict()",
+		    "Journal full, evicting " + dropped + " messages with priority " + Priority.values()[lowest] + ", moving " + survivors.size() + " messages");
+	}
+
+	this.evictedCount += dropped;
+	this.pendingCount -= victim.pending;
+
+	// Moved messages in flight are delivered again from their new position
+	final long number = victim.number;
+	final long start = number * this.segmentSize;
+	this.inFlight.subSet(start, start + this.segmentSize).clear();
+	this.redeliver.values().removeIf(position -> segmentOf(position) == number);
+	this.origins.keySet().removeIf(position -> segmentOf(position) == number);
+
+	victim.buffer.putInt(4, SEDAPExpressOutboundJournal.SEGMENT_EVICTED);
+	deleteSegment(victim);
+
+	if (segmentOf(this.readPosition) == victim.number) {
+	    this.readPosition = nextSegmentStart(victim.number);
+	}
+	updateCommittedPosition();
+
+	return survivors;
+    }
+
+    private long originOf(long position) {
+	return this.origins.getOrDefault(position, position);
+    }
+
+    private boolean isPending(Segment segment, long position) {
+	return position >= this.committedPosition && segment.buffer.get(offsetOf(position) + 5) == SEDAPExpressOutboundJournal.RECORD_PENDING;
+    }
+
+    private Priority priorityOf(Segment segment, int offset) {
+	return Priority.values()[Math.min(segment.buffer.get(offset + 4) & 0xFF, Priority.HIGH.ordinal())];
+    }
+
+    private void deleteSegment(Segment segment) {
+
+	this.segments.remove(segment.number);
+	try {
+	    segment.channel.close();
+	    Files.deleteIfExists(segment.path);
+	} catch (IOException e) {
+	    // A still mapped file can not be deleted on some platforms, it is ignored at the next start
+	    SEDAPExpressOutboundJournal.logger.logp(Level.INFO, "SEDAPExpressOutboundJournal", "deleteSegment()", "Could not delete " + segment.path + ": " + e.getLocalizedMessage());
+	}
+    }
+
+    /**
+     * Takes the next unacknowledged message, waits if there is none
+     *
+     * @return Journal entry or null, if the journal has been closed
+     * @throws InterruptedException
+     */
+    public synchronized Entry take() throws InterruptedException {
+
+	Entry entry;
+	while ((entry = next()) == null) {
+	    if (this.closed) {
+		return null;
+	    }
+	    wait();
+	}
+	return entry;
+    }
+
+    /**
+     * Takes the next unacknowledged message, waits up to the given time if there is none
+     *
+     * @param timeout Maximum waiting time
+     * @param unit    Unit of the waiting time
+     * @return Journal entry or null
+     * @throws InterruptedException
+     */
+    public synchronized Entry poll(long timeout, TimeUnit unit) throws InterruptedException {
+
+	final long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+	Entry entry;
+	while ((entry = next()) == null) {
+	    final long remaining = deadline - System.nanoTime();
+	    if (remaining <= 0 || this.closed) {
+		return null;
+	    }
+	    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+	}
+	return entry;
+    }
+
+    private Entry next() {
+
+	while (!this.closed && !this.redeliver.isEmpty()) {
+
+	    final long position = this.redeliver.pollFirstEntry().getValue();
+	    final Segment segment = this.segments.get(segmentOf(position));
+	    if (segment != null) {
+		final Entry entry = read(segment, position);
+		if (entry != null) {
+		    return entry;
+		}
+	    }
+	}
+
+	while (!this.closed && this.readPosition < this.writePosition) {
+
+	    final long number = segmentOf(this.readPosition);
+	    final Segment segment = this.segments.get(number);
+	    if (segment == null) {
+		this.readPosition = nextSegmentStart(number);
+		continue;
+	    }
+
+	    final int offset = offsetOf(this.readPosition);
+	    final int length = readLength(segment, offset);
+	    if (length <= 0) {
+		// End of the segment
+		this.readPosition = nextSegmentStart(number);
+		continue;
+	    }
+
+	    final long position = this.readPosition;
+	    this.readPosition += SEDAPExpressOutboundJournal.RECORD_HEADER + length;
+
+	    if (this.inFlight.contains(position) || this.origins.containsKey(position)) {
+		continue; // Moved message, which has already been taken or will be delivered again
+	    }
+
+	    final Entry entry = read(segment, position);
+	    if (entry != null) {
+		return entry;
+	    }
+	}
+	return null;
+    }
+
+    /**
+     * Reads a pending record and marks it as in flight
+     *
+     * @param segment  Segment of the record
+     * @param position Position of the record
+     * @return Journal entry or null, if the record has already been acknowledged or is unreadable
+     */
+    private Entry read(Segment segment, long position) {
+
+	final int offset = offsetOf(position);
+	if (segment.buffer.get(offset + 5) != SEDAPExpressOutboundJournal.RECORD_PENDING) {
+	    return null;
+	}
+
+	final byte[] payload = new byte[readLength(segment, offset)];
+	segment.buffer.get(offset + SEDAPExpressOutboundJournal.RECORD_HEADER, payload);
+
+	this.inFlight.add(position);
+	try {
+	    return new Entry(position, SEDAPExpressMessage.deserialize(new String(payload, StandardCharsets.UTF_8)));
+	} catch (Exception e) {
+	    SEDAPExpressOutboundJournal.logger.logp(Level.SEVERE, "SEDAPExpressOutboundJournal", "read()", "Dropping unreadable journal entry: " + e.getLocalizedMessage());
+	    acknowledge(position);
+	    return null;
+	}
+    }
+
+    /**
+     * Acknowledges a message after it has been delivered, it will not be delivered again
+     *
+     * @param entry Journal entry
+     */
+    public synchronized void acknowledge(Entry entry) {
+
+	acknowledge(entry.position());
+    }
+
+    private void acknowledge(long position) {
+
+	// A message to be delivered again can still be acknowledged by its previous attempt
+	if (!this.inFlight.remove(position) && (this.redeliver.remove(originOf(position)) == null)) {
+	    return; // Evicted or already acknowledged
+	}
+	this.origins.remove(position);
+
+	final Segment segment = this.segments.get(segmentOf(position));
+	if (segment != null) {
+	    segment.buffer.put(offsetOf(position) + 5, SEDAPExpressOutboundJournal.RECORD_ACKNOWLEDGED);
+	    segment.removePending(priorityOf(segment, offsetOf(position)));
+	    this.pendingCount--;
+	}
+
+	updateCommittedPosition();
+    }
+
+    /**
+     * Delivers all taken, but unacknowledged messages again, e.g. after a connection loss. A later acknowledgement of one of them still
+     * prevents its delivery.
+     */
+    public synchronized void rewind() {
+
+	for (long position : this.inFlight) {
+	    this.redeliver.put(originOf(position), position);
+	}
+	this.inFlight.clear();
+	notifyAll();
+    }
+
+    /**
+     * Delivers the given taken, but unacknowledged messages again, e.g. after a failed request. The other messages in flight are not
+     * affected.
+     *
+     * @param entries Journal entries
+     */
+    public synchronized void rewind(Collection<Entry> entries) {
+
+	for (Entry entry : entries) {
+	    if (this.inFlight.remove(entry.position())) {
+		this.redeliver.put(originOf(entry.position()), entry.position());
+	    }
+	}
+	notifyAll();
+    }
+
+    /**
+     * Moves the committed position to the first unacknowledged message and deletes the completely delivered segments
+     */
+    private void updateCommittedPosition() {
+
+	long committed = this.readPosition;
+	if (!this.inFlight.isEmpty()) {
+	    committed = Math.min(committed, this.inFlight.first());
+	}
+	if (!this.redeliver.isEmpty()) {
+	    // The original position is never behind the current position of a message
+	    committed = Math.min(committed, this.redeliver.firstKey());
+	}
+	this.committedPosition = committed;
+	this.index.putLong(0, this.committedPosition);
+
+	final long committedSegment = segmentOf(this.committedPosition);
+	while (!this.segments.isEmpty() && this.segments.firstKey() < committedSegment) {
+	    deleteSegment(this.segments.firstEntry().getValue());
+	}
+    }
+
+    private int readLength(Segment segment, int offset) {
+
+	if (offset + SEDAPExpressOutboundJournal.RECORD_HEADER > this.segmentSize) {
+	    return 0;
+	}
+	return segment.buffer.getInt(offset);
+    }
+
+    private long nextSegmentStart(long number) {
+
+	final Long next = this.segments.higherKey(number);
+	return (next != null) ? next * this.segmentSize + SEDAPExpressOutboundJournal.SEGMENT_HEADER : this.writePosition;
+    }
+
+    private long segmentOf(long position) {
+	return position / this.segmentSize;
+    }
+
+    private int offsetOf(long position) {
+	return (int) (position % this.segmentSize);
+    }
+
+    /**
+     * @return Number of appended, but not yet acknowledged messages
+     */
+    public synchronized long getPendingCount() {
+	return this.pendingCount;
+    }
+
+    /**
+     * @return Number of messages dropped because the journal was full
+     */
+    public synchronized long getEvictedCount() {
+	return this.evictedCount;
+    }
+
+    /**
+     * @return Size of the segment files in bytes
+     */
+    public synchronized long getSize() {
+	return (long) this.segments.size() * this.segmentSize;
+    }
+
+    /**
+     * Writes all changes to the storage device
+     */
+    public synchronized void force() {
+
+	this.index.force();
+	for (Segment segment : this.segments.values()) {
+	    segment.buffer.force();
+	}
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+
+	if (this.closed) {
+	    return;
+	}
+
+	force();
+	this.closed = true;
+
+	for (Segment segment : this.segments.values()) {
+	    segment.channel.close();
+	}
+	this.indexChannel.close();
+
+	notifyAll();
+    }
+
+    @Override
+    public String toString() {
+	return "SEDAPExpressOutboundJournal [" + this.directory + ", pending=" + getPendingCount() + ", evicted=" + getEvictedCount() + "]";
+    }
+}
@@ -0,0 +1,460 @@
+/**
+ * Note: This license has also been called the “Simplified BSD License” and the “FreeBSD License”.
+ *
+ * Copyright 2024-2025 UNIITY POC: Volker Voß, Federal Armed Forces of Germany
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS “AS IS” AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSEnARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ * OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY
+ * OF SUCH DAMAGE.
+ */
+package de.bundeswehr.uniity.sedapexpress.network;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.spi.SelectorProvider;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage.MessageType;
+import de.bundeswehr.uniity.sedapexpress.processing.SEDAPExpressSubscriber;
+import de.bundeswehr.uniity.sedapexpress.protobuf.SEDAPExpressProtobufCodec;
+
+/**
+ * TCP receiver/sender class for SEDAP-Express messages in the typed protobuf format
+ * <p>
+ * Every message is sent as Envelope of sedapexpress_messages.proto, preceded by its length as varint (like writeDelimitedTo() of the protobuf
+ * library). The received envelopes are copied out of the receive buffer and decoded with {@link SEDAPExpressProtobufCodec} without the text
+ * format, by the receive pipeline if enabled. The receive buffers are taken from a pool shared by all connections.
+ *
+ * @author Volker Voß
+ *
+ */
+public class SEDAPExpressProtobufTCPClient extends SEDAPExpressCommunicator implements Runnable {
+
+    protected static Logger logger = Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
+    static {
+	SEDAPExpressProtobufTCPClient.logger.setLevel(Level.ALL);
+    }
+
+    /** Size of the pooled receive buffers */
+    public static final int BUFFER_SIZE = 65536;
+
+    /** Default maximum size of an envelope */
+    public static final int DEFAULT_MAX_FRAME_SIZE = 16 * 1024 * 1024;
+
+    private static final ConcurrentLinkedQueue<ByteBuffer> bufferPool = new ConcurrentLinkedQueue<>();
+
+    private Exception lastException = null;
+
+    private SocketChannel socket;
+
+    private String host;
+
+    private final int port;
+
+    private boolean status = true;
+
+    private final ConcurrentLinkedDeque<SEDAPExpressProtobufTCPClient> clients;
+
+    private Thread ownThread;
+
+    private int maxFrameSize = DEFAULT_MAX_FRAME_SIZE;
+
+    private final Object writeLock = new Object();
+
+    public String getHost() {
+
+	return this.host;
+    }
+
+    /**
+     * Instantiate a new SEDAP-Express protobuf TCP Client
+     *
+     * @param host Host/IP to be used
+     * @param port Port to be used
+     */
+    public SEDAPExpressProtobufTCPClient(String host, int port) {
+
+	super();
+
+	this.host = host;
+	this.port = port;
+
+	this.clients = new ConcurrentLinkedDeque<>();
+    }
+
+    /**
+     * Instantiate a new SEDAP-Express protobuf TCP Client (initiated from a protobuf TCP Server)
+     *
+     * @param socket        SocketChannel to be used
+     * @param clients       Client list to be used
+     * @param subscriptions Subscription list to be used
+     */
+    protected SEDAPExpressProtobufTCPClient(SocketChannel socket, ConcurrentLinkedDeque<SEDAPExpressProtobufTCPClient> clients, Map<MessageType, Set<SEDAPExpressSubscriber>> subscriptions) {
+
+	super();
+
+	this.socket = socket;
+
+	try {
+	    this.host = socket.getRemoteAddress().toString().substring(1);
+	} catch (IOException e) {
+	    this.host = "";
+	}
+
+	this.port = 0; // Unused
+
+	this.clients = clients;
+	this.subscriptions = subscriptions;
+    }
+
+    /**
+     * Sets the maximum size of a received envelope, larger envelopes close the connection
+     *
+     * @param maxFrameSize maximum size in bytes
+     */
+    public void setMaxFrameSize(int maxFrameSize) {
+
+	if (maxFrameSize <= 0) {
+	    throw new IllegalArgumentException("maxFrameSize must be positive");
+	}
+	this.maxFrameSize = maxFrameSize;
+    }
+
+    public int getMaxFrameSize() {
+	return this.maxFrameSize;
+    }
+
+    public boolean connect() {
+
+	if (this.clients.isEmpty())
+	    logInput("Protobuf TCP client started!");
+
+	try {
+	    // No socket given from server
+	    if (this.socket == null) {
+		this.socket = SelectorProvider.provider().openSocketChannel();
+		this.socket.setOption(StandardSocketOptions.SO_KEEPALIVE, true);
+		this.socket.setOption(StandardSocketOptions.TCP_NODELAY, true);
+
+		// Blocking access
+		this.socket.configureBlocking(true);
+
+		this.socket.connect(new InetSocketAddress(this.host, this.port));
+
+		SEDAPExpressProtobufTCPClient.logger.logp(Level.INFO, "SEDAPExpressProtobufTCPClient", "connect()", "Connected to " + this.host);
+		logInput("Connected to " + this.host);
+
+	    } else if (this.socket.isConnected()) {
+		SEDAPExpressProtobufTCPClient.logger.logp(Level.INFO, "SEDAPExpressProtobufTCPClient", "connect()", "Connected to " + this.socket.getRemoteAddress());
+		this.socket.setOption(StandardSocketOptions.TCP_NODELAY, true);
+
+	    } else {
+		SEDAPExpressProtobufTCPClient.logger.logp(Level.INFO, "SEDAPExpressProtobufTCPClient", "connect()", "Disconnected");
+		return false;
+	    }
+
+	    this.lastException = null;
+
+	    if (this.ownThread == null) {
+		this.ownThread = new Thread(this, "SEDAPExpressProtobufTCPClient " + this.host);
+		this.ownThread.start();// Start receiving thread
+	    }
+
+	    return true;
+
+	} catch (Exception e) {
+	    this.lastException = e;
+	    return false;
+	}
+    }
+
+    @Override
+    public void run() {
+
+	while (this.status) {
+
+	    try {
+		receive();
+
+		if (this.status) {
+		    throw new IOException("Connection closed by " + this.host);
+		}
+
+	    } catch (Exception e) {
+		this.lastException = e;
+
+		if (this.status) { // Only if not manually triggered
+		    SEDAPExpressProtobufTCPClient.logger.log(Level.WARNING, "SEDAPExpressProtobufTCPClient: " + e);
+		}
+
+		if (!this.clients.isEmpty()) { // If initiated by server, then end client thread
+		    this.status = false;
+		    this.clients.remove(this);
+		    SEDAPExpressProtobufTCPClient.logger.logp(Level.INFO, "SEDAPExpressProtobufTCPClient", "run()", "Removed client " + this.host);
+		    logInput("Remove client " + this.host);
+
+		} else if (this.status) { // If client initiated by user, then reconnect attempt after 2 seconds
+		    SEDAPExpressProtobufTCPClient.logger.logp(Level.SEVERE, "SEDAPExpressProtobufTCPClient", "run()", "Waiting 2 seconds for reconnect to: " + this.host + ":" + this.port);
+		    logInput("Waiting 2 seconds for reconnect to: " + this.host + ":" + this.port);
+		    try {
+			Thread.sleep(2000);
+		    } catch (InterruptedException e1) {
+			this.status = false;
+		    }
+		    try {
+			this.socket.close();
+		    } catch (IOException e1) {
+		    }
+		    this.socket = null;
+		    connect();
+		}
+	    }
+	}
+    }
+
+    /**
+     * Reads envelopes from the socket until the connection is closed. Every complete envelope in the receive buffer is handed over for
+     * decoding, incomplete envelopes are moved to the beginning of the buffer.
+     *
+     * @throws IOException Connection failed or the peer has sent an invalid envelope
+     */
+    private void receive() throws IOException {
+
+	ByteBuffer buffer = takeBuffer();
+
+	try {
+	    while (this.status) {
+
+		if (this.socket.read(buffer) < 0) {
+		    return;
+		}
+		buffer.flip();
+
+		int required = 0;
+		while (buffer.hasRemaining()) {
+
+		    final int start = buffer.position();
+		    final int length = readFrameLength(buffer);
+		    if (length < 0) {
+			buffer.position(start);
+			break;
+		    }
+		    if (length > this.maxFrameSize) {
+			throw new IOException("Envelope with " + length + " bytes exceeds the maximum frame size of " + this.maxFrameSize + " bytes");
+		    }
+		    if (buffer.remaining() < length) {
+			required = (buffer.position() - start) + length;
+			buffer.position(start);
+			break;
+		    }
+
+		    final int offset = buffer.arrayOffset() + buffer.position();
+		    try {
+			if (this.receivePipeline != null) {
+			    // The buffer is reused, so the envelope is copied before it is handed over to the receive pipeline
+			    receiveFrame(Arrays.copyOfRange(buffer.array(), offset, offset + length), SEDAPExpressProtobufCodec::decodeEnvelope);
+			} else {
+			    distributeReceivedSEDAPExpressMessage(SEDAPExpressProtobufCodec.decode(CodedInputStream.newInstance(buffer.array(), offset, length)));
+			}
+		    } catch (InvalidProtocolBufferException e) {
+			// The framing is still intact, so only this envelope is lost
+			this.lastException = e;
+			SEDAPExpressProtobufTCPClient.logger.log(Level.SEVERE, "SEDAPExpressProtobufTCPClient, could not decode envelope from " + this.host, e);
+		    } catch (UncheckedIOException e) {
+			this.lastException = e.getCause();
+			SEDAPExpressProtobufTCPClient.logger.log(Level.SEVERE, "SEDAPExpressProtobufTCPClient, could not decode envelope from " + this.host, e);
+		    }
+		    buffer.position(buffer.position() + length);
+		}
+		buffer.compact();
+
+		// Envelope larger than the buffer
+		if (required > buffer.capacity()) {
+		    final ByteBuffer larger = ByteBuffer.allocate(required);
+		    buffer.flip();
+		    larger.put(buffer);
+		    releaseBuffer(buffer);
+		    buffer = larger;
+		}
+	    }
+	} finally {
+	    releaseBuffer(buffer);
+	}
+    }
+
+    /**
+     * Reads the varint length of the next envelope
+     *
+     * @param buffer Buffer in read mode
+     * @return length or -1, if the buffer does not contain the complete varint
+     * @throws IOException Varint has more than 5 bytes
+     */
+    static int readFrameLength(ByteBuffer buffer) throws IOException {
+
+	int result = 0;
+	for (int shift = 0; shift < 35; shift += 7) {
+	    if (!buffer.hasRemaining()) {
+		return -1;
+	    }
+	    final byte b = buffer.get();
+	    result |= (b & 0x7F) << shift;
+	    if (b >= 0) {
+		return result;
+	    }
+	}
+
+	throw new IOException("Malformed envelope length");
+    }
+
+    /**
+     * Creates the length-delimited envelopes of the messages
+     *
+     * @param messages Messages to encode
+     * @return buffer in read mode
+     */
+    static ByteBuffer createFrames(Collection<SEDAPExpressMessage> messages) {
+
+	final byte[][] envelopes = new byte[messages.size()][];
+	int size = 0;
+	int i = 0;
+	for (final SEDAPExpressMessage message : messages) {
+	    envelopes[i] = SEDAPExpressProtobufCodec.encode(message);
+	    size += CodedOutputStream.computeUInt32SizeNoTag(envelopes[i].length) + envelopes[i].length;
+	    i++;
+	}
+
+	final byte[] frames = new byte[size];
+	try {
+	    final CodedOutputStream output = CodedOutputStream.newInstance(frames);
+	    for (final byte[] envelope : envelopes) {
+		output.writeUInt32NoTag(envelope.length);
+		output.writeRawBytes(envelope);
+	    }
+	    output.checkNoSpaceLeft();
+	} catch (IOException e) {
+	    // Cannot happen, the array has exactly the computed size
+	    throw new IllegalStateException(e);
+	}
+
+	return ByteBuffer.wrap(frames);
+    }
+
+    private static ByteBuffer takeBuffer() {
+
+	final ByteBuffer buffer = SEDAPExpressProtobufTCPClient.bufferPool.poll();
+	return (buffer != null) ? buffer : ByteBuffer.allocate(BUFFER_SIZE);
+    }
+
+    private static void releaseBuffer(ByteBuffer buffer) {
+
+	if (buffer.capacity() == BUFFER_SIZE) {
+	    buffer.clear();
+	    SEDAPExpressProtobufTCPClient.bufferPool.offer(buffer);
+	}
+    }
+
+    /**
+     * Writes the frames completely to the socket, the buffer itself will not be changed
+     *
+     * @param frames Frames created with {@link #createFrames(Collection)}
+     * @throws IOException Frames could not be written
+     */
+    boolean writeFrames(ByteBuffer frames) throws IOException {
+
+	final ByteBuffer buffer = frames.duplicate();
+
+	try {
+	    synchronized (this.writeLock) {
+		while (buffer.hasRemaining()) {
+		    this.socket.write(buffer);
+		}
+	    }
+	    return true;
+
+	} catch (IOException e) {
+	    this.lastException = e;
+	    throw e;
+	}
+    }
+
+    @Override
+    public boolean sendSEDAPExpressMessage(SEDAPExpressMessage message) throws IOException {
+
+	return writeFrames(createFrames(List.of(message)));
+    }
+
+    /**
+     * Sends several SEDAP-Express messages with one write to the connected node
+     *
+     * @param messages SEDAP-Express messages to send
+     * @return Result if the sending was successfully
+     * @throws IOException While sending the SEDAP-Express messages, something gone wrong
+     */
+    public boolean sendSEDAPExpressMessages(Collection<SEDAPExpressMessage> messages) throws IOException {
+
+	return writeFrames(createFrames(messages));
+    }
+
+    public boolean isStatus() {
+
+	return this.status;
+    }
+
+    @Override
+    public void stopCommunicator() {
+
+	this.status = false;
+
+	try {
+	    if (this.socket != null) {
+		this.socket.close();
+	    }
+	} catch (IOException e) {
+	}
+
+	SEDAPExpressProtobufTCPClient.logger.logp(Level.INFO, "SEDAPExpressProtobufTCPClient", "stopCommunicator()", "Protobuf TCP client stopped");
+
+	if (this.clients.isEmpty()) // Only for clients initiated by the user
+	    logInput("Protobuf TCP client stopped");
+    }
+
+    @Override
+    public Exception getLastException() {
+
+	return this.lastException;
+    }
+
+}
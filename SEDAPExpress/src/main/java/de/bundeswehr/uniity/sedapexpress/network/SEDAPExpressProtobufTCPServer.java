@@ -0,0 +1,246 @@
+/**
+ * Note: This license has also been called the “Simplified BSD License” and the “FreeBSD License”.
+ *
+ * Copyright 2024-2025 UNIITY POC: Volker Voß, Federal Armed Forces of Germany
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS “AS IS” AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSEnARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ * OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY
+ * OF SUCH DAMAGE.
+ */
+package de.bundeswehr.uniity.sedapexpress.network;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage;
+
+/**
+ * TCP receiver/sender class for SEDAP-Express messages in the typed protobuf format, see {@link SEDAPExpressProtobufTCPClient} for the framing
+ *
+ * @author Volker Voß
+ *
+ */
+public class SEDAPExpressProtobufTCPServer extends SEDAPExpressCommunicator implements Runnable {
+
+    protected static Logger logger = Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
+    static {
+	SEDAPExpressProtobufTCPServer.logger.setLevel(Level.ALL);
+    }
+
+    private Exception lastException = null;
+
+    private ServerSocketChannel serverSocket;
+    private final String intf;
+    private final int port;
+
+    private boolean status = true;
+
+    private int maxFrameSize = SEDAPExpressProtobufTCPClient.DEFAULT_MAX_FRAME_SIZE;
+
+    private final ConcurrentLinkedDeque<SEDAPExpressProtobufTCPClient> clients = new ConcurrentLinkedDeque<>();
+
+    /**
+     * Instantiate a new SEDAP-Express protobuf TCP Server on the given interface
+     *
+     * @param intf Interface to bind to
+     * @param port Port to be used
+     */
+    public SEDAPExpressProtobufTCPServer(String intf, int port) {
+
+	super();
+
+	this.intf = intf;
+	this.port = port;
+    }
+
+    /**
+     * Instantiate a new SEDAP-Express protobuf TCP Server on all interfaces
+     *
+     * @param port Port to be used
+     */
+    public SEDAPExpressProtobufTCPServer(int port) {
+	this("0.0.0.0", port);
+    }
+
+    /**
+     * Sets the maximum size of a received envelope for all connections accepted afterwards
+     *
+     * @param maxFrameSize maximum size in bytes
+     */
+    public void setMaxFrameSize(int maxFrameSize) {
+
+	if (maxFrameSize <= 0) {
+	    throw new IllegalArgumentException("maxFrameSize must be positive");
+	}
+	this.maxFrameSize = maxFrameSize;
+    }
+
+    /**
+     * Enables one receive pipeline shared by all connected clients, the messages of every client are distributed in their received order
+     */
+    @Override
+    public SEDAPExpressReceivePipeline enableReceivePipeline(int bufferSize, int decodeThreads) {
+
+	final SEDAPExpressReceivePipeline pipeline = super.enableReceivePipeline(bufferSize, decodeThreads);
+	this.clients.forEach(client -> client.receivePipeline = pipeline);
+	return pipeline;
+    }
+
+    @Override
+    public void disableReceivePipeline() {
+
+	super.disableReceivePipeline();
+	this.clients.forEach(client -> client.receivePipeline = null);
+    }
+
+    public int getConnectionCount() {
+	return this.clients.size();
+    }
+
+    public boolean connect() {
+
+	try {
+
+	    this.serverSocket = ServerSocketChannel.open();
+	    this.serverSocket.configureBlocking(true);
+	    this.serverSocket.bind(new InetSocketAddress(this.intf, this.port));
+
+	    SEDAPExpressProtobufTCPServer.logger.logp(Level.INFO, "SEDAPExpressProtobufTCPServer", "connect()", "Protobuf TCP server listening on port: " + this.port);
+	    logInput("Protobuf TCP server listening on port: " + this.port);
+
+	    this.lastException = null;
+
+	    new Thread(this, "SEDAPExpressProtobufTCPServer " + this.port).start();
+
+	    return true;
+
+	} catch (Exception e) {
+	    this.lastException = e;
+	    return false;
+	}
+    }
+
+    @Override
+    public void run() {
+
+	try {
+	    while (this.status) {
+		SocketChannel clientSocket = this.serverSocket.accept();
+		SEDAPExpressProtobufTCPClient newClient = new SEDAPExpressProtobufTCPClient(clientSocket, this.clients, this.subscriptions);
+		newClient.setMaxFrameSize(this.maxFrameSize);
+		this.clients.add(newClient);
+		newClient.inputLogger = this.inputLogger;
+		newClient.outputLogger = this.outputLogger;
+		newClient.receivePipeline = this.receivePipeline;
+
+		newClient.connect();
+
+		SEDAPExpressProtobufTCPServer.logger.logp(Level.INFO, "SEDAPExpressProtobufTCPServer", "run()", "Added new client " + newClient.getHost());
+		logInput("Added new client " + newClient.getHost());
+	    }
+	} catch (Exception e) {
+	    if (this.status) { // Only if not manually triggered
+		this.lastException = e;
+		SEDAPExpressProtobufTCPServer.logger.logp(Level.SEVERE, "SEDAPExpressProtobufTCPServer", "run()", "Could not listening on port: " + this.port);
+		logInput("Could not listening on port: " + this.port);
+	    }
+	    this.status = false;
+	} finally {
+	    try {
+		this.serverSocket.close();
+	    } catch (IOException e) {
+	    }
+	}
+    }
+
+    @Override
+    public boolean sendSEDAPExpressMessage(SEDAPExpressMessage message) throws IOException {
+
+	return broadcast(SEDAPExpressProtobufTCPClient.createFrames(List.of(message)));
+    }
+
+    /**
+     * Sends several SEDAP-Express messages with one write to every connected client
+     *
+     * @param messages SEDAP-Express messages to send
+     * @return Result if the messages have been sent to at least one client
+     * @throws IOException While sending the SEDAP-Express messages, something gone wrong
+     */
+    public boolean sendSEDAPExpressMessages(Collection<SEDAPExpressMessage> messages) throws IOException {
+
+	return broadcast(SEDAPExpressProtobufTCPClient.createFrames(messages));
+    }
+
+    private boolean broadcast(ByteBuffer frames) {
+
+	// The frames are the same for all clients, so they will be encoded only once
+	boolean sent = false;
+
+	for (final SEDAPExpressProtobufTCPClient client : this.clients) {
+
+	    if (client.isStatus()) {
+		try {
+		    sent |= client.writeFrames(frames);
+		} catch (Exception e) {
+		    this.clients.remove(client);
+		    client.stopCommunicator();
+		    if (this.status) { // Only if not manually triggered
+			SEDAPExpressProtobufTCPServer.logger.logp(Level.INFO, "SEDAPExpressProtobufTCPServer", "broadcast()", "Removed client " + client.getHost());
+			logInput("Removed client " + client.getHost());
+		    }
+		}
+	    }
+	}
+
+	return sent;
+    }
+
+    @Override
+    public void stopCommunicator() {
+
+	this.status = false;
+
+	try {
+	    if (this.serverSocket != null) {
+		this.serverSocket.close();
+	    }
+	} catch (IOException e) {
+	}
+
+	this.clients.forEach(SEDAPExpressProtobufTCPClient::stopCommunicator);
+
+	SEDAPExpressProtobufTCPServer.logger.logp(Level.INFO, "SEDAPExpressProtobufTCPServer", "stopCommunicator()", "Protobuf TCP server stopped");
+	logInput("Protobuf TCP server stopped");
+    }
+
+    @Override
+    public Exception getLastException() {
+
+	return this.lastException;
+    }
+
+}
@@ -25,24 +25,45 @@
  */
 package de.bundeswehr.uniity.sedapexpress.network;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
 
-import com.google.gson.Gson;
-
-import de.bundeswehr.uniity.sedapexpress.json.Message;
-import de.bundeswehr.uniity.sedapexpress.json.SEDAPExpressJSONMessage;
 import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage;
+import de.bundeswehr.uniity.sedapexpress.network.SEDAPExpressOutboundJournal.Entry;
+import de.bundeswehr.uniity.sedapexpress.utils.HTTPCompressionUtils;
 
 /**
  * REST client class for SEDAP-Express
+ * <p>
+ * Receiving and sending are independent asynchronous pipelines on {@link HttpClient#sendAsync}, HTTP/2 will be used if the server supports
+ * it. Outgoing messages are collected to batches, a batch will be sent as soon as it contains the configured number of messages or the
+ * request delay has elapsed since its first message. Up to the configured number of POST requests can be in flight at the same time; with
+ * more than one concurrent POST the server may receive the batches in a different order.
+ * <p>
+ * With {@link #setOutboundJournal(SEDAPExpressOutboundJournal)} the outgoing messages are stored in a persistent journal and removed after
+ * the server has accepted them; a failed POST is repeated after the error delay. Without a journal, the messages of a failed POST are dropped
+ * and counted, see {@link #getDroppedMessages()}.
  *
  * @author Volker Voß
  *
@@ -54,19 +75,78 @@ public class SEDAPExpressRESTClient extends SEDAPExpressCommunicator implements
 	SEDAPExpressTCPClient.logger.setLevel(Level.ALL);
     }
 
+    /**
+     * Default number of messages, which triggers the immediate sending of a batch
+     */
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    /**
+     * Default number of concurrent POST requests
+     */
+    public static final int DEFAULT_MAX_CONCURRENT_POSTS = 1;
+
+    /**
+     * Modes for receiving messages from the SEDAP-Express REST server
+     */
+    public enum RESTMode {
+
+	/**
+	 * GET requests with the request delay between them
+	 */
+	POLLING,
+
+	/**
+	 * GET requests which wait at the server until new messages are available or the long-polling timeout is reached
+	 */
+	LONG_POLLING,
+
+	/**
+	 * One permanent GET request with Server-Sent-Events, the server streams the messages as soon as they are available
+	 */
+	STREAMING;
+    }
+
     private HttpClient client;
 
+    private ScheduledExecutorService receiveExecutor;
+
     private Exception lastException = null;
 
     private final String url;
 
     private int requestDelay;
 
-    private boolean status = true;
+    private final RESTMode mode;
+
+    private final long longPollingTimeout;
+
+    private volatile boolean status = true;
 
-    private final Gson gson = new Gson();
+    private volatile long lastSequence = 0;
 
-    private static final LinkedBlockingQueue<SEDAPExpressMessage> messageBuffer = new LinkedBlockingQueue<>();
+    private volatile Stream<String> eventStream;
+
+    private int compressionThreshold = HTTPCompressionUtils.DEFAULT_THRESHOLD;
+
+    private volatile String requestEncoding = null;
+
+    private int batchSize = SEDAPExpressRESTClient.DEFAULT_BATCH_SIZE;
+
+    private int maxConcurrentPosts = SEDAPExpressRESTClient.DEFAULT_MAX_CONCURRENT_POSTS;
+
+    private Semaphore postPermits;
+
+    private SEDAPExpressRESTContentType contentType = SEDAPExpressRESTContentType.JSON;
+
+    private volatile SEDAPExpressMessageFilter messageFilter = SEDAPExpressMessageFilter.ACCEPT_ALL;
+
+    private final LinkedBlockingQueue<SEDAPExpressMessage> messageBuffer = new LinkedBlockingQueue<>();
+
+    private SEDAPExpressOutboundJournal journal = null;
+
+    private volatile boolean postFailed = false;
+
+    private final AtomicLong droppedMessages = new AtomicLong();
 
     /**
      * Instantiate a new SEDAP-Express REST client
@@ -76,6 +156,20 @@ public class SEDAPExpressRESTClient extends SEDAPExpressCommunicator implements
      */
     public SEDAPExpressRESTClient(String url, int requestDelay) {
 
+	this(url, requestDelay, RESTMode.POLLING, 0);
+    }
+
+    /**
+     * Instantiate a new SEDAP-Express REST client
+     *
+     * @param url                URL of the SEDAP-Express REST server
+     * @param requestDelay       Delay between HTTP requests in polling mode, in the other modes the delay before a new attempt after an error;
+     *                           also the maximum time outgoing messages are collected before they will be sent
+     * @param mode               Mode for receiving messages
+     * @param longPollingTimeout Maximum time in milliseconds a long-polling request waits at the server for new messages
+     */
+    public SEDAPExpressRESTClient(String url, int requestDelay, RESTMode mode, long longPollingTimeout) {
+
 	super();
 
 	if (url.endsWith("/"))
@@ -84,6 +178,83 @@ public class SEDAPExpressRESTClient extends SEDAPExpressCommunicator implements
 	    this.url = url + "/";
 
 	this.requestDelay = requestDelay;
+	this.mode = mode;
+	this.longPollingTimeout = longPollingTimeout;
+    }
+
+    /**
+     * Enables the compression of requests, which are at least as large as the threshold, and requests compressed responses from the server
+     * (enabled by default). Requests are only compressed after the server has announced the accepted codings with the response header
+     * "Accept-Encoding", so servers without support for compressed requests always get uncompressed requests.
+     *
+     * @param threshold Minimum size of a request body in bytes to be compressed
+     */
+    public void enableCompression(int threshold) {
+	this.compressionThreshold = Math.max(0, threshold);
+    }
+
+    /**
+     * Disables the compression of requests and responses
+     */
+    public void disableCompression() {
+	this.compressionThreshold = -1;
+    }
+
+    /**
+     * Sets the number of messages, which triggers the immediate sending of a batch
+     *
+     * @param batchSize Number of messages per batch
+     */
+    public void setBatchSize(int batchSize) {
+	this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Sets the maximum number of concurrent POST requests, has to be called before {@link #connect()}
+     *
+     * @param maxConcurrentPosts Maximum number of POST requests in flight
+     */
+    public void setMaxConcurrentPosts(int maxConcurrentPosts) {
+	this.maxConcurrentPosts = Math.max(1, maxConcurrentPosts);
+    }
+
+    /**
+     * Sets the content type of the message batches (JSON by default)
+     *
+     * @param contentType Content type of POST requests and requested content type of GET responses
+     */
+    public void setContentType(SEDAPExpressRESTContentType contentType) {
+	this.contentType = contentType;
+    }
+
+    /**
+     * Sets the filter, which will be applied by the server before the messages are sent to this client
+     *
+     * @param messageFilter Filter or null for all messages
+     */
+    public void setMessageFilter(SEDAPExpressMessageFilter messageFilter) {
+	this.messageFilter = (messageFilter != null) ? messageFilter : SEDAPExpressMessageFilter.ACCEPT_ALL;
+    }
+
+    /**
+     * Stores the outgoing messages in the given journal instead of the in-memory buffer, has to be called before {@link #connect()}
+     *
+     * @param journal Persistent outbound journal or null
+     */
+    public void setOutboundJournal(SEDAPExpressOutboundJournal journal) {
+	this.journal = journal;
+    }
+
+    /**
+     * Returns the query parameters of the message filter
+     *
+     * @return query parameters with leading separator or an empty string
+     */
+    private String getFilterQuery() {
+
+	final String query = this.messageFilter.toQuery();
+
+	return query.isEmpty() ? "" : "&" + query;
     }
 
     public boolean connect() {
@@ -92,9 +263,20 @@ public class SEDAPExpressRESTClient extends SEDAPExpressCommunicator implements
 	logInput("Starting REST client");
 
 	try {
-	    this.client = HttpClient.newHttpClient();
+	    this.client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_2).build();
+
+	    this.postPermits = new Semaphore(this.maxConcurrentPosts);
 
-	    new Thread(this).start();
+	    this.receiveExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		final Thread thread = new Thread(runnable, "SEDAPExpressRESTClient receiver");
+		thread.setDaemon(true);
+		return thread;
+	    });
+	    this.receiveExecutor.execute(this);
+
+	    final Thread sender = new Thread(this::runSender, "SEDAPExpressRESTClient sender");
+	    sender.setDaemon(true);
+	    sender.start();
 
 	    return true;
 
@@ -110,108 +292,379 @@ public class SEDAPExpressRESTClient extends SEDAPExpressCommunicator implements
 
     }
 
+    /**
+     * Starts one receive request and schedules the next one after it has been completed
+     */
     @Override
     public void run() {
 
-	while (this.status) {
-
-	    try {
-
-		// Messages abrufen
-		logInput("REST client sending request for new messages...");
-		HttpRequest request = HttpRequest.newBuilder()
-			.uri(new URI(this.url + "SEDAPEXPRESS"))
-			.headers("Content-Type", "text/plain;charset=UTF-8")
-			.GET()
-			.build();
+	if (!this.status) {
+	    return;
+	}
 
-		HttpResponse<String> requestResponse = this.client.send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+	CompletableFuture<Void> request;
+	try {
+	    request = switch (this.mode) {
 
-		switch (requestResponse.statusCode()) {
+	    case STREAMING -> receiveStream();
 
-		case 200 -> {
+	    case LONG_POLLING -> requestMessages("&wait=" + this.longPollingTimeout, Duration.ofMillis(this.longPollingTimeout + 30000));
 
-		    try {
-			SEDAPExpressJSONMessage jsonMessage = this.gson.fromJson(requestResponse.body(), SEDAPExpressJSONMessage.class);
+	    default -> requestMessages("", null);
 
-			logInput("REST client received " + jsonMessage.getMessages().size() + " messages from the server!");
+	    };
+	} catch (final Exception e) {
+	    request = CompletableFuture.failedFuture(e);
+	}
 
-			jsonMessage.getMessages().forEach(message -> distributeReceivedSEDAPExpressMessage(SEDAPExpressMessage.deserialize(message.getMessage())));
+	request.whenComplete((result, e) -> {
 
-		    } catch (Exception e) {
-			SEDAPExpressRESTClient.logger.logp(Level.SEVERE, "SEDAPExpressRESTClient", "run()", "Could not porcess server response!", e.getLocalizedMessage());
+	    long delay = (this.mode == RESTMode.LONG_POLLING) ? 0 : this.requestDelay;
 
-		    }
-		}
-		default -> {
-		    logInput("REST client received HTTP error code: " + requestResponse.statusCode());
-		    SEDAPExpressRESTClient.logger.logp(Level.SEVERE, "SEDAPExpressRESTClient", "run()", "REST request got response error: " + requestResponse.statusCode());
-		}
+	    if (e != null) {
+		this.lastException = (e.getCause() instanceof Exception) ? (Exception) e.getCause() : new Exception(e);
 
+		if (this.status) {
+		    SEDAPExpressTCPServer.logger.logp(Level.SEVERE, "SEDAPExpressRESTServer", "run()", "Could not connect to HTTP server... waiting 2 seconds for next try!", e.getLocalizedMessage());
+		    logInput("Could not connect to HTTP server... waiting 2 seconds for next try!");
+		    logInput("Error message: " + e.getLocalizedMessage());
 		}
+		delay = 2000;
+	    }
 
-		// Messages senden
-		if (!SEDAPExpressRESTClient.messageBuffer.isEmpty()) {
+	    if (this.status) {
+		this.receiveExecutor.schedule(this, delay, TimeUnit.MILLISECONDS);
+	    }
+	});
+    }
 
-		    logInput("REST client sending " + SEDAPExpressRESTClient.messageBuffer.size() + " messages to the server...");
+    /**
+     * Collects the buffered messages to batches and sends them asynchronously, as soon as the batch size is reached or the request delay has
+     * elapsed since the first message of the batch
+     */
+    private void runSender() {
 
-		    SEDAPExpressJSONMessage jsonMessage = new SEDAPExpressJSONMessage();
-		    int msgCounter = 0;
-		    while (!SEDAPExpressRESTClient.messageBuffer.isEmpty()) {
-			jsonMessage.getMessages().add(new Message(SEDAPExpressRESTClient.messageBuffer.take().toString()));
-			msgCounter++;
-		    }
+	while (this.status) {
 
-		    HttpRequest post = HttpRequest.newBuilder()
-			    .uri(new URI(this.url + "SEDAPEXPRESS"))
-			    .headers("Content-Type", "application/json;charset=UTF-8")
-			    .POST(HttpRequest.BodyPublishers.ofString(this.gson.toJson(jsonMessage)))
-			    .build();
+	    try {
+		if (this.postFailed) {
+		    // The journal delivers the messages of the failed request again
+		    this.postFailed = false;
+		    Thread.sleep(Math.max(this.requestDelay, 2000));
+		}
 
-		    HttpResponse<String> postResponse = this.client.send(post, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+		final Entry first = nextMessage(TimeUnit.SECONDS.toNanos(1));
 
-		    switch (postResponse.statusCode()) {
+		if (first == null) {
+		    continue;
+		}
 
-		    case 200 -> {
+		final List<Entry> batch = new ArrayList<>(this.batchSize);
+		batch.add(first);
 
-			logInput("REST client sent " + msgCounter + " messages successfully to the server!");
+		final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.requestDelay);
+		while (batch.size() < this.batchSize) {
 
+		    final Entry entry = nextMessage(deadline - System.nanoTime());
+		    if (entry == null) {
+			break;
 		    }
-		    default -> {
-			logInput("REST client received HTTP error code: " + postResponse.statusCode());
-			SEDAPExpressRESTClient.logger.logp(Level.SEVERE, "SEDAPExpressRESTClient", "run()", "REST client got post error: " + postResponse.statusCode());
-		    }
+		    batch.add(entry);
+		}
 
-		    }
+		this.postPermits.acquire();
 
+		final CompletableFuture<Boolean> post;
+		try {
+		    post = postMessages(batch.stream().map(Entry::message).toList());
+		} catch (final Exception e) {
+		    // The request could not even be created, e.g. the batch could not be encoded
+		    completePost(batch, false);
+		    throw e;
 		}
+		post.whenComplete((success, e) -> completePost(batch, Boolean.TRUE.equals(success)));
 
+	    } catch (final InterruptedException e) {
+		Thread.currentThread().interrupt();
+		return;
 	    } catch (final Exception e) {
 		this.lastException = e;
 
 		if (this.status) {
-		    SEDAPExpressTCPServer.logger.logp(Level.SEVERE, "SEDAPExpressRESTServer", "run()", "Could not connect to HTTP server... waiting 2 seconds for next try!", e.getLocalizedMessage());
-		    logInput("Could not connect to HTTP server... waiting 2 seconds for next try!");
-		    logInput("Error message: " + e.getLocalizedMessage());
-		    try {
-			Thread.sleep(2000);
-		    } catch (InterruptedException ex) {
-		    }
+		    SEDAPExpressRESTClient.logger.logp(Level.SEVERE, "SEDAPExpressRESTClient", "runSender()", "Could not send messages to HTTP server!", e.getLocalizedMessage());
+		    logInput("Could not send messages to HTTP server!");
 		}
 	    }
+	}
+    }
+
+    /**
+     * Releases the permit of a finished POST request and acknowledges the sent messages in the journal or rewinds it for a new attempt
+     *
+     * @param batch   Messages of the request
+     * @param success true, if the server has accepted the messages
+     */
+    private void completePost(List<Entry> batch, boolean success) {
+
+	this.postPermits.release();
+
+	if (this.journal != null) {
+	    if (success) {
+		batch.forEach(this.journal::acknowledge);
+	    } else {
+		this.journal.rewind(batch);
+		this.postFailed = true;
+	    }
+	} else if (!success) {
+	    final long dropped = this.droppedMessages.addAndGet(batch.size());
+	    SEDAPExpressRESTClient.logger.logp(Level.WARNING, "SEDAPExpressRESTClient", "completePost()",
+		    "Dropped " + batch.size() + " messages of a failed POST request without outbound journal (" + dropped + " in total)");
+	}
+    }
+
+    /**
+     * Returns the number of messages, which have been dropped because their POST request failed and no outbound journal is set
+     *
+     * @return number of dropped messages
+     */
+    public long getDroppedMessages() {
+	return this.droppedMessages.get();
+    }
+
+    /**
+     * Takes the next outgoing message from the journal or the buffer
+     *
+     * @param timeout Maximum waiting time in nanoseconds
+     * @return Next message or null
+     */
+    private Entry nextMessage(long timeout) throws InterruptedException {
+
+	if (this.journal != null) {
+	    return this.journal.poll(timeout, TimeUnit.NANOSECONDS);
+	}
+
+	final SEDAPExpressMessage message = this.messageBuffer.poll(timeout, TimeUnit.NANOSECONDS);
+	return (message != null) ? new Entry(-1, message) : null;
+    }
+
+    /**
+     * Requests new messages from the server and distributes them
+     *
+     * @param query   Additional query parameters of the GET request
+     * @param timeout Timeout of the request or null
+     * @return Future, which will be completed after all received messages have been distributed
+     */
+    private CompletableFuture<Void> requestMessages(String query, Duration timeout) throws Exception {
+
+	// Messages abrufen
+	logInput("REST client sending request for new messages...");
+	HttpRequest.Builder builder = HttpRequest.newBuilder()
+		.uri(new URI(this.url + "SEDAPEXPRESS?since=" + this.lastSequence + query + getFilterQuery()))
+		.headers("Accept", this.contentType.getMediaType())
+		.GET();
+
+	if (timeout != null) {
+	    builder.timeout(timeout);
+	}
+
+	if (this.compressionThreshold >= 0) {
+	    builder.header("Accept-Encoding", HTTPCompressionUtils.ACCEPT_ENCODING);
+	}
+
+	// The body will be decoded by the receiver thread while it is still arriving
+	return this.client.sendAsync(builder.build(), HttpResponse.BodyHandlers.ofInputStream()).thenAcceptAsync(this::processResponse, this.receiveExecutor);
+    }
+
+    /**
+     * Distributes the messages of a GET response
+     *
+     * @param requestResponse Response of the GET request
+     */
+    private void processResponse(HttpResponse<InputStream> requestResponse) {
+
+	updateRequestEncoding(requestResponse.headers());
+
+	switch (requestResponse.statusCode()) {
+
+	case 200 -> {
+
+	    try (InputStream body = HTTPCompressionUtils.decompress(requestResponse.body(), requestResponse.headers().firstValue("Content-Encoding").orElse(null))) {
+		final String contentTypeHeader = requestResponse.headers().firstValue("Content-Type").orElse(null);
+		SEDAPExpressRESTContentType responseType = SEDAPExpressRESTContentType.fromContentType(contentTypeHeader);
+		if (responseType == null) {
+		    SEDAPExpressRESTClient.logger.logp(Level.WARNING, "SEDAPExpressRESTClient", "processResponse()", "Unknown content type \"" + contentTypeHeader + "\" of the server response, reading it as JSON");
+		    responseType = SEDAPExpressRESTContentType.JSON;
+		}
+
+		// Every message will be distributed as soon as it has been read from the response body
+		final int count = responseType.read(body, message -> receiveFrame(message, SEDAPExpressMessage::deserialize));
+
+		logInput("REST client received " + count + " messages from the server!");
 
+		requestResponse.headers().firstValueAsLong(SEDAPExpressRESTServer.SEQUENCE_HEADER).ifPresent(sequence -> this.lastSequence = sequence);
+
+	    } catch (Exception e) {
+		SEDAPExpressRESTClient.logger.logp(Level.SEVERE, "SEDAPExpressRESTClient", "run()", "Could not porcess server response!", e.getLocalizedMessage());
+
+	    }
+	}
+	default -> {
 	    try {
-		Thread.sleep(this.requestDelay);
-	    } catch (InterruptedException e) {
+		requestResponse.body().close();
+	    } catch (IOException e) {
+	    }
+	    logInput("REST client received HTTP error code: " + requestResponse.statusCode());
+	    SEDAPExpressRESTClient.logger.logp(Level.SEVERE, "SEDAPExpressRESTClient", "run()", "REST request got response error: " + requestResponse.statusCode());
+	    if (this.mode == RESTMode.LONG_POLLING) {
+		try {
+		    Thread.sleep(this.requestDelay);
+		} catch (InterruptedException e) {
+		}
+	    }
+	}
+
+	}
+    }
+
+    /**
+     * Opens the event stream of the server
+     *
+     * @return Future, which will be completed after the stream has ended
+     */
+    private CompletableFuture<Void> receiveStream() throws Exception {
+
+	logInput("REST client opening event stream...");
+	HttpRequest.Builder builder = HttpRequest.newBuilder()
+		.uri(new URI(this.url + "SEDAPEXPRESS" + SEDAPExpressRESTServer.STREAM_PATH + getFilterQuery().replaceFirst("&", "?")))
+		.headers("Accept", SEDAPExpressRESTServer.EVENT_STREAM_CONTENT_TYPE)
+		.GET();
+
+	// Continue the stream after a reconnect
+	if (this.lastSequence > 0) {
+	    builder.header("Last-Event-ID", String.valueOf(this.lastSequence));
+	}
+
+	return this.client.sendAsync(builder.build(), HttpResponse.BodyHandlers.ofLines()).thenAcceptAsync(this::processStream, this.receiveExecutor);
+    }
+
+    /**
+     * Distributes the streamed messages until the stream ends
+     *
+     * @param response Response of the stream request
+     */
+    private void processStream(HttpResponse<Stream<String>> response) {
+
+	updateRequestEncoding(response.headers());
+
+	if (response.statusCode() != 200) {
+	    logInput("REST client received HTTP error code: " + response.statusCode());
+	    SEDAPExpressRESTClient.logger.logp(Level.SEVERE, "SEDAPExpressRESTClient", "receiveStream()", "REST stream got response error: " + response.statusCode());
+	    response.body().close();
+	    return;
+	}
+
+	try (Stream<String> lines = response.body()) {
+
+	    this.eventStream = lines;
+
+	    final Iterator<String> iterator = lines.iterator();
+
+	    while (this.status && iterator.hasNext()) {
+
+		final String line = iterator.next();
+
+		// Only data and id fields are relevant, comments (keep alive) and empty lines (end of event) will be ignored
+		if (line.startsWith("data:")) {
+		    receiveFrame(line.substring(5).trim(), SEDAPExpressMessage::deserialize);
+		} else if (line.startsWith("id:")) {
+		    this.lastSequence = Long.parseLong(line.substring(3).trim());
+		}
 	    }
+	} finally {
+	    this.eventStream = null;
+	}
+
+	logInput("REST client event stream closed");
+    }
+
+    /**
+     * Takes the content coding for requests from the header "Accept-Encoding" of a response of the server
+     *
+     * @param headers Headers of the response
+     */
+    private void updateRequestEncoding(HttpHeaders headers) {
+	this.requestEncoding = HTTPCompressionUtils.negotiateEncoding(headers.firstValue("Accept-Encoding").orElse(null));
+    }
 
+    public String getRequestEncoding() {
+	return this.requestEncoding;
+    }
+
+    /**
+     * Sends a batch of messages with one asynchronous POST request to the server
+     *
+     * @param messages Messages to send
+     * @return Future, which will be completed with true, if the server has accepted the messages
+     */
+    private CompletableFuture<Boolean> postMessages(List<SEDAPExpressMessage> messages) throws Exception {
+
+	// Messages senden
+	logInput("REST client sending " + messages.size() + " messages to the server...");
+
+	final ByteArrayOutputStream body = new ByteArrayOutputStream();
+	final int msgCounter = this.contentType.write(body, messages);
+
+	HttpRequest.Builder builder = HttpRequest.newBuilder()
+		.uri(new URI(this.url + "SEDAPEXPRESS"))
+		.headers("Content-Type", this.contentType.getContentType());
+
+	byte[] data = body.toByteArray();
+	final String encoding = this.requestEncoding;
+	if ((encoding != null) && (this.compressionThreshold >= 0) && (data.length >= this.compressionThreshold)) {
+	    data = HTTPCompressionUtils.compress(data, encoding);
+	    builder.header("Content-Encoding", encoding);
 	}
+
+	HttpRequest post = builder.POST(HttpRequest.BodyPublishers.ofByteArray(data)).build();
+
+	return this.client.sendAsync(post, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8)).handle((postResponse, e) -> {
+
+	    if (e != null) {
+		this.lastException = (e.getCause() instanceof Exception) ? (Exception) e.getCause() : new Exception(e);
+		SEDAPExpressRESTClient.logger.logp(Level.SEVERE, "SEDAPExpressRESTClient", "postMessages()", "Could not send messages to HTTP server!", e.getLocalizedMessage());
+		logInput("Could not send messages to HTTP server!");
+		return false;
+	    }
+
+	    // A server rejecting the compressed request (e.g. with 415) without announcing codings gets uncompressed requests again
+	    updateRequestEncoding(postResponse.headers());
+
+	    switch (postResponse.statusCode()) {
+
+	    case 200 -> {
+
+		logInput("REST client sent " + msgCounter + " messages successfully to the server!");
+		return true;
+	    }
+	    default -> {
+		logInput("REST client received HTTP error code: " + postResponse.statusCode());
+		SEDAPExpressRESTClient.logger.logp(Level.SEVERE, "SEDAPExpressRESTClient", "run()", "REST client got post error: " + postResponse.statusCode());
+		return false;
+	    }
+
+	    }
+	});
     }
 
     @Override
     public boolean sendSEDAPExpressMessage(SEDAPExpressMessage message) throws IOException {
 
-	SEDAPExpressRESTClient.messageBuffer.add(message);
+	if (this.journal != null) {
+	    this.journal.append(message);
+	    return true;
+	}
+
+	this.messageBuffer.add(message);
 
 	return true;
     }
@@ -221,6 +674,15 @@ public class SEDAPExpressRESTClient extends SEDAPExpressCommunicator implements
 
 	this.status = false;
 
+	final Stream<String> stream = this.eventStream;
+	if (stream != null) {
+	    stream.close();
+	}
+
+	if (this.receiveExecutor != null) {
+	    this.receiveExecutor.shutdownNow();
+	}
+
 	SEDAPExpressRESTClient.logger.logp(Level.INFO, "SEDAPExpressRESTServer", "stopCommunicator()", "REST server stopped");
 	logInput("REST server stopped");
     }
@@ -0,0 +1,320 @@
+/**
+ * Note: This license has also been called the “Simplified BSD License” and the “FreeBSD License”.
+ *
+ * Copyright 2024-2025 UNIITY POC: Volker Voß, Federal Armed Forces of Germany
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS “AS IS” AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSEnARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ * OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY
+ * OF SUCH DAMAGE.
+ */
+package de.bundeswehr.uniity.sedapexpress.network;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.ExtensionRegistryLite;
+import com.google.protobuf.WireFormat;
+
+import de.bundeswehr.uniity.sedapexpress.json.SEDAPExpressJSONStreamCodec;
+import de.bundeswehr.uniity.sedapexpress.protobuf.ProtobufMessage.SomeMessage;
+
+/**
+ * Content types of the message batches of the REST communicators.
+ * <p>
+ * All codecs work on streams, every message is handed over as soon as it has been read:
+ * <ul>
+ * <li>JSON: {"messages":[{"message":"..."}, ...]}, the default and compatible to older versions</li>
+ * <li>TEXT: one SEDAP-Express message per line, without any escaping or wrapping</li>
+ * <li>PROTOBUF: the message SomeMessage of sedapexpress.proto, the repeated entries are read one by one</li>
+ * </ul>
+ *
+ * @author Volker Voß
+ *
+ */
+public enum SEDAPExpressRESTContentType {
+
+    JSON("application/json", "application/json;charset=UTF-8"),
+
+    TEXT("text/plain", "text/plain;charset=UTF-8"),
+
+    PROTOBUF("application/x-protobuf", "application/x-protobuf");
+
+    /**
+     * Initial size of the read buffer of TEXT batches, it grows with longer lines
+     */
+    private static final int TEXT_BUFFER_SIZE = 8192;
+
+    /**
+     * Maximum length of a line of a TEXT batch in bytes including the line feed, the same limit as for a single frame of the stream transports
+     */
+    public static final int MAX_LINE_LENGTH = SEDAPExpressProtobufTCPClient.DEFAULT_MAX_FRAME_SIZE;
+
+    private final String mediaType;
+
+    private final String contentType;
+
+    SEDAPExpressRESTContentType(String mediaType, String contentType) {
+	this.mediaType = mediaType;
+	this.contentType = contentType;
+    }
+
+    /**
+     * Returns the media type without parameters, e.g. for the header "Accept"
+     *
+     * @return media type
+     */
+    public String getMediaType() {
+	return this.mediaType;
+    }
+
+    /**
+     * Returns the value for the header "Content-Type"
+     *
+     * @return content type with charset
+     */
+    public String getContentType() {
+	return this.contentType;
+    }
+
+    /**
+     * Determines the content type of a received body
+     *
+     * @param contentType Value of the header "Content-Type", may be null
+     * @return content type, JSON if no content type is given or null, if the content type is not supported
+     */
+    public static SEDAPExpressRESTContentType fromContentType(String contentType) {
+
+	if ((contentType == null) || contentType.isBlank()) {
+	    return JSON;
+	}
+
+	final String mediaType = contentType.split(";")[0].trim().toLowerCase(Locale.ROOT);
+
+	for (SEDAPExpressRESTContentType type : values()) {
+	    if (type.mediaType.equals(mediaType)) {
+		return type;
+	    }
+	}
+
+	return null;
+    }
+
+    /**
+     * Selects the content type of a response from the header "Accept" of the request. The supported type with the highest quality value will be
+     * chosen, JSON for wildcards and if no supported type is accepted.
+     *
+     * @param accept Value of the header "Accept", may be null
+     * @return content type of the response
+     */
+    public static SEDAPExpressRESTContentType negotiate(String accept) {
+
+	if (accept == null) {
+	    return JSON;
+	}
+
+	SEDAPExpressRESTContentType result = JSON;
+	float resultQuality = -1.0f;
+
+	for (String range : accept.split(",")) {
+
+	    final String[] parts = range.split(";");
+	    final String mediaType = parts[0].trim().toLowerCase(Locale.ROOT);
+
+	    float quality = 1.0f;
+	    for (int i = 1; i < parts.length; i++) {
+		final String parameter = parts[i].trim();
+		if (parameter.startsWith("q=")) {
+		    try {
+			quality = Float.parseFloat(parameter.substring(2));
+		    } catch (NumberFormatException e) {
+			quality = 0.0f;
+		    }
+		}
+	    }
+
+	    final SEDAPExpressRESTContentType type = switch (mediaType) {
+	    case "*/*", "application/*" -> JSON;
+	    case "text/*" -> TEXT;
+	    default -> fromContentType(mediaType);
+	    };
+
+	    if ((type != null) && (quality > 0.0f) && (quality > resultQuality)) {
+		result = type;
+		resultQuality = quality;
+	    }
+	}
+
+	return result;
+    }
+
+    /**
+     * Reads a batch from the stream and hands over every contained message immediately
+     *
+     * @param inputStream Stream with the batch
+     * @param consumer    Consumer for the serialized SEDAP-Express messages
+     * @return number of read messages
+     * @throws IOException Stream could not be read or does not contain a valid batch
+     * @throws LineTooLongException A line of a TEXT batch exceeds {@link #MAX_LINE_LENGTH}
+     */
+    public int read(InputStream inputStream, Consumer<String> consumer) throws IOException {
+
+	return switch (this) {
+
+	case JSON -> SEDAPExpressJSONStreamCodec.read(inputStream, consumer);
+
+	case TEXT -> {
+	    int count = 0;
+	    try (inputStream) {
+		// The lines are split on the bytes, a line feed never occurs within a multi-byte UTF-8 sequence. Only a line exceeding the buffer
+		// is copied, all others are decoded directly from the buffer.
+		byte[] buffer = new byte[SEDAPExpressRESTContentType.TEXT_BUFFER_SIZE];
+		int length = 0;
+		int read;
+		while ((read = inputStream.read(buffer, length, buffer.length - length)) != -1) {
+		    final int end = length + read;
+		    int start = 0;
+		    for (int i = length; i < end; i++) {
+			if (buffer[i] == '\n') {
+			    count += SEDAPExpressRESTContentType.acceptLine(buffer, start, i, consumer);
+			    start = i + 1;
+			}
+		    }
+		    length = end - start;
+		    if (start > 0) {
+			System.arraycopy(buffer, start, buffer, 0, length);
+		    } else if (length == buffer.length) {
+			if (length >= SEDAPExpressRESTContentType.MAX_LINE_LENGTH) {
+			    throw new LineTooLongException("Line exceeds " + SEDAPExpressRESTContentType.MAX_LINE_LENGTH + " bytes");
+			}
+			buffer = Arrays.copyOf(buffer, Math.min(buffer.length * 2, SEDAPExpressRESTContentType.MAX_LINE_LENGTH));
+		    }
+		}
+		count += SEDAPExpressRESTContentType.acceptLine(buffer, 0, length, consumer);
+	    }
+	    yield count;
+	}
+
+	case PROTOBUF -> {
+	    int count = 0;
+	    try (inputStream) {
+		final CodedInputStream input = CodedInputStream.newInstance(inputStream);
+		int tag;
+		while ((tag = input.readTag()) != 0) {
+		    if ((WireFormat.getTagFieldNumber(tag) == SomeMessage.MESSAGES_FIELD_NUMBER) && (WireFormat.getTagWireType(tag) == WireFormat.WIRETYPE_LENGTH_DELIMITED)) {
+			consumer.accept(input.readMessage(SomeMessage.Messages.parser(), ExtensionRegistryLite.getEmptyRegistry()).getMessage());
+			count++;
+		    } else if (!input.skipField(tag)) {
+			break;
+		    }
+		}
+	    }
+	    yield count;
+	}
+
+	};
+    }
+
+    /**
+     * Hands over a line of a TEXT batch, if it is not blank
+     *
+     * @param buffer   Buffer with the line
+     * @param start    Index of the first byte of the line
+     * @param end      Index after the last byte of the line, without the line feed
+     * @param consumer Consumer for the serialized SEDAP-Express messages
+     * @return 1 if the line has been handed over, otherwise 0
+     */
+    private static int acceptLine(byte[] buffer, int start, int end, Consumer<String> consumer) {
+
+	if ((end > start) && (buffer[end - 1] == '\r')) {
+	    end--;
+	}
+
+	final String line = new String(buffer, start, end - start, StandardCharsets.UTF_8);
+	if (line.isBlank()) {
+	    return 0;
+	}
+
+	consumer.accept(line);
+	return 1;
+    }
+
+    /**
+     * Writes the messages as batch to the stream. The stream will be closed afterwards.
+     *
+     * @param outputStream Stream for the batch
+     * @param messages     Messages to write, every element will be serialized with toString()
+     * @return number of written messages
+     * @throws IOException Stream could not be written
+     */
+    public int write(OutputStream outputStream, Iterable<?> messages) throws IOException {
+
+	return switch (this) {
+
+	case JSON -> SEDAPExpressJSONStreamCodec.write(outputStream, messages);
+
+	case TEXT -> {
+	    int count = 0;
+	    try (Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8))) {
+		for (final Object message : messages) {
+		    writer.write(message.toString());
+		    writer.write('\n');
+		    count++;
+		}
+	    }
+	    yield count;
+	}
+
+	case PROTOBUF -> {
+	    int count = 0;
+	    try (outputStream) {
+		final CodedOutputStream output = CodedOutputStream.newInstance(outputStream);
+		for (final Object message : messages) {
+		    output.writeMessage(SomeMessage.MESSAGES_FIELD_NUMBER, SomeMessage.Messages.newBuilder().setMessage(message.toString()).build());
+		    count++;
+		}
+		output.flush();
+	    }
+	    yield count;
+	}
+
+	};
+    }
+
+    /**
+     * Thrown while reading a TEXT batch, if a line exceeds {@link SEDAPExpressRESTContentType#MAX_LINE_LENGTH}
+     */
+    public static class LineTooLongException extends IOException {
+
+	private static final long serialVersionUID = 1L;
+
+	public LineTooLongException(String message) {
+	    super(message);
+	}
+    }
+}
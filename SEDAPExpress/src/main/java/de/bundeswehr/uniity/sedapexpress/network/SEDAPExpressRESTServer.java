@@ -25,26 +25,70 @@
  */
 package de.bundeswehr.uniity.sedapexpress.network;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import com.google.gson.Gson;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 
-import de.bundeswehr.uniity.sedapexpress.json.Message;
-import de.bundeswehr.uniity.sedapexpress.json.SEDAPExpressJSONMessage;
 import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage;
+import de.bundeswehr.uniity.sedapexpress.utils.HTTPCompressionUtils;
 
 /**
  * REST server class for SEDAP-Express
+ * <p>
+ * Outgoing messages are kept in a bounded ring buffer with increasing sequence numbers, so every client gets all messages independently of the
+ * other clients. Clients should request the messages with the query parameter "since=&lt;sequence&gt;" (0 for all retained messages) and use the
+ * sequence number of the response header "SEDAP-Express-Sequence" for the next request. For clients without this parameter, the server keeps a
+ * cursor per client id given by the query parameter "client=&lt;id&gt;"; a cursor is dropped after {@link #CLIENT_CURSOR_TIMEOUT} without
+ * requests. Requests with neither parameter share one cursor, like the message queue of older versions.
+ * <p>
+ * Besides the plain polling via GET, the server supports long-polling (GET with the query parameter "wait=&lt;milliseconds&gt;", the request waits
+ * until new messages are available or the time is up) and Server-Sent-Events (GET on "/SEDAPEXPRESS/stream" or with "Accept: text/event-stream",
+ * every message is streamed as one event as soon as it is available). Please notice that every open stream occupies one thread of the server.
+ * <p>
+ * Responses of GET requests are compressed with gzip or deflate according to the header "Accept-Encoding", if they are larger than the
+ * compression threshold. Compressed POST requests (header "Content-Encoding") are accepted. Event streams are always sent uncompressed.
+ * <p>
+ * GET requests and event streams can be restricted with the filter parameters of {@link SEDAPExpressMessageFilter} (message types, sender
+ * IDs, maximum classification and bounding box), the messages are filtered before they will be encoded.
+ * <p>
+ * Requests beyond the maximum number of requests in flight (queued or processed) are rejected with 503 and the header "Retry-After",
+ * instead of queuing them without limit. The rejections are answered by a separate thread, so the dispatcher of the HTTP server keeps
+ * accepting connections. Open event streams and waiting long-polling requests leave the admission control as soon as they have been
+ * recognized and are counted as open streams instead, because they are waiting for messages and not for the server. The executor can be
+ * replaced, e.g. by one with virtual threads if event streams or long-polling are used by many clients. The latency of every other admitted
+ * request (queuing and processing) is recorded in the request metrics.
+ * <p>
+ * Message batches can be exchanged as JSON (default), as plain text with one message per line or as protobuf, see
+ * {@link SEDAPExpressRESTContentType}. The format of GET responses is chosen by the header "Accept", the format of POST requests is given by
+ * the header "Content-Type".
+ * <p>
+ * A POST request is read completely before any message will be distributed: a malformed batch is rejected with 400 and a TEXT batch with
+ * a line exceeding {@link SEDAPExpressRESTContentType#MAX_LINE_LENGTH} with 413, both without distributing a part of it. Single messages
+ * which can not be deserialized are skipped and counted as "rejected" in the response, the request is still answered with 200, so a client
+ * does not send them again.
  *
  * @author Volker Voß
  *
@@ -56,6 +100,57 @@ public class SEDAPExpressRESTServer extends SEDAPExpressCommunicator implements
 	SEDAPExpressTCPClient.logger.setLevel(Level.ALL);
     }
 
+    public static final String EVENT_STREAM_CONTENT_TYPE = "text/event-stream";
+
+    public static final String STREAM_PATH = "/stream";
+
+    public static final String SEQUENCE_HEADER = "SEDAP-Express-Sequence";
+
+    public static final String OLDEST_SEQUENCE_HEADER = "SEDAP-Express-Oldest-Sequence";
+
+    /**
+     * Maximum time a long-polling request may wait for new messages
+     */
+    public static final long MAX_LONG_POLLING_TIMEOUT = 60000;
+
+    /**
+     * Interval of the keep alive comments on idle event streams
+     */
+    public static final long STREAM_KEEP_ALIVE_INTERVAL = 15000;
+
+    public static final String CLIENT_PARAMETER = "client";
+
+    /**
+     * Time after which the cursor of a client without requests is dropped
+     */
+    public static final long CLIENT_CURSOR_TIMEOUT = 600000;
+
+    /**
+     * Maximum number of client cursors, the least recently used one is dropped first
+     */
+    private static final int MAX_CLIENT_CURSORS = 1024;
+
+    /**
+     * Key of the cursor shared by the requests without the parameters "since" and "client"
+     */
+    private static final String SHARED_CURSOR = "";
+
+    /**
+     * Maximum number of cached client filters
+     */
+    private static final int MAX_CACHED_FILTERS = 1024;
+
+    public static final int DEFAULT_BACKLOG = 64;
+
+    public static final int DEFAULT_THREADS = 10;
+
+    public static final int DEFAULT_MAX_IN_FLIGHT_REQUESTS = 100;
+
+    /**
+     * Default value of the header "Retry-After" in seconds for rejected requests
+     */
+    public static final int DEFAULT_RETRY_AFTER = 1;
+
     private Exception lastException = null;
 
     private final int port;
@@ -64,11 +159,50 @@ public class SEDAPExpressRESTServer extends SEDAPExpressCommunicator implements
 
     private boolean status = true;
 
-    private final Gson gson = new Gson();
+    private ExecutorService executor;
+
+    private ExecutorService rejectExecutor;
+
+    private HttpServer httpServer;
+
+    private int backlog = SEDAPExpressRESTServer.DEFAULT_BACKLOG;
+
+    private int maxInFlightRequests = SEDAPExpressRESTServer.DEFAULT_MAX_IN_FLIGHT_REQUESTS;
+
+    private int retryAfter = SEDAPExpressRESTServer.DEFAULT_RETRY_AFTER;
+
+    private final AtomicInteger inFlightRequests = new AtomicInteger();
 
-    private ThreadPoolExecutor threadPoolExecutor = (ThreadPoolExecutor) Executors.newFixedThreadPool(10);
+    private final AtomicInteger openStreams = new AtomicInteger();
 
-    private static final LinkedBlockingQueue<SEDAPExpressMessage> messageBuffer = new LinkedBlockingQueue<>();
+    private final SEDAPExpressLatencyMetrics requestMetrics = new SEDAPExpressLatencyMetrics();
+
+    /**
+     * Marks requests, which exceed the maximum number of requests in flight and have to be rejected
+     */
+    private static final ThreadLocal<Boolean> rejectRequest = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    /**
+     * Marks requests, which have left the admission control as open streams
+     */
+    private static final ThreadLocal<Boolean> streamRequest = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    private final SEDAPExpressMessageRingBuffer messageBuffer;
+
+    /**
+     * Position of a client in the ring buffer
+     *
+     * @param sequence   Sequence number of the last sent message
+     * @param lastAccess Time of the last request
+     */
+    private record ClientCursor(long sequence, long lastAccess) {
+    }
+
+    private final ConcurrentHashMap<String, ClientCursor> clientCursors = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<String, SEDAPExpressMessageFilter> clientFilters = new ConcurrentHashMap<>();
+
+    private int compressionThreshold = HTTPCompressionUtils.DEFAULT_THRESHOLD;
 
     /**
      * Instantiate a new SEDAP-Express REST server
@@ -77,10 +211,186 @@ public class SEDAPExpressRESTServer extends SEDAPExpressCommunicator implements
      */
     public SEDAPExpressRESTServer(final int port, int requestDelay) {
 
+	this(port, requestDelay, SEDAPExpressMessageRingBuffer.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Instantiate a new SEDAP-Express REST server
+     *
+     * @param port           Port to be used
+     * @param requestDelay   Delay between HTTP requests
+     * @param bufferCapacity Maximum number of retained outgoing messages
+     */
+    public SEDAPExpressRESTServer(final int port, int requestDelay, int bufferCapacity) {
+
 	super();
 
 	this.port = port;
 	this.requestDelay = requestDelay;
+	this.messageBuffer = new SEDAPExpressMessageRingBuffer(bufferCapacity);
+    }
+
+    /**
+     * Returns the ring buffer with the outgoing messages
+     *
+     * @return ring buffer of the outgoing messages
+     */
+    public SEDAPExpressMessageRingBuffer getMessageBuffer() {
+	return this.messageBuffer;
+    }
+
+    /**
+     * Enables the compression of responses, which are at least as large as the threshold (enabled by default)
+     *
+     * @param threshold Minimum size of a response body in bytes to be compressed
+     */
+    public void enableCompression(int threshold) {
+	this.compressionThreshold = Math.max(0, threshold);
+    }
+
+    /**
+     * Disables the compression of responses, compressed requests are still accepted
+     */
+    public void disableCompression() {
+	this.compressionThreshold = -1;
+    }
+
+    /**
+     * Sets the executor for the request processing, has to be called before {@link #connect()}. The executor will be shut down with the server.
+     *
+     * @param executor Executor for the requests
+     */
+    public void setExecutor(ExecutorService executor) {
+	this.executor = executor;
+    }
+
+    /**
+     * Uses a virtual thread per request, has to be called before {@link #connect()}. If the Java runtime does not support virtual threads, a
+     * cached thread pool will be used.
+     */
+    public void enableVirtualThreads() {
+	this.executor = SEDAPExpressRESTServer.createVirtualThreadExecutor();
+    }
+
+    /**
+     * Creates an executor with one virtual thread per task (Java 21 and newer), otherwise a cached thread pool
+     *
+     * @return executor
+     */
+    public static ExecutorService createVirtualThreadExecutor() {
+
+	try {
+	    // Looked up by reflection, so the library still runs on Java 17
+	    return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+	} catch (ReflectiveOperationException e) {
+	    SEDAPExpressRESTServer.logger.logp(Level.WARNING, "SEDAPExpressRESTServer", "createVirtualThreadExecutor()", "Virtual threads are not supported, using a cached thread pool");
+	    return Executors.newCachedThreadPool();
+	}
+    }
+
+    /**
+     * Sets the maximum number of requests in flight, further requests are rejected with 503
+     *
+     * @param maxInFlightRequests Maximum number of queued and processed requests
+     * @param retryAfter          Value of the header "Retry-After" in seconds
+     */
+    public void setMaxInFlightRequests(int maxInFlightRequests, int retryAfter) {
+	this.maxInFlightRequests = Math.max(1, maxInFlightRequests);
+	this.retryAfter = Math.max(0, retryAfter);
+    }
+
+    /**
+     * Sets the backlog of the server socket, has to be called before {@link #connect()}
+     *
+     * @param backlog Maximum number of pending connections
+     */
+    public void setBacklog(int backlog) {
+	this.backlog = backlog;
+    }
+
+    /**
+     * Returns the latency metrics of the requests
+     *
+     * @return request metrics
+     */
+    public SEDAPExpressLatencyMetrics getRequestMetrics() {
+	return this.requestMetrics;
+    }
+
+    /**
+     * Returns the number of requests in flight
+     *
+     * @return number of queued and processed requests
+     */
+    public int getInFlightRequests() {
+	return this.inFlightRequests.get();
+    }
+
+    /**
+     * Returns the number of open event streams and waiting long-polling requests
+     *
+     * @return number of open streams
+     */
+    public int getOpenStreams() {
+	return this.openStreams.get();
+    }
+
+    /**
+     * Executes the requests with admission control. Requests beyond the maximum are handed over to the reject executor, where they are only
+     * answered with 503. If even its queue is full, the dispatcher closes the connection.
+     *
+     * @param task Request to execute
+     */
+    private void executeRequest(Runnable task) {
+
+	final long accepted = System.nanoTime();
+
+	if (this.inFlightRequests.incrementAndGet() > this.maxInFlightRequests) {
+	    this.inFlightRequests.decrementAndGet();
+	    this.requestMetrics.recordRejected();
+
+	    this.rejectExecutor.execute(() -> {
+		SEDAPExpressRESTServer.rejectRequest.set(Boolean.TRUE);
+		try {
+		    task.run();
+		} finally {
+		    SEDAPExpressRESTServer.rejectRequest.set(Boolean.FALSE);
+		}
+	    });
+	    return;
+	}
+
+	try {
+	    this.executor.execute(() -> {
+		try {
+		    task.run();
+		} finally {
+		    if (SEDAPExpressRESTServer.streamRequest.get()) {
+			SEDAPExpressRESTServer.streamRequest.set(Boolean.FALSE);
+			this.openStreams.decrementAndGet();
+		    } else {
+			this.inFlightRequests.decrementAndGet();
+			this.requestMetrics.record(System.nanoTime() - accepted);
+		    }
+		}
+	    });
+	} catch (RejectedExecutionException e) {
+	    this.inFlightRequests.decrementAndGet();
+	    throw e;
+	}
+    }
+
+    /**
+     * Moves the current request from the admission control and the request metrics to the open streams. Called as soon as a request has been
+     * recognized as event stream or long-polling request.
+     */
+    private void openStream() {
+
+	if (!SEDAPExpressRESTServer.streamRequest.get()) {
+	    SEDAPExpressRESTServer.streamRequest.set(Boolean.TRUE);
+	    this.openStreams.incrementAndGet();
+	    this.inFlightRequests.decrementAndGet();
+	}
     }
 
     public boolean connect() {
@@ -90,10 +400,21 @@ public class SEDAPExpressRESTServer extends SEDAPExpressCommunicator implements
 
 	try {
 
-	    HttpServer server = HttpServer.create(new InetSocketAddress(this.port), 64);
-	    server.setExecutor(this.threadPoolExecutor);
-	    server.createContext("/", this);
-	    server.start();
+	    if (this.executor == null) {
+		this.executor = Executors.newFixedThreadPool(SEDAPExpressRESTServer.DEFAULT_THREADS);
+	    }
+
+	    // Rejections are cheap, one thread with a queue as long as the backlog is sufficient
+	    this.rejectExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(Math.max(1, this.backlog)), task -> {
+		final Thread thread = new Thread(task, "SEDAPExpressRESTServer reject");
+		thread.setDaemon(true);
+		return thread;
+	    });
+
+	    this.httpServer = HttpServer.create(new InetSocketAddress(this.port), this.backlog);
+	    this.httpServer.setExecutor(this::executeRequest);
+	    this.httpServer.createContext("/", this);
+	    this.httpServer.start();
 
 	    SEDAPExpressRESTServer.logger.logp(Level.INFO, "SEDAPExpressRESTServer", "run()", "REST server listening on port: " + this.port);
 	    logInput("REST server listening on port: " + this.port);
@@ -112,54 +433,453 @@ public class SEDAPExpressRESTServer extends SEDAPExpressCommunicator implements
     @Override
     public void handle(HttpExchange exchange) throws IOException {
 
+	if (SEDAPExpressRESTServer.rejectRequest.get()) {
+	    exchange.getResponseHeaders().set("Retry-After", String.valueOf(this.retryAfter));
+	    exchange.getResponseHeaders().set("Content-Type", "application/json;charset=UTF-8");
+	    handleResponse(exchange, "{\"success\":\"false\"}", 503);
+	    return;
+	}
+
+	// Announces the accepted request codings (RFC 7694), the clients compress their requests only after they have seen it
+	exchange.getResponseHeaders().set("Accept-Encoding", HTTPCompressionUtils.ACCEPT_ENCODING);
+
 	if ("GET".equals(exchange.getRequestMethod())) {
 
+	    final String accept = exchange.getRequestHeaders().getFirst("Accept");
+
+	    if (exchange.getRequestURI().getPath().endsWith(SEDAPExpressRESTServer.STREAM_PATH) || ((accept != null) && accept.contains(SEDAPExpressRESTServer.EVENT_STREAM_CONTENT_TYPE))) {
+		openStream();
+		handleStream(exchange);
+		return;
+	    }
+
 	    try {
 
-		SEDAPExpressJSONMessage jsonMessage = new SEDAPExpressJSONMessage();
+		final Map<String, String> query = SEDAPExpressRESTServer.parseQuery(exchange.getRequestURI());
+
+		final String since = query.get("since");
+		final String clientHost = exchange.getRemoteAddress().getAddress().getHostAddress();
+		final String clientId = query.getOrDefault(SEDAPExpressRESTServer.CLIENT_PARAMETER, SEDAPExpressRESTServer.SHARED_CURSOR);
+		final long cursor = (since != null) ? Long.parseLong(since) : getClientCursor(clientId);
+
+		final SEDAPExpressMessageFilter filter = getClientFilter(clientHost, query);
+
+		SEDAPExpressMessageRingBuffer.Batch batch;
+		List<SEDAPExpressMessage> messages;
+		final String wait = query.get("wait");
+		if (wait != null) {
+		    // Long-polling: wait for new messages, which pass the filter of the client
+		    openStream();
+		    final long deadline = System.currentTimeMillis() + Math.min(Long.parseLong(wait), SEDAPExpressRESTServer.MAX_LONG_POLLING_TIMEOUT);
+		    long position = cursor;
+		    do {
+			batch = this.messageBuffer.awaitSince(position, this.messageBuffer.getCapacity(), Math.max(0, deadline - System.currentTimeMillis()));
+			messages = SEDAPExpressRESTServer.applyFilter(batch.getMessages(), filter);
+			position = batch.getLastSequence();
+		    } while (messages.isEmpty() && this.status && (System.currentTimeMillis() < deadline));
+		} else {
+		    batch = this.messageBuffer.readSince(cursor, this.messageBuffer.getCapacity());
+		    messages = SEDAPExpressRESTServer.applyFilter(batch.getMessages(), filter);
+		}
 
-		while (!SEDAPExpressRESTServer.messageBuffer.isEmpty()) {
-		    jsonMessage.getMessages().add(new Message(SEDAPExpressRESTServer.messageBuffer.take().toString()));
+		if (since == null) {
+		    putClientCursor(clientId, batch.getLastSequence());
+		}
 
+		final SEDAPExpressRESTContentType contentType = SEDAPExpressRESTContentType.negotiate(exchange.getRequestHeaders().getFirst("Accept"));
+
+		exchange.getResponseHeaders().set("Content-Type", contentType.getContentType());
+		exchange.getResponseHeaders().set(SEDAPExpressRESTServer.SEQUENCE_HEADER, String.valueOf(batch.getLastSequence()));
+		exchange.getResponseHeaders().set(SEDAPExpressRESTServer.OLDEST_SEQUENCE_HEADER, String.valueOf(batch.getOldestSequence()));
+		exchange.getResponseHeaders().set("Vary", "Accept, Accept-Encoding");
+
+		final String encoding = (this.compressionThreshold >= 0) ? HTTPCompressionUtils.negotiateEncoding(exchange.getRequestHeaders().getFirst("Accept-Encoding")) : null;
+
+		final int count;
+		if (encoding == null) {
+		    // Chunked response, the messages are encoded directly into the response stream
+		    exchange.sendResponseHeaders(200, 0);
+		    count = contentType.write(exchange.getResponseBody(), messages);
+		} else {
+		    // Small responses are sent uncompressed, larger ones are compressed while they are encoded. Only finished on success, a partial
+		    // body must not be sent as complete response.
+		    final ResponseBodyStream body = new ResponseBodyStream(exchange, encoding, this.compressionThreshold);
+		    count = contentType.write(body, messages);
+		    body.finish();
 		}
 
-		handleResponse(exchange, "", this.gson.toJson(jsonMessage), 200);
+		logInput("REST server sent " + count + " messages successfully to the client!");
+
+	    } catch (final IllegalArgumentException e) {
 
-		logInput("REST server sent " + jsonMessage.getMessages().size() + " messages successfully to the client!");
+		// Also invalid numbers and filter parameters
+		handleResponse(exchange, "{\"success\":\"false\"}", 400);
 
 	    } catch (final Exception e) {
 
+		SEDAPExpressRESTServer.logger.logp(Level.SEVERE, "SEDAPExpressRESTServer", "handle()", "Could not answer GET request: " + e.getLocalizedMessage(), e);
+		handleError(exchange);
 	    }
 
 	} else if ("POST".equals(exchange.getRequestMethod())) {
 
+	    final SEDAPExpressRESTContentType contentType = SEDAPExpressRESTContentType.fromContentType(exchange.getRequestHeaders().getFirst("Content-Type"));
+	    final String contentEncoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+	    if ((contentType == null) || !HTTPCompressionUtils.isSupported(contentEncoding)) {
+		handleResponse(exchange, "{\"success\":\"false\"}", 415);
+		return;
+	    }
+
+	    // The whole batch is read before the first message will be distributed, a malformed batch is not distributed partially
+	    final List<String> lines = new ArrayList<>();
+	    try (InputStream requestBody = HTTPCompressionUtils.decompress(exchange.getRequestBody(), contentEncoding)) {
+		contentType.read(requestBody, lines::add);
+	    } catch (SEDAPExpressRESTContentType.LineTooLongException e) {
+		SEDAPExpressRESTServer.logger.logp(Level.WARNING, "SEDAPExpressRESTServer", "handle()", e.getMessage() + " from " + exchange.getRemoteAddress());
+		handleResponse(exchange, "{\"success\":\"false\"}", 413);
+		return;
+	    } catch (Exception e) {
+		handleResponse(exchange, "{\"success\":\"false\"}", 400);
+		return;
+	    }
+
+	    final List<SEDAPExpressMessage> messages = new ArrayList<>(lines.size());
+	    for (String line : lines) {
+		final SEDAPExpressMessage message = SEDAPExpressMessage.deserialize(line);
+		if (message != null) {
+		    messages.add(message);
+		}
+	    }
+
+	    final int rejected = lines.size() - messages.size();
+	    if (rejected > 0) {
+		SEDAPExpressRESTServer.logger.logp(Level.WARNING, "SEDAPExpressRESTServer", "handle()", "Skipped " + rejected + " invalid messages from " + exchange.getRemoteAddress());
+	    }
+
+	    // Already decoded, the receive pipeline only keeps the order of the distribution
+	    messages.forEach(message -> receiveFrame(message, decoded -> decoded));
+
+	    logInput("REST server received " + messages.size() + " messages from the client!");
+
+	    exchange.getResponseHeaders().set("Content-Type", "application/json;charset=UTF-8");
+	    handleResponse(exchange, "{\"success\":\"true\",\"received\":" + messages.size() + ",\"rejected\":" + rejected + "}", 200);
+	}
+
+    }
+
+    /**
+     * Streams the messages as Server-Sent-Events to the client until the connection will be closed or the server stopped. Every event carries the
+     * sequence number of the message as id, so a client can continue a stream after a reconnect with the header "Last-Event-ID". Without this
+     * header or the query parameter "since", the stream starts with the next new message.
+     *
+     * @param exchange HTTP exchange of the stream request
+     */
+    private void handleStream(HttpExchange exchange) {
+
+	long cursor;
+	SEDAPExpressMessageFilter filter;
+	try {
+	    filter = getClientFilter(exchange.getRemoteAddress().getAddress().getHostAddress(), SEDAPExpressRESTServer.parseQuery(exchange.getRequestURI()));
+	} catch (IllegalArgumentException e) {
 	    try {
-		String postBodyStr = new String(exchange.getRequestBody().readAllBytes());
+		handleResponse(exchange, "{\"success\":\"false\"}", 400);
+	    } catch (IOException ex) {
+	    }
+	    return;
+	}
+
+	try {
+	    final String lastEventId = exchange.getRequestHeaders().getFirst("Last-Event-ID");
+	    final String since = SEDAPExpressRESTServer.parseQuery(exchange.getRequestURI()).get("since");
+
+	    if (lastEventId != null) {
+		cursor = Long.parseLong(lastEventId.trim());
+	    } else if (since != null) {
+		cursor = Long.parseLong(since);
+	    } else {
+		cursor = this.messageBuffer.getNewestSequence();
+	    }
+	} catch (NumberFormatException e) {
+	    cursor = this.messageBuffer.getNewestSequence();
+	}
+
+	logInput("REST server opened event stream to " + exchange.getRemoteAddress());
+
+	try (OutputStream outputStream = exchange.getResponseBody()) {
+
+	    exchange.getResponseHeaders().set("Content-Type", SEDAPExpressRESTServer.EVENT_STREAM_CONTENT_TYPE + ";charset=UTF-8");
+	    exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+	    exchange.sendResponseHeaders(200, 0);
+	    outputStream.flush();
+
+	    while (this.status) {
+
+		final SEDAPExpressMessageRingBuffer.Batch batch = this.messageBuffer.awaitSince(cursor, this.messageBuffer.getCapacity(), SEDAPExpressRESTServer.STREAM_KEEP_ALIVE_INTERVAL);
+
+		if (batch.getMessages().isEmpty()) {
+		    // Comment line as keep alive, which also detects closed connections
+		    outputStream.write(":\n\n".getBytes(StandardCharsets.UTF_8));
+		} else {
+		    final StringBuilder events = new StringBuilder();
+		    long sequence = (batch.getLastSequence() - batch.getMessages().size()) + 1;
+		    for (final SEDAPExpressMessage message : batch.getMessages()) {
+			if (filter.test(message)) {
+			    events.append("id: ").append(sequence).append('\n');
+			    events.append("data: ").append(message.toString()).append("\n\n");
+			}
+			sequence++;
+		    }
+
+		    if (events.isEmpty()) {
+			cursor = batch.getLastSequence();
+			continue;
+		    }
+
+		    outputStream.write(events.toString().getBytes(StandardCharsets.UTF_8));
+		}
+		outputStream.flush();
+
+		cursor = batch.getLastSequence();
+	    }
+
+	} catch (IOException | InterruptedException e) {
+	    // Client closed the stream
+	} finally {
+	    exchange.close();
+	    logInput("REST server closed event stream to " + exchange.getRemoteAddress());
+	}
+    }
+
+    /**
+     * Returns the cursor of the client, an expired cursor is dropped
+     *
+     * @param clientId Id of the client
+     * @return sequence number of the last message sent to the client or 0 for an unknown client
+     */
+    private long getClientCursor(String clientId) {
+
+	final ClientCursor cursor = this.clientCursors.get(clientId);
+	if (cursor == null) {
+	    return 0;
+	}
+
+	if ((System.currentTimeMillis() - cursor.lastAccess()) > SEDAPExpressRESTServer.CLIENT_CURSOR_TIMEOUT) {
+	    this.clientCursors.remove(clientId, cursor);
+	    return 0;
+	}
+
+	return cursor.sequence();
+    }
+
+    /**
+     * Stores the cursor of the client. Before a new client is added, the expired cursors and, if there are still too many, the least recently
+     * used one are dropped.
+     *
+     * @param clientId Id of the client
+     * @param sequence Sequence number of the last message sent to the client
+     */
+    private void putClientCursor(String clientId, long sequence) {
+
+	final long now = System.currentTimeMillis();
+
+	if (!this.clientCursors.containsKey(clientId) && (this.clientCursors.size() >= SEDAPExpressRESTServer.MAX_CLIENT_CURSORS)) {
+	    this.clientCursors.values().removeIf(cursor -> (now - cursor.lastAccess()) > SEDAPExpressRESTServer.CLIENT_CURSOR_TIMEOUT);
+	    if (this.clientCursors.size() >= SEDAPExpressRESTServer.MAX_CLIENT_CURSORS) {
+		this.clientCursors.entrySet().stream().min((a, b) -> Long.compare(a.getValue().lastAccess(), b.getValue().lastAccess()))
+			.ifPresent(oldest -> this.clientCursors.remove(oldest.getKey(), oldest.getValue()));
+	    }
+	}
+
+	this.clientCursors.put(clientId, new ClientCursor(sequence, now));
+    }
+
+    /**
+     * Returns the compiled filter of the client for the given query parameters. The filters are cached per client, so they are only compiled
+     * again, if the client changes its filter parameters.
+     *
+     * @param clientHost Host of the client
+     * @param query      Query parameters of the request
+     * @return filter of the client
+     * @throws IllegalArgumentException Invalid filter parameter
+     */
+    private SEDAPExpressMessageFilter getClientFilter(String clientHost, Map<String, String> query) {
+
+	final String key = clientHost + '?' + query.get(SEDAPExpressMessageFilter.TYPES_PARAMETER) + '&' + query.get(SEDAPExpressMessageFilter.SENDERS_PARAMETER) + '&'
+		+ query.get(SEDAPExpressMessageFilter.MAX_CLASSIFICATION_PARAMETER) + '&' + query.get(SEDAPExpressMessageFilter.BBOX_PARAMETER);
+
+	SEDAPExpressMessageFilter filter = this.clientFilters.get(key);
+	if (filter == null) {
+	    filter = SEDAPExpressMessageFilter.fromQuery(query);
+
+	    if (this.clientFilters.size() >= SEDAPExpressRESTServer.MAX_CACHED_FILTERS) {
+		this.clientFilters.clear();
+	    }
+	    this.clientFilters.put(key, filter);
+	}
+
+	return filter;
+    }
 
-		SEDAPExpressJSONMessage jsonMessage = this.gson.fromJson(postBodyStr, SEDAPExpressJSONMessage.class);
+    /**
+     * Applies the filter to the messages before they will be encoded
+     *
+     * @param messages Messages of the ring buffer
+     * @param filter   Filter of the client
+     * @return messages passing the filter
+     */
+    private static List<SEDAPExpressMessage> applyFilter(List<SEDAPExpressMessage> messages, SEDAPExpressMessageFilter filter) {
 
-		logInput("REST server received " + jsonMessage.getMessages().size() + " messages from the client!");
+	if (filter.isAcceptAll()) {
+	    return messages;
+	}
 
-		jsonMessage.getMessages().forEach(message -> distributeReceivedSEDAPExpressMessage(SEDAPExpressMessage.deserialize(message.getMessage())));
+	final List<SEDAPExpressMessage> result = new ArrayList<>(messages.size());
+	for (final SEDAPExpressMessage message : messages) {
+	    if (filter.test(message)) {
+		result.add(message);
+	    }
+	}
+	return result;
+    }
 
+    /**
+     * Splits the query of the given URI into its parameters
+     *
+     * @param uri URI of the request
+     * @return Map with the decoded query parameters
+     */
+    static Map<String, String> parseQuery(URI uri) {
+
+	final Map<String, String> parameters = new HashMap<>();
+	final String query = uri.getRawQuery();
+
+	if (query != null) {
+	    for (String parameter : query.split("&")) {
+		final int index = parameter.indexOf('=');
+		if (index > 0) {
+		    parameters.put(URLDecoder.decode(parameter.substring(0, index), StandardCharsets.UTF_8), URLDecoder.decode(parameter.substring(index + 1), StandardCharsets.UTF_8));
+		} else if (!parameter.isEmpty()) {
+		    parameters.put(URLDecoder.decode(parameter, StandardCharsets.UTF_8), "");
+		}
+	    }
+	}
+
+	return parameters;
+    }
+
+    /**
+     * Answers a failed request with 500, or only closes the exchange, if the response has already been started
+     *
+     * @param exchange Failed exchange
+     */
+    private void handleError(HttpExchange exchange) {
+
+	try {
+	    if (exchange.getResponseCode() < 0) {
 		exchange.getResponseHeaders().set("Content-Type", "application/json;charset=UTF-8");
-		handleResponse(exchange, postBodyStr, "{\"success\":\"true\"}", 200);
-	    } catch (Exception e) {
+		handleResponse(exchange, "{\"success\":\"false\"}", 500);
+	    }
+	} catch (IOException e) {
+	    // Client has gone
+	} finally {
+	    exchange.close();
+	}
+    }
 
-		handleResponse(exchange, "", "{\"success\":\"false\"}", 400);
+    /**
+     * Body of a GET response with content coding: the first bytes up to the compression threshold are buffered. If the body stays smaller, it
+     * will be sent uncompressed with a known length, otherwise the response will be started chunked and the body compressed while it is
+     * written, so large batches are never held in memory.
+     */
+    private static final class ResponseBodyStream extends OutputStream {
+
+	private final HttpExchange exchange;
+
+	private final String encoding;
+
+	private final int threshold;
+
+	private ByteArrayOutputStream buffer;
+
+	private OutputStream target = null;
+
+	ResponseBodyStream(HttpExchange exchange, String encoding, int threshold) {
+
+	    this.exchange = exchange;
+	    this.encoding = encoding;
+	    this.threshold = threshold;
+	    this.buffer = new ByteArrayOutputStream(Math.min(threshold, 8192) + 1);
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+	    write(new byte[] { (byte) b }, 0, 1);
+	}
+
+	@Override
+	public void write(byte[] data, int offset, int length) throws IOException {
+
+	    if (this.target != null) {
+		this.target.write(data, offset, length);
+		return;
+	    }
+
+	    this.buffer.write(data, offset, length);
+	    if (this.buffer.size() >= this.threshold) {
+		this.exchange.getResponseHeaders().set("Content-Encoding", this.encoding);
+		this.exchange.sendResponseHeaders(200, 0);
+		this.target = HTTPCompressionUtils.compress(this.exchange.getResponseBody(), this.encoding);
+		this.buffer.writeTo(this.target);
+		this.buffer = null;
+	    }
+	}
+
+	@Override
+	public void flush() throws IOException {
+
+	    // Buffered bytes are sent by finish()
+	    if (this.target != null) {
+		this.target.flush();
 	    }
 	}
 
+	/**
+	 * Ignored, because the content types close the stream also after errors, see {@link #finish()}
+	 */
+	@Override
+	public void close() {
+	}
+
+	/**
+	 * Completes the response, the remaining bytes are sent and the response body is closed
+	 *
+	 * @throws IOException if the response could not be sent
+	 */
+	void finish() throws IOException {
+
+	    if (this.target != null) {
+		this.target.close();
+		return;
+	    }
+
+	    final byte[] response = this.buffer.toByteArray();
+	    try (OutputStream outputStream = this.exchange.getResponseBody()) {
+		this.exchange.sendResponseHeaders(200, (response.length > 0) ? response.length : -1);
+		outputStream.write(response);
+	    }
+	}
     }
 
-    private void handleResponse(HttpExchange httpExchange, String requestParamValue, String responseString, int responseCode) throws IOException {
+    private void handleResponse(HttpExchange httpExchange, String responseString, int responseCode) throws IOException {
 
 	OutputStream outputStream = httpExchange.getResponseBody();
 
+	final byte[] response = responseString.getBytes(StandardCharsets.UTF_8);
+
 	// this line is a must
-	httpExchange.sendResponseHeaders(responseCode, responseString.length());
+	httpExchange.sendResponseHeaders(responseCode, response.length);
 
-	outputStream.write(responseString.getBytes());
+	outputStream.write(response);
 
 	outputStream.flush();
 
@@ -170,7 +890,7 @@ public class SEDAPExpressRESTServer extends SEDAPExpressCommunicator implements
     @Override
     public boolean sendSEDAPExpressMessage(SEDAPExpressMessage message) throws IOException {
 
-	SEDAPExpressRESTServer.messageBuffer.add(message);
+	this.messageBuffer.append(message);
 
 	return true;
     }
@@ -180,6 +900,18 @@ public class SEDAPExpressRESTServer extends SEDAPExpressCommunicator implements
 
 	this.status = false;
 
+	if (this.httpServer != null) {
+	    this.httpServer.stop(0);
+	}
+
+	if (this.executor != null) {
+	    this.executor.shutdownNow();
+	}
+
+	if (this.rejectExecutor != null) {
+	    this.rejectExecutor.shutdownNow();
+	}
+
 	SEDAPExpressRESTServer.logger.logp(Level.INFO, "SEDAPExpressRESTServer", "stopCommunicator()", "REST server stopped");
 	logInput("REST server stopped");
     }
@@ -0,0 +1,431 @@
+/**
+ * Note: This license has also been called the “Simplified BSD License” and the “FreeBSD License”.
+ *
+ * Copyright 2024-2025 UNIITY POC: Volker Voß, Federal Armed Forces of Germany
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS “AS IS” AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSEnARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ * OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY
+ * OF SUCH DAMAGE.
+ */
+package de.bundeswehr.uniity.sedapexpress.network;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage;
+
+/**
+ * Staged receive pipeline of a communicator: frame, decode, validate and dispatch.
+ * <p>
+ * The receive threads of the communicator only cut the received data into frames (e.g. lines) and publish them together with their decoder.
+ * The frames are decoded (deserialization, decompression, MAC check and decryption) and validated by several decode threads in parallel,
+ * afterwards one dispatch thread distributes the messages to the subscribers exactly in the order of publishing. So the CPU-heavy decoding
+ * scales over the cores, while the subscribers still see the messages of a connection in the received order and are never called
+ * concurrently.
+ * <p>
+ * The stages are connected by one pre-allocated ring of slots, like in the Disruptor: a slot is identified by its sequence number, every
+ * stage marks the slot with the sequence number when it is done with it, so no locks and no allocations are needed per message. The decode
+ * threads process the sequence numbers striped (thread k processes k, k + n, k + 2n, ...). The decode threads and the dispatch thread process
+ * all available slots as one batch and release the slots of a batch at once. If the ring is full, the publishing receive thread waits, so a
+ * slow subscriber slows down the reading from the network instead of filling the memory.
+ * <p>
+ * Frames which cannot be decoded (decoder returns null) or are rejected by the validator are discarded, exceptions of the decoder or the
+ * subscribers are logged and counted as failed. The lag between publishing and dispatching is recorded in {@link #getLagMetrics()}.
+ *
+ * @author Volker Voß
+ *
+ */
+public class SEDAPExpressReceivePipeline implements AutoCloseable {
+
+    protected static Logger logger = Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
+
+    public static final int DEFAULT_BUFFER_SIZE = 1024;
+
+    /**
+     * Maximum number of messages the dispatch thread distributes before it releases the slots
+     */
+    private static final int MAX_BATCH_SIZE = 256;
+
+    private static final int SPINS = 1000;
+
+    private static final int YIELDS = 100;
+
+    private static final long PARK_NANOS = 10_000_000L;
+
+    /**
+     * Pre-allocated slot of the ring, the plain fields are guarded by the volatile sequence numbers
+     */
+    private static final class Slot {
+
+	private Object frame;
+
+	private Function<Object, SEDAPExpressMessage> decoder;
+
+	private SEDAPExpressMessage message;
+
+	private long publishTime;
+
+	private volatile long published = -1;
+
+	private volatile long decoded = -1;
+    }
+
+    private final Slot[] slots;
+
+    private final int mask;
+
+    private final Consumer<SEDAPExpressMessage> dispatcher;
+
+    private volatile Predicate<SEDAPExpressMessage> validator = null;
+
+    private final AtomicLong claimed = new AtomicLong();
+
+    private final AtomicInteger activePublishers = new AtomicInteger();
+
+    private volatile long dispatched = 0;
+
+    private volatile boolean open = true;
+
+    private final DecodeStage[] decodeStages;
+
+    private final DispatchStage dispatchStage;
+
+    private final LongAdder published = new LongAdder();
+
+    private final LongAdder delivered = new LongAdder();
+
+    private final LongAdder discarded = new LongAdder();
+
+    private final LongAdder failed = new LongAdder();
+
+    private final SEDAPExpressLatencyMetrics lag = new SEDAPExpressLatencyMetrics();
+
+    /**
+     * Instantiate a new pipeline and starts its threads
+     *
+     * @param bufferSize    Number of slots, will be rounded up to a power of two
+     * @param decodeThreads Number of decode threads
+     * @param dispatcher    Receiver of the decoded messages, e.g. the distribution to the subscribers
+     */
+    public SEDAPExpressReceivePipeline(int bufferSize, int decodeThreads, Consumer<SEDAPExpressMessage> dispatcher) {
+
+	if (bufferSize < 1) {
+	    throw new IllegalArgumentException("Buffer size must be at least 1");
+	}
+	if (decodeThreads < 1) {
+	    throw new IllegalArgumentException("Number of decode threads must be at least 1");
+	}
+
+	final int size = Integer.highestOneBit(Math.max(2, bufferSize) * 2 - 1);
+	this.slots = new Slot[size];
+	for (int i = 0; i < size; i++) {
+	    this.slots[i] = new Slot();
+	}
+	this.mask = size - 1;
+	this.dispatcher = dispatcher;
+
+	this.decodeStages = new DecodeStage[decodeThreads];
+	for (int i = 0; i < decodeThreads; i++) {
+	    this.decodeStages[i] = new DecodeStage(i, decodeThreads);
+	}
+	this.dispatchStage = new DispatchStage();
+
+	for (int i = 0; i < decodeThreads; i++) {
+	    startThread(this.decodeStages[i], "SEDAPExpressReceivePipeline-decode-" + i);
+	}
+	startThread(this.dispatchStage, "SEDAPExpressReceivePipeline-dispatch");
+    }
+
+    private static void startThread(Runnable stage, String name) {
+
+	final Thread thread = new Thread(stage, name);
+	thread.setDaemon(true);
+	thread.start();
+    }
+
+    /**
+     * Sets a validator, which is called by the decode threads for every decoded message; rejected messages are discarded
+     *
+     * @param validator Validator, e.g. a {@link SEDAPExpressMessageFilter}, or null to accept all messages
+     */
+    public void setValidator(Predicate<SEDAPExpressMessage> validator) {
+	this.validator = validator;
+    }
+
+    public Predicate<SEDAPExpressMessage> getValidator() {
+	return this.validator;
+    }
+
+    public int getBufferSize() {
+	return this.slots.length;
+    }
+
+    public int getDecodeThreads() {
+	return this.decodeStages.length;
+    }
+
+    /**
+     * Publishes a received frame, waits if the ring is full
+     *
+     * @param <F>     Type of the frame
+     * @param frame   Received frame, must not be changed afterwards
+     * @param decoder Decoder of the frame, is called by a decode thread
+     * @return true, if the frame has been published; false, if the pipeline has been closed
+     */
+    @SuppressWarnings("unchecked")
+    public <F> boolean publish(F frame, Function<? super F, SEDAPExpressMessage> decoder) {
+
+	this.activePublishers.incrementAndGet();
+	try {
+	    if (!this.open) {
+		return false;
+	    }
+
+	    final long sequence = this.claimed.getAndIncrement();
+
+	    // Wait for the dispatch thread to release the slot
+	    int idle = 0;
+	    while ((sequence - this.dispatched) >= this.slots.length) {
+		idle = backOff(idle);
+	    }
+
+	    final Slot slot = this.slots[(int) (sequence & this.mask)];
+	    slot.frame = frame;
+	    slot.decoder = (Function<Object, SEDAPExpressMessage>) decoder;
+	    slot.publishTime = System.nanoTime();
+	    slot.published = sequence;
+
+	    this.published.increment();
+	    this.decodeStages[(int) (sequence % this.decodeStages.length)].wake();
+	    return true;
+
+	} finally {
+	    this.activePublishers.decrementAndGet();
+	}
+    }
+
+    private static int backOff(int idle) {
+
+	if (idle < SPINS) {
+	    Thread.onSpinWait();
+	} else if (idle < (SPINS + YIELDS)) {
+	    Thread.yield();
+	} else {
+	    LockSupport.parkNanos(100_000L);
+	    return idle;
+	}
+	return idle + 1;
+    }
+
+    /**
+     * Stops accepting frames, the already published frames will still be dispatched before the threads terminate
+     */
+    @Override
+    public void close() {
+
+	this.open = false;
+
+	for (DecodeStage stage : this.decodeStages) {
+	    stage.wake();
+	}
+	this.dispatchStage.wake();
+    }
+
+    public boolean isOpen() {
+	return this.open;
+    }
+
+    /**
+     * Returns the number of published, but not yet dispatched frames
+     *
+     * @return number of frames
+     */
+    public long getDepth() {
+	return this.claimed.get() - this.dispatched;
+    }
+
+    public long getPublished() {
+	return this.published.sum();
+    }
+
+    public long getDelivered() {
+	return this.delivered.sum();
+    }
+
+    public long getDiscarded() {
+	return this.discarded.sum();
+    }
+
+    public long getFailed() {
+	return this.failed.sum();
+    }
+
+    public SEDAPExpressLatencyMetrics getLagMetrics() {
+	return this.lag;
+    }
+
+    public void resetMetrics() {
+
+	this.published.reset();
+	this.delivered.reset();
+	this.discarded.reset();
+	this.failed.reset();
+	this.lag.reset();
+    }
+
+    @Override
+    public String toString() {
+	return "decodeThreads=" + this.decodeStages.length + " depth=" + getDepth() + " published=" + getPublished() + " delivered=" + getDelivered() + " discarded=" + getDiscarded() + " failed=" + getFailed() + " lag: " + this.lag;
+    }
+
+    /**
+     * Consumer thread of the ring, waits spinning, yielding and at last parking for the next slot
+     */
+    private abstract class Stage implements Runnable {
+
+	protected long sequence;
+
+	private volatile Thread parked = null;
+
+	protected abstract boolean isAvailable();
+
+	protected abstract void process();
+
+	@Override
+	public void run() {
+
+	    int idle = 0;
+	    while (true) {
+		if (isAvailable()) {
+		    process();
+		    idle = 0;
+		} else if (!SEDAPExpressReceivePipeline.this.open && (SEDAPExpressReceivePipeline.this.activePublishers.get() == 0) && (this.sequence >= SEDAPExpressReceivePipeline.this.claimed.get())) {
+		    break;
+		} else if (idle < (SPINS + YIELDS)) {
+		    idle = backOff(idle);
+		} else {
+		    this.parked = Thread.currentThread();
+		    if (!isAvailable()) {
+			LockSupport.parkNanos(PARK_NANOS);
+		    }
+		    this.parked = null;
+		}
+	    }
+	}
+
+	protected void wake() {
+
+	    final Thread thread = this.parked;
+	    if (thread != null) {
+		LockSupport.unpark(thread);
+	    }
+	}
+    }
+
+    private final class DecodeStage extends Stage {
+
+	private final int stride;
+
+	private DecodeStage(int first, int stride) {
+
+	    this.sequence = first;
+	    this.stride = stride;
+	}
+
+	@Override
+	protected boolean isAvailable() {
+	    return SEDAPExpressReceivePipeline.this.slots[(int) (this.sequence & SEDAPExpressReceivePipeline.this.mask)].published == this.sequence;
+	}
+
+	@Override
+	protected void process() {
+
+	    do {
+		final Slot slot = SEDAPExpressReceivePipeline.this.slots[(int) (this.sequence & SEDAPExpressReceivePipeline.this.mask)];
+
+		SEDAPExpressMessage message = null;
+		try {
+		    message = slot.decoder.apply(slot.frame);
+		    final Predicate<SEDAPExpressMessage> validator = SEDAPExpressReceivePipeline.this.validator;
+		    if ((message != null) && (validator != null) && !validator.test(message)) {
+			message = null;
+		    }
+		    if (message == null) {
+			SEDAPExpressReceivePipeline.this.discarded.increment();
+		    }
+		} catch (RuntimeException e) {
+		    SEDAPExpressReceivePipeline.this.failed.increment();
+		    SEDAPExpressReceivePipeline.logger.logp(Level.SEVERE, "SEDAPExpressReceivePipeline", "DecodeStage.process()", "Could not decode frame: " + e.getLocalizedMessage(), e);
+		}
+
+		slot.message = message;
+		slot.frame = null;
+		slot.decoder = null;
+		slot.decoded = this.sequence;
+
+		this.sequence += this.stride;
+	    } while (isAvailable());
+
+	    SEDAPExpressReceivePipeline.this.dispatchStage.wake();
+	}
+    }
+
+    private final class DispatchStage extends Stage {
+
+	@Override
+	protected boolean isAvailable() {
+	    return SEDAPExpressReceivePipeline.this.slots[(int) (this.sequence & SEDAPExpressReceivePipeline.this.mask)].decoded == this.sequence;
+	}
+
+	@Override
+	protected void process() {
+
+	    int count = 0;
+	    do {
+		final Slot slot = SEDAPExpressReceivePipeline.this.slots[(int) (this.sequence & SEDAPExpressReceivePipeline.this.mask)];
+		final SEDAPExpressMessage message = slot.message;
+		slot.message = null;
+
+		if (message != null) {
+		    SEDAPExpressReceivePipeline.this.lag.record(System.nanoTime() - slot.publishTime);
+		    try {
+			SEDAPExpressReceivePipeline.this.dispatcher.accept(message);
+			SEDAPExpressReceivePipeline.this.delivered.increment();
+		    } catch (RuntimeException e) {
+			SEDAPExpressReceivePipeline.this.failed.increment();
+			SEDAPExpressReceivePipeline.logger.logp(Level.SEVERE, "SEDAPExpressReceivePipeline", "DispatchStage.process()", "Subscriber failed: " + e.getLocalizedMessage(), e);
+		    }
+		}
+
+		this.sequence++;
+		count++;
+	    } while ((count < MAX_BATCH_SIZE) && isAvailable());
+
+	    // Releases all slots of the batch at once
+	    SEDAPExpressReceivePipeline.this.dispatched = this.sequence;
+	}
+    }
+}
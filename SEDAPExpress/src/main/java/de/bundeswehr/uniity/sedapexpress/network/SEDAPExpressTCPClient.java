@@ -34,18 +34,30 @@ import java.nio.channels.Channels;
 import java.nio.channels.SocketChannel;
 import java.nio.channels.spi.SelectorProvider;
 import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage;
 import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage.MessageType;
+import de.bundeswehr.uniity.sedapexpress.network.SEDAPExpressCapabilities.Compression;
+import de.bundeswehr.uniity.sedapexpress.network.SEDAPExpressCapabilities.Encoding;
+import de.bundeswehr.uniity.sedapexpress.network.SEDAPExpressOutboundJournal.Entry;
 import de.bundeswehr.uniity.sedapexpress.processing.SEDAPExpressSubscriber;
 
 /**
  * TCP receiver/sender class for SEDAP-Express
+ * <p>
+ * With {@link #setOutboundJournal(SEDAPExpressOutboundJournal)} the outgoing messages are stored in a persistent journal and written by a
+ * separate thread, so they survive an outage of the server. The protocol has no acknowledgements, so a message counts as delivered as soon
+ * as it has been written to the socket: the messages still in the send buffers of the operating system at a connection loss are lost.
+ * <p>
+ * With {@link #setCapabilities(SEDAPExpressCapabilities)} both sides exchange their capabilities after the connect, see
+ * {@link SEDAPExpressCapabilities}. The TCP client uses the text format or the compressed text format, one message per line.
  *
  * @author Volker Voß
  *
@@ -71,6 +83,14 @@ public class SEDAPExpressTCPClient extends SEDAPExpressCommunicator implements R
 
     private Thread ownThread;
 
+    private SEDAPExpressOutboundJournal journal = null;
+
+    private Thread journalWriter;
+
+    private SEDAPExpressCapabilities capabilities = null;
+
+    private volatile SEDAPExpressCapabilities negotiated = null;
+
     public String getHost() {
 
 	return this.host;
@@ -90,7 +110,6 @@ public class SEDAPExpressTCPClient extends SEDAPExpressCommunicator implements R
 	this.port = port;
 
 	this.clients = new ConcurrentLinkedDeque<>();
-	this.subscriptions = new ConcurrentHashMap<MessageType, Set<SEDAPExpressSubscriber>>();
     }
 
     /**
@@ -100,7 +119,7 @@ public class SEDAPExpressTCPClient extends SEDAPExpressCommunicator implements R
      * @param clients       Client list to be used
      * @param subscriptions Subscription list to be used
      */
-    protected SEDAPExpressTCPClient(SocketChannel socket, ConcurrentLinkedDeque<SEDAPExpressTCPClient> clients, ConcurrentHashMap<MessageType, Set<SEDAPExpressSubscriber>> subscriptions) {
+    protected SEDAPExpressTCPClient(SocketChannel socket, ConcurrentLinkedDeque<SEDAPExpressTCPClient> clients, Map<MessageType, Set<SEDAPExpressSubscriber>> subscriptions) {
 
 	super();
 
@@ -119,6 +138,55 @@ public class SEDAPExpressTCPClient extends SEDAPExpressCommunicator implements R
 
     }
 
+    /**
+     * Stores the outgoing messages in the given journal, only for clients connecting to a server, has to be called before
+     * {@link #connect()}. The messages are acknowledged in the journal when they have been written to the socket, so the delivery is only
+     * at-most-once for the messages still buffered at a connection loss.
+     *
+     * @param journal Persistent outbound journal or null
+     */
+    public void setOutboundJournal(SEDAPExpressOutboundJournal journal) {
+	this.journal = journal;
+    }
+
+    /**
+     * Sets the capabilities sent to the peer after the connect, has to be called before {@link #connect()}. Without capabilities no exchange
+     * takes place and only the text format is used.
+     *
+     * @param capabilities Capabilities of this node or null
+     */
+    public void setCapabilities(SEDAPExpressCapabilities capabilities) {
+	this.capabilities = (capabilities != null) ? capabilities.restrict(EnumSet.of(Encoding.TEXT, Encoding.COMPRESSED), EnumSet.of(Compression.NONE, Compression.DEFLATE)) : null;
+    }
+
+    public SEDAPExpressCapabilities getCapabilities() {
+	return this.capabilities;
+    }
+
+    /**
+     * Returns the result of the capability exchange
+     *
+     * @return capabilities of the connection or null, if the peer has not sent its capabilities (yet), then the text format is used
+     */
+    public SEDAPExpressCapabilities getNegotiatedCapabilities() {
+	return this.negotiated;
+    }
+
+    /**
+     * Sends the own capabilities as first message of the connection
+     */
+    private void sendCapabilities() throws IOException {
+
+	this.negotiated = null;
+
+	if (this.capabilities != null) {
+	    final ByteBuffer buffer = ByteBuffer.wrap(SEDAPExpressMessage.serialize(this.capabilities.toMessage(null)).getBytes());
+	    while (buffer.hasRemaining()) {
+		this.socket.write(buffer);
+	    }
+	}
+    }
+
     public boolean connect() {
 
 	if (this.clients.isEmpty())
@@ -135,6 +203,7 @@ public class SEDAPExpressTCPClient extends SEDAPExpressCommunicator implements R
 		this.socket.configureBlocking(true);
 
 		this.socket.connect(new InetSocketAddress(this.host, this.port));
+		sendCapabilities();
 
 		SEDAPExpressTCPClient.logger.logp(Level.INFO, "SEDAPExpressTCPClient", "run()", "Connected to " + this.host);
 		logInput("Connected to " + this.host);
@@ -146,6 +215,12 @@ public class SEDAPExpressTCPClient extends SEDAPExpressCommunicator implements R
 		    this.ownThread.start();// Start receiving thread
 		}
 
+		if (this.journal != null && this.journalWriter == null) {
+		    this.journalWriter = new Thread(this::runJournalWriter, "SEDAPExpressTCPClient journal");
+		    this.journalWriter.setDaemon(true);
+		    this.journalWriter.start();
+		}
+
 		return true;
 	    } else {
 
@@ -153,6 +228,8 @@ public class SEDAPExpressTCPClient extends SEDAPExpressCommunicator implements R
 		    SEDAPExpressTCPClient.logger.logp(Level.INFO, "SEDAPExpressTCPClient", "run()", "Connected to " + this.socket.getRemoteAddress());
 		    this.lastException = null;
 
+		    sendCapabilities();
+
 		    if (this.ownThread == null) {
 			this.ownThread = new Thread(this);
 			this.ownThread.start();// Start receiving thread
@@ -184,7 +261,7 @@ public class SEDAPExpressTCPClient extends SEDAPExpressCommunicator implements R
 
 			try {
 			    if (message != null) {
-				distributeReceivedSEDAPExpressMessage(SEDAPExpressMessage.deserialize(message));
+				receive(message);
 			    } else {
 				break;
 			    }
@@ -235,11 +312,77 @@ public class SEDAPExpressTCPClient extends SEDAPExpressCommunicator implements R
 	}
     }
 
+    /**
+     * Handles a received line, the capabilities of the peer are applied immediately and not distributed, all other lines are decoded by the
+     * receive pipeline if enabled
+     *
+     * @param line Received line
+     */
+    private void receive(String line) {
+
+	if (this.capabilities == null) {
+	    receiveFrame(line, SEDAPExpressMessage::deserialize);
+	    return;
+	}
+
+	final SEDAPExpressCapabilities peer = SEDAPExpressCapabilities.fromLine(line);
+	if (peer != null) {
+	    this.negotiated = this.capabilities.negotiate(peer);
+	    SEDAPExpressTCPClient.logger.logp(Level.INFO, "SEDAPExpressTCPClient", "receive()", "Negotiated with " + this.host + ": " + this.negotiated);
+	} else {
+	    receiveFrame(line, SEDAPExpressCapabilities::decodeLine);
+	}
+    }
+
+    private byte[] encode(SEDAPExpressMessage message) {
+	return (SEDAPExpressCapabilities.encodeLine(message, this.negotiated) + '\n').getBytes();
+    }
+
+    /**
+     * Writes the messages of the journal to the server, after an error they will be written again after the reconnect
+     */
+    private void runJournalWriter() {
+
+	while (this.status) {
+
+	    try {
+		final Entry entry = this.journal.poll(1, TimeUnit.SECONDS);
+		if (entry == null) {
+		    continue;
+		}
+
+		try {
+		    final ByteBuffer buffer = ByteBuffer.wrap(encode(entry.message()));
+		    while (buffer.hasRemaining()) {
+			this.socket.write(buffer);
+		    }
+		    // There is no confirmation of the peer, the data in the send buffer is lost at a connection loss
+		    this.journal.acknowledge(entry);
+
+		} catch (Exception e) {
+		    this.lastException = e;
+		    this.journal.rewind();
+
+		    // Waiting for the reconnect
+		    Thread.sleep(2000);
+		}
+
+	    } catch (InterruptedException e) {
+		return;
+	    }
+	}
+    }
+
     @Override
     public boolean sendSEDAPExpressMessage(SEDAPExpressMessage message) throws IOException {
 
+	if (this.journal != null) {
+	    this.journal.append(message);
+	    return true;
+	}
+
 	try {
-	    if (this.socket.write(ByteBuffer.wrap(SEDAPExpressMessage.serialize(message).getBytes())) >= 0) {
+	    if (this.socket.write(ByteBuffer.wrap(encode(message))) >= 0) {
 		return true;
 	    }
 	    return false;
@@ -261,6 +404,10 @@ public class SEDAPExpressTCPClient extends SEDAPExpressCommunicator implements R
 
 	this.status = false;
 
+	if (this.journalWriter != null) {
+	    this.journalWriter.interrupt();
+	}
+
 	try {
 	    this.socket.close();
 	} catch (IOException e) {
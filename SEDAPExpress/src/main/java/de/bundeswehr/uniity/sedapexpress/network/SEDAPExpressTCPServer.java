@@ -58,6 +58,8 @@ public class SEDAPExpressTCPServer extends SEDAPExpressCommunicator implements R
 
     private ConcurrentLinkedDeque<SEDAPExpressTCPClient> clients = new ConcurrentLinkedDeque<>();
 
+    private SEDAPExpressCapabilities capabilities = null;
+
     /**
      * Instantiate a new SEDAP-Express TCP Server on the given interface
      *
@@ -82,6 +84,33 @@ public class SEDAPExpressTCPServer extends SEDAPExpressCommunicator implements R
 	this("0.0.0.0", port);
     }
 
+    /**
+     * Sets the capabilities sent to every new client, see {@link SEDAPExpressTCPClient#setCapabilities(SEDAPExpressCapabilities)}
+     *
+     * @param capabilities Capabilities of this node or null
+     */
+    public void setCapabilities(SEDAPExpressCapabilities capabilities) {
+	this.capabilities = capabilities;
+    }
+
+    /**
+     * Enables one receive pipeline shared by all connected clients, the messages of every client are distributed in their received order
+     */
+    @Override
+    public SEDAPExpressReceivePipeline enableReceivePipeline(int bufferSize, int decodeThreads) {
+
+	final SEDAPExpressReceivePipeline pipeline = super.enableReceivePipeline(bufferSize, decodeThreads);
+	this.clients.forEach(client -> client.receivePipeline = pipeline);
+	return pipeline;
+    }
+
+    @Override
+    public void disableReceivePipeline() {
+
+	super.disableReceivePipeline();
+	this.clients.forEach(client -> client.receivePipeline = null);
+    }
+
     public boolean connect() {
 
 	try {
@@ -117,6 +146,8 @@ public class SEDAPExpressTCPServer extends SEDAPExpressCommunicator implements R
 		    this.clients.add(newClient);
 		    newClient.inputLogger = this.inputLogger;
 		    newClient.outputLogger = this.outputLogger;
+		    newClient.receivePipeline = this.receivePipeline;
+		    newClient.setCapabilities(this.capabilities);
 
 		    newClient.connect();
 
@@ -30,13 +30,23 @@ import java.net.BindException;
 import java.net.DatagramPacket;
 import java.net.DatagramSocket;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.InterfaceAddress;
 import java.net.MulticastSocket;
 import java.net.NetworkInterface;
+import java.net.SocketAddress;
 import java.net.SocketException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
 import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -55,18 +65,38 @@ public class SEDAPExpressUDPClient extends SEDAPExpressCommunicator implements R
 	SEDAPExpressTCPClient.logger.setLevel(Level.ALL);
     }
 
+    private static final int MAX_DATAGRAM_SIZE = 65000;
+
     private Exception lastException = null;
 
     private DatagramSocket socket;
 
+    private final CopyOnWriteArrayList<DatagramChannel> channels = new CopyOnWriteArrayList<>();
+
+    private final CopyOnWriteArrayList<Thread> channelThreads = new CopyOnWriteArrayList<>();
+
     private final String receiver;
 
     private final int port;
 
-    private boolean status = true;
+    private final int receiverCount;
+
+    private final HashSet<InetAddress> localIPAddresses = new HashSet<>();
+
+    private volatile boolean status = true;
 
     private Thread ownThread;
 
+    private SEDAPExpressUDPFragmenter fragmenter = new SEDAPExpressUDPFragmenter();
+
+    private boolean useFragmentation = false;
+
+    private SEDAPExpressUDPFEC fec = new SEDAPExpressUDPFEC();
+
+    private boolean useFEC = false;
+
+    private ScheduledExecutorService fecFlusher;
+
     /**
      * Instantiate a new SEDAP-Express UDP Client
      *
@@ -75,18 +105,135 @@ public class SEDAPExpressUDPClient extends SEDAPExpressCommunicator implements R
      */
     public SEDAPExpressUDPClient(String receiver, final int port) {
 
+	this(receiver, port, 1);
+    }
+
+    /**
+     * Instantiate a new SEDAP-Express UDP Client with several receiving sockets. If receiverCount is greater than 1, the client opens this number of
+     * DatagramChannels bound to the same port with SO_REUSEPORT. Every channel has its own receiving thread and decoding, the kernel distributes the
+     * incoming datagrams by hashing the flows, so the messages of one sender are always received by the same thread in the right order. Please notice
+     * that the subscribers will be called concurrently by the receiving threads in this mode. If the platform does not support SO_REUSEPORT or the
+     * receiver is a multicast address, only one socket will be used.
+     *
+     * @param receiver      Receiver hostname/IP to be used
+     * @param port          Port to be used
+     * @param receiverCount Number of receiving sockets/threads
+     */
+    public SEDAPExpressUDPClient(String receiver, final int port, final int receiverCount) {
+
 	super();
 
 	this.receiver = receiver;
 	this.port = port;
+	this.receiverCount = Math.max(1, receiverCount);
+    }
+
+    /**
+     * Enables the fragmentation of outgoing messages which are larger than the maximum datagram size of the default fragmenter. Received fragments
+     * are always reassembled, regardless of this setting.
+     */
+    public void enableFragmentation() {
+	this.useFragmentation = true;
+    }
+
+    /**
+     * Enables the fragmentation of outgoing messages with the given fragmenter, which also defines the limits for the reassembly of received
+     * fragments.
+     *
+     * @param fragmenter Fragmenter to be used
+     */
+    public void enableFragmentation(SEDAPExpressUDPFragmenter fragmenter) {
+	this.fragmenter = fragmenter;
+	this.useFragmentation = true;
+    }
+
+    /**
+     * Disables the fragmentation of outgoing messages
+     */
+    public void disableFragmentation() {
+	this.useFragmentation = false;
+    }
+
+    public SEDAPExpressUDPFragmenter getFragmenter() {
+	return this.fragmenter;
+    }
+
+    /**
+     * Enables the forward error correction for outgoing datagrams. After every group of data datagrams a XOR parity datagram will be sent, which
+     * allows the receiver to rebuild one lost datagram per group without a retransmission. Received FEC datagrams are always decoded, regardless of
+     * this setting.
+     *
+     * @param groupSize     Number of data datagrams per parity datagram, the overhead ratio is 1/groupSize
+     * @param maxGroupDelay Maximum time in milliseconds until the parity of an incomplete group will be sent
+     */
+    public void enableForwardErrorCorrection(int groupSize, long maxGroupDelay) {
+	enableForwardErrorCorrection(new SEDAPExpressUDPFEC(groupSize, SEDAPExpressUDPFEC.DEFAULT_MAX_PENDING_GROUPS, SEDAPExpressUDPFEC.DEFAULT_GROUP_TIMEOUT), maxGroupDelay);
+    }
+
+    /**
+     * Enables the forward error correction for outgoing datagrams with the given FEC coder
+     *
+     * @param fec           FEC coder to be used
+     * @param maxGroupDelay Maximum time in milliseconds until the parity of an incomplete group will be sent
+     */
+    public synchronized void enableForwardErrorCorrection(SEDAPExpressUDPFEC fec, long maxGroupDelay) {
+
+	disableForwardErrorCorrection();
+
+	this.fec = fec;
+	this.useFEC = true;
+
+	if (maxGroupDelay > 0) {
+	    this.fecFlusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		final Thread thread = new Thread(runnable, "SEDAPExpressUDPClient-FEC-" + this.port);
+		thread.setDaemon(true);
+		return thread;
+	    });
+	    this.fecFlusher.scheduleWithFixedDelay(() -> {
+		final byte[] parity = this.fec.flush(maxGroupDelay);
+		if (parity != null) {
+		    try {
+			sendDatagram(parity);
+		    } catch (Exception e) {
+			this.lastException = e;
+		    }
+		}
+	    }, maxGroupDelay, Math.max(1, maxGroupDelay / 2), TimeUnit.MILLISECONDS);
+	}
+    }
+
+    /**
+     * Disables the forward error correction for outgoing datagrams
+     */
+    public synchronized void disableForwardErrorCorrection() {
+
+	this.useFEC = false;
+
+	if (this.fecFlusher != null) {
+	    this.fecFlusher.shutdownNow();
+	    this.fecFlusher = null;
+	}
+    }
+
+    public SEDAPExpressUDPFEC getForwardErrorCorrection() {
+	return this.fec;
     }
 
     public boolean connect() {
 
+	this.status = true;
+
 	try {
+	    determineLocalIPAddresses();
+
 	    if (InetAddress.getByName(this.receiver).isMulticastAddress()) {
 		this.socket = new MulticastSocket(this.port);
+	    } else if ((this.receiverCount > 1) && isReusePortSupported()) {
+		return connectChannels();
 	    } else {
+		if (this.receiverCount > 1) {
+		    SEDAPExpressUDPClient.logger.logp(Level.WARNING, "SEDAPExpressUDPClient", "connect()", "SO_REUSEPORT is not supported, using only one receiving socket!");
+		}
 		this.socket = new DatagramSocket(this.port);
 	    }
 
@@ -119,10 +266,82 @@ public class SEDAPExpressUDPClient extends SEDAPExpressCommunicator implements R
 
     }
 
-    @Override
-    public void run() {
+    /**
+     * Opens the configured number of DatagramChannels on the same port and starts a receiving thread for each of them
+     *
+     * @return true, if all channels could be opened
+     * @throws IOException Channel could not be opened or bound
+     */
+    private boolean connectChannels() throws IOException {
+
+	try {
+	    for (int i = 0; i < this.receiverCount; i++) {
+
+		final DatagramChannel channel = DatagramChannel.open();
+		channel.setOption(StandardSocketOptions.SO_REUSEPORT, true);
+		channel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+		channel.setOption(StandardSocketOptions.SO_BROADCAST, true);
+		channel.bind(new InetSocketAddress(this.port));
+
+		this.channels.add(channel);
+	    }
+	} catch (IOException e) {
+	    this.channels.forEach(channel -> {
+		try {
+		    channel.close();
+		} catch (IOException ex) {
+		}
+	    });
+	    this.channels.clear();
+	    throw e;
+	}
+
+	SEDAPExpressTCPServer.logger.logp(Level.INFO, "SEDAPExpressUDPClient", "connect()", "UDP server listening on port: " + this.port + " with " + this.receiverCount + " receiving sockets");
+	logInput("UDP server listening on port: " + this.port + " with " + this.receiverCount + " receiving sockets");
+
+	this.lastException = null;
+
+	for (int i = 0; i < this.channels.size(); i++) {
+	    final DatagramChannel channel = this.channels.get(i);
+	    final Thread thread = new Thread(() -> receiveFromChannel(channel), "SEDAPExpressUDPClient-" + this.port + "-" + i);
+	    thread.setDaemon(true);
+	    this.channelThreads.add(thread);
+	    thread.start();
+	}
+
+	return true;
+    }
+
+    /**
+     * Returns the number of open receiving sockets, which is less than the configured number, if SO_REUSEPORT is not supported
+     *
+     * @return number of sockets
+     */
+    public int getReceivingSocketCount() {
+
+	if (!this.channels.isEmpty()) {
+	    return this.channels.size();
+	}
+	return ((this.socket != null) && !this.socket.isClosed()) ? 1 : 0;
+    }
+
+    /**
+     * Checks, if the platform supports the socket option SO_REUSEPORT for datagram channels
+     *
+     * @return true, if SO_REUSEPORT is supported
+     */
+    public static boolean isReusePortSupported() {
+
+	try (DatagramChannel channel = DatagramChannel.open()) {
+	    return channel.supportedOptions().contains(StandardSocketOptions.SO_REUSEPORT);
+	} catch (IOException e) {
+	    return false;
+	}
+    }
+
+    private void determineLocalIPAddresses() {
 
-	HashSet<InetAddress> localIPAddresses = new HashSet<>();
+	this.localIPAddresses.clear();
 
 	try {
 	    final Enumeration<NetworkInterface> enumInterf = NetworkInterface.getNetworkInterfaces();
@@ -135,35 +354,36 @@ public class SEDAPExpressUDPClient extends SEDAPExpressCommunicator implements R
 
 		    for (final InterfaceAddress ip : networkInterface.getInterfaceAddresses()) {
 
-			localIPAddresses.add(ip.getAddress());
+			this.localIPAddresses.add(ip.getAddress());
 		    }
 		}
 	    }
 	} catch (SocketException e) {
 
 	}
+    }
 
-	while (this.status) {
+    @Override
+    public void run() {
 
-	    try {
+	final DatagramSocket socket = this.socket;
+	final DatagramPacket packet = new DatagramPacket(new byte[SEDAPExpressUDPClient.MAX_DATAGRAM_SIZE], SEDAPExpressUDPClient.MAX_DATAGRAM_SIZE);
 
-		final DatagramPacket packet = new DatagramPacket(new byte[65000], 65000);
+	// A closed socket ends the thread, a reconnect starts a new one
+	while (this.status && !socket.isClosed()) {
 
-		this.socket.receive(packet);
+	    try {
 
-		final InetAddress sender = packet.getAddress();
+		packet.setLength(SEDAPExpressUDPClient.MAX_DATAGRAM_SIZE);
 
-		// Do not receive packages from yourself
-		if (localIPAddresses.contains(sender)) {
-		    continue;
-		}
+		socket.receive(packet);
 
-		Arrays.asList(new String(packet.getData(), 0, packet.getLength()).split("\n")).forEach(message -> distributeReceivedSEDAPExpressMessage(SEDAPExpressMessage.deserialize(message)));
+		processDatagram(packet.getData(), packet.getLength(), packet.getSocketAddress());
 
 	    } catch (final Exception e) {
 		this.lastException = e;
 
-		if (this.status) {
+		if (this.status && !socket.isClosed()) {
 		    SEDAPExpressTCPServer.logger.logp(Level.SEVERE, "SEDAPExpressUDPClient", "run()", "Waiting 2 seconds for reconnect on port:" + this.port);
 		    logInput("Waiting 2 seconds for reconnect on port:" + this.port);
 		    try {
@@ -176,12 +396,94 @@ public class SEDAPExpressUDPClient extends SEDAPExpressCommunicator implements R
 	}
     }
 
+    /**
+     * Receiving loop of one of the channels opened with SO_REUSEPORT
+     *
+     * @param channel Channel to receive from
+     */
+    private void receiveFromChannel(DatagramChannel channel) {
+
+	final ByteBuffer buffer = ByteBuffer.allocate(SEDAPExpressUDPClient.MAX_DATAGRAM_SIZE);
+
+	while (this.status && channel.isOpen()) {
+
+	    try {
+
+		buffer.clear();
+
+		final SocketAddress sender = channel.receive(buffer);
+
+		processDatagram(buffer.array(), buffer.position(), sender);
+
+	    } catch (final Exception e) {
+		this.lastException = e;
+
+		if (this.status && channel.isOpen()) {
+		    SEDAPExpressTCPServer.logger.logp(Level.SEVERE, "SEDAPExpressUDPClient", "receiveFromChannel()", "Could not receive on port:" + this.port, e);
+		    logInput("Could not receive on port:" + this.port);
+		}
+	    }
+	}
+    }
+
+    /**
+     * Decodes and distributes the SEDAP-Express messages of a received datagram
+     *
+     * @param data   Received data
+     * @param length Length of the received data
+     * @param sender Address of the sender
+     */
+    private void processDatagram(byte[] data, int length, SocketAddress sender) {
+
+	// Do not receive packages from yourself
+	if ((sender instanceof InetSocketAddress address) && this.localIPAddresses.contains(address.getAddress())) {
+	    return;
+	}
+
+	if (SEDAPExpressUDPFEC.isFECDatagram(data, length)) {
+	    this.fec.decode(sender, data, length).forEach(payload -> processPayload(payload, payload.length, sender));
+	} else {
+	    processPayload(data, length, sender);
+	}
+    }
+
+    /**
+     * Decodes and distributes the SEDAP-Express messages of a datagram payload, which could also be a fragment of a larger message
+     *
+     * @param data   Payload data
+     * @param length Length of the payload
+     * @param sender Address of the sender
+     */
+    private void processPayload(byte[] data, int length, SocketAddress sender) {
+
+	if (SEDAPExpressUDPFragmenter.isFragment(data, length)) {
+
+	    final byte[] message = this.fragmenter.reassemble(sender, data, length);
+	    if (message == null) {
+		return; // Waiting for further fragments
+	    }
+
+	    data = message;
+	    length = message.length;
+	}
+
+	Arrays.asList(new String(data, 0, length).split("\n")).forEach(message -> receiveFrame(message, SEDAPExpressMessage::deserialize));
+    }
+
     @Override
     public boolean sendSEDAPExpressMessage(SEDAPExpressMessage message) throws IOException {
 
 	byte[] data = SEDAPExpressMessage.serialize(message).getBytes();
 	try {
-	    this.socket.send(new DatagramPacket(data, data.length, InetAddress.getByName(this.receiver), this.port));
+	    for (final byte[] datagram : this.useFragmentation ? this.fragmenter.fragment(data) : List.of(data)) {
+		if (this.useFEC) {
+		    for (final byte[] encoded : this.fec.encode(datagram)) {
+			sendDatagram(encoded);
+		    }
+		} else {
+		    sendDatagram(datagram);
+		}
+	    }
 	} catch (IOException e) {
 	    this.lastException = e;
 	    throw e;
@@ -190,14 +492,52 @@ public class SEDAPExpressUDPClient extends SEDAPExpressCommunicator implements R
 	return false;
     }
 
+    /**
+     * Sends a single datagram to the receiver
+     *
+     * @param data content of the datagram
+     * @throws IOException Datagram could not be sent
+     */
+    private void sendDatagram(byte[] data) throws IOException {
+
+	if (!this.channels.isEmpty()) {
+	    this.channels.get(0).send(ByteBuffer.wrap(data), new InetSocketAddress(InetAddress.getByName(this.receiver), this.port));
+	} else {
+	    this.socket.send(new DatagramPacket(data, data.length, InetAddress.getByName(this.receiver), this.port));
+	}
+    }
+
     @Override
     public void stopCommunicator() {
 
 	this.status = false;
 
+	disableForwardErrorCorrection();
+
 	if (this.socket != null) {
 	    this.socket.close();
 	}
+	this.ownThread = null;
+
+	this.channels.forEach(channel -> {
+	    try {
+		channel.close();
+	    } catch (IOException e) {
+	    }
+	});
+	this.channels.clear();
+
+	// A channel is only released by the kernel after its receiving thread has left the channel, so a reconnect must wait for them
+	for (Thread thread : this.channelThreads) {
+	    if (thread != Thread.currentThread()) {
+		try {
+		    thread.join(1000);
+		} catch (InterruptedException e) {
+		    Thread.currentThread().interrupt();
+		}
+	    }
+	}
+	this.channelThreads.clear();
 
 	SEDAPExpressUDPClient.logger.logp(Level.INFO, "SEDAPExpressUDPClient", "stopCommunicator()", "UDP server stopped");
 	logInput("UDP server stopped");
@@ -0,0 +1,446 @@
+/**
+ * Note: This license has also been called the “Simplified BSD License” and the “FreeBSD License”.
+ *
+ * Copyright 2024-2025 UNIITY POC: Volker Voß, Federal Armed Forces of Germany
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS “AS IS” AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSEnARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ * OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY
+ * OF SUCH DAMAGE.
+ */
+package de.bundeswehr.uniity.sedapexpress.network;
+
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Forward error correction for lossy UDP links (e.g. tactical radio links) using XOR parity.
+ * <p>
+ * The sender adds one parity datagram to every group of K data datagrams, so the overhead ratio is 1/K. The receiver can rebuild one lost
+ * datagram per group without a retransmission. Data datagrams are forwarded immediately on arrival, only lost datagrams are delivered when the
+ * parity datagram arrives. Every datagram starts with a binary header (0x1F, 'E', version, group id, index, group size, payload length), which
+ * distinguishes it from plain SEDAP-Express datagrams and from fragments.
+ * <p>
+ * XOR parity covers exactly one loss per group. If burst losses are expected on the link, a smaller group size should be chosen.
+ *
+ * @author Volker Voß
+ *
+ */
+public class SEDAPExpressUDPFEC {
+
+    public static final byte MAGIC = SEDAPExpressUDPFragmenter.MAGIC;
+
+    public static final byte TYPE_FEC = 'E';
+
+    public static final byte VERSION = 1;
+
+    public static final int HEADER_SIZE = 11;
+
+    public static final int DEFAULT_GROUP_SIZE = 4;
+
+    public static final int DEFAULT_MAX_PENDING_GROUPS = 64;
+
+    public static final long DEFAULT_GROUP_TIMEOUT = 5000;
+
+    private final int groupSize;
+
+    private final int maxPendingGroups;
+
+    private final long groupTimeout;
+
+    // Sender side
+    private int groupId = (int) (Math.random() * Integer.MAX_VALUE);
+
+    private int groupIndex = 0;
+
+    private byte[] parity = new byte[0];
+
+    private int parityLength = 0;
+
+    private int parityLengths = 0;
+
+    private long groupStarted = 0;
+
+    // Receiver side
+    private final LinkedHashMap<GroupKey, Group> pendingGroups = new LinkedHashMap<>();
+
+    private final AtomicLong recoveredDatagrams = new AtomicLong();
+
+    private final AtomicLong unrecoverableGroups = new AtomicLong();
+
+    /**
+     * Instantiate a new FEC coder with one parity datagram per 4 data datagrams
+     */
+    public SEDAPExpressUDPFEC() {
+
+	this(SEDAPExpressUDPFEC.DEFAULT_GROUP_SIZE, SEDAPExpressUDPFEC.DEFAULT_MAX_PENDING_GROUPS, SEDAPExpressUDPFEC.DEFAULT_GROUP_TIMEOUT);
+    }
+
+    /**
+     * Instantiate a new FEC coder
+     *
+     * @param groupSize        Number of data datagrams protected by one parity datagram (1-255), the overhead ratio is 1/groupSize
+     * @param maxPendingGroups Maximum number of groups which are held for recovery at the same time
+     * @param groupTimeout     Time in milliseconds after which an incomplete group will be dropped
+     */
+    public SEDAPExpressUDPFEC(int groupSize, int maxPendingGroups, long groupTimeout) {
+
+	if ((groupSize < 1) || (groupSize > 255)) {
+	    throw new IllegalArgumentException("Group size must be between 1 and 255");
+	}
+
+	this.groupSize = groupSize;
+	this.maxPendingGroups = Math.max(1, maxPendingGroups);
+	this.groupTimeout = groupTimeout;
+    }
+
+    public int getGroupSize() {
+	return this.groupSize;
+    }
+
+    /**
+     * Returns the number of lost datagrams which have been rebuilt from the parity
+     *
+     * @return number of recovered datagrams
+     */
+    public long getRecoveredDatagrams() {
+	return this.recoveredDatagrams.get();
+    }
+
+    /**
+     * Returns the number of groups which have been dropped with missing data datagrams, which could not be rebuilt (more than one missing datagram
+     * or missing parity). A group closed by {@link #flush(long)} whose parity has been lost is not counted, as long as no data datagram is missing
+     * before the last received one; lost datagrams at the end of such a group cannot be detected.
+     *
+     * @return number of unrecoverable groups
+     */
+    public long getUnrecoverableGroups() {
+	return this.unrecoverableGroups.get();
+    }
+
+    /**
+     * Checks if the given datagram has been encoded with FEC
+     *
+     * @param data   datagram
+     * @param length length of the datagram
+     * @return true, if the datagram starts with a FEC header
+     */
+    public static boolean isFECDatagram(byte[] data, int length) {
+	return (length >= SEDAPExpressUDPFEC.HEADER_SIZE) && (data[0] == SEDAPExpressUDPFEC.MAGIC) && (data[1] == SEDAPExpressUDPFEC.TYPE_FEC);
+    }
+
+    /**
+     * Encodes a datagram to send. The result contains the encoded datagram and, if the group is complete, the parity datagram.
+     *
+     * @param datagram datagram to send
+     * @return List of datagrams to send
+     */
+    public synchronized List<byte[]> encode(byte[] datagram) {
+
+	if (datagram.length > 0xFFFF) {
+	    throw new IllegalArgumentException("Datagram too large for FEC: " + datagram.length + " bytes");
+	}
+
+	if (this.groupIndex == 0) {
+	    this.groupStarted = System.currentTimeMillis();
+	}
+
+	final List<byte[]> result = new ArrayList<>(2);
+	result.add(createDatagram(this.groupId, this.groupIndex, this.groupSize, datagram.length, datagram, datagram.length));
+
+	if (this.parity.length < datagram.length) {
+	    this.parity = Arrays.copyOf(this.parity, datagram.length);
+	}
+	for (int i = 0; i < datagram.length; i++) {
+	    this.parity[i] ^= datagram[i];
+	}
+	this.parityLength = Math.max(this.parityLength, datagram.length);
+	this.parityLengths ^= datagram.length;
+
+	this.groupIndex++;
+
+	if (this.groupIndex == this.groupSize) {
+	    result.add(createParity());
+	}
+
+	return result;
+    }
+
+    /**
+     * Creates the parity datagram for an incomplete group, if the group is older than the given time. This should be called periodically on
+     * links with a low message rate, otherwise the last datagrams of a burst would stay unprotected until the group is complete.
+     *
+     * @param maxGroupAge Maximum age of the group in milliseconds
+     * @return the parity datagram or null, if there is no group to close
+     */
+    public synchronized byte[] flush(long maxGroupAge) {
+
+	if ((this.groupIndex == 0) || ((System.currentTimeMillis() - this.groupStarted) < maxGroupAge)) {
+	    return null;
+	}
+
+	return createParity();
+    }
+
+    private byte[] createParity() {
+
+	final byte[] result = createDatagram(this.groupId, this.groupIndex, this.groupIndex, this.parityLengths, this.parity, this.parityLength);
+
+	this.groupId++;
+	this.groupIndex = 0;
+	Arrays.fill(this.parity, (byte) 0);
+	this.parityLength = 0;
+	this.parityLengths = 0;
+
+	return result;
+    }
+
+    private static byte[] createDatagram(int groupId, int index, int size, int lengthField, byte[] payload, int payloadLength) {
+
+	final ByteBuffer datagram = ByteBuffer.allocate(SEDAPExpressUDPFEC.HEADER_SIZE + payloadLength);
+	datagram.put(SEDAPExpressUDPFEC.MAGIC).put(SEDAPExpressUDPFEC.TYPE_FEC).put(SEDAPExpressUDPFEC.VERSION);
+	datagram.putInt(groupId).put((byte) index).put((byte) size).putShort((short) lengthField);
+	datagram.put(payload, 0, payloadLength);
+
+	return datagram.array();
+    }
+
+    /**
+     * Decodes a received FEC datagram. The result contains the payload of a data datagram and, if this was possible, the rebuilt payload of a lost
+     * datagram of the same group.
+     *
+     * @param sender Address of the sender of the datagram
+     * @param data   received datagram
+     * @param length length of the received datagram
+     * @return List of payloads to process (may be empty)
+     */
+    public List<byte[]> decode(SocketAddress sender, byte[] data, int length) {
+
+	if (!SEDAPExpressUDPFEC.isFECDatagram(data, length) || (data[2] != SEDAPExpressUDPFEC.VERSION)) {
+	    return List.of();
+	}
+
+	final ByteBuffer header = ByteBuffer.wrap(data, 3, SEDAPExpressUDPFEC.HEADER_SIZE - 3);
+	final int id = header.getInt();
+	final int index = header.get() & 0xFF;
+	final int size = header.get() & 0xFF;
+	final int lengthField = header.getShort() & 0xFFFF;
+
+	final byte[] payload = Arrays.copyOfRange(data, SEDAPExpressUDPFEC.HEADER_SIZE, length);
+	final boolean isParity = index == size;
+
+	final List<byte[]> result = new ArrayList<>(2);
+	if (!isParity) {
+	    result.add(payload);
+	}
+
+	final long now = System.currentTimeMillis();
+
+	synchronized (this) {
+
+	    removeExpiredGroups(now);
+
+	    final GroupKey key = new GroupKey(sender, id);
+	    Group group = this.pendingGroups.get(key);
+
+	    if (group == null) {
+
+		if (this.pendingGroups.size() >= this.maxPendingGroups) {
+		    final Iterator<Group> oldest = this.pendingGroups.values().iterator();
+		    countIfUnrecoverable(oldest.next());
+		    oldest.remove();
+		}
+
+		group = new Group(now);
+		this.pendingGroups.put(key, group);
+
+	    } else if (group.done) {
+		result.clear(); // Duplicate or parity of an already completed group
+		return result;
+	    }
+
+	    if (isParity) {
+
+		if (group.parity != null) {
+		    return result; // Duplicate
+		}
+		group.parity = payload;
+		group.parityLengths = lengthField;
+		group.size = size;
+
+	    } else {
+
+		if ((index >= group.datagrams.length) || (group.datagrams[index] != null)) {
+		    result.clear(); // Duplicate
+		    return result;
+		}
+		group.datagrams[index] = payload;
+		group.received++;
+		group.highestIndex = Math.max(group.highestIndex, index);
+
+		if (group.parity == null) {
+		    group.size = Math.min(group.size, size); // Configured group size of the sender, the parity knows the real size
+		}
+	    }
+
+	    if (group.received >= group.size) {
+		group.complete(); // Nothing lost
+	    } else if ((group.parity != null) && (group.received == (group.size - 1))) {
+		result.add(recover(group));
+		group.complete();
+		this.recoveredDatagrams.incrementAndGet();
+	    }
+	}
+
+	return result;
+    }
+
+    /**
+     * Rebuilds the only missing datagram of a group
+     *
+     * @param group group with parity and all datagrams except one
+     * @return the rebuilt datagram
+     */
+    private static byte[] recover(Group group) {
+
+	int missingLength = group.parityLengths;
+	for (int i = 0; i < group.size; i++) {
+	    if (group.datagrams[i] != null) {
+		missingLength ^= group.datagrams[i].length;
+	    }
+	}
+
+	final byte[] missing = Arrays.copyOf(group.parity, missingLength);
+	for (int i = 0; i < group.size; i++) {
+	    final byte[] datagram = group.datagrams[i];
+	    if (datagram != null) {
+		for (int j = 0; j < Math.min(missingLength, datagram.length); j++) {
+		    missing[j] ^= datagram[j];
+		}
+	    }
+	}
+
+	return missing;
+    }
+
+    /**
+     * Drops all groups which are older than the group timeout
+     *
+     * @param now current time in milliseconds
+     */
+    private void removeExpiredGroups(long now) {
+
+	final Iterator<Map.Entry<GroupKey, Group>> iterator = this.pendingGroups.entrySet().iterator();
+
+	while (iterator.hasNext()) {
+	    final Group group = iterator.next().getValue();
+	    if ((now - group.firstReceived) > this.groupTimeout) {
+		countIfUnrecoverable(group);
+		iterator.remove();
+	    } else {
+		break; // Insertion order, all following groups are younger
+	    }
+	}
+    }
+
+    private void countIfUnrecoverable(Group group) {
+
+	if (!group.done && group.isMissingData()) {
+	    this.unrecoverableGroups.incrementAndGet();
+	}
+    }
+
+    private static final class GroupKey {
+
+	private final SocketAddress sender;
+
+	private final int groupId;
+
+	GroupKey(SocketAddress sender, int groupId) {
+	    this.sender = sender;
+	    this.groupId = groupId;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+
+	    if (this == obj) {
+		return true;
+	    }
+	    if (!(obj instanceof GroupKey other)) {
+		return false;
+	    }
+	    return (this.groupId == other.groupId) && Objects.equals(this.sender, other.sender);
+	}
+
+	@Override
+	public int hashCode() {
+	    return Objects.hash(this.sender, this.groupId);
+	}
+    }
+
+    private static final class Group {
+
+	private final byte[][] datagrams = new byte[255][];
+
+	private final long firstReceived;
+
+	private byte[] parity;
+
+	private int parityLengths;
+
+	private int size = 255;
+
+	private int received = 0;
+
+	private int highestIndex = -1;
+
+	private boolean done = false;
+
+	Group(long firstReceived) {
+	    this.firstReceived = firstReceived;
+	}
+
+	/**
+	 * Checks, if data datagrams of an incomplete group are missing: with parity the real size of the group is known, without parity (e.g. a
+	 * flushed group whose parity has been lost) only gaps before the highest received index can be detected
+	 *
+	 * @return true, if at least one data datagram is missing
+	 */
+	boolean isMissingData() {
+	    return (this.parity != null) || (this.received <= this.highestIndex);
+	}
+
+	/**
+	 * Marks the group as completed and releases the buffered datagrams. The group is kept until it expires to detect late duplicates.
+	 */
+	void complete() {
+	    this.done = true;
+	    this.parity = null;
+	    Arrays.fill(this.datagrams, null);
+	}
+    }
+}
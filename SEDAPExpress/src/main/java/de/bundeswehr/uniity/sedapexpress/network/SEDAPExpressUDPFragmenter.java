@@ -0,0 +1,333 @@
+/**
+ * Note: This license has also been called the “Simplified BSD License” and the “FreeBSD License”.
+ *
+ * Copyright 2024-2025 UNIITY POC: Volker Voß, Federal Armed Forces of Germany
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS “AS IS” AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSEnARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ * OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY
+ * OF SUCH DAMAGE.
+ */
+package de.bundeswehr.uniity.sedapexpress.network;
+
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Splits large encoded SEDAP-Express messages into numbered fragments which fit into a single datagram and reassembles them on the receiver side.
+ * <p>
+ * Every fragment starts with a binary header (0x1F, 'F', version, message id, fragment index, fragment count). Because SEDAP-Express messages
+ * always start with the message name, fragments can be distinguished from plain SEDAP-Express datagrams by the first byte. The memory used for
+ * reassembly is bounded by the maximum number of pending messages and the maximum message size, incomplete messages are dropped after the
+ * reassembly timeout.
+ *
+ * @author Volker Voß
+ *
+ */
+public class SEDAPExpressUDPFragmenter {
+
+    public static final byte MAGIC = 0x1F;
+
+    public static final byte TYPE_FRAGMENT = 'F';
+
+    public static final byte VERSION = 1;
+
+    public static final int HEADER_SIZE = 11;
+
+    public static final int DEFAULT_MAX_DATAGRAM_SIZE = 1400;
+
+    public static final int DEFAULT_MAX_PENDING_MESSAGES = 64;
+
+    public static final int DEFAULT_MAX_MESSAGE_SIZE = 512 * 1024;
+
+    public static final long DEFAULT_REASSEMBLY_TIMEOUT = 2000;
+
+    private final int maxDatagramSize;
+
+    private final int maxPendingMessages;
+
+    private final int maxMessageSize;
+
+    private final long reassemblyTimeout;
+
+    private final AtomicInteger messageIdCounter = new AtomicInteger((int) (Math.random() * Integer.MAX_VALUE));
+
+    private final LinkedHashMap<PendingKey, PendingMessage> pendingMessages = new LinkedHashMap<>();
+
+    private final AtomicLong droppedMessages = new AtomicLong();
+
+    /**
+     * Instantiate a new fragmenter with the default limits
+     */
+    public SEDAPExpressUDPFragmenter() {
+
+	this(SEDAPExpressUDPFragmenter.DEFAULT_MAX_DATAGRAM_SIZE, SEDAPExpressUDPFragmenter.DEFAULT_MAX_PENDING_MESSAGES, SEDAPExpressUDPFragmenter.DEFAULT_MAX_MESSAGE_SIZE,
+		SEDAPExpressUDPFragmenter.DEFAULT_REASSEMBLY_TIMEOUT);
+    }
+
+    /**
+     * Instantiate a new fragmenter
+     *
+     * @param maxDatagramSize    Maximum size of a datagram including the fragment header (e.g. MTU minus IP/UDP header)
+     * @param maxPendingMessages Maximum number of messages which are reassembled at the same time
+     * @param maxMessageSize     Maximum size of a reassembled message
+     * @param reassemblyTimeout  Time in milliseconds after which an incomplete message will be dropped
+     */
+    public SEDAPExpressUDPFragmenter(int maxDatagramSize, int maxPendingMessages, int maxMessageSize, long reassemblyTimeout) {
+
+	if (maxDatagramSize <= SEDAPExpressUDPFragmenter.HEADER_SIZE) {
+	    throw new IllegalArgumentException("Maximum datagram size must be greater than " + SEDAPExpressUDPFragmenter.HEADER_SIZE);
+	}
+
+	this.maxDatagramSize = maxDatagramSize;
+	this.maxPendingMessages = Math.max(1, maxPendingMessages);
+	this.maxMessageSize = maxMessageSize;
+	this.reassemblyTimeout = reassemblyTimeout;
+    }
+
+    public int getMaxDatagramSize() {
+	return this.maxDatagramSize;
+    }
+
+    /**
+     * Returns the number of incomplete messages which have been dropped because of a timeout or the memory limits
+     *
+     * @return number of dropped messages
+     */
+    public long getDroppedMessages() {
+	return this.droppedMessages.get();
+    }
+
+    /**
+     * Returns the number of messages which are currently waiting for missing fragments
+     *
+     * @return number of pending messages
+     */
+    public synchronized int getPendingMessages() {
+	return this.pendingMessages.size();
+    }
+
+    /**
+     * Checks if the given datagram is a fragment
+     *
+     * @param data   datagram
+     * @param length length of the datagram
+     * @return true, if the datagram starts with a fragment header
+     */
+    public static boolean isFragment(byte[] data, int length) {
+	return (length >= SEDAPExpressUDPFragmenter.HEADER_SIZE) && (data[0] == SEDAPExpressUDPFragmenter.MAGIC) && (data[1] == SEDAPExpressUDPFragmenter.TYPE_FRAGMENT);
+    }
+
+    /**
+     * Splits the encoded message into datagrams. Messages which fit into one datagram are returned unchanged.
+     *
+     * @param data encoded message
+     * @return List of datagrams to send
+     */
+    public List<byte[]> fragment(byte[] data) {
+
+	if (data.length <= this.maxDatagramSize) {
+	    return List.of(data);
+	}
+
+	final int payloadSize = this.maxDatagramSize - SEDAPExpressUDPFragmenter.HEADER_SIZE;
+	final int count = (data.length + payloadSize - 1) / payloadSize;
+
+	if (count > 0xFFFF) {
+	    throw new IllegalArgumentException("Message too large for fragmentation: " + data.length + " bytes");
+	}
+
+	final int messageId = this.messageIdCounter.getAndIncrement();
+	final List<byte[]> fragments = new ArrayList<>(count);
+
+	for (int index = 0; index < count; index++) {
+
+	    final int offset = index * payloadSize;
+	    final int length = Math.min(payloadSize, data.length - offset);
+
+	    final ByteBuffer fragment = ByteBuffer.allocate(SEDAPExpressUDPFragmenter.HEADER_SIZE + length);
+	    fragment.put(SEDAPExpressUDPFragmenter.MAGIC).put(SEDAPExpressUDPFragmenter.TYPE_FRAGMENT).put(SEDAPExpressUDPFragmenter.VERSION);
+	    fragment.putInt(messageId).putShort((short) index).putShort((short) count);
+	    fragment.put(data, offset, length);
+
+	    fragments.add(fragment.array());
+	}
+
+	return fragments;
+    }
+
+    /**
+     * Adds a received fragment to the reassembly buffer.
+     *
+     * @param sender Address of the sender of the fragment
+     * @param data   received datagram
+     * @param length length of the received datagram
+     * @return the complete message, if this was the last missing fragment, otherwise null
+     */
+    public byte[] reassemble(SocketAddress sender, byte[] data, int length) {
+
+	if (!SEDAPExpressUDPFragmenter.isFragment(data, length) || (data[2] != SEDAPExpressUDPFragmenter.VERSION)) {
+	    return null;
+	}
+
+	final ByteBuffer header = ByteBuffer.wrap(data, 3, SEDAPExpressUDPFragmenter.HEADER_SIZE - 3);
+	final int messageId = header.getInt();
+	final int index = header.getShort() & 0xFFFF;
+	final int count = header.getShort() & 0xFFFF;
+
+	if ((count == 0) || (index >= count)) {
+	    return null;
+	}
+
+	final byte[] payload = Arrays.copyOfRange(data, SEDAPExpressUDPFragmenter.HEADER_SIZE, length);
+
+	// All fragments except the last one have the same size, so oversized messages can be rejected before buffering them
+	if ((index < (count - 1)) && (((long) count - 1) * payload.length) > this.maxMessageSize) {
+	    if (index == 0) {
+		this.droppedMessages.incrementAndGet();
+	    }
+	    return null;
+	}
+
+	final long now = System.currentTimeMillis();
+
+	synchronized (this) {
+
+	    removeExpiredMessages(now);
+
+	    final PendingKey key = new PendingKey(sender, messageId);
+	    PendingMessage pending = this.pendingMessages.get(key);
+
+	    if (pending == null) {
+
+		if (this.pendingMessages.size() >= this.maxPendingMessages) {
+		    final Iterator<PendingKey> oldest = this.pendingMessages.keySet().iterator();
+		    oldest.next();
+		    oldest.remove();
+		    this.droppedMessages.incrementAndGet();
+		}
+
+		pending = new PendingMessage(count, now);
+		this.pendingMessages.put(key, pending);
+
+	    } else if (pending.fragments.length != count) {
+		return null;
+	    }
+
+	    if (pending.fragments[index] == null) {
+		pending.fragments[index] = payload;
+		pending.received++;
+		pending.size += payload.length;
+	    }
+
+	    if (pending.size > this.maxMessageSize) {
+		this.pendingMessages.remove(key);
+		this.droppedMessages.incrementAndGet();
+		return null;
+	    }
+
+	    if (pending.received < count) {
+		return null;
+	    }
+
+	    this.pendingMessages.remove(key);
+
+	    final byte[] message = new byte[pending.size];
+	    int offset = 0;
+	    for (final byte[] fragment : pending.fragments) {
+		System.arraycopy(fragment, 0, message, offset, fragment.length);
+		offset += fragment.length;
+	    }
+
+	    return message;
+	}
+    }
+
+    /**
+     * Drops all incomplete messages which are older than the reassembly timeout
+     *
+     * @param now current time in milliseconds
+     */
+    private void removeExpiredMessages(long now) {
+
+	final Iterator<Map.Entry<PendingKey, PendingMessage>> iterator = this.pendingMessages.entrySet().iterator();
+
+	while (iterator.hasNext()) {
+	    if ((now - iterator.next().getValue().firstReceived) > this.reassemblyTimeout) {
+		iterator.remove();
+		this.droppedMessages.incrementAndGet();
+	    } else {
+		break; // Insertion order, all following messages are younger
+	    }
+	}
+    }
+
+    private static final class PendingKey {
+
+	private final SocketAddress sender;
+
+	private final int messageId;
+
+	PendingKey(SocketAddress sender, int messageId) {
+	    this.sender = sender;
+	    this.messageId = messageId;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+
+	    if (this == obj) {
+		return true;
+	    }
+	    if (!(obj instanceof PendingKey other)) {
+		return false;
+	    }
+	    return (this.messageId == other.messageId) && Objects.equals(this.sender, other.sender);
+	}
+
+	@Override
+	public int hashCode() {
+	    return Objects.hash(this.sender, this.messageId);
+	}
+    }
+
+    private static final class PendingMessage {
+
+	private final byte[][] fragments;
+
+	private final long firstReceived;
+
+	private int received = 0;
+
+	private int size = 0;
+
+	PendingMessage(int count, long firstReceived) {
+	    this.fragments = new byte[count][];
+	    this.firstReceived = firstReceived;
+	}
+    }
+}
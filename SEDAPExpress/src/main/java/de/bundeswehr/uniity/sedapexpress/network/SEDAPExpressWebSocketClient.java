@@ -0,0 +1,436 @@
+/**
+ * Note: This license has also been called the “Simplified BSD License” and the “FreeBSD License”.
+ *
+ * Copyright 2024-2025 UNIITY POC: Volker Voß, Federal Armed Forces of Germany
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS “AS IS” AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSEnARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ * OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY
+ * OF SUCH DAMAGE.
+ */
+package de.bundeswehr.uniity.sedapexpress.network;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage;
+import de.bundeswehr.uniity.sedapexpress.network.SEDAPExpressCapabilities.Compression;
+import de.bundeswehr.uniity.sedapexpress.network.SEDAPExpressCapabilities.Encoding;
+import de.bundeswehr.uniity.sedapexpress.protobuf.SEDAPExpressProtobufCodec;
+
+/**
+ * WebSocket client class for SEDAP-Express
+ * <p>
+ * Every text frame carries one SEDAP-Express message or a batch of messages separated by line feeds. The connection will be reestablished
+ * automatically after 2 seconds, if it has been closed by the server or the network.
+ * <p>
+ * With {@link #setCapabilities(SEDAPExpressCapabilities)} both sides exchange their capabilities after the connect, see
+ * {@link SEDAPExpressCapabilities}. The WebSocket client supports the text format, the compressed text format in text frames and protobuf
+ * batches in binary frames.
+ *
+ * @author Volker Voß
+ *
+ */
+public class SEDAPExpressWebSocketClient extends SEDAPExpressCommunicator implements WebSocket.Listener {
+
+    protected static Logger logger = Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
+    static {
+	SEDAPExpressWebSocketClient.logger.setLevel(Level.ALL);
+    }
+
+    /**
+     * Subprotocol name offered during the opening handshake
+     */
+    public static final String SUBPROTOCOL = "sedapexpress";
+
+    static final Set<Encoding> ENCODINGS = EnumSet.of(Encoding.TEXT, Encoding.COMPRESSED, Encoding.PROTOBUF);
+
+    static final Set<Compression> COMPRESSIONS = EnumSet.of(Compression.NONE, Compression.DEFLATE);
+
+    private static final int CLOSE_TOO_BIG = 1009;
+
+    private Exception lastException = null;
+
+    private final URI uri;
+
+    private HttpClient client;
+
+    private volatile WebSocket webSocket;
+
+    private final Object reconnectLock = new Object();
+
+    private volatile boolean status = true;
+
+    private final StringBuilder partialText = new StringBuilder();
+
+    private final ByteArrayOutputStream partialBinary = new ByteArrayOutputStream();
+
+    private SEDAPExpressCapabilities capabilities = null;
+
+    private volatile SEDAPExpressCapabilities negotiated = null;
+
+    /**
+     * Instantiate a new SEDAP-Express WebSocket client
+     *
+     * @param uri URI of the WebSocket server, e.g. "ws://localhost:50000/SEDAPEXPRESS"
+     */
+    public SEDAPExpressWebSocketClient(String uri) {
+
+	super();
+
+	this.uri = URI.create(uri);
+    }
+
+    /**
+     * Sets the capabilities sent to the server after the connect, has to be called before {@link #connect()}. Without capabilities no exchange
+     * takes place and only the text format is used.
+     *
+     * @param capabilities Capabilities of this node or null
+     */
+    public void setCapabilities(SEDAPExpressCapabilities capabilities) {
+	this.capabilities = (capabilities != null) ? capabilities.restrict(SEDAPExpressWebSocketClient.ENCODINGS, SEDAPExpressWebSocketClient.COMPRESSIONS) : null;
+    }
+
+    public SEDAPExpressCapabilities getCapabilities() {
+	return this.capabilities;
+    }
+
+    /**
+     * Returns the result of the capability exchange
+     *
+     * @return capabilities of the connection or null, if the server has not sent its capabilities (yet), then the text format is used
+     */
+    public SEDAPExpressCapabilities getNegotiatedCapabilities() {
+	return this.negotiated;
+    }
+
+    public boolean connect() {
+
+	logInput("WebSocket client started!");
+
+	try {
+	    if (this.client == null) {
+		this.client = HttpClient.newHttpClient();
+	    }
+
+	    // The capabilities of the server may arrive before the connect has been completed
+	    this.negotiated = null;
+
+	    this.webSocket = this.client.newWebSocketBuilder()
+		    .connectTimeout(Duration.ofSeconds(5))
+		    .subprotocols(SEDAPExpressWebSocketClient.SUBPROTOCOL)
+		    .buildAsync(this.uri, this)
+		    .join();
+
+	    SEDAPExpressWebSocketClient.logger.logp(Level.INFO, "SEDAPExpressWebSocketClient", "connect()", "Connected to " + this.uri);
+	    logInput("Connected to " + this.uri);
+
+	    this.lastException = null;
+
+	    if (this.capabilities != null) {
+		sendText(this.capabilities.toMessage(null).toString());
+	    }
+
+	    return true;
+
+	} catch (CompletionException e) {
+	    this.lastException = (e.getCause() instanceof Exception) ? (Exception) e.getCause() : e;
+	    SEDAPExpressWebSocketClient.logger.logp(Level.SEVERE, "SEDAPExpressWebSocketClient", "connect()", "Could not connect to " + this.uri, this.lastException.getLocalizedMessage());
+	    logInput("Could not connect to " + this.uri);
+	    return false;
+	} catch (Exception e) {
+	    this.lastException = e;
+	    return false;
+	}
+    }
+
+    @Override
+    public void onOpen(WebSocket webSocket) {
+
+	// Set before any other callback, so a close during the connect already triggers the reconnect
+	this.webSocket = webSocket;
+	webSocket.request(1);
+    }
+
+    @Override
+    public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+
+	if ((this.partialText.length() + data.length()) > SEDAPExpressWebSocketServer.MAX_MESSAGE_SIZE) {
+	    closeTooBig(webSocket);
+	    return null;
+	}
+
+	this.partialText.append(data);
+
+	if (last) {
+	    final String text = this.partialText.toString();
+	    this.partialText.setLength(0);
+
+	    for (String message : text.split("\n")) {
+
+		message = message.strip();
+		if (message.isEmpty()) {
+		    continue;
+		}
+
+		try {
+		    receive(message);
+		} catch (Exception e) {
+		    this.lastException = e;
+		    SEDAPExpressWebSocketClient.logger.log(Level.SEVERE, "SEDAPExpressWebSocketClient, could not deserialize message: " + message, e);
+		}
+	    }
+	}
+
+	webSocket.request(1);
+
+	return null;
+    }
+
+    @Override
+    public CompletionStage<?> onBinary(WebSocket webSocket, ByteBuffer data, boolean last) {
+
+	if ((this.partialBinary.size() + data.remaining()) > SEDAPExpressWebSocketServer.MAX_MESSAGE_SIZE) {
+	    closeTooBig(webSocket);
+	    return null;
+	}
+
+	final byte[] bytes = new byte[data.remaining()];
+	data.get(bytes);
+	this.partialBinary.write(bytes, 0, bytes.length);
+
+	if (last) {
+	    final byte[] batch = this.partialBinary.toByteArray();
+	    this.partialBinary.reset();
+
+	    // Binary frames are only expected after the exchange of the capabilities
+	    if ((this.capabilities != null) && this.capabilities.supports(Encoding.PROTOBUF)) {
+		try {
+		    SEDAPExpressProtobufCodec.splitBatch(new ByteArrayInputStream(batch), envelope -> receiveFrame(envelope, SEDAPExpressProtobufCodec::decodeEnvelope));
+		} catch (Exception e) {
+		    this.lastException = e;
+		    SEDAPExpressWebSocketClient.logger.log(Level.SEVERE, "SEDAPExpressWebSocketClient, could not decode binary frame", e);
+		}
+	    }
+	}
+
+	webSocket.request(1);
+
+	return null;
+    }
+
+    /**
+     * Discards a received message exceeding {@link SEDAPExpressWebSocketServer#MAX_MESSAGE_SIZE} and closes the connection, the client
+     * reconnects afterwards
+     *
+     * @param webSocket WebSocket which received the message
+     */
+    private void closeTooBig(WebSocket webSocket) {
+
+	this.partialText.setLength(0);
+	this.partialBinary.reset();
+
+	SEDAPExpressWebSocketClient.logger.logp(Level.SEVERE, "SEDAPExpressWebSocketClient", "closeTooBig()", "Received message exceeds " + SEDAPExpressWebSocketServer.MAX_MESSAGE_SIZE + " bytes, closing connection");
+	// After the abort the listener is not called anymore, so the reconnect has to be triggered here
+	webSocket.sendClose(SEDAPExpressWebSocketClient.CLOSE_TOO_BIG, "").orTimeout(1, TimeUnit.SECONDS).whenComplete((result, e) -> {
+	    webSocket.abort();
+	    reconnect(webSocket);
+	});
+    }
+
+    /**
+     * Handles a received line, the capabilities of the peer are applied immediately and not distributed, all other lines are decoded by the
+     * receive pipeline if enabled
+     *
+     * @param line Received line
+     */
+    private void receive(String line) {
+
+	if (this.capabilities == null) {
+	    receiveFrame(line, SEDAPExpressMessage::deserialize);
+	    return;
+	}
+
+	final SEDAPExpressCapabilities peer = SEDAPExpressCapabilities.fromLine(line);
+	if (peer != null) {
+	    this.negotiated = this.capabilities.negotiate(peer);
+	    SEDAPExpressWebSocketClient.logger.logp(Level.INFO, "SEDAPExpressWebSocketClient", "receive()", "Negotiated with " + this.uri + ": " + this.negotiated);
+	} else {
+	    receiveFrame(line, SEDAPExpressCapabilities::decodeLine);
+	}
+    }
+
+    @Override
+    public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+
+	SEDAPExpressWebSocketClient.logger.logp(Level.INFO, "SEDAPExpressWebSocketClient", "onClose()", "Connection closed by server: " + statusCode + " " + reason);
+	logInput("Connection to " + this.uri + " closed: " + statusCode);
+
+	reconnect(webSocket);
+
+	return null;
+    }
+
+    @Override
+    public void onError(WebSocket webSocket, Throwable error) {
+
+	this.lastException = (error instanceof Exception) ? (Exception) error : new Exception(error);
+
+	if (this.status) { // Only if not manually triggered
+	    SEDAPExpressWebSocketClient.logger.log(Level.WARNING, "SEDAPExpressWebSocketClient: " + error);
+	}
+
+	reconnect(webSocket);
+    }
+
+    /**
+     * Reconnects after 2 seconds, if the client has not been stopped. Only the first call for the current WebSocket reconnects, further
+     * calls for the same or an older WebSocket are ignored.
+     *
+     * @param closed WebSocket which has been closed
+     */
+    private void reconnect(WebSocket closed) {
+
+	synchronized (this.reconnectLock) {
+	    if (closed != this.webSocket) {
+		return;
+	    }
+	    this.webSocket = null;
+	}
+
+	this.partialText.setLength(0);
+	this.partialBinary.reset();
+
+	if (!this.status) {
+	    return;
+	}
+
+	CompletableFuture.runAsync(() -> {
+	    while (this.status) {
+		SEDAPExpressWebSocketClient.logger.logp(Level.SEVERE, "SEDAPExpressWebSocketClient", "reconnect()", "Waiting 2 seconds for reconnect to: " + this.uri);
+		logInput("Waiting 2 seconds for reconnect to: " + this.uri);
+		try {
+		    Thread.sleep(2000);
+		} catch (InterruptedException e) {
+		    return;
+		}
+		if (this.status && connect()) {
+		    return;
+		}
+	    }
+	});
+    }
+
+    @Override
+    public boolean sendSEDAPExpressMessage(SEDAPExpressMessage message) throws IOException {
+
+	return sendSEDAPExpressMessages(List.of(message));
+    }
+
+    /**
+     * Sends the messages as batched frames, the encoding, batching and the size of the frames depend on the capabilities of the connection
+     *
+     * @param messages Messages to send
+     * @return true, if the frames have been sent
+     * @throws IOException Frame could not be sent
+     */
+    public boolean sendSEDAPExpressMessages(Collection<SEDAPExpressMessage> messages) throws IOException {
+
+	final SEDAPExpressCapabilities connection = this.negotiated;
+	final boolean binary = (connection != null) && (connection.getEncoding() == Encoding.PROTOBUF);
+
+	for (byte[] payload : SEDAPExpressCapabilities.createPayloads(messages, connection)) {
+	    if (!(binary ? sendBinary(payload) : sendText(new String(payload, StandardCharsets.UTF_8)))) {
+		return false;
+	    }
+	}
+
+	return true;
+    }
+
+    private synchronized boolean sendBinary(byte[] data) throws IOException {
+
+	final WebSocket socket = this.webSocket;
+	if ((socket == null) || socket.isOutputClosed()) {
+	    return false;
+	}
+
+	try {
+	    socket.sendBinary(ByteBuffer.wrap(data), true).join();
+	    return true;
+	} catch (CompletionException e) {
+	    this.lastException = new IOException(e.getCause());
+	    throw (IOException) this.lastException;
+	}
+    }
+
+    private synchronized boolean sendText(String text) throws IOException {
+
+	final WebSocket socket = this.webSocket;
+	if ((socket == null) || socket.isOutputClosed()) {
+	    return false;
+	}
+
+	try {
+	    // Only one outstanding send is allowed, so wait for the completion
+	    socket.sendText(text, true).join();
+	    return true;
+	} catch (CompletionException e) {
+	    this.lastException = new IOException(e.getCause());
+	    throw (IOException) this.lastException;
+	}
+    }
+
+    @Override
+    public void stopCommunicator() {
+
+	this.status = false;
+
+	final WebSocket socket = this.webSocket;
+	if (socket != null) {
+	    socket.sendClose(WebSocket.NORMAL_CLOSURE, "").orTimeout(1, TimeUnit.SECONDS).whenComplete((result, e) -> socket.abort());
+	}
+
+	SEDAPExpressWebSocketClient.logger.logp(Level.INFO, "SEDAPExpressWebSocketClient", "stopCommunicator()", "WebSocket client stopped");
+	logInput("WebSocket client stopped");
+    }
+
+    @Override
+    public Exception getLastException() {
+
+	return this.lastException;
+    }
+
+}
@@ -0,0 +1,766 @@
+/**
+ * Note: This license has also been called the “Simplified BSD License” and the “FreeBSD License”.
+ *
+ * Copyright 2024-2025 UNIITY POC: Volker Voß, Federal Armed Forces of Germany
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS “AS IS” AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSEnARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ * OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY
+ * OF SUCH DAMAGE.
+ */
+package de.bundeswehr.uniity.sedapexpress.network;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage;
+import de.bundeswehr.uniity.sedapexpress.network.SEDAPExpressCapabilities.Encoding;
+import de.bundeswehr.uniity.sedapexpress.protobuf.SEDAPExpressProtobufCodec;
+
+/**
+ * WebSocket server class for SEDAP-Express (RFC 6455)
+ * <p>
+ * Lightweight server without external dependencies: every connection is served by its own thread on a blocking socket channel, like the TCP
+ * server. Every text frame carries one SEDAP-Express message or a batch of messages separated by line feeds. Outgoing messages are sent to
+ * all connected clients.
+ * <p>
+ * The server deliberately does not multiplex the connections with a {@link java.nio.channels.Selector}: SEDAP-Express deployments connect
+ * a handful of long-lived clients, and the blocking threads per connection keep the frame parser and the handshake sequential and simple.
+ * Every connection has a reader thread, which only reads and frames, and a writer thread, which drains an outbound queue of the connection.
+ * Decoding and distribution run in the receive pipeline of the communicator, and a received message is limited to
+ * {@link #MAX_MESSAGE_SIZE}. Sending only enqueues the frames, the outbound queue is limited to {@link #setMaxQueuedBytes(long)} and a client
+ * which does not read fast enough is disconnected when its queue overflows. So a slow or misbehaving client binds two threads and bounded
+ * buffers at most and never stalls the sender or the other clients.
+ * <p>
+ * With {@link #setCapabilities(SEDAPExpressCapabilities)} the server exchanges its capabilities with every client, see
+ * {@link SEDAPExpressWebSocketClient#setCapabilities(SEDAPExpressCapabilities)}. Outgoing messages are encoded once per negotiated encoding.
+ *
+ * @author Volker Voß
+ *
+ */
+public class SEDAPExpressWebSocketServer extends SEDAPExpressCommunicator implements Runnable {
+
+    protected static Logger logger = Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
+    static {
+	SEDAPExpressWebSocketServer.logger.setLevel(Level.ALL);
+    }
+
+    /**
+     * Maximum size of a received message (sum of all fragments)
+     */
+    public static final int MAX_MESSAGE_SIZE = 16 * 1024 * 1024;
+
+    private static final String HANDSHAKE_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+
+    /**
+     * Default maximum size of the frames queued for one client
+     */
+    public static final long DEFAULT_MAX_QUEUED_BYTES = 4L * SEDAPExpressWebSocketServer.MAX_MESSAGE_SIZE;
+
+    private static final int MAX_HANDSHAKE_SIZE = 16 * 1024;
+
+    /** Time the writer of a connection gets to send the close frame */
+    private static final long CLOSE_TIMEOUT = 1000;
+
+    /** Marks the end of the outbound queue */
+    private static final byte[] END_OF_QUEUE = new byte[0];
+
+    private static final int OPCODE_CONTINUATION = 0x0;
+    private static final int OPCODE_TEXT = 0x1;
+    private static final int OPCODE_BINARY = 0x2;
+    private static final int OPCODE_CLOSE = 0x8;
+    private static final int OPCODE_PING = 0x9;
+    private static final int OPCODE_PONG = 0xA;
+
+    private static final int CLOSE_NORMAL = 1000;
+    private static final int CLOSE_GOING_AWAY = 1001;
+    private static final int CLOSE_PROTOCOL_ERROR = 1002;
+    private static final int CLOSE_TOO_BIG = 1009;
+
+    private Exception lastException = null;
+
+    private ServerSocketChannel serverSocket;
+    private final String intf;
+    private final int port;
+
+    private volatile boolean status = true;
+
+    private final ConcurrentLinkedDeque<Connection> connections = new ConcurrentLinkedDeque<>();
+
+    private SEDAPExpressCapabilities capabilities = null;
+
+    private long maxQueuedBytes = SEDAPExpressWebSocketServer.DEFAULT_MAX_QUEUED_BYTES;
+
+    /**
+     * Instantiate a new SEDAP-Express WebSocket server on the given interface
+     *
+     * @param intf Interface to bind to
+     * @param port Port to be used
+     */
+    public SEDAPExpressWebSocketServer(String intf, int port) {
+
+	super();
+
+	this.intf = intf;
+	this.port = port;
+    }
+
+    /**
+     * Instantiate a new SEDAP-Express WebSocket server
+     *
+     * @param port Port to be used
+     */
+    public SEDAPExpressWebSocketServer(int port) {
+	this("0.0.0.0", port);
+    }
+
+    /**
+     * Returns the number of open connections
+     *
+     * @return number of connections
+     */
+    public int getConnectionCount() {
+	return this.connections.size();
+    }
+
+    /**
+     * Sets the capabilities sent to every client after the WebSocket handshake, has to be called before {@link #connect()}. Without
+     * capabilities no exchange takes place and only the text format is used.
+     *
+     * @param capabilities Capabilities of this node or null
+     */
+    public void setCapabilities(SEDAPExpressCapabilities capabilities) {
+	this.capabilities = (capabilities != null) ? capabilities.restrict(SEDAPExpressWebSocketClient.ENCODINGS, SEDAPExpressWebSocketClient.COMPRESSIONS) : null;
+    }
+
+    public SEDAPExpressCapabilities getCapabilities() {
+	return this.capabilities;
+    }
+
+    /**
+     * Sets the maximum size of the frames queued for one client, applies to all connections accepted afterwards. A client whose queue would
+     * exceed the size is disconnected.
+     *
+     * @param maxQueuedBytes maximum size in bytes
+     */
+    public void setMaxQueuedBytes(long maxQueuedBytes) {
+
+	if (maxQueuedBytes <= 0) {
+	    throw new IllegalArgumentException("maxQueuedBytes must be positive");
+	}
+	this.maxQueuedBytes = maxQueuedBytes;
+    }
+
+    public boolean connect() {
+
+	try {
+
+	    this.serverSocket = ServerSocketChannel.open();
+	    this.serverSocket.configureBlocking(true);
+	    this.serverSocket.bind(new InetSocketAddress(this.intf, this.port));
+
+	    SEDAPExpressWebSocketServer.logger.logp(Level.INFO, "SEDAPExpressWebSocketServer", "connect()", "WebSocket server listening on port: " + this.port);
+	    logInput("WebSocket server listening on port: " + this.port);
+
+	    this.lastException = null;
+
+	    new Thread(this, "SEDAPExpressWebSocketServer").start();
+
+	    return true;
+
+	} catch (Exception e) {
+	    this.lastException = e;
+	    return false;
+	}
+    }
+
+    @Override
+    public void run() {
+
+	try {
+	    while (this.status) {
+		final SocketChannel clientSocket = this.serverSocket.accept();
+		final Connection connection = new Connection(clientSocket);
+
+		final Thread thread = new Thread(connection, "SEDAPExpressWebSocketServer " + connection.host);
+		thread.setDaemon(true);
+		thread.start();
+	    }
+	} catch (Exception e) {
+	    if (this.status) { // Only if not manually triggered
+		this.lastException = e;
+		SEDAPExpressWebSocketServer.logger.logp(Level.SEVERE, "SEDAPExpressWebSocketServer", "run()", "Could not listening on port: " + this.port);
+		logInput("Could not listening on port: " + this.port);
+	    }
+	    this.status = false;
+	} finally {
+	    try {
+		this.serverSocket.close();
+	    } catch (IOException e) {
+	    }
+	}
+    }
+
+    @Override
+    public boolean sendSEDAPExpressMessage(SEDAPExpressMessage message) throws IOException {
+
+	return broadcast(List.of(message));
+    }
+
+    /**
+     * Sends the messages as batched frames to all clients. The frames are only enqueued, the writer of every connection sends them.
+     *
+     * @param messages Messages to send
+     * @return true, if the frames have been enqueued for at least one client
+     * @throws IOException Frame could not be created
+     */
+    public boolean sendSEDAPExpressMessages(Collection<SEDAPExpressMessage> messages) throws IOException {
+
+	return broadcast(messages);
+    }
+
+    private boolean broadcast(Collection<SEDAPExpressMessage> messages) {
+
+	// The frames are the same for all clients with the same capabilities, so they will be created only once
+	final Map<SEDAPExpressCapabilities, List<byte[]>> frames = new HashMap<>();
+
+	boolean sent = false;
+	for (Connection connection : this.connections) {
+	    final SEDAPExpressCapabilities negotiated = (connection.negotiated != null) ? connection.negotiated : SEDAPExpressCapabilities.LEGACY;
+	    final List<byte[]> connectionFrames = frames.computeIfAbsent(negotiated, key -> {
+		final int opcode = (key.getEncoding() == Encoding.PROTOBUF) ? SEDAPExpressWebSocketServer.OPCODE_BINARY : SEDAPExpressWebSocketServer.OPCODE_TEXT;
+		return SEDAPExpressCapabilities.createPayloads(messages, key).stream().map(payload -> SEDAPExpressWebSocketServer.createFrame(opcode, payload)).toList();
+	    });
+	    if (connection.enqueue(connectionFrames)) {
+		sent = true;
+	    }
+	}
+
+	return sent;
+    }
+
+    /**
+     * Creates an unmasked (server to client) frame
+     *
+     * @param opcode  Opcode of the frame
+     * @param payload Payload of the frame
+     * @return Frame
+     */
+    private static byte[] createFrame(int opcode, byte[] payload) {
+
+	final ByteBuffer frame;
+
+	if (payload.length < 126) {
+	    frame = ByteBuffer.allocate(2 + payload.length);
+	    frame.put((byte) (0x80 | opcode));
+	    frame.put((byte) payload.length);
+	} else if (payload.length <= 0xFFFF) {
+	    frame = ByteBuffer.allocate(4 + payload.length);
+	    frame.put((byte) (0x80 | opcode));
+	    frame.put((byte) 126);
+	    frame.putShort((short) payload.length);
+	} else {
+	    frame = ByteBuffer.allocate(10 + payload.length);
+	    frame.put((byte) (0x80 | opcode));
+	    frame.put((byte) 127);
+	    frame.putLong(payload.length);
+	}
+	frame.put(payload);
+
+	return frame.array();
+    }
+
+    /**
+     * Calculates the value of the header "Sec-WebSocket-Accept"
+     *
+     * @param key Value of the header "Sec-WebSocket-Key"
+     * @return accept value
+     */
+    static String createAcceptKey(String key) {
+
+	try {
+	    final MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+	    return Base64.getEncoder().encodeToString(sha1.digest((key.trim() + SEDAPExpressWebSocketServer.HANDSHAKE_GUID).getBytes(StandardCharsets.US_ASCII)));
+	} catch (NoSuchAlgorithmException e) {
+	    throw new IllegalStateException(e);
+	}
+    }
+
+    @Override
+    public void stopCommunicator() {
+
+	this.status = false;
+
+	try {
+	    if (this.serverSocket != null) {
+		this.serverSocket.close();
+	    }
+	} catch (IOException e) {
+	}
+
+	final List<Connection> open = List.copyOf(this.connections);
+	open.forEach(connection -> connection.close(SEDAPExpressWebSocketServer.CLOSE_GOING_AWAY));
+	open.forEach(Connection::awaitClosed);
+
+	SEDAPExpressWebSocketServer.logger.logp(Level.INFO, "SEDAPExpressWebSocketServer", "stopCommunicator()", "WebSocket server stopped");
+	logInput("WebSocket server stopped");
+    }
+
+    @Override
+    public Exception getLastException() {
+
+	return this.lastException;
+    }
+
+    /**
+     * One WebSocket connection of the server
+     */
+    private class Connection implements Runnable {
+
+	private final SocketChannel socket;
+
+	private final String host;
+
+	private volatile boolean open = true;
+
+	private volatile SEDAPExpressCapabilities negotiated = null;
+
+	private final LinkedBlockingQueue<byte[]> outbound = new LinkedBlockingQueue<>();
+
+	private final AtomicLong queuedBytes = new AtomicLong();
+
+	private final long maxQueuedBytes = SEDAPExpressWebSocketServer.this.maxQueuedBytes;
+
+	private volatile Thread writer = null;
+
+	private Connection(SocketChannel socket) {
+
+	    this.socket = socket;
+
+	    String remote;
+	    try {
+		remote = socket.getRemoteAddress().toString().substring(1);
+	    } catch (IOException e) {
+		remote = "";
+	    }
+	    this.host = remote;
+	}
+
+	@Override
+	public void run() {
+
+	    try (InputStream in = Channels.newInputStream(this.socket)) {
+
+		if (!handshake(in)) {
+		    return;
+		}
+
+		this.writer = new Thread(this::runWriter, "SEDAPExpressWebSocketServer writer " + this.host);
+		this.writer.setDaemon(true);
+		this.writer.start();
+
+		final SEDAPExpressCapabilities own = SEDAPExpressWebSocketServer.this.capabilities;
+		if (own != null) {
+		    enqueue(List.of(SEDAPExpressWebSocketServer.createFrame(SEDAPExpressWebSocketServer.OPCODE_TEXT, own.toMessage(null).toString().getBytes(StandardCharsets.UTF_8))));
+		}
+
+		SEDAPExpressWebSocketServer.this.connections.add(this);
+		SEDAPExpressWebSocketServer.logger.logp(Level.INFO, "SEDAPExpressWebSocketServer", "run()", "Added new client " + this.host);
+		logInput("Added new client " + this.host);
+
+		receive(in);
+
+	    } catch (Exception e) {
+		if (SEDAPExpressWebSocketServer.this.status && this.open) { // Only if not manually triggered
+		    SEDAPExpressWebSocketServer.logger.log(Level.WARNING, "SEDAPExpressWebSocketServer: " + e);
+		}
+	    } finally {
+		if (this.open) {
+		    close();
+		} else {
+		    awaitClosed(); // The writer sends the close frame
+		}
+		if (SEDAPExpressWebSocketServer.this.connections.remove(this)) {
+		    SEDAPExpressWebSocketServer.logger.logp(Level.INFO, "SEDAPExpressWebSocketServer", "run()", "Removed client " + this.host);
+		    logInput("Removed client " + this.host);
+		}
+	    }
+	}
+
+	/**
+	 * Reads the HTTP upgrade request and answers it
+	 *
+	 * @param in Stream of the connection
+	 * @return true, if the connection has been upgraded to a WebSocket
+	 */
+	private boolean handshake(InputStream in) throws IOException {
+
+	    // Read the request head until the empty line
+	    final ByteArrayOutputStream head = new ByteArrayOutputStream();
+	    int last = 0;
+	    while (last != 0x0D0A0D0A) {
+		final int b = in.read();
+		if (b < 0) {
+		    return false;
+		}
+		head.write(b);
+		if (head.size() > SEDAPExpressWebSocketServer.MAX_HANDSHAKE_SIZE) {
+		    writeHttpError("431 Request Header Fields Too Large");
+		    return false;
+		}
+		last = (last << 8) | b;
+	    }
+
+	    final String[] lines = head.toString(StandardCharsets.ISO_8859_1).split("\r\n");
+	    final Map<String, String> headers = new HashMap<>();
+	    for (int i = 1; i < lines.length; i++) {
+		final int index = lines[i].indexOf(':');
+		if (index > 0) {
+		    headers.put(lines[i].substring(0, index).trim().toLowerCase(Locale.ROOT), lines[i].substring(index + 1).trim());
+		}
+	    }
+
+	    final String key = headers.get("sec-websocket-key");
+	    if (!lines[0].startsWith("GET ") || (key == null) || !headers.getOrDefault("upgrade", "").toLowerCase(Locale.ROOT).contains("websocket")) {
+		writeHttpError("400 Bad Request");
+		return false;
+	    }
+
+	    final StringBuilder response = new StringBuilder();
+	    response.append("HTTP/1.1 101 Switching Protocols\r\n");
+	    response.append("Upgrade: websocket\r\n");
+	    response.append("Connection: Upgrade\r\n");
+	    response.append("Sec-WebSocket-Accept: ").append(SEDAPExpressWebSocketServer.createAcceptKey(key)).append("\r\n");
+
+	    final String protocols = headers.get("sec-websocket-protocol");
+	    if ((protocols != null) && protocols.toLowerCase(Locale.ROOT).contains(SEDAPExpressWebSocketClient.SUBPROTOCOL)) {
+		response.append("Sec-WebSocket-Protocol: ").append(SEDAPExpressWebSocketClient.SUBPROTOCOL).append("\r\n");
+	    }
+	    response.append("\r\n");
+
+	    write(response.toString().getBytes(StandardCharsets.ISO_8859_1));
+
+	    return true;
+	}
+
+	private void writeHttpError(String status) throws IOException {
+
+	    write(("HTTP/1.1 " + status + "\r\nContent-Length: 0\r\nConnection: close\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+	}
+
+	/**
+	 * Reads the frames of the client until the connection will be closed
+	 *
+	 * @param in Stream of the connection
+	 */
+	private void receive(InputStream in) throws IOException {
+
+	    final ByteArrayOutputStream data = new ByteArrayOutputStream();
+	    int dataOpcode = SEDAPExpressWebSocketServer.OPCODE_CONTINUATION;
+
+	    while (this.open && SEDAPExpressWebSocketServer.this.status) {
+
+		final int b0 = readByte(in);
+		final int b1 = readByte(in);
+
+		final boolean fin = (b0 & 0x80) != 0;
+		final int opcode = b0 & 0x0F;
+		final boolean masked = (b1 & 0x80) != 0;
+
+		long length = b1 & 0x7F;
+		if (length == 126) {
+		    length = (readByte(in) << 8) | readByte(in);
+		} else if (length == 127) {
+		    length = 0;
+		    for (int i = 0; i < 8; i++) {
+			length = (length << 8) | readByte(in);
+		    }
+		}
+
+		// Frames of clients have to be masked
+		if (!masked || ((b0 & 0x70) != 0)) {
+		    close(SEDAPExpressWebSocketServer.CLOSE_PROTOCOL_ERROR);
+		    return;
+		}
+
+		if ((length < 0) || ((data.size() + length) > SEDAPExpressWebSocketServer.MAX_MESSAGE_SIZE)) {
+		    close(SEDAPExpressWebSocketServer.CLOSE_TOO_BIG);
+		    return;
+		}
+
+		final byte[] mask = in.readNBytes(4);
+		final byte[] payload = in.readNBytes((int) length);
+		if ((mask.length < 4) || (payload.length < length)) {
+		    throw new EOFException();
+		}
+		for (int i = 0; i < payload.length; i++) {
+		    payload[i] ^= mask[i & 3];
+		}
+
+		switch (opcode) {
+
+		case OPCODE_TEXT, OPCODE_BINARY, OPCODE_CONTINUATION -> {
+
+		    final boolean fragmented = dataOpcode != SEDAPExpressWebSocketServer.OPCODE_CONTINUATION;
+		    if ((opcode != SEDAPExpressWebSocketServer.OPCODE_CONTINUATION) == fragmented) {
+			close(SEDAPExpressWebSocketServer.CLOSE_PROTOCOL_ERROR);
+			return;
+		    }
+
+		    if (!fragmented) {
+			dataOpcode = opcode;
+		    }
+		    data.write(payload);
+
+		    if (fin) {
+			if (dataOpcode == SEDAPExpressWebSocketServer.OPCODE_TEXT) {
+			    distribute(data.toString(StandardCharsets.UTF_8));
+			} else {
+			    distribute(data.toByteArray());
+			}
+			data.reset();
+			dataOpcode = SEDAPExpressWebSocketServer.OPCODE_CONTINUATION;
+		    }
+		}
+
+		case OPCODE_PING -> enqueue(List.of(SEDAPExpressWebSocketServer.createFrame(SEDAPExpressWebSocketServer.OPCODE_PONG, payload)));
+
+		case OPCODE_CLOSE -> {
+		    close(SEDAPExpressWebSocketServer.CLOSE_NORMAL);
+		    return;
+		}
+
+		case OPCODE_PONG -> {
+		    // Ignored
+		}
+
+		default -> {
+		    close(SEDAPExpressWebSocketServer.CLOSE_PROTOCOL_ERROR);
+		    return;
+		}
+
+		}
+	    }
+	}
+
+	private int readByte(InputStream in) throws IOException {
+
+	    final int b = in.read();
+	    if (b < 0) {
+		throw new EOFException();
+	    }
+	    return b;
+	}
+
+	private void distribute(String text) {
+
+	    for (String message : text.split("\n")) {
+
+		message = message.strip();
+		if (message.isEmpty()) {
+		    continue;
+		}
+
+		try {
+		    receive(message);
+		} catch (Exception e) {
+		    SEDAPExpressWebSocketServer.this.lastException = e;
+		    SEDAPExpressWebSocketServer.logger.log(Level.SEVERE, "SEDAPExpressWebSocketServer, could not deserialize message: " + message, e);
+		}
+	    }
+	}
+
+	/**
+	 * Distributes the messages of a binary frame, only if protobuf is supported
+	 *
+	 * @param batch Payload of the frame
+	 */
+	private void distribute(byte[] batch) {
+
+	    final SEDAPExpressCapabilities own = SEDAPExpressWebSocketServer.this.capabilities;
+	    if ((own == null) || !own.supports(Encoding.PROTOBUF)) {
+		return; // Ignored
+	    }
+
+	    try {
+		SEDAPExpressProtobufCodec.splitBatch(new ByteArrayInputStream(batch), envelope -> receiveFrame(envelope, SEDAPExpressProtobufCodec::decodeEnvelope));
+	    } catch (Exception e) {
+		SEDAPExpressWebSocketServer.this.lastException = e;
+		SEDAPExpressWebSocketServer.logger.log(Level.SEVERE, "SEDAPExpressWebSocketServer, could not decode binary frame from " + this.host, e);
+	    }
+	}
+
+	/**
+	 * Handles a received line, the capabilities of the client are applied immediately and not distributed, all other lines are decoded by
+	 * the receive pipeline if enabled
+	 *
+	 * @param line Received line
+	 */
+	private void receive(String line) {
+
+	    final SEDAPExpressCapabilities own = SEDAPExpressWebSocketServer.this.capabilities;
+	    if (own == null) {
+		receiveFrame(line, SEDAPExpressMessage::deserialize);
+		return;
+	    }
+
+	    final SEDAPExpressCapabilities peer = SEDAPExpressCapabilities.fromLine(line);
+	    if (peer != null) {
+		this.negotiated = own.negotiate(peer);
+		SEDAPExpressWebSocketServer.logger.logp(Level.INFO, "SEDAPExpressWebSocketServer", "receive()", "Negotiated with " + this.host + ": " + this.negotiated);
+	    } else {
+		receiveFrame(line, SEDAPExpressCapabilities::decodeLine);
+	    }
+	}
+
+	/**
+	 * Enqueues frames for the writer, the connection is closed if the outbound queue overflows
+	 *
+	 * @param frames Frames to send
+	 * @return true, if the frames have been enqueued
+	 */
+	private boolean enqueue(List<byte[]> frames) {
+
+	    if (!this.open) {
+		return false;
+	    }
+
+	    long size = 0;
+	    for (byte[] frame : frames) {
+		size += frame.length;
+	    }
+
+	    if (this.queuedBytes.addAndGet(size) > this.maxQueuedBytes) {
+		SEDAPExpressWebSocketServer.logger.logp(Level.WARNING, "SEDAPExpressWebSocketServer", "enqueue()", "Outbound queue of " + this.host + " exceeds " + this.maxQueuedBytes + " bytes, closing connection");
+		logInput("Removed slow client " + this.host);
+		close();
+		return false;
+	    }
+
+	    this.outbound.addAll(frames);
+	    return true;
+	}
+
+	/**
+	 * Writes the frames of the outbound queue until the end of the queue or the connection will be closed
+	 */
+	private void runWriter() {
+
+	    try {
+		byte[] frame;
+		while ((frame = this.outbound.take()) != SEDAPExpressWebSocketServer.END_OF_QUEUE) {
+		    write(frame);
+		    this.queuedBytes.addAndGet(-frame.length);
+		}
+	    } catch (InterruptedException e) {
+		Thread.currentThread().interrupt();
+	    } catch (IOException e) {
+		if (SEDAPExpressWebSocketServer.this.status && this.open) { // Only if not manually triggered
+		    SEDAPExpressWebSocketServer.logger.log(Level.WARNING, "SEDAPExpressWebSocketServer: " + e);
+		}
+	    } finally {
+		close();
+	    }
+	}
+
+	/**
+	 * Writes directly to the socket, only used by the handshake and the writer
+	 *
+	 * @param data Data to write
+	 * @throws IOException Connection failed
+	 */
+	private void write(byte[] data) throws IOException {
+
+	    final ByteBuffer buffer = ByteBuffer.wrap(data);
+	    while (buffer.hasRemaining()) {
+		this.socket.write(buffer);
+	    }
+	}
+
+	/**
+	 * Enqueues a close frame, the writer closes the connection after sending it
+	 *
+	 * @param code Status code of the close frame
+	 */
+	private void close(int code) {
+
+	    final byte[] frame = SEDAPExpressWebSocketServer.createFrame(SEDAPExpressWebSocketServer.OPCODE_CLOSE, new byte[] { (byte) (code >> 8), (byte) code });
+	    if ((this.writer == null) || !enqueue(List.of(frame))) {
+		close();
+		return;
+	    }
+
+	    this.open = false;
+	    SEDAPExpressWebSocketServer.this.connections.remove(this);
+	    this.outbound.add(SEDAPExpressWebSocketServer.END_OF_QUEUE);
+	}
+
+	/**
+	 * Waits until the writer has sent the close frame and closes the connection
+	 */
+	private void awaitClosed() {
+
+	    final Thread thread = this.writer;
+	    if ((thread != null) && (thread != Thread.currentThread())) {
+		try {
+		    thread.join(SEDAPExpressWebSocketServer.CLOSE_TIMEOUT);
+		} catch (InterruptedException e) {
+		    Thread.currentThread().interrupt();
+		}
+	    }
+	    close();
+	}
+
+	/**
+	 * Closes the connection immediately, queued frames are discarded
+	 */
+	private void close() {
+
+	    this.open = false;
+	    SEDAPExpressWebSocketServer.this.connections.remove(this);
+	    this.outbound.clear();
+	    this.outbound.add(SEDAPExpressWebSocketServer.END_OF_QUEUE);
+	    try {
+		this.socket.close();
+	    } catch (IOException e) {
+	    }
+	}
+    }
+}
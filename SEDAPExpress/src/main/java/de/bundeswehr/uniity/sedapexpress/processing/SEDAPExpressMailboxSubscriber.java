@@ -0,0 +1,438 @@
+/**
+ * Note: This license has also been called the “Simplified BSD License” and the “FreeBSD License”.
+ *
+ * Copyright 2024-2025 UNIITY POC: Volker Voß, Federal Armed Forces of Germany
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS “AS IS” AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSEnARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ * OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY
+ * OF SUCH DAMAGE.
+ */
+package de.bundeswehr.uniity.sedapexpress.processing;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import de.bundeswehr.uniity.sedapexpress.messages.CONTACT;
+import de.bundeswehr.uniity.sedapexpress.messages.EMISSION;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage.MessageType;
+import de.bundeswehr.uniity.sedapexpress.network.SEDAPExpressLatencyMetrics;
+
+/**
+ * Subscriber with its own bounded mailbox, which delivers the messages asynchronously to another subscriber.
+ * <p>
+ * The communicators call all subscribers one after another on their receive thread, so a slow subscriber (e.g. a renderer or a database)
+ * delays all others. Registered instead of the slow subscriber, this class only puts the message into the mailbox and returns:
+ *
+ * <pre>
+ * SEDAPExpressMailboxSubscriber mailbox = new SEDAPExpressMailboxSubscriber(database, Ordering.PER_KEY, 10000, OverflowPolicy.DROP_OLDEST);
+ * communicator.subscribeMessages(mailbox, MessageType.CONTACT, MessageType.OWNUNIT);
+ * </pre>
+ *
+ * The messages are delivered in the order of their arrival within a lane, different lanes may be delivered in parallel:
+ * <ul>
+ * <li>GLOBAL: one lane for all messages</li>
+ * <li>PER_MESSAGE_TYPE: one lane per message type</li>
+ * <li>PER_KEY: the messages with the same key (default: contactID, emissionID or the sender of OWNUNIT) are in the same lane, the keys are
+ * distributed over a fixed number of lanes</li>
+ * </ul>
+ * If the mailbox is full, the overflow policy decides: the receive thread waits (BLOCK), the new message is dropped (DROP_NEWEST) or the
+ * oldest message of the lane is dropped (DROP_OLDEST). The lag between the arrival and the start of the delivery is recorded in
+ * {@link #getLagMetrics()}.
+ *
+ * @author Volker Voß
+ *
+ */
+public class SEDAPExpressMailboxSubscriber implements SEDAPExpressSubscriber, AutoCloseable {
+
+    protected static Logger logger = Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
+
+    /**
+     * Maximum number of messages delivered in one run of a lane, before the lane gives the thread to the other lanes
+     */
+    private static final int BATCH_SIZE = 64;
+
+    public enum Ordering {
+	GLOBAL, PER_MESSAGE_TYPE, PER_KEY
+    }
+
+    public enum OverflowPolicy {
+	BLOCK, DROP_NEWEST, DROP_OLDEST
+    }
+
+    /**
+     * Default key for PER_KEY: contactID of CONTACT, emissionID of EMISSION, sender of all other messages
+     */
+    public static final Function<SEDAPExpressMessage, Object> DEFAULT_KEY = message -> {
+
+	if (message instanceof CONTACT contact) {
+	    return contact.getContactID();
+	} else if (message instanceof EMISSION emission) {
+	    return emission.getEmissionID();
+	} else {
+	    return message.getSender();
+	}
+    };
+
+    private final SEDAPExpressSubscriber subscriber;
+
+    private final Ordering ordering;
+
+    private final OverflowPolicy overflowPolicy;
+
+    private final int capacity;
+
+    private final Function<SEDAPExpressMessage, Object> keyFunction;
+
+    private final Executor executor;
+
+    private final ExecutorService ownExecutor;
+
+    private final Semaphore permits;
+
+    private final Lane[] lanes;
+
+    private final EnumMap<MessageType, Lane> typeLanes;
+
+    private volatile boolean open = true;
+
+    private final LongAdder enqueued = new LongAdder();
+
+    private final LongAdder delivered = new LongAdder();
+
+    private final LongAdder dropped = new LongAdder();
+
+    private final LongAdder failed = new LongAdder();
+
+    private final AtomicInteger depth = new AtomicInteger();
+
+    private final LongAccumulator maxDepth = new LongAccumulator(Math::max, 0);
+
+    private final SEDAPExpressLatencyMetrics lag = new SEDAPExpressLatencyMetrics();
+
+    /**
+     * Instantiate a new mailbox with its own threads, one thread for GLOBAL, otherwise one thread per processor
+     *
+     * @param subscriber     Subscriber to deliver the messages to
+     * @param ordering       Ordering of the delivery
+     * @param capacity       Maximum number of messages in the mailbox
+     * @param overflowPolicy Behavior if the mailbox is full
+     */
+    public SEDAPExpressMailboxSubscriber(SEDAPExpressSubscriber subscriber, Ordering ordering, int capacity, OverflowPolicy overflowPolicy) {
+	this(subscriber, ordering, capacity, overflowPolicy, SEDAPExpressMailboxSubscriber.DEFAULT_KEY, null, (ordering == Ordering.GLOBAL) ? 1 : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Instantiate a new mailbox
+     *
+     * @param subscriber     Subscriber to deliver the messages to
+     * @param ordering       Ordering of the delivery
+     * @param capacity       Maximum number of messages in the mailbox
+     * @param overflowPolicy Behavior if the mailbox is full
+     * @param keyFunction    Key of a message for PER_KEY
+     * @param executor       Executor for the delivery or null for own threads
+     * @param lanes          Number of lanes for PER_KEY and number of own threads
+     */
+    public SEDAPExpressMailboxSubscriber(SEDAPExpressSubscriber subscriber, Ordering ordering, int capacity, OverflowPolicy overflowPolicy, Function<SEDAPExpressMessage, Object> keyFunction, Executor executor,
+	    int lanes) {
+
+	if ((capacity <= 0) || (lanes <= 0)) {
+	    throw new IllegalArgumentException("capacity and lanes must be positive");
+	}
+
+	this.subscriber = subscriber;
+	this.ordering = ordering;
+	this.capacity = capacity;
+	this.overflowPolicy = overflowPolicy;
+	this.keyFunction = keyFunction;
+	this.permits = new Semaphore(capacity);
+
+	if (executor != null) {
+	    this.executor = executor;
+	    this.ownExecutor = null;
+	} else {
+	    final AtomicInteger threads = new AtomicInteger();
+	    this.ownExecutor = Executors.newFixedThreadPool((ordering == Ordering.GLOBAL) ? 1 : lanes, runnable -> {
+		final Thread thread = new Thread(runnable, "SEDAPExpressMailbox " + subscriber.getClass().getSimpleName() + " " + threads.incrementAndGet());
+		thread.setDaemon(true);
+		return thread;
+	    });
+	    this.executor = this.ownExecutor;
+	}
+
+	this.lanes = new Lane[(ordering == Ordering.PER_KEY) ? lanes : 1];
+	for (int i = 0; i < this.lanes.length; i++) {
+	    this.lanes[i] = new Lane();
+	}
+
+	if (ordering == Ordering.PER_MESSAGE_TYPE) {
+	    this.typeLanes = new EnumMap<>(MessageType.class);
+	    for (MessageType type : MessageType.values()) {
+		this.typeLanes.put(type, new Lane());
+	    }
+	} else {
+	    this.typeLanes = null;
+	}
+    }
+
+    public SEDAPExpressSubscriber getSubscriber() {
+	return this.subscriber;
+    }
+
+    public Ordering getOrdering() {
+	return this.ordering;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+	return this.overflowPolicy;
+    }
+
+    public int getCapacity() {
+	return this.capacity;
+    }
+
+    /**
+     * Puts the message into the mailbox, called by the communicator
+     */
+    @Override
+    public void processSEDAPExpressMessage(SEDAPExpressMessage message) {
+
+	if (!this.open) {
+	    this.dropped.increment();
+	    return;
+	}
+
+	final Lane lane = lane(message);
+
+	if (!this.permits.tryAcquire()) {
+
+	    switch (this.overflowPolicy) {
+
+	    case BLOCK -> {
+		try {
+		    this.permits.acquire();
+		} catch (InterruptedException e) {
+		    Thread.currentThread().interrupt();
+		    this.dropped.increment();
+		    return;
+		}
+	    }
+
+	    case DROP_OLDEST -> {
+		// The permit of the oldest message is taken over
+		if (!lane.dropOldest()) {
+		    this.dropped.increment();
+		    return;
+		}
+	    }
+
+	    default -> {
+		this.dropped.increment();
+		return;
+	    }
+
+	    }
+	}
+
+	this.enqueued.increment();
+	this.maxDepth.accumulate(this.depth.incrementAndGet());
+	lane.offer(new Entry(message, System.nanoTime()));
+    }
+
+    private Lane lane(SEDAPExpressMessage message) {
+
+	return switch (this.ordering) {
+	case PER_MESSAGE_TYPE -> this.typeLanes.get(message.getMessageType());
+	case PER_KEY -> {
+	    final Object key = this.keyFunction.apply(message);
+	    yield this.lanes[(key != null) ? Math.floorMod(key.hashCode() * 0x9E3779B9, this.lanes.length) : 0];
+	}
+	default -> this.lanes[0];
+	};
+    }
+
+    /**
+     * Returns the number of messages in the mailbox
+     *
+     * @return number of messages
+     */
+    public int getDepth() {
+	return this.depth.get();
+    }
+
+    /**
+     * Returns the maximum number of messages in the mailbox since the last reset
+     *
+     * @return number of messages
+     */
+    public long getMaxDepth() {
+	return this.maxDepth.get();
+    }
+
+    public long getEnqueued() {
+	return this.enqueued.sum();
+    }
+
+    public long getDelivered() {
+	return this.delivered.sum();
+    }
+
+    public long getDropped() {
+	return this.dropped.sum();
+    }
+
+    /**
+     * Returns the number of messages, for which the subscriber has thrown an exception
+     *
+     * @return number of messages
+     */
+    public long getFailed() {
+	return this.failed.sum();
+    }
+
+    /**
+     * Returns the lag between the arrival of a message and the start of its delivery
+     *
+     * @return lag metrics
+     */
+    public SEDAPExpressLatencyMetrics getLagMetrics() {
+	return this.lag;
+    }
+
+    /**
+     * Resets all counters and the lag metrics
+     */
+    public void resetMetrics() {
+
+	this.enqueued.reset();
+	this.delivered.reset();
+	this.dropped.reset();
+	this.failed.reset();
+	this.maxDepth.reset();
+	this.lag.reset();
+    }
+
+    /**
+     * Closes the mailbox, new messages are dropped, the messages in the mailbox are still delivered. The own threads end afterwards.
+     */
+    @Override
+    public void close() {
+
+	this.open = false;
+
+	if (this.ownExecutor != null) {
+	    this.ownExecutor.shutdown();
+	}
+    }
+
+    @Override
+    public String toString() {
+	return String.format("depth=%d maxDepth=%d enqueued=%d delivered=%d dropped=%d failed=%d lag: %s", getDepth(), getMaxDepth(), getEnqueued(), getDelivered(), getDropped(), getFailed(), this.lag);
+    }
+
+    private record Entry(SEDAPExpressMessage message, long enqueueNanos) {
+    }
+
+    /**
+     * Messages which have to be delivered in order, at most one thread delivers the messages of a lane
+     */
+    private class Lane implements Runnable {
+
+	private final ArrayDeque<Entry> queue = new ArrayDeque<>();
+
+	private boolean scheduled = false;
+
+	void offer(Entry entry) {
+
+	    final boolean schedule;
+	    synchronized (this) {
+		this.queue.add(entry);
+		schedule = !this.scheduled;
+		this.scheduled = true;
+	    }
+
+	    if (schedule) {
+		schedule();
+	    }
+	}
+
+	synchronized boolean dropOldest() {
+
+	    if (this.queue.poll() == null) {
+		return false;
+	    }
+
+	    SEDAPExpressMailboxSubscriber.this.dropped.increment();
+	    SEDAPExpressMailboxSubscriber.this.depth.decrementAndGet();
+	    return true;
+	}
+
+	private void schedule() {
+
+	    try {
+		SEDAPExpressMailboxSubscriber.this.executor.execute(this);
+	    } catch (RejectedExecutionException e) {
+		// Executor has been shut down, deliver on the calling thread
+		run();
+	    }
+	}
+
+	@Override
+	public void run() {
+
+	    for (int i = 0; i < SEDAPExpressMailboxSubscriber.BATCH_SIZE; i++) {
+
+		final Entry entry;
+		synchronized (this) {
+		    entry = this.queue.poll();
+		    if (entry == null) {
+			this.scheduled = false;
+			return;
+		    }
+		}
+
+		SEDAPExpressMailboxSubscriber.this.depth.decrementAndGet();
+		SEDAPExpressMailboxSubscriber.this.permits.release();
+		SEDAPExpressMailboxSubscriber.this.lag.record(System.nanoTime() - entry.enqueueNanos());
+
+		try {
+		    SEDAPExpressMailboxSubscriber.this.subscriber.processSEDAPExpressMessage(entry.message());
+		    SEDAPExpressMailboxSubscriber.this.delivered.increment();
+		} catch (RuntimeException e) {
+		    SEDAPExpressMailboxSubscriber.this.failed.increment();
+		    SEDAPExpressMailboxSubscriber.logger.logp(Level.SEVERE, "SEDAPExpressMailboxSubscriber", "run()", "Subscriber failed to process message: " + entry.message(), e);
+		}
+	    }
+
+	    // Give the thread to the other lanes
+	    schedule();
+	}
+    }
+}
@@ -0,0 +1,924 @@
+/**
+ * Note: This license has also been called the “Simplified BSD License” and the “FreeBSD License”.
+ *
+ * Copyright 2024-2025 UNIITY POC: Volker Voß, Federal Armed Forces of Germany
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS “AS IS” AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSEnARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ * OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY
+ * OF SUCH DAMAGE.
+ */
+package de.bundeswehr.uniity.sedapexpress.protobuf;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.security.PublicKey;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.bouncycastle.asn1.ASN1Sequence;
+import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
+import org.bouncycastle.jcajce.provider.asymmetric.dh.BCDHPublicKey;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.WireFormat;
+
+import de.bundeswehr.uniity.sedapexpress.messages.ACKNOWLEDGE;
+import de.bundeswehr.uniity.sedapexpress.messages.COMMAND;
+import de.bundeswehr.uniity.sedapexpress.messages.COMMAND.CommandFlag;
+import de.bundeswehr.uniity.sedapexpress.messages.COMMAND.CommandType;
+import de.bundeswehr.uniity.sedapexpress.messages.CONTACT;
+import de.bundeswehr.uniity.sedapexpress.messages.CONTACT.Source;
+import de.bundeswehr.uniity.sedapexpress.messages.EMISSION;
+import de.bundeswehr.uniity.sedapexpress.messages.EMISSION.FreqAgility;
+import de.bundeswehr.uniity.sedapexpress.messages.EMISSION.Function;
+import de.bundeswehr.uniity.sedapexpress.messages.EMISSION.PRFAgility;
+import de.bundeswehr.uniity.sedapexpress.messages.GENERIC;
+import de.bundeswehr.uniity.sedapexpress.messages.GENERIC.ContentType;
+import de.bundeswehr.uniity.sedapexpress.messages.GRAPHIC;
+import de.bundeswehr.uniity.sedapexpress.messages.GRAPHIC.GraphicType;
+import de.bundeswehr.uniity.sedapexpress.messages.HEARTBEAT;
+import de.bundeswehr.uniity.sedapexpress.messages.KEYEXCHANGE;
+import de.bundeswehr.uniity.sedapexpress.messages.KEYEXCHANGE.AlgorithmType;
+import de.bundeswehr.uniity.sedapexpress.messages.METEO;
+import de.bundeswehr.uniity.sedapexpress.messages.OWNUNIT;
+import de.bundeswehr.uniity.sedapexpress.messages.RESEND;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage.Acknowledgement;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage.Classification;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage.DataEncoding;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage.DeleteFlag;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage.MessageType;
+import de.bundeswehr.uniity.sedapexpress.messages.STATUS;
+import de.bundeswehr.uniity.sedapexpress.messages.STATUS.CommandState;
+import de.bundeswehr.uniity.sedapexpress.messages.STATUS.OperationalState;
+import de.bundeswehr.uniity.sedapexpress.messages.STATUS.TechnicalState;
+import de.bundeswehr.uniity.sedapexpress.messages.TEXT;
+import de.bundeswehr.uniity.sedapexpress.messages.TEXT.TextType;
+import de.bundeswehr.uniity.sedapexpress.messages.TIMESYNC;
+
+/**
+ * Codec between the SEDAP-Express message classes and the typed protobuf schema sedapexpress_messages.proto.
+ * <p>
+ * The messages are written and read field by field with {@link CodedOutputStream} and {@link CodedInputStream}, without the text format and
+ * without intermediate protobuf objects. The encoding is wire compatible to the classes protoc generates from the schema, so peers can use
+ * any protobuf implementation.
+ * <ul>
+ * <li>{@link #encode(SEDAPExpressMessage)}/{@link #decode(byte[])}: a single message as Envelope</li>
+ * <li>{@link #writeBatch(OutputStream, Iterable)}/{@link #readBatch(InputStream, Consumer)}: any number of messages as Batch</li>
+ * <li>{@link #splitBatch(InputStream, Consumer)}: the Envelopes of a Batch, to decode them with {@link #decodeEnvelope(byte[])} later</li>
+ * </ul>
+ * The graphic object of GRAPHIC is not transferred, like in the text format.
+ *
+ * @author Volker Voß
+ *
+ */
+public class SEDAPExpressProtobufCodec {
+
+    /** Field number of the envelopes within a Batch */
+    public static final int BATCH_MESSAGES_FIELD_NUMBER = 1;
+
+    // Header fields of every typed message
+    private static final int NUMBER = 1;
+    private static final int TIME = 2;
+    private static final int SENDER = 3;
+    private static final int CLASSIFICATION = 4;
+    private static final int ACKNOWLEDGEMENT = 5;
+    private static final int MAC = 6;
+
+    // values() creates a copy on every call
+    private static final MessageType[] MESSAGE_TYPES = MessageType.values();
+    private static final Classification[] CLASSIFICATIONS = Classification.values();
+    private static final Acknowledgement[] ACKNOWLEDGEMENTS = Acknowledgement.values();
+    private static final DeleteFlag[] DELETE_FLAGS = DeleteFlag.values();
+    private static final DataEncoding[] DATA_ENCODINGS = DataEncoding.values();
+    private static final CommandFlag[] COMMAND_FLAGS = CommandFlag.values();
+    private static final CommandType[] COMMAND_TYPES = CommandType.values();
+    private static final Source[] SOURCES = Source.values();
+    private static final FreqAgility[] FREQ_AGILITIES = FreqAgility.values();
+    private static final PRFAgility[] PRF_AGILITIES = PRFAgility.values();
+    private static final Function[] FUNCTIONS = Function.values();
+    private static final ContentType[] CONTENT_TYPES = ContentType.values();
+    private static final GraphicType[] GRAPHIC_TYPES = GraphicType.values();
+    private static final AlgorithmType[] ALGORITHM_TYPES = AlgorithmType.values();
+    private static final TechnicalState[] TECHNICAL_STATES = TechnicalState.values();
+    private static final OperationalState[] OPERATIONAL_STATES = OperationalState.values();
+    private static final CommandState[] COMMAND_STATES = CommandState.values();
+    private static final TextType[] TEXT_TYPES = TextType.values();
+
+    private SEDAPExpressProtobufCodec() {
+	// static utility class
+    }
+
+    /**
+     * Returns the field number of the message type within an Envelope
+     *
+     * @param type Message type
+     * @return field number
+     */
+    public static int getFieldNumber(MessageType type) {
+	return type.ordinal() + 1;
+    }
+
+    /**
+     * Encodes the message as Envelope
+     *
+     * @param message Message to encode
+     * @return encoded Envelope
+     */
+    public static byte[] encode(SEDAPExpressMessage message) {
+
+	final int fieldNumber = getFieldNumber(message.getMessageType());
+	final byte[] content = encodeContent(message);
+	final byte[] result = new byte[CodedOutputStream.computeByteArraySize(fieldNumber, content)];
+
+	try {
+	    final CodedOutputStream output = CodedOutputStream.newInstance(result);
+	    output.writeByteArray(fieldNumber, content);
+	    output.checkNoSpaceLeft();
+	} catch (IOException e) {
+	    // Cannot happen, the array has exactly the computed size
+	    throw new IllegalStateException(e);
+	}
+
+	return result;
+    }
+
+    /**
+     * Encodes only the typed message, e.g. Contact for CONTACT, without Envelope
+     *
+     * @param message Message to encode
+     * @return encoded typed message
+     */
+    public static byte[] encodeContent(SEDAPExpressMessage message) {
+
+	final ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+	try {
+	    final CodedOutputStream output = CodedOutputStream.newInstance(bytes, 256);
+	    writeContent(output, message);
+	    output.flush();
+	} catch (IOException e) {
+	    // Cannot happen, a ByteArrayOutputStream does not throw
+	    throw new IllegalStateException(e);
+	}
+
+	return bytes.toByteArray();
+    }
+
+    /**
+     * Writes the message as Envelope field of a Batch to the stream, the stream will not be flushed
+     *
+     * @param output  Stream for the Batch
+     * @param message Message to write
+     * @throws IOException Stream could not be written
+     */
+    public static void writeBatchEntry(CodedOutputStream output, SEDAPExpressMessage message) throws IOException {
+
+	final int fieldNumber = getFieldNumber(message.getMessageType());
+	final byte[] content = encodeContent(message);
+
+	output.writeTag(BATCH_MESSAGES_FIELD_NUMBER, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+	output.writeUInt32NoTag(CodedOutputStream.computeByteArraySize(fieldNumber, content));
+	output.writeByteArray(fieldNumber, content);
+    }
+
+    /**
+     * Writes the messages as Batch to the stream. The stream will be closed afterwards.
+     *
+     * @param outputStream Stream for the Batch
+     * @param messages     Messages to write
+     * @return number of written messages
+     * @throws IOException Stream could not be written
+     */
+    public static int writeBatch(OutputStream outputStream, Iterable<? extends SEDAPExpressMessage> messages) throws IOException {
+
+	int count = 0;
+	try (outputStream) {
+	    final CodedOutputStream output = CodedOutputStream.newInstance(outputStream);
+	    for (final SEDAPExpressMessage message : messages) {
+		writeBatchEntry(output, message);
+		count++;
+	    }
+	    output.flush();
+	}
+
+	return count;
+    }
+
+    /**
+     * Decodes an Envelope
+     *
+     * @param data encoded Envelope
+     * @return decoded message or null, if the Envelope is empty or contains an unknown message type
+     * @throws InvalidProtocolBufferException data is not a valid Envelope
+     */
+    public static SEDAPExpressMessage decode(byte[] data) throws InvalidProtocolBufferException {
+
+	try {
+	    return decode(CodedInputStream.newInstance(data));
+	} catch (InvalidProtocolBufferException e) {
+	    throw e;
+	} catch (IOException e) {
+	    throw new InvalidProtocolBufferException(e);
+	}
+    }
+
+    /**
+     * Decodes an Envelope, for decoders which must not throw checked exceptions
+     *
+     * @param data encoded Envelope
+     * @return decoded message or null, if the Envelope is empty or contains an unknown message type
+     * @throws UncheckedIOException data is not a valid Envelope
+     */
+    public static SEDAPExpressMessage decodeEnvelope(byte[] data) {
+
+	try {
+	    return decode(data);
+	} catch (InvalidProtocolBufferException e) {
+	    throw new UncheckedIOException(e);
+	}
+    }
+
+    /**
+     * Decodes an Envelope, which ends at the end of the stream or at the current limit
+     *
+     * @param input Stream with the Envelope
+     * @return decoded message or null, if the Envelope is empty or contains an unknown message type
+     * @throws IOException Stream could not be read or does not contain a valid Envelope
+     */
+    public static SEDAPExpressMessage decode(CodedInputStream input) throws IOException {
+
+	SEDAPExpressMessage message = null;
+
+	int tag;
+	while ((tag = input.readTag()) != 0) {
+
+	    final int fieldNumber = WireFormat.getTagFieldNumber(tag);
+	    if ((fieldNumber <= MESSAGE_TYPES.length) && (WireFormat.getTagWireType(tag) == WireFormat.WIRETYPE_LENGTH_DELIMITED)) {
+		final int limit = input.pushLimit(input.readRawVarint32());
+		message = readContent(input, MESSAGE_TYPES[fieldNumber - 1]);
+		input.popLimit(limit);
+	    } else if (!input.skipField(tag)) {
+		break;
+	    }
+	}
+
+	return message;
+    }
+
+    /**
+     * Reads a Batch from the stream and hands over every contained message immediately
+     *
+     * @param inputStream Stream with the Batch
+     * @param consumer    Consumer for the messages
+     * @return number of read messages
+     * @throws IOException Stream could not be read or does not contain a valid Batch
+     */
+    public static int readBatch(InputStream inputStream, Consumer<SEDAPExpressMessage> consumer) throws IOException {
+
+	int count = 0;
+	try (inputStream) {
+	    final CodedInputStream input = CodedInputStream.newInstance(inputStream);
+	    int tag;
+	    while ((tag = input.readTag()) != 0) {
+		if ((WireFormat.getTagFieldNumber(tag) == BATCH_MESSAGES_FIELD_NUMBER) && (WireFormat.getTagWireType(tag) == WireFormat.WIRETYPE_LENGTH_DELIMITED)) {
+		    final int limit = input.pushLimit(input.readRawVarint32());
+		    final SEDAPExpressMessage message = decode(input);
+		    input.popLimit(limit);
+		    if (message != null) {
+			consumer.accept(message);
+			count++;
+		    }
+		} else if (!input.skipField(tag)) {
+		    break;
+		}
+	    }
+	}
+
+	return count;
+    }
+
+    /**
+     * Reads a Batch from the stream and hands over every contained Envelope without decoding it, so the Envelopes can be decoded by
+     * {@link #decodeEnvelope(byte[])} on another thread
+     *
+     * @param inputStream Stream with the Batch
+     * @param consumer    Consumer for the encoded Envelopes
+     * @return number of read Envelopes
+     * @throws IOException Stream could not be read or does not contain a valid Batch
+     */
+    public static int splitBatch(InputStream inputStream, Consumer<byte[]> consumer) throws IOException {
+
+	int count = 0;
+	try (inputStream) {
+	    final CodedInputStream input = CodedInputStream.newInstance(inputStream);
+	    int tag;
+	    while ((tag = input.readTag()) != 0) {
+		if ((WireFormat.getTagFieldNumber(tag) == BATCH_MESSAGES_FIELD_NUMBER) && (WireFormat.getTagWireType(tag) == WireFormat.WIRETYPE_LENGTH_DELIMITED)) {
+		    consumer.accept(input.readByteArray());
+		    count++;
+		} else if (!input.skipField(tag)) {
+		    break;
+		}
+	    }
+	}
+
+	return count;
+    }
+
+    /**
+     * Writes the fields of the typed message of the message type
+     *
+     * @param output  Stream
+     * @param message Message to write
+     * @throws IOException Stream could not be written
+     */
+    public static void writeContent(CodedOutputStream output, SEDAPExpressMessage message) throws IOException {
+
+	writeUInt32(output, NUMBER, (message.getNumber() != null) ? Integer.valueOf(message.getNumber() & 0xFF) : null);
+	if (message.getTime() != null) {
+	    output.writeUInt64(TIME, message.getTime());
+	}
+	writeString(output, SENDER, message.getSender());
+	writeEnum(output, CLASSIFICATION, message.getClassification());
+	writeEnum(output, ACKNOWLEDGEMENT, message.getAcknowledgement());
+	writeString(output, MAC, message.getMAC());
+
+	switch (message.getMessageType()) {
+
+	case ACKNOWLEDGE -> {
+	    final ACKNOWLEDGE acknowledge = (ACKNOWLEDGE) message;
+	    writeString(output, 8, acknowledge.getRecipient());
+	    writeEnum(output, 9, acknowledge.getTypeOfTheMessage());
+	    writeUInt32(output, 10, (acknowledge.getNumberOfTheMessage() != null) ? Integer.valueOf(acknowledge.getNumberOfTheMessage() & 0xFF) : null);
+	}
+
+	case COMMAND -> {
+	    final COMMAND command = (COMMAND) message;
+	    writeString(output, 8, command.getRecipient());
+	    writeInt32(output, 9, (command.getCmdId() != null) ? Integer.valueOf(command.getCmdId()) : null);
+	    writeEnum(output, 10, command.getCmdFlag());
+	    writeEnum(output, 11, command.getCmdType());
+	    writeStrings(output, 12, command.getCmdTypeDependentParameters());
+	}
+
+	case CONTACT -> {
+	    final CONTACT contact = (CONTACT) message;
+	    writeString(output, 8, contact.getContactID());
+	    writeEnum(output, 9, contact.getDeleteFlag());
+	    writeDouble(output, 10, contact.getLatitude());
+	    writeDouble(output, 11, contact.getLongitude());
+	    writeDouble(output, 12, contact.getAltitude());
+	    writeDouble(output, 13, contact.getRelativeXDistance());
+	    writeDouble(output, 14, contact.getRelativeYDistance());
+	    writeDouble(output, 15, contact.getRelativeZDistance());
+	    writeDouble(output, 16, contact.getSpeed());
+	    writeDouble(output, 17, contact.getCourse());
+	    writeDouble(output, 18, contact.getHeading());
+	    writeDouble(output, 19, contact.getRoll());
+	    writeDouble(output, 20, contact.getPitch());
+	    writeDouble(output, 21, contact.getWidth());
+	    writeDouble(output, 22, contact.getLength());
+	    writeDouble(output, 23, contact.getHeight());
+	    writeString(output, 24, contact.getName());
+	    if (contact.getSource() != null) {
+		for (final Source source : contact.getSource()) {
+		    writeEnum(output, 25, source);
+		}
+	    }
+	    writeChars(output, 26, contact.getSIDC());
+	    writeString(output, 27, contact.getMMSI());
+	    writeString(output, 28, contact.getICAO());
+	    writeBytes(output, 29, contact.getImageData());
+	    writeString(output, 30, contact.getComment());
+	}
+
+	case EMISSION -> {
+	    final EMISSION emission = (EMISSION) message;
+	    writeString(output, 8, emission.getEmissionID());
+	    writeEnum(output, 9, emission.getDeleteFlag());
+	    writeDouble(output, 10, emission.getSensorLatitude());
+	    writeDouble(output, 11, emission.getSensorLongitude());
+	    writeDouble(output, 12, emission.getSensorAltitude());
+	    writeDouble(output, 13, emission.getEmitterLatitude());
+	    writeDouble(output, 14, emission.getEmitterLongitude());
+	    writeDouble(output, 15, emission.getEmitterAltitude());
+	    writeDouble(output, 16, emission.getBearing());
+	    writeDoubles(output, 17, emission.getFrequency());
+	    writeDouble(output, 18, emission.getBandwidth());
+	    writeDouble(output, 19, emission.getPower());
+	    writeEnum(output, 20, emission.getFreqAgility());
+	    writeEnum(output, 21, emission.getPrfAgility());
+	    writeEnum(output, 22, emission.getFunction());
+	    writeInt32(output, 23, emission.getSpotNumber());
+	    writeChars(output, 24, emission.getSidc());
+	    writeString(output, 25, emission.getComment());
+	}
+
+	case GENERIC -> {
+	    final GENERIC generic = (GENERIC) message;
+	    writeEnum(output, 8, generic.getContentType());
+	    writeEnum(output, 9, generic.getEncoding());
+	    writeString(output, 10, generic.getContent());
+	}
+
+	case GRAPHIC -> {
+	    final GRAPHIC graphic = (GRAPHIC) message;
+	    writeEnum(output, 8, graphic.getGraphicType());
+	    writeDouble(output, 9, graphic.getLineWidth());
+	    writeFixed32(output, 10, graphic.getLineColor());
+	    writeFixed32(output, 11, graphic.getFillColor());
+	    writeFixed32(output, 12, graphic.getTextColor());
+	    writeEnum(output, 13, graphic.getEncoding());
+	    writeString(output, 14, graphic.getAnnotation());
+	}
+
+	case HEARTBEAT -> writeString(output, 8, ((HEARTBEAT) message).getRecipient());
+
+	case KEYEXCHANGE -> {
+	    final KEYEXCHANGE keyExchange = (KEYEXCHANGE) message;
+	    writeString(output, 8, keyExchange.getRecipient());
+	    writeEnum(output, 9, keyExchange.getAlgorithmType());
+	    writeInt32(output, 10, keyExchange.getPhase());
+	    writeInt32(output, 11, keyExchange.getKeyLengthSharedSecret());
+	    writeInt32(output, 12, keyExchange.getKeyLengthDHKEM());
+	    writeBytes(output, 13, (keyExchange.getPrimeNumber() != null) ? keyExchange.getPrimeNumber().toByteArray() : null);
+	    writeBytes(output, 14, (keyExchange.getNaturalNumber() != null) ? keyExchange.getNaturalNumber().toByteArray() : null);
+	    if (keyExchange.getIV() != null) {
+		output.writeFixed64(15, keyExchange.getIV());
+	    }
+	    writeBytes(output, 16, (keyExchange.getPublicKey() != null) ? keyExchange.getPublicKey().getEncoded() : null);
+	}
+
+	case METEO -> {
+	    final METEO meteo = (METEO) message;
+	    writeDouble(output, 8, meteo.getSpeedThroughWater());
+	    writeDouble(output, 9, meteo.getWaterSpeed());
+	    writeDouble(output, 10, meteo.getWaterDirection());
+	    writeDouble(output, 11, meteo.getWaterTemperature());
+	    writeDouble(output, 12, meteo.getWaterDepth());
+	    writeDouble(output, 13, meteo.getAirTemperature());
+	    writeDouble(output, 14, meteo.getDewPoint());
+	    writeDouble(output, 15, meteo.getHumidityRel());
+	    writeDouble(output, 16, meteo.getPressure());
+	    writeDouble(output, 17, meteo.getWindSpeed());
+	    writeDouble(output, 18, meteo.getWindDirection());
+	    writeDouble(output, 19, meteo.getVisibility());
+	    writeDouble(output, 20, meteo.getCloudHeight());
+	    writeDouble(output, 21, meteo.getCloudCover());
+	}
+
+	case OWNUNIT -> {
+	    final OWNUNIT ownUnit = (OWNUNIT) message;
+	    writeDouble(output, 8, ownUnit.getLatitude());
+	    writeDouble(output, 9, ownUnit.getLongitude());
+	    writeDouble(output, 10, ownUnit.getAltitude());
+	    writeDouble(output, 11, ownUnit.getSpeed());
+	    writeDouble(output, 12, ownUnit.getCourse());
+	    writeDouble(output, 13, ownUnit.getHeading());
+	    writeDouble(output, 14, ownUnit.getRoll());
+	    writeDouble(output, 15, ownUnit.getPitch());
+	    writeString(output, 16, ownUnit.getName());
+	    writeChars(output, 17, ownUnit.getSIDC());
+	}
+
+	case RESEND -> {
+	    final RESEND resend = (RESEND) message;
+	    writeString(output, 8, resend.getRecipient());
+	    writeEnum(output, 9, resend.getNameOfTheMissingMessage());
+	    writeUInt32(output, 10, (resend.getNumberOfTheMissingMessage() != null) ? Integer.valueOf(resend.getNumberOfTheMissingMessage() & 0xFF) : null);
+	}
+
+	case STATUS -> {
+	    final STATUS status = (STATUS) message;
+	    writeEnum(output, 8, status.getTecState());
+	    writeEnum(output, 9, status.getOpsState());
+	    writeStrings(output, 10, status.getAmmunitionLevelNames());
+	    writeDoubles(output, 11, status.getAmmunitionLevels());
+	    writeStrings(output, 12, status.getFuelLevelNames());
+	    writeDoubles(output, 13, status.getFuelLevels());
+	    writeStrings(output, 14, status.getBatterieLevelNames());
+	    writeDoubles(output, 15, status.getBatterieLevels());
+	    writeInt32(output, 16, status.getCmdId());
+	    writeEnum(output, 17, status.getCmdState());
+	    writeString(output, 18, status.getHostname());
+	    writeStrings(output, 19, status.getMediaUrls());
+	    writeString(output, 20, status.getFreeText());
+	}
+
+	case TEXT -> {
+	    final TEXT text = (TEXT) message;
+	    writeString(output, 8, text.getRecipient());
+	    writeEnum(output, 9, text.getType());
+	    writeEnum(output, 10, text.getEncoding());
+	    writeString(output, 11, text.getTextContent());
+	    writeString(output, 12, text.getReference());
+	}
+
+	case TIMESYNC -> {
+	    final Long timestamp = ((TIMESYNC) message).getTimestamp();
+	    if (timestamp != null) {
+		output.writeInt64(8, timestamp);
+	    }
+	}
+
+	}
+    }
+
+    /**
+     * Reads the fields of the typed message of the message type, which ends at the end of the stream or at the current limit
+     *
+     * @param input Stream
+     * @param type  Message type
+     * @return decoded message
+     * @throws IOException Stream could not be read or does not contain a valid message
+     */
+    public static SEDAPExpressMessage readContent(CodedInputStream input, MessageType type) throws IOException {
+
+	// Header
+	Byte number = null;
+	Long time = null;
+	String sender = null;
+	Classification classification = null;
+	Acknowledgement acknowledgement = null;
+	String mac = null;
+
+	// Up to 23 type specific fields, collected by field number
+	final Object[] fields = new Object[32];
+
+	int tag;
+	while ((tag = input.readTag()) != 0) {
+
+	    final int fieldNumber = WireFormat.getTagFieldNumber(tag);
+	    switch (fieldNumber) {
+	    case NUMBER -> number = (byte) input.readUInt32();
+	    case TIME -> time = input.readUInt64();
+	    case SENDER -> sender = input.readStringRequireUtf8();
+	    case CLASSIFICATION -> classification = readEnum(input, CLASSIFICATIONS);
+	    case ACKNOWLEDGEMENT -> acknowledgement = readEnum(input, ACKNOWLEDGEMENTS);
+	    case MAC -> mac = input.readStringRequireUtf8();
+	    default -> {
+		if ((fieldNumber < 8) || (fieldNumber >= fields.length)) {
+		    input.skipField(tag);
+		} else {
+		    fields[fieldNumber] = readField(input, type, fieldNumber, tag, fields[fieldNumber]);
+		}
+	    }
+	    }
+	}
+
+	return switch (type) {
+
+	case ACKNOWLEDGE -> new ACKNOWLEDGE(number, time, sender, classification, acknowledgement, mac, (String) fields[8], (MessageType) fields[9], toByte(fields[10]));
+
+	case COMMAND -> new COMMAND(number, time, sender, classification, acknowledgement, mac, (String) fields[8], (fields[9] != null) ? Short.valueOf(((Integer) fields[9]).shortValue()) : null,
+		(CommandFlag) fields[10], (CommandType) fields[11], strings(fields[12]));
+
+	case CONTACT -> {
+	    final StringBuilder source = new StringBuilder();
+	    if (fields[25] != null) {
+		for (final Object value : (List<?>) fields[25]) {
+		    source.append(((Source) value).getSourceValue());
+		}
+	    }
+	    yield new CONTACT(number, time, sender, classification, acknowledgement, mac, (String) fields[8], (DeleteFlag) fields[9], (Double) fields[10], (Double) fields[11], (Double) fields[12], (Double) fields[13],
+		    (Double) fields[14], (Double) fields[15], (Double) fields[16], (Double) fields[17], (Double) fields[18], (Double) fields[19], (Double) fields[20], (Double) fields[21], (Double) fields[22],
+		    (Double) fields[23], (String) fields[24], source.toString(), chars(fields[26]), (String) fields[27], (String) fields[28], (byte[]) fields[29], (String) fields[30]);
+	}
+
+	case EMISSION -> new EMISSION(number, time, sender, classification, acknowledgement, mac, (String) fields[8], (DeleteFlag) fields[9], (Double) fields[10], (Double) fields[11], (Double) fields[12],
+		(Double) fields[13], (Double) fields[14], (Double) fields[15], (Double) fields[16], doubles(fields[17]), (Double) fields[18], (Double) fields[19], (FreqAgility) fields[20], (PRFAgility) fields[21],
+		(Function) fields[22], (Integer) fields[23], chars(fields[24]), (String) fields[25]);
+
+	case GENERIC -> new GENERIC(number, time, sender, classification, acknowledgement, mac, (ContentType) fields[8], (DataEncoding) fields[9], (String) fields[10]);
+
+	case GRAPHIC -> new GRAPHIC(number, time, sender, classification, acknowledgement, mac, (GraphicType) fields[8], (Double) fields[9], (Integer) fields[10], (Integer) fields[11], (Integer) fields[12],
+		(DataEncoding) fields[13], (String) fields[14]);
+
+	case HEARTBEAT -> new HEARTBEAT(number, time, sender, classification, acknowledgement, mac, (String) fields[8]);
+
+	case KEYEXCHANGE -> new KEYEXCHANGE(number, time, sender, classification, acknowledgement, mac, (String) fields[8], (AlgorithmType) fields[9], (Integer) fields[10], (Integer) fields[11], (Integer) fields[12],
+		(fields[13] != null) ? new BigInteger((byte[]) fields[13]) : null, (fields[14] != null) ? new BigInteger((byte[]) fields[14]) : null, (Long) fields[15], publicKey(fields[16]));
+
+	case METEO -> new METEO(number, time, sender, classification, acknowledgement, mac, (Double) fields[8], (Double) fields[9], (Double) fields[10], (Double) fields[11], (Double) fields[12], (Double) fields[13],
+		(Double) fields[14], (Double) fields[15], (Double) fields[16], (Double) fields[17], (Double) fields[18], (Double) fields[19], (Double) fields[20], (Double) fields[21]);
+
+	case OWNUNIT -> new OWNUNIT(number, time, sender, classification, acknowledgement, mac, (Double) fields[8], (Double) fields[9], (Double) fields[10], (Double) fields[11], (Double) fields[12], (Double) fields[13],
+		(Double) fields[14], (Double) fields[15], (String) fields[16], chars(fields[17]));
+
+	case RESEND -> new RESEND(number, time, sender, classification, acknowledgement, mac, (String) fields[8], (MessageType) fields[9], toByte(fields[10]));
+
+	case STATUS -> new STATUS(number, time, sender, classification, acknowledgement, mac, (TechnicalState) fields[8], (OperationalState) fields[9], strings(fields[10]), doubles(fields[11]), strings(fields[12]),
+		doubles(fields[13]), strings(fields[14]), doubles(fields[15]), (Integer) fields[16], (CommandState) fields[17], (String) fields[18], strings(fields[19]), (String) fields[20]);
+
+	case TEXT -> new TEXT(number, time, sender, classification, acknowledgement, mac, (String) fields[8], (TextType) fields[9], (DataEncoding) fields[10], (String) fields[11], (String) fields[12]);
+
+	case TIMESYNC -> new TIMESYNC(number, time, sender, classification, acknowledgement, mac, (Long) fields[8]);
+
+	};
+    }
+
+    /**
+     * Reads a type specific field. Repeated fields are collected in a list, all others overwrite the previous value.
+     */
+    private static Object readField(CodedInputStream input, MessageType type, int fieldNumber, int tag, Object previous) throws IOException {
+
+	final int wireType = WireFormat.getTagWireType(tag);
+
+	return switch (type) {
+
+	case ACKNOWLEDGE, RESEND -> switch (fieldNumber) {
+	case 8 -> input.readStringRequireUtf8();
+	case 9 -> readEnum(input, MESSAGE_TYPES);
+	case 10 -> input.readUInt32();
+	default -> skip(input, tag);
+	};
+
+	case COMMAND -> switch (fieldNumber) {
+	case 8 -> input.readStringRequireUtf8();
+	case 9 -> input.readInt32();
+	case 10 -> readEnum(input, COMMAND_FLAGS);
+	case 11 -> readEnum(input, COMMAND_TYPES);
+	case 12 -> add(previous, input.readStringRequireUtf8());
+	default -> skip(input, tag);
+	};
+
+	case CONTACT -> switch (fieldNumber) {
+	case 8, 24, 27, 28, 30 -> input.readStringRequireUtf8();
+	case 9 -> readEnum(input, DELETE_FLAGS);
+	case 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20, 21, 22, 23 -> input.readDouble();
+	case 25 -> readSources(input, wireType, previous);
+	case 26 -> input.readStringRequireUtf8();
+	case 29 -> input.readByteArray();
+	default -> skip(input, tag);
+	};
+
+	case EMISSION -> switch (fieldNumber) {
+	case 8, 24, 25 -> input.readStringRequireUtf8();
+	case 9 -> readEnum(input, DELETE_FLAGS);
+	case 10, 11, 12, 13, 14, 15, 16, 18, 19 -> input.readDouble();
+	case 17 -> readDoubles(input, wireType, previous);
+	case 20 -> readEnum(input, FREQ_AGILITIES);
+	case 21 -> readEnum(input, PRF_AGILITIES);
+	case 22 -> readEnum(input, FUNCTIONS);
+	case 23 -> input.readInt32();
+	default -> skip(input, tag);
+	};
+
+	case GENERIC -> switch (fieldNumber) {
+	case 8 -> readEnum(input, CONTENT_TYPES);
+	case 9 -> readEnum(input, DATA_ENCODINGS);
+	case 10 -> input.readStringRequireUtf8();
+	default -> skip(input, tag);
+	};
+
+	case GRAPHIC -> switch (fieldNumber) {
+	case 8 -> readEnum(input, GRAPHIC_TYPES);
+	case 9 -> input.readDouble();
+	case 10, 11, 12 -> input.readFixed32();
+	case 13 -> readEnum(input, DATA_ENCODINGS);
+	case 14 -> input.readStringRequireUtf8();
+	default -> skip(input, tag);
+	};
+
+	case HEARTBEAT -> (fieldNumber == 8) ? input.readStringRequireUtf8() : skip(input, tag);
+
+	case KEYEXCHANGE -> switch (fieldNumber) {
+	case 8 -> input.readStringRequireUtf8();
+	case 9 -> readEnum(input, ALGORITHM_TYPES);
+	case 10, 11, 12 -> input.readInt32();
+	case 13, 14, 16 -> input.readByteArray();
+	case 15 -> input.readFixed64();
+	default -> skip(input, tag);
+	};
+
+	case METEO -> (fieldNumber <= 21) ? Double.valueOf(input.readDouble()) : skip(input, tag);
+
+	case OWNUNIT -> switch (fieldNumber) {
+	case 8, 9, 10, 11, 12, 13, 14, 15 -> input.readDouble();
+	case 16, 17 -> input.readStringRequireUtf8();
+	default -> skip(input, tag);
+	};
+
+	case STATUS -> switch (fieldNumber) {
+	case 8 -> readEnum(input, TECHNICAL_STATES);
+	case 9 -> readEnum(input, OPERATIONAL_STATES);
+	case 10, 12, 14, 19 -> add(previous, input.readStringRequireUtf8());
+	case 11, 13, 15 -> readDoubles(input, wireType, previous);
+	case 16 -> input.readInt32();
+	case 17 -> readEnum(input, COMMAND_STATES);
+	case 18, 20 -> input.readStringRequireUtf8();
+	default -> skip(input, tag);
+	};
+
+	case TEXT -> switch (fieldNumber) {
+	case 8, 11, 12 -> input.readStringRequireUtf8();
+	case 9 -> readEnum(input, TEXT_TYPES);
+	case 10 -> readEnum(input, DATA_ENCODINGS);
+	default -> skip(input, tag);
+	};
+
+	case TIMESYNC -> (fieldNumber == 8) ? Long.valueOf(input.readInt64()) : skip(input, tag);
+
+	};
+    }
+
+    private static Object skip(CodedInputStream input, int tag) throws IOException {
+
+	input.skipField(tag);
+	return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> add(Object list, Object value) {
+
+	final List<Object> result = (list != null) ? (List<Object>) list : new ArrayList<>();
+	result.add(value);
+	return result;
+    }
+
+    /**
+     * Reads packed and unpacked repeated doubles
+     */
+    private static Object readDoubles(CodedInputStream input, int wireType, Object previous) throws IOException {
+
+	if (wireType != WireFormat.WIRETYPE_LENGTH_DELIMITED) {
+	    return add(previous, input.readDouble());
+	}
+
+	Object result = (previous != null) ? previous : new ArrayList<>();
+	final int limit = input.pushLimit(input.readRawVarint32());
+	while (input.getBytesUntilLimit() > 0) {
+	    result = add(result, input.readDouble());
+	}
+	input.popLimit(limit);
+
+	return result;
+    }
+
+    /**
+     * Reads packed and unpacked repeated sources
+     */
+    private static Object readSources(CodedInputStream input, int wireType, Object previous) throws IOException {
+
+	if (wireType != WireFormat.WIRETYPE_LENGTH_DELIMITED) {
+	    final Source source = readEnum(input, SOURCES);
+	    return (source != null) ? add(previous, source) : previous;
+	}
+
+	Object result = previous;
+	final int limit = input.pushLimit(input.readRawVarint32());
+	while (input.getBytesUntilLimit() > 0) {
+	    final Source source = readEnum(input, SOURCES);
+	    if (source != null) {
+		result = add(result, source);
+	    }
+	}
+	input.popLimit(limit);
+
+	return result;
+    }
+
+    /**
+     * Reads an enumeration, the value is the position in the Java enumeration plus one
+     *
+     * @return value or null, if the value is unspecified or unknown
+     */
+    private static <T extends Enum<T>> T readEnum(CodedInputStream input, T[] values) throws IOException {
+
+	final int value = input.readEnum();
+	return ((value > 0) && (value <= values.length)) ? values[value - 1] : null;
+    }
+
+    private static Byte toByte(Object value) {
+	return (value != null) ? Byte.valueOf(((Integer) value).byteValue()) : null;
+    }
+
+    private static char[] chars(Object value) {
+	return (value != null) ? ((String) value).toCharArray() : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> strings(Object value) {
+	return (List<String>) value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Double> doubles(Object value) {
+	return (List<Double>) value;
+    }
+
+    private static PublicKey publicKey(Object value) throws InvalidProtocolBufferException {
+
+	if (value == null) {
+	    return null;
+	}
+
+	try {
+	    return new BCDHPublicKey(SubjectPublicKeyInfo.getInstance(ASN1Sequence.getInstance(value)));
+	} catch (RuntimeException e) {
+	    throw new InvalidProtocolBufferException("Field \"public_key\" contains no valid public key: " + e.getMessage());
+	}
+    }
+
+    private static void writeEnum(CodedOutputStream output, int fieldNumber, Enum<?> value) throws IOException {
+
+	if (value != null) {
+	    output.writeEnum(fieldNumber, value.ordinal() + 1);
+	}
+    }
+
+    private static void writeString(CodedOutputStream output, int fieldNumber, String value) throws IOException {
+
+	if (value != null) {
+	    output.writeString(fieldNumber, value);
+	}
+    }
+
+    private static void writeChars(CodedOutputStream output, int fieldNumber, char[] value) throws IOException {
+
+	if (value != null) {
+	    output.writeString(fieldNumber, String.valueOf(value));
+	}
+    }
+
+    private static void writeBytes(CodedOutputStream output, int fieldNumber, byte[] value) throws IOException {
+
+	if (value != null) {
+	    output.writeByteArray(fieldNumber, value);
+	}
+    }
+
+    private static void writeDouble(CodedOutputStream output, int fieldNumber, Double value) throws IOException {
+
+	if (value != null) {
+	    output.writeDouble(fieldNumber, value);
+	}
+    }
+
+    private static void writeInt32(CodedOutputStream output, int fieldNumber, Integer value) throws IOException {
+
+	if (value != null) {
+	    output.writeInt32(fieldNumber, value);
+	}
+    }
+
+    private static void writeUInt32(CodedOutputStream output, int fieldNumber, Integer value) throws IOException {
+
+	if (value != null) {
+	    output.writeUInt32(fieldNumber, value);
+	}
+    }
+
+    private static void writeFixed32(CodedOutputStream output, int fieldNumber, Integer value) throws IOException {
+
+	if (value != null) {
+	    output.writeFixed32(fieldNumber, value);
+	}
+    }
+
+    private static void writeStrings(CodedOutputStream output, int fieldNumber, List<String> values) throws IOException {
+
+	if (values != null) {
+	    for (final String value : values) {
+		output.writeString(fieldNumber, (value != null) ? value : "");
+	    }
+	}
+    }
+
+    /**
+     * Writes repeated doubles packed, missing values as NaN
+     */
+    private static void writeDoubles(CodedOutputStream output, int fieldNumber, List<Double> values) throws IOException {
+
+	if ((values != null) && !values.isEmpty()) {
+	    output.writeTag(fieldNumber, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+	    output.writeUInt32NoTag(values.size() * Double.BYTES);
+	    for (final Double value : values) {
+		output.writeDoubleNoTag((value != null) ? value : Double.NaN);
+	    }
+	}
+    }
+}
@@ -0,0 +1,323 @@
+/**
+ * Note: This license has also been called the “Simplified BSD License” and the “FreeBSD License”.
+ *
+ * Copyright 2024-2025 UNIITY POC: Volker Voß, Federal Armed Forces of Germany
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS “AS IS” AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSEnARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ * OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY
+ * OF SUCH DAMAGE.
+ */
+package de.bundeswehr.uniity.sedapexpress.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * HTTP content coding (gzip and deflate) for the REST communicators.
+ * <p>
+ * The deflaters are kept in a small bounded pool and reused for every body, because creating a new native deflater for every request is
+ * expensive. A deflater is borrowed for one body and reset when it is returned; if the pool is full, it is ended instead. Unlike a cache per
+ * thread, the pool also works with many short-lived (e.g. virtual) threads. Bodies smaller than the threshold should be sent uncompressed,
+ * the header overhead would eat up the gain.
+ *
+ * @author Volker Voß
+ *
+ */
+public class HTTPCompressionUtils {
+
+    public static final String GZIP = "gzip";
+
+    public static final String DEFLATE = "deflate";
+
+    public static final String IDENTITY = "identity";
+
+    /**
+     * Value for the header "Accept-Encoding" of requests
+     */
+    public static final String ACCEPT_ENCODING = HTTPCompressionUtils.GZIP + ", " + HTTPCompressionUtils.DEFLATE;
+
+    /**
+     * Default minimum size of a body in bytes to be compressed
+     */
+    public static final int DEFAULT_THRESHOLD = 1024;
+
+    private static final byte[] GZIP_HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff };
+
+    /**
+     * Maximum number of idle deflaters per content coding
+     */
+    private static final int POOL_SIZE = 16;
+
+    private static final ArrayBlockingQueue<Deflater> gzipDeflaters = new ArrayBlockingQueue<>(HTTPCompressionUtils.POOL_SIZE);
+
+    private static final ArrayBlockingQueue<Deflater> zlibDeflaters = new ArrayBlockingQueue<>(HTTPCompressionUtils.POOL_SIZE);
+
+    private HTTPCompressionUtils() {
+	// static utility class
+    }
+
+    /**
+     * Selects the content coding for a response from the header "Accept-Encoding" of the request. gzip will be preferred over deflate, codings
+     * with a quality value of 0 are ignored.
+     *
+     * @param acceptEncoding Value of the header "Accept-Encoding", may be null
+     * @return GZIP, DEFLATE or null, if the response has to be sent uncompressed
+     */
+    public static String negotiateEncoding(String acceptEncoding) {
+
+	if (acceptEncoding == null) {
+	    return null;
+	}
+
+	boolean deflate = false;
+
+	for (String coding : acceptEncoding.split(",")) {
+
+	    final String[] parts = coding.split(";");
+	    final String name = parts[0].trim().toLowerCase(Locale.ROOT);
+
+	    float quality = 1.0f;
+	    for (int i = 1; i < parts.length; i++) {
+		final String parameter = parts[i].trim();
+		if (parameter.startsWith("q=")) {
+		    try {
+			quality = Float.parseFloat(parameter.substring(2));
+		    } catch (NumberFormatException e) {
+			quality = 0.0f;
+		    }
+		}
+	    }
+
+	    if (quality <= 0.0f) {
+		continue;
+	    }
+
+	    if (HTTPCompressionUtils.GZIP.equals(name) || "x-gzip".equals(name) || "*".equals(name)) {
+		return HTTPCompressionUtils.GZIP;
+	    } else if (HTTPCompressionUtils.DEFLATE.equals(name)) {
+		deflate = true;
+	    }
+	}
+
+	return deflate ? HTTPCompressionUtils.DEFLATE : null;
+    }
+
+    /**
+     * Checks, if the content coding of a received body can be decoded
+     *
+     * @param contentEncoding Value of the header "Content-Encoding", may be null
+     * @return true, if the body can be decoded by {@link #decompress(InputStream, String)}
+     */
+    public static boolean isSupported(String contentEncoding) {
+
+	if (contentEncoding == null) {
+	    return true;
+	}
+
+	final String coding = contentEncoding.trim().toLowerCase(Locale.ROOT);
+
+	return coding.isEmpty() || HTTPCompressionUtils.IDENTITY.equals(coding) || HTTPCompressionUtils.GZIP.equals(coding) || "x-gzip".equals(coding) || HTTPCompressionUtils.DEFLATE.equals(coding);
+    }
+
+    /**
+     * Compresses a body with the given content coding
+     *
+     * @param data     Uncompressed body
+     * @param encoding GZIP or DEFLATE
+     * @return Compressed body
+     */
+    public static byte[] compress(byte[] data, String encoding) {
+
+	final boolean gzip = HTTPCompressionUtils.GZIP.equals(encoding);
+	if (!gzip && !HTTPCompressionUtils.DEFLATE.equals(encoding)) {
+	    throw new IllegalArgumentException("Unsupported content coding: " + encoding);
+	}
+
+	final ByteArrayOutputStream result = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+
+	if (gzip) {
+	    result.write(HTTPCompressionUtils.GZIP_HEADER, 0, HTTPCompressionUtils.GZIP_HEADER.length);
+	}
+
+	final Deflater deflater = HTTPCompressionUtils.borrowDeflater(gzip);
+	try {
+	    deflater.setInput(data);
+	    deflater.finish();
+
+	    final byte[] buffer = new byte[8192];
+	    while (!deflater.finished()) {
+		result.write(buffer, 0, deflater.deflate(buffer));
+	    }
+	} finally {
+	    HTTPCompressionUtils.returnDeflater(deflater, gzip);
+	}
+
+	if (gzip) {
+	    final CRC32 crc = new CRC32();
+	    crc.update(data);
+	    HTTPCompressionUtils.writeIntLE(result, (int) crc.getValue());
+	    HTTPCompressionUtils.writeIntLE(result, data.length);
+	}
+
+	return result.toByteArray();
+    }
+
+    /**
+     * Wraps the stream of a body to send for encoding it with the given content coding while it is written. The stream borrows a deflater from
+     * the pool and returns it when it is closed, so it has to be closed in any case.
+     *
+     * @param outputStream Stream of the body to send
+     * @param encoding     GZIP or DEFLATE
+     * @return Stream, which compresses the written data; closing it also closes the given stream
+     * @throws IOException gzip header could not be written
+     */
+    public static DeflaterOutputStream compress(OutputStream outputStream, String encoding) throws IOException {
+
+	final boolean gzip = HTTPCompressionUtils.GZIP.equals(encoding);
+	if (!gzip && !HTTPCompressionUtils.DEFLATE.equals(encoding)) {
+	    throw new IllegalArgumentException("Unsupported content coding: " + encoding);
+	}
+
+	if (gzip) {
+	    outputStream.write(HTTPCompressionUtils.GZIP_HEADER);
+	}
+
+	final Deflater deflater = HTTPCompressionUtils.borrowDeflater(gzip);
+
+	return new DeflaterOutputStream(outputStream, deflater, 8192) {
+
+	    private final CRC32 crc = gzip ? new CRC32() : null;
+
+	    private long length = 0;
+
+	    private boolean finished = false;
+
+	    private boolean returned = false;
+
+	    @Override
+	    public void write(byte[] data, int offset, int count) throws IOException {
+
+		super.write(data, offset, count);
+		if (gzip) {
+		    this.crc.update(data, offset, count);
+		    this.length += count;
+		}
+	    }
+
+	    @Override
+	    public void finish() throws IOException {
+
+		if (!this.finished) {
+		    this.finished = true;
+		    super.finish();
+
+		    if (gzip) {
+			final ByteArrayOutputStream trailer = new ByteArrayOutputStream(8);
+			HTTPCompressionUtils.writeIntLE(trailer, (int) this.crc.getValue());
+			HTTPCompressionUtils.writeIntLE(trailer, (int) this.length);
+			this.out.write(trailer.toByteArray());
+		    }
+		}
+	    }
+
+	    @Override
+	    public void close() throws IOException {
+
+		try {
+		    super.close();
+		} finally {
+		    if (!this.returned) {
+			this.returned = true;
+			HTTPCompressionUtils.returnDeflater(this.def, gzip);
+		    }
+		}
+	    }
+	};
+    }
+
+    /**
+     * Takes an idle deflater from the pool or creates a new one
+     *
+     * @param gzip true for a raw deflater (gzip), false for a zlib deflater (deflate)
+     * @return deflater
+     */
+    private static Deflater borrowDeflater(boolean gzip) {
+
+	final Deflater deflater = (gzip ? HTTPCompressionUtils.gzipDeflaters : HTTPCompressionUtils.zlibDeflaters).poll();
+	return (deflater != null) ? deflater : new Deflater(Deflater.DEFAULT_COMPRESSION, gzip);
+    }
+
+    /**
+     * Resets a deflater and returns it to the pool, if the pool is full the deflater is ended
+     *
+     * @param deflater Borrowed deflater
+     * @param gzip     true for a raw deflater (gzip), false for a zlib deflater (deflate)
+     */
+    private static void returnDeflater(Deflater deflater, boolean gzip) {
+
+	deflater.reset();
+	if (!(gzip ? HTTPCompressionUtils.gzipDeflaters : HTTPCompressionUtils.zlibDeflaters).offer(deflater)) {
+	    deflater.end();
+	}
+    }
+
+    /**
+     * Wraps the stream of a received body for decoding the given content coding
+     *
+     * @param inputStream     Stream of the received body
+     * @param contentEncoding Value of the header "Content-Encoding", may be null
+     * @return Stream with the decoded body
+     * @throws IOException Content coding is not supported or the gzip header is invalid
+     */
+    public static InputStream decompress(InputStream inputStream, String contentEncoding) throws IOException {
+
+	if (contentEncoding == null) {
+	    return inputStream;
+	}
+
+	final String coding = contentEncoding.trim().toLowerCase(Locale.ROOT);
+
+	if (coding.isEmpty() || HTTPCompressionUtils.IDENTITY.equals(coding)) {
+	    return inputStream;
+	} else if (HTTPCompressionUtils.GZIP.equals(coding) || "x-gzip".equals(coding)) {
+	    return new GZIPInputStream(inputStream, 8192);
+	} else if (HTTPCompressionUtils.DEFLATE.equals(coding)) {
+	    return new InflaterInputStream(inputStream);
+	} else {
+	    throw new IOException("Unsupported content coding: " + contentEncoding);
+	}
+    }
+
+    private static void writeIntLE(ByteArrayOutputStream out, int value) {
+
+	out.write(value & 0xff);
+	out.write((value >> 8) & 0xff);
+	out.write((value >> 16) & 0xff);
+	out.write((value >> 24) & 0xff);
+    }
+}
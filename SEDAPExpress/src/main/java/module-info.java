@@ -23,6 +23,8 @@ module sedapexpress {
     exports de.bundeswehr.uniity.sedapexpress.processing;
     exports de.bundeswehr.uniity.sedapexpress.utils;
     exports de.bundeswehr.uniity.sedapexpress.json;
+    exports de.bundeswehr.uniity.sedapexpress.binary;
+    exports de.bundeswehr.uniity.sedapexpress.protobuf;
 
     opens de.bundeswehr.uniity.sedapexpress;
     opens de.bundeswehr.uniity.sedapexpress.controls;
@@ -31,6 +33,8 @@ module sedapexpress {
     opens de.bundeswehr.uniity.sedapexpress.processing;
     opens de.bundeswehr.uniity.sedapexpress.utils;
     opens de.bundeswehr.uniity.sedapexpress.json;
+    opens de.bundeswehr.uniity.sedapexpress.binary;
+    opens de.bundeswehr.uniity.sedapexpress.protobuf;
 
     requires java.logging;
 
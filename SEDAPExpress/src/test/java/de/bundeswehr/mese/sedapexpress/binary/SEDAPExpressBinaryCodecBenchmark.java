@@ -0,0 +1,118 @@
+/**
+ * Note: This license has also been called the “Simplified BSD License” and the “FreeBSD License”.
+ *
+ * Copyright 2024-2025 UNIITY POC: Volker Voß, Federal Armed Forces of Germany
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS “AS IS” AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSEnARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ * OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY
+ * OF SUCH DAMAGE.
+ */
+package de.bundeswehr.mese.sedapexpress.binary;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import de.bundeswehr.uniity.sedapexpress.binary.SEDAPExpressBinaryDecoder;
+import de.bundeswehr.uniity.sedapexpress.binary.SEDAPExpressBinaryEncoder;
+import de.bundeswehr.uniity.sedapexpress.messages.CONTACT;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage;
+
+/**
+ * Compares the text format with the binary format (size and time per message) on the simulated tracks of
+ * {@link SEDAPExpressBinaryCodecTest}. Not part of the test suite, run it with its main method.
+ */
+class SEDAPExpressBinaryCodecBenchmark {
+
+    private static final int ROUNDS = 10;
+
+    public static void main(String[] args) throws IOException {
+
+	List<SEDAPExpressMessage> messages = SEDAPExpressBinaryCodecTest.createTracks();
+
+	// Warm-up
+	for (int i = 0; i < 3; i++) {
+	    encodeAndDecode(messages);
+	    decodeText(messages);
+	}
+
+	long text = 0;
+	long encode = 0;
+	long decode = 0;
+	for (int i = 0; i < ROUNDS; i++) {
+	    text += decodeText(messages);
+	    long[] binary = encodeAndDecode(messages);
+	    encode += binary[0];
+	    decode += binary[1];
+	}
+
+	final long count = (long) ROUNDS * messages.size();
+	System.out.println("Text encode+decode:   " + (text / count) + " ns/message");
+	System.out.println("Binary encode:        " + (encode / count) + " ns/message");
+	System.out.println("Binary decode:        " + (decode / count) + " ns/message");
+
+	long textBytes = 0;
+	long keyframeBytes = 0;
+	long updateBytes = 0;
+	SEDAPExpressBinaryEncoder encoder = new SEDAPExpressBinaryEncoder();
+	for (SEDAPExpressMessage message : messages) {
+	    textBytes += message.toString().length() + 1;
+	    byte[] record = encoder.encode(message);
+	    if (((CONTACT) message).getNumber() == 0) {
+		keyframeBytes += record.length;
+	    } else {
+		updateBytes += record.length;
+	    }
+	}
+
+	System.out.println("Text CONTACT:         " + (textBytes / messages.size()) + " bytes");
+	System.out.println("Binary CONTACT:       keyframe " + (keyframeBytes / SEDAPExpressBinaryCodecTest.TRACKS) + " bytes, update "
+		+ (updateBytes / (SEDAPExpressBinaryCodecTest.TRACKS * (SEDAPExpressBinaryCodecTest.UPDATES - 1))) + " bytes");
+    }
+
+    private static long decodeText(List<SEDAPExpressMessage> messages) {
+
+	long start = System.nanoTime();
+	for (SEDAPExpressMessage message : messages) {
+	    SEDAPExpressMessage.deserialize(message.toString());
+	}
+	return System.nanoTime() - start;
+    }
+
+    private static long[] encodeAndDecode(List<SEDAPExpressMessage> messages) throws IOException {
+
+	SEDAPExpressBinaryEncoder encoder = new SEDAPExpressBinaryEncoder();
+	List<byte[]> records = new ArrayList<>(messages.size());
+
+	long start = System.nanoTime();
+	for (SEDAPExpressMessage message : messages) {
+	    records.add(encoder.encode(message));
+	}
+	long encode = System.nanoTime() - start;
+
+	SEDAPExpressBinaryDecoder decoder = new SEDAPExpressBinaryDecoder();
+	start = System.nanoTime();
+	for (byte[] record : records) {
+	    decoder.decode(record);
+	}
+	long decode = System.nanoTime() - start;
+
+	return new long[] { encode, decode };
+    }
+}
@@ -0,0 +1,197 @@
+/**
+ * Note: This license has also been called the “Simplified BSD License” and the “FreeBSD License”.
+ *
+ * Copyright 2024-2025 UNIITY POC: Volker Voß, Federal Armed Forces of Germany
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS “AS IS” AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSEnARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ * OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY
+ * OF SUCH DAMAGE.
+ */
+package de.bundeswehr.mese.sedapexpress.binary;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import de.bundeswehr.uniity.sedapexpress.binary.SEDAPExpressBinaryDecoder;
+import de.bundeswehr.uniity.sedapexpress.binary.SEDAPExpressBinaryEncoder;
+import de.bundeswehr.uniity.sedapexpress.messages.CONTACT;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage.Classification;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage.DeleteFlag;
+
+class SEDAPExpressBinaryCodecTest {
+
+    static final int TRACKS = 100;
+
+    static final int UPDATES = 50;
+
+    private static final String CONTACT = "CONTACT;66;1B351C87;59CE;U;TRUE;FFAA327B;1000;;43.21;-111.22;10011.0;1.0;2.0;3.0;200.0;275.0;10.0;20.0;30.0;33.0;22.0;11.0;Track Alpha;RA;SFAPMF---------;221333201;FA550C;;VGVzdFRyYWNr";
+
+    private static final String OWNUNIT = "OWNUNIT;11;1B351C87;22AA;U;TRUE;4389F10D;77.88;-10.12;5577.0;33.44;55.66;1.1;-2.2;3.3;Ownunit;SFGPIB----H----";
+
+    /**
+     * Simulated track update, all values are representable in the fixed-point format
+     */
+    private static CONTACT createContact(int track, int update, DeleteFlag deleteFlag) {
+
+	return new CONTACT((byte) update, 1713198000000L + (update * 1000L), "59CE", Classification.Unclas, null, null, "T" + track, deleteFlag, (530000000 + (track * 10000) + (update * 137)) / 1e7,
+		(80000000 + (track * 10000) - (update * 91)) / 1e7, 120.0, null, null, null, (1200 + (update % 7)) / 100.0, (27500 + ((update * 13) % 50)) / 100.0, null, null, null, null, null, null,
+		"Track " + track, "R", "SHSPCL---------".toCharArray(), null, null, null, null);
+    }
+
+    /**
+     * Simulated updates of all tracks, also used by {@link SEDAPExpressBinaryCodecBenchmark}
+     */
+    static List<SEDAPExpressMessage> createTracks() {
+
+	List<SEDAPExpressMessage> messages = new ArrayList<>();
+	for (int update = 0; update < UPDATES; update++) {
+	    for (int track = 0; track < TRACKS; track++) {
+		messages.add(createContact(track, update, DeleteFlag.FALSE));
+	    }
+	}
+	return messages;
+    }
+
+    @Test
+    void testRoundTrip() throws IOException {
+
+	SEDAPExpressBinaryEncoder encoder = new SEDAPExpressBinaryEncoder();
+	SEDAPExpressBinaryDecoder decoder = new SEDAPExpressBinaryDecoder();
+
+	List<SEDAPExpressMessage> messages = new ArrayList<>();
+	messages.add(SEDAPExpressMessage.deserialize(CONTACT));
+	messages.add(SEDAPExpressMessage.deserialize(CONTACT.replace(";43.21;-111.22;", ";43.2125;-111.2201;").replace("Track Alpha", "Track Bravo")));
+	messages.add(SEDAPExpressMessage.deserialize("CONTACT;60;54742310;4371;S;TRUE;;102;FALSE;53.32;8.11"));
+	messages.add(SEDAPExpressMessage.deserialize(OWNUNIT));
+	messages.add(SEDAPExpressMessage.deserialize(OWNUNIT.replace("77.88;-10.12", "77.89;-10.11")));
+	messages.add(SEDAPExpressMessage.deserialize("HEARTBEAT;42;661D5420;89AD;U;;;FE2A"));
+	messages.add(SEDAPExpressMessage.deserialize("TEXT;26;661D7032;324E;U;;;E4F1;4;BASE64;IlRoaXMgaXMgYSBjaGF0IG1lc3NhZ2UhIg=="));
+	messages.add(SEDAPExpressMessage.deserialize("CONTACT;61;54742310;4371;S;TRUE;;102;TRUE;53.32;8.11"));
+	messages.addAll(createTracks().subList(0, 3 * TRACKS));
+
+	for (SEDAPExpressMessage message : messages) {
+	    SEDAPExpressMessage decoded = decoder.decode(encoder.encode(message));
+	    Assertions.assertEquals(message.getClass(), decoded.getClass());
+	    Assertions.assertEquals(message.toString(), decoded.toString());
+	}
+
+	Assertions.assertEquals(TRACKS + 2, encoder.getTrackCount());
+	Assertions.assertEquals(encoder.getTrackCount(), decoder.getTrackCount());
+    }
+
+    @Test
+    void testDeltaCoding() throws IOException {
+
+	SEDAPExpressBinaryEncoder encoder = new SEDAPExpressBinaryEncoder();
+	SEDAPExpressBinaryDecoder decoder = new SEDAPExpressBinaryDecoder();
+
+	long keyframeBytes = 0;
+	long updateBytes = 0;
+
+	for (SEDAPExpressMessage message : createTracks()) {
+	    byte[] record = encoder.encode(message);
+	    if (((CONTACT) message).getNumber() == 0) {
+		keyframeBytes += record.length;
+	    } else {
+		updateBytes += record.length;
+	    }
+	    Assertions.assertEquals(message.toString(), decoder.decode(record).toString());
+	}
+
+	double keyframeAverage = keyframeBytes / (double) TRACKS;
+	double updateAverage = updateBytes / (double) (TRACKS * (UPDATES - 1));
+
+	Assertions.assertTrue(updateAverage <= 30.0, "Average update size " + updateAverage);
+	Assertions.assertTrue(updateAverage < keyframeAverage);
+
+	// Deleting a track removes its state on both sides
+	CONTACT delete = createContact(0, UPDATES, DeleteFlag.TRUE);
+	Assertions.assertEquals(delete.toString(), decoder.decode(encoder.encode(delete)).toString());
+	Assertions.assertEquals(TRACKS - 1, encoder.getTrackCount());
+	Assertions.assertEquals(TRACKS - 1, decoder.getTrackCount());
+    }
+
+    @Test
+    void testKeyframeInterval() throws IOException {
+
+	SEDAPExpressBinaryEncoder encoder = new SEDAPExpressBinaryEncoder();
+	encoder.setKeyframeInterval(5);
+
+	byte[] keyframe = encoder.encode(createContact(1, 0, DeleteFlag.FALSE));
+	for (int update = 1; update < 5; update++) {
+	    Assertions.assertTrue(encoder.encode(createContact(1, update, DeleteFlag.FALSE)).length < keyframe.length);
+	}
+
+	// The 5th update is complete again and can be decoded by a new decoder
+	byte[] record = encoder.encode(createContact(1, 5, DeleteFlag.FALSE));
+	Assertions.assertEquals(createContact(1, 5, DeleteFlag.FALSE).toString(), new SEDAPExpressBinaryDecoder().decode(record).toString());
+
+	// An update without the state of the track is rejected
+	byte[] update = encoder.encode(createContact(1, 6, DeleteFlag.FALSE));
+	Assertions.assertThrows(IOException.class, () -> new SEDAPExpressBinaryDecoder().decode(update));
+
+	// After a reset the encoder starts with keyframes
+	encoder.reset();
+	Assertions.assertEquals(0, encoder.getTrackCount());
+	Assertions.assertEquals(createContact(1, 7, DeleteFlag.FALSE).toString(), new SEDAPExpressBinaryDecoder().decode(encoder.encode(createContact(1, 7, DeleteFlag.FALSE))).toString());
+    }
+
+    @Test
+    void testInvalidRecords() {
+
+	SEDAPExpressBinaryDecoder decoder = new SEDAPExpressBinaryDecoder();
+
+	byte[] record = new SEDAPExpressBinaryEncoder().encode(createContact(1, 0, DeleteFlag.FALSE));
+
+	byte[] version = record.clone();
+	version[0] = (byte) ((version[0] & 0x1F) | (7 << 5));
+	Assertions.assertThrows(IOException.class, () -> decoder.decode(version));
+
+	byte[] truncated = new byte[record.length / 2];
+	System.arraycopy(record, 0, truncated, 0, truncated.length);
+	Assertions.assertThrows(IOException.class, () -> decoder.decode(truncated));
+
+	Assertions.assertThrows(IOException.class, () -> decoder.decode(new byte[0]));
+    }
+
+    @Test
+    void testStream() throws IOException {
+
+	SEDAPExpressBinaryEncoder encoder = new SEDAPExpressBinaryEncoder();
+	List<SEDAPExpressMessage> messages = createTracks().subList(0, 2 * TRACKS);
+
+	ByteBuffer buffer = ByteBuffer.allocate(65536);
+	for (SEDAPExpressMessage message : messages) {
+	    buffer.put(encoder.encode(message));
+	}
+	buffer.flip();
+
+	SEDAPExpressBinaryDecoder decoder = new SEDAPExpressBinaryDecoder();
+	for (SEDAPExpressMessage message : messages) {
+	    Assertions.assertEquals(message.toString(), decoder.decode(buffer).toString());
+	}
+	Assertions.assertFalse(buffer.hasRemaining());
+    }
+}
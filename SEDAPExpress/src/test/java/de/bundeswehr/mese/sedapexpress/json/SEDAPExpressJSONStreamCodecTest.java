@@ -0,0 +1,97 @@
+/**
+ * Note: This license has also been called the “Simplified BSD License” and the “FreeBSD License”.
+ *
+ * Copyright 2024-2025 UNIITY POC: Volker Voß, Federal Armed Forces of Germany
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS “AS IS” AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSEnARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ * OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY
+ * OF SUCH DAMAGE.
+ */
+package de.bundeswehr.mese.sedapexpress.json;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.google.gson.Gson;
+
+import de.bundeswehr.uniity.sedapexpress.json.Message;
+import de.bundeswehr.uniity.sedapexpress.json.SEDAPExpressJSONMessage;
+import de.bundeswehr.uniity.sedapexpress.json.SEDAPExpressJSONStreamCodec;
+
+class SEDAPExpressJSONStreamCodecTest {
+
+    @Test
+    void testRoundTrip() throws IOException {
+
+	List<String> messages = List.of("HEARTBEAT;42;661D5420;89AD;U", "TEXT;43;661D5421;89AD;U;;;;Hällo \"Welt\";", "");
+
+	ByteArrayOutputStream out = new ByteArrayOutputStream();
+	Assertions.assertEquals(3, SEDAPExpressJSONStreamCodec.write(out, messages));
+
+	List<String> result = new ArrayList<>();
+	Assertions.assertEquals(3, SEDAPExpressJSONStreamCodec.read(new ByteArrayInputStream(out.toByteArray()), result::add));
+	Assertions.assertEquals(messages, result);
+    }
+
+    @Test
+    void testCompatibleWithGson() throws IOException {
+
+	Gson gson = new Gson();
+
+	SEDAPExpressJSONMessage jsonMessage = new SEDAPExpressJSONMessage();
+	jsonMessage.getMessages().add(new Message("HEARTBEAT;42;661D5420;89AD;U"));
+	jsonMessage.getMessages().add(new Message("HEARTBEAT;43;661D5421;89AD;U"));
+
+	List<String> result = new ArrayList<>();
+	SEDAPExpressJSONStreamCodec.read(new ByteArrayInputStream(gson.toJson(jsonMessage).getBytes(StandardCharsets.UTF_8)), result::add);
+	Assertions.assertEquals(List.of("HEARTBEAT;42;661D5420;89AD;U", "HEARTBEAT;43;661D5421;89AD;U"), result);
+
+	ByteArrayOutputStream out = new ByteArrayOutputStream();
+	SEDAPExpressJSONStreamCodec.write(out, result);
+	SEDAPExpressJSONMessage decoded = gson.fromJson(out.toString(StandardCharsets.UTF_8), SEDAPExpressJSONMessage.class);
+	Assertions.assertEquals(2, decoded.getMessages().size());
+	Assertions.assertEquals("HEARTBEAT;43;661D5421;89AD;U", decoded.getMessages().get(1).getMessage());
+    }
+
+    @Test
+    void testUnknownFieldsAreSkipped() throws IOException {
+
+	String json = "{\"version\":1,\"messages\":[{\"id\":7,\"message\":\"HEARTBEAT;42;661D5420;89AD;U\",\"extra\":{\"a\":[1,2]}}],\"more\":null}";
+
+	List<String> result = new ArrayList<>();
+	Assertions.assertEquals(1, SEDAPExpressJSONStreamCodec.read(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), result::add));
+	Assertions.assertEquals("HEARTBEAT;42;661D5420;89AD;U", result.get(0));
+    }
+
+    @Test
+    void testInvalidInput() {
+
+	Assertions.assertThrows(IOException.class, () -> SEDAPExpressJSONStreamCodec.read(new ByteArrayInputStream("[]".getBytes(StandardCharsets.UTF_8)), m -> {
+	}));
+	Assertions.assertThrows(IOException.class, () -> SEDAPExpressJSONStreamCodec.read(new ByteArrayInputStream("{\"messages\":[{\"message\":\"x\"}".getBytes(StandardCharsets.UTF_8)), m -> {
+	}));
+    }
+}
@@ -29,6 +29,7 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage.MessageType;
 
 class SEDAPExpressMessageTest {
 
@@ -40,4 +41,21 @@ class SEDAPExpressMessageTest {
 	Assertions.assertEquals("HEARTBEAT;;661D5420", SEDAPExpressMessage.removeSemicolons("HEARTBEAT;;661D5420;;;;;"));
     }
 
+    @Test
+    final void testMessageType() {
+
+	String[] messages = { "ACKNOWLEDGE;18;661D64C0;129E;R;;;LASSY;COMMAND;2B", "CONTACT;60;54742310;4371;S;TRUE;;102;TRUE;53.32;8.11", "HEARTBEAT;42;661D5420;89AD;U;;;FE2A",
+		"OWNUNIT;11;1B351C87;22AA;U;TRUE;4389F10D;77.88;-10.12;5577.0;33.44;55.66;1.1;-2.2;3.3;Ownunit;SFGPIB----H----", "RESEND;20;661D64C0;129E;R;;;FE2A;TEXT;5D",
+		"TEXT;26;661D7032;324E;U;;;E4F1;4;BASE64;IlRoaXMgaXMgYSBjaGF0IG1lc3NhZ2UhIg==" };
+
+	for (String text : messages) {
+	    SEDAPExpressMessage message = SEDAPExpressMessage.deserialize(text);
+
+	    // The constant type of every class has to match the name of the class and the text format
+	    Assertions.assertEquals(MessageType.valueOfMessageType(message.getClass().getSimpleName()), message.getMessageType());
+	    Assertions.assertEquals(message.getClass().getSimpleName(), message.getWireName());
+	    Assertions.assertTrue(message.toString().startsWith(message.getWireName() + ";"));
+	}
+    }
+
 }
@@ -0,0 +1,591 @@
+/**
+ * Note: This license has also been called the “Simplified BSD License” and the “FreeBSD License”.
+ *
+ * Copyright 2024-2025 UNIITY POC: Volker Voß, Federal Armed Forces of Germany
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS “AS IS” AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSEnARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ * OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY
+ * OF SUCH DAMAGE.
+ */
+package de.bundeswehr.mese.sedapexpress.network;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * Minimal MQTT 5 broker stand-in for the tests: CONNECT, PUBLISH with QoS 0-2, topic aliases of the clients, retained messages,
+ * SUBSCRIBE with wildcards and shared subscriptions (round robin within a group), PINGREQ and DISCONNECT. Properties of a PUBLISH are
+ * forwarded without the topic alias. The acknowledgements of QoS 1 messages can be held back to simulate a slow broker.
+ * <p>
+ * Sessions with a session expiry interval are kept after the connection has been lost: their subscriptions collect the messages (except
+ * shared subscriptions) until the client resumes the session without clean start. An outage of the network can be simulated with
+ * {@link #suspendConnections()} and {@link #resumeConnections(String...)}.
+ */
+class MQTTTestBroker implements AutoCloseable {
+
+    /**
+     * PUBLISH received from a client
+     *
+     * @param topic          Resolved topic
+     * @param qos            Quality of service
+     * @param expiryInterval Message expiry interval in seconds, 0 if not present
+     * @param userProperties User properties
+     * @param payload        Payload
+     */
+    record Publish(String topic, int qos, long expiryInterval, Map<String, String> userProperties, byte[] payload) {
+    }
+
+    private final ServerSocket serverSocket;
+
+    private final List<Session> sessions = new CopyOnWriteArrayList<>();
+
+    private final Map<String, byte[]> retained = new ConcurrentHashMap<>();
+
+    private final Map<String, AtomicInteger> shareCounters = new ConcurrentHashMap<>();
+
+    private final AtomicInteger published = new AtomicInteger();
+
+    private final List<Publish> publishes = new CopyOnWriteArrayList<>();
+
+    private final Map<String, StoredSession> storedSessions = new ConcurrentHashMap<>();
+
+    private volatile Predicate<String> admission = clientId -> true;
+
+    private volatile boolean holdAcknowledgements = false;
+
+    private volatile int receiveMaximum = 0;
+
+    private final List<Runnable> heldAcknowledgements = new ArrayList<>();
+
+    MQTTTestBroker(int port) throws IOException {
+
+	this.serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+
+	final Thread acceptor = new Thread(() -> {
+	    try {
+		while (true) {
+		    final Session session = new Session(this.serverSocket.accept());
+		    this.sessions.add(session);
+		    final Thread thread = new Thread(session, "MQTTTestBroker-Session");
+		    thread.setDaemon(true);
+		    thread.start();
+		}
+	    } catch (IOException e) {
+		// Closed
+	    }
+	}, "MQTTTestBroker");
+	acceptor.setDaemon(true);
+	acceptor.start();
+    }
+
+    /**
+     * @return Number of PUBLISH packets received from the clients
+     */
+    int getPublishedCount() {
+	return this.published.get();
+    }
+
+    /**
+     * @return PUBLISH packets received from the clients in the order of their arrival
+     */
+    List<Publish> getPublishes() {
+	return this.publishes;
+    }
+
+    /**
+     * Closes all connections and holds back the CONNACK of the following ones until {@link #resumeConnections(String...)}, so the clients
+     * are connected as soon as the outage is over
+     *
+     * @throws IOException
+     */
+    void suspendConnections() throws IOException {
+
+	this.admission = clientId -> false;
+	for (Session session : this.sessions) {
+	    session.socket.close();
+	}
+    }
+
+    /**
+     * Completes the held back and the following connections of the given clients
+     *
+     * @param clientIds Client identifiers, all clients if none are given
+     */
+    synchronized void resumeConnections(String... clientIds) {
+
+	this.admission = (clientIds.length == 0) ? clientId -> true : Set.of(clientIds)::contains;
+	notifyAll();
+    }
+
+    /**
+     * Announces the given "Receive Maximum" in the CONNACK of the following connections
+     *
+     * @param receiveMaximum Receive Maximum, 0 for none
+     */
+    void setReceiveMaximum(int receiveMaximum) {
+	this.receiveMaximum = receiveMaximum;
+    }
+
+    /**
+     * Holds back the PUBACKs of the following QoS 1 messages until {@link #releaseAcknowledgements()}
+     */
+    void holdAcknowledgements() {
+	this.holdAcknowledgements = true;
+    }
+
+    /**
+     * Sends the held back PUBACKs and acknowledges the following messages immediately again
+     */
+    void releaseAcknowledgements() {
+
+	synchronized (this.heldAcknowledgements) {
+	    this.holdAcknowledgements = false;
+	    this.heldAcknowledgements.forEach(Runnable::run);
+	    this.heldAcknowledgements.clear();
+	}
+    }
+
+    /**
+     * @return Number of topic filters subscribed by the connected clients
+     */
+    int getSubscriptionCount() {
+	return this.sessions.stream().mapToInt(session -> session.filters.size()).sum();
+    }
+
+    /**
+     * @return Topics with a retained message
+     */
+    Map<String, byte[]> getRetained() {
+	return this.retained;
+    }
+
+    @Override
+    public void close() throws IOException {
+
+	this.serverSocket.close();
+	for (Session session : this.sessions) {
+	    session.socket.close();
+	}
+    }
+
+    static boolean matches(String filter, String topic) {
+
+	final String[] filterLevels = filter.split("/", -1);
+	final String[] topicLevels = topic.split("/", -1);
+
+	for (int i = 0; i < filterLevels.length; i++) {
+	    if (filterLevels[i].equals("#")) {
+		return true;
+	    }
+	    if (i >= topicLevels.length) {
+		return false;
+	    }
+	    if (!filterLevels[i].equals("+") && !filterLevels[i].equals(topicLevels[i])) {
+		return false;
+	    }
+	}
+	return filterLevels.length == topicLevels.length;
+    }
+
+    private synchronized void route(String topic, byte[] payload, byte[] properties) throws IOException {
+
+	final Map<String, List<Session>> groups = new HashMap<>();
+
+	for (Session session : this.sessions) {
+	    boolean delivered = false;
+	    for (String filter : session.filters) {
+		if (filter.startsWith("$share/")) {
+		    final int end = filter.indexOf('/', 7);
+		    if (matches(filter.substring(end + 1), topic)) {
+			final List<Session> members = groups.computeIfAbsent(filter.substring(0, end), group -> new CopyOnWriteArrayList<>());
+			if (!members.contains(session)) {
+			    members.add(session);
+			}
+		    }
+		} else if (!delivered && matches(filter, topic)) {
+		    session.publish(topic, payload, false, properties);
+		    delivered = true;
+		}
+	    }
+	}
+
+	for (Map.Entry<String, List<Session>> group : groups.entrySet()) {
+	    final int next = this.shareCounters.computeIfAbsent(group.getKey(), key -> new AtomicInteger()).getAndIncrement();
+	    group.getValue().get(next % group.getValue().size()).publish(topic, payload, false, properties);
+	}
+
+	for (StoredSession session : this.storedSessions.values()) {
+	    if (session.filters.stream().anyMatch(filter -> !filter.startsWith("$share/") && matches(filter, topic))) {
+		session.messages.add(new StoredMessage(topic, payload, properties));
+	    }
+	}
+    }
+
+    /**
+     * Message collected for a stored session
+     */
+    private record StoredMessage(String topic, byte[] payload, byte[] properties) {
+    }
+
+    /**
+     * Subscriptions and collected messages of a client, whose connection has been lost
+     */
+    private record StoredSession(List<String> filters, List<StoredMessage> messages) {
+    }
+
+    private static int readVariableInt(InputStream in) throws IOException {
+
+	int value = 0;
+	int multiplier = 1;
+	int digit;
+	do {
+	    digit = in.read();
+	    if (digit < 0) {
+		throw new EOFException();
+	    }
+	    value += (digit & 0x7F) * multiplier;
+	    multiplier *= 128;
+	} while ((digit & 0x80) != 0);
+	return value;
+    }
+
+    private static void writeVariableInt(ByteArrayOutputStream out, int value) {
+
+	do {
+	    int digit = value % 128;
+	    value /= 128;
+	    if (value > 0) {
+		digit |= 0x80;
+	    }
+	    out.write(digit);
+	} while (value > 0);
+    }
+
+    private class Session implements Runnable {
+
+	private final Socket socket;
+
+	private final CopyOnWriteArrayList<String> filters = new CopyOnWriteArrayList<>();
+
+	private String clientId = null;
+
+	private long sessionExpiryInterval = 0;
+
+	private final Map<Integer, String> topicAliases = new HashMap<>();
+
+	private int nextPacketId = 1;
+
+	private Session(Socket socket) {
+	    this.socket = socket;
+	}
+
+	private synchronized void send(int header, byte[] body) throws IOException {
+
+	    final ByteArrayOutputStream packet = new ByteArrayOutputStream();
+	    packet.write(header);
+	    writeVariableInt(packet, body.length);
+	    packet.write(body);
+
+	    final OutputStream out = this.socket.getOutputStream();
+	    out.write(packet.toByteArray());
+	    out.flush();
+	}
+
+	private void publish(String topic, byte[] payload, boolean retain, byte[] properties) throws IOException {
+
+	    final byte[] topicBytes = topic.getBytes(StandardCharsets.UTF_8);
+	    final ByteArrayOutputStream body = new ByteArrayOutputStream();
+	    body.write(topicBytes.length >> 8);
+	    body.write(topicBytes.length);
+	    body.write(topicBytes);
+
+	    int packetId;
+	    synchronized (this) {
+		packetId = this.nextPacketId++;
+		if (this.nextPacketId > 0xFFFF) {
+		    this.nextPacketId = 1;
+		}
+	    }
+	    body.write(packetId >> 8);
+	    body.write(packetId);
+	    writeVariableInt(body, properties.length);
+	    body.write(properties);
+	    body.write(payload);
+
+	    // Always QoS 1 towards the clients
+	    send(0x32 | (retain ? 1 : 0), body.toByteArray());
+	}
+
+	@Override
+	public void run() {
+
+	    try {
+		final DataInputStream in = new DataInputStream(new BufferedInputStream(this.socket.getInputStream()));
+
+		while (true) {
+		    final int header = in.read();
+		    if (header < 0) {
+			break;
+		    }
+		    final byte[] body = new byte[readVariableInt(in)];
+		    in.readFully(body);
+
+		    switch (header >> 4) {
+		    case 1 -> handleConnect(body);
+		    case 3 -> handlePublish(header, body);
+		    case 6 -> send(0x70, new byte[] { body[0], body[1], 0, 0 }); // PUBREL -> PUBCOMP
+		    case 8 -> handleSubscribe(body);
+		    case 12 -> send(0xD0, new byte[0]); // PINGREQ -> PINGRESP
+		    case 14 -> {
+			this.socket.close();
+			return;
+		    }
+		    default -> {
+			// PUBACK etc. of the client
+		    }
+		    }
+		}
+	    } catch (IOException e) {
+		// Connection closed
+	    } finally {
+		synchronized (MQTTTestBroker.this) {
+		    MQTTTestBroker.this.sessions.remove(this);
+		    if ((this.clientId != null) && (this.sessionExpiryInterval > 0)) {
+			MQTTTestBroker.this.storedSessions.put(this.clientId, new StoredSession(List.copyOf(this.filters), new ArrayList<>()));
+		    }
+		}
+	    }
+	}
+
+	private void handleConnect(byte[] body) throws IOException {
+
+	    // Protocol name and level
+	    int position = 2 + (((body[0] & 0xFF) << 8) | (body[1] & 0xFF)) + 1;
+	    final boolean cleanStart = (body[position] & 0x02) != 0;
+	    position += 3;
+
+	    final ByteArrayInputStream propertyLength = new ByteArrayInputStream(body, position, body.length - position);
+	    final int length = readVariableInt(propertyLength);
+	    position = body.length - propertyLength.available();
+
+	    long expiryInterval = 0;
+	    int index = position;
+	    while (index < position + length) {
+		final int id = body[index++] & 0xFF;
+		switch (id) {
+		case 0x11 -> {
+		    expiryInterval = ((body[index] & 0xFFL) << 24) | ((body[index + 1] & 0xFF) << 16) | ((body[index + 2] & 0xFF) << 8) | (body[index + 3] & 0xFF);
+		    index += 4;
+		}
+		case 0x27 -> index += 4;
+		case 0x21, 0x22 -> index += 2;
+		case 0x17, 0x19 -> index += 1;
+		case 0x15, 0x16 -> index += 2 + (((body[index] & 0xFF) << 8) | (body[index + 1] & 0xFF));
+		case 0x26 -> {
+		    index += 2 + (((body[index] & 0xFF) << 8) | (body[index + 1] & 0xFF));
+		    index += 2 + (((body[index] & 0xFF) << 8) | (body[index + 1] & 0xFF));
+		}
+		default -> throw new IOException("Unsupported property " + id);
+		}
+	    }
+	    position += length;
+	    final String id = new String(body, position + 2, ((body[position] & 0xFF) << 8) | (body[position + 1] & 0xFF), StandardCharsets.UTF_8);
+
+	    synchronized (MQTTTestBroker.this) {
+		while (!MQTTTestBroker.this.admission.test(id)) {
+		    try {
+			MQTTTestBroker.this.wait(100);
+		    } catch (InterruptedException e) {
+			throw new InterruptedIOException();
+		    }
+		    if (this.socket.isClosed()) {
+			return;
+		    }
+		}
+
+		this.clientId = id;
+		this.sessionExpiryInterval = expiryInterval;
+
+		final StoredSession stored = MQTTTestBroker.this.storedSessions.remove(id);
+		final boolean sessionPresent = !cleanStart && (stored != null);
+
+		// CONNACK with session present flag, topic alias maximum 10 and optionally the receive maximum
+		final int receiveMaximum = MQTTTestBroker.this.receiveMaximum;
+		if (receiveMaximum > 0) {
+		    send(0x20, new byte[] { (byte) (sessionPresent ? 1 : 0), 0, 6, 0x22, 0, 10, 0x21, (byte) (receiveMaximum >> 8), (byte) receiveMaximum });
+		} else {
+		    send(0x20, new byte[] { (byte) (sessionPresent ? 1 : 0), 0, 3, 0x22, 0, 10 });
+		}
+
+		if (sessionPresent) {
+		    this.filters.addAll(stored.filters);
+		    for (StoredMessage message : stored.messages) {
+			publish(message.topic, message.payload, false, message.properties);
+		    }
+		}
+	    }
+	}
+
+	private void handlePublish(int header, byte[] body) throws IOException {
+
+	    final int qos = (header >> 1) & 3;
+	    final boolean retain = (header & 1) != 0;
+
+	    final int topicLength = ((body[0] & 0xFF) << 8) | (body[1] & 0xFF);
+	    String topic = new String(body, 2, topicLength, StandardCharsets.UTF_8);
+	    int position = 2 + topicLength;
+
+	    int packetId = 0;
+	    if (qos > 0) {
+		packetId = ((body[position] & 0xFF) << 8) | (body[position + 1] & 0xFF);
+		position += 2;
+	    }
+
+	    final ByteArrayInputStream propertyLength = new ByteArrayInputStream(body, position, body.length - position);
+	    final int length = readVariableInt(propertyLength);
+	    position = body.length - propertyLength.available();
+
+	    // Resolve and remove the topic alias, all other properties are forwarded
+	    final ByteArrayOutputStream properties = new ByteArrayOutputStream();
+	    final Map<String, String> userProperties = new HashMap<>();
+	    long expiryInterval = 0;
+	    int index = position;
+	    while (index < position + length) {
+		final int start = index;
+		final int id = body[index++] & 0xFF;
+		switch (id) {
+		case 0x01 -> index += 1;
+		case 0x02 -> {
+		    expiryInterval = ((body[index] & 0xFFL) << 24) | ((body[index + 1] & 0xFF) << 16) | ((body[index + 2] & 0xFF) << 8) | (body[index + 3] & 0xFF);
+		    index += 4;
+		}
+		case 0x03, 0x08, 0x09 -> index += 2 + (((body[index] & 0xFF) << 8) | (body[index + 1] & 0xFF));
+		case 0x23 -> {
+		    final int alias = ((body[index] & 0xFF) << 8) | (body[index + 1] & 0xFF);
+		    index += 2;
+		    if (topic.isEmpty()) {
+			topic = this.topicAliases.get(alias);
+		    } else {
+			this.topicAliases.put(alias, topic);
+		    }
+		    continue;
+		}
+		case 0x26 -> {
+		    final int keyLength = ((body[index] & 0xFF) << 8) | (body[index + 1] & 0xFF);
+		    final String key = new String(body, index + 2, keyLength, StandardCharsets.UTF_8);
+		    index += 2 + keyLength;
+		    final int valueLength = ((body[index] & 0xFF) << 8) | (body[index + 1] & 0xFF);
+		    userProperties.put(key, new String(body, index + 2, valueLength, StandardCharsets.UTF_8));
+		    index += 2 + valueLength;
+		}
+		default -> throw new IOException("Unsupported property " + id);
+		}
+		properties.write(body, start, index - start);
+	    }
+
+	    final byte[] payload = Arrays.copyOfRange(body, position + length, body.length);
+	    MQTTTestBroker.this.published.incrementAndGet();
+	    MQTTTestBroker.this.publishes.add(new Publish(topic, qos, expiryInterval, userProperties, payload));
+
+	    if (retain) {
+		if (payload.length == 0) {
+		    MQTTTestBroker.this.retained.remove(topic);
+		} else {
+		    MQTTTestBroker.this.retained.put(topic, payload);
+		}
+	    }
+
+	    route(topic, payload, properties.toByteArray());
+
+	    if (qos == 1) {
+		final byte[] puback = new byte[] { (byte) (packetId >> 8), (byte) packetId };
+		synchronized (MQTTTestBroker.this.heldAcknowledgements) {
+		    if (MQTTTestBroker.this.holdAcknowledgements) {
+			MQTTTestBroker.this.heldAcknowledgements.add(() -> {
+			    try {
+				send(0x40, puback);
+			    } catch (IOException e) {
+				// Connection closed
+			    }
+			});
+			return;
+		    }
+		}
+		send(0x40, puback); // PUBACK
+	    } else if (qos == 2) {
+		send(0x50, new byte[] { (byte) (packetId >> 8), (byte) packetId }); // PUBREC
+	    }
+	}
+
+	private void handleSubscribe(byte[] body) throws IOException {
+
+	    final ByteArrayInputStream propertyLength = new ByteArrayInputStream(body, 2, body.length - 2);
+	    final int length = readVariableInt(propertyLength);
+	    int position = body.length - propertyLength.available() + length;
+
+	    final ByteArrayOutputStream suback = new ByteArrayOutputStream();
+	    suback.write(body[0]);
+	    suback.write(body[1]);
+	    suback.write(0); // No properties
+
+	    final List<String> newFilters = new CopyOnWriteArrayList<>();
+	    while (position < body.length) {
+		final int filterLength = ((body[position] & 0xFF) << 8) | (body[position + 1] & 0xFF);
+		newFilters.add(new String(body, position + 2, filterLength, StandardCharsets.UTF_8));
+		suback.write(body[position + 2 + filterLength] & 3);
+		position += 3 + filterLength;
+	    }
+
+	    this.filters.addAllAbsent(newFilters);
+	    send(0x90, suback.toByteArray());
+
+	    // Retained messages are not sent for shared subscriptions
+	    for (String filter : newFilters) {
+		if (!filter.startsWith("$share/")) {
+		    for (Map.Entry<String, byte[]> message : MQTTTestBroker.this.retained.entrySet()) {
+			if (matches(filter, message.getKey())) {
+			    publish(message.getKey(), message.getValue(), true, new byte[0]);
+			}
+		    }
+		}
+	    }
+	}
+    }
+}
@@ -0,0 +1,185 @@
+/**
+ * Note: This license has also been called the “Simplified BSD License” and the “FreeBSD License”.
+ *
+ * Copyright 2024-2025 UNIITY POC: Volker Voß, Federal Armed Forces of Germany
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS “AS IS” AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSEnARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ * OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY
+ * OF SUCH DAMAGE.
+ */
+package de.bundeswehr.mese.sedapexpress.network;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import de.bundeswehr.uniity.sedapexpress.messages.GENERIC;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage.MessageType;
+import de.bundeswehr.uniity.sedapexpress.network.SEDAPExpressCapabilities;
+import de.bundeswehr.uniity.sedapexpress.network.SEDAPExpressCapabilities.Compression;
+import de.bundeswehr.uniity.sedapexpress.network.SEDAPExpressCapabilities.Encoding;
+import de.bundeswehr.uniity.sedapexpress.network.SEDAPExpressTCPClient;
+import de.bundeswehr.uniity.sedapexpress.network.SEDAPExpressTCPServer;
+import de.bundeswehr.uniity.sedapexpress.network.SEDAPExpressWebSocketClient;
+import de.bundeswehr.uniity.sedapexpress.network.SEDAPExpressWebSocketServer;
+
+class SEDAPExpressCapabilitiesTest {
+
+    private static final String CONTACT = "CONTACT;66;1B351C87;59CE;U;TRUE;FFAA327B;1000;;43.21;-111.22;10011.0;1.0;2.0;3.0;200.0;275.0;10.0;20.0;30.0;33.0;22.0;11.0;Track Alpha;RA;SFAPMF---------;221333201;FA550C;;VGVzdFRyYWNr";
+
+    private static final SEDAPExpressCapabilities ALL = new SEDAPExpressCapabilities(EnumSet.allOf(Encoding.class), EnumSet.allOf(Compression.class), 1024 * 1024, true);
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+
+	for (int i = 0; (i < 500) && !condition.getAsBoolean(); i++) {
+	    Thread.sleep(10);
+	}
+    }
+
+    @Test
+    void testNegotiation() {
+
+	SEDAPExpressCapabilities text = new SEDAPExpressCapabilities(EnumSet.of(Encoding.COMPRESSED), EnumSet.of(Compression.DEFLATE), 65536, false);
+
+	SEDAPExpressCapabilities negotiated = ALL.negotiate(text);
+	Assertions.assertEquals(negotiated, text.negotiate(ALL));
+	Assertions.assertEquals(Encoding.COMPRESSED, negotiated.getEncoding());
+	Assertions.assertEquals(Compression.DEFLATE, negotiated.getCompression());
+	Assertions.assertEquals(65536, negotiated.getMaxFrameSize());
+	Assertions.assertFalse(negotiated.isBatching());
+
+	// Without a common compression the compressed text format is not possible
+	SEDAPExpressCapabilities uncompressed = new SEDAPExpressCapabilities(EnumSet.of(Encoding.COMPRESSED), EnumSet.noneOf(Compression.class), 0, true);
+	Assertions.assertEquals(Encoding.TEXT, ALL.negotiate(uncompressed).getEncoding());
+	Assertions.assertEquals(1024 * 1024, ALL.negotiate(uncompressed).getMaxFrameSize());
+
+	Assertions.assertEquals(Encoding.PROTOBUF, ALL.negotiate(ALL).getEncoding());
+	Assertions.assertEquals(Encoding.TEXT, ALL.negotiate(SEDAPExpressCapabilities.LEGACY).getEncoding());
+    }
+
+    @Test
+    void testMessage() {
+
+	GENERIC message = ALL.toMessage("59CE");
+
+	// The capabilities survive the text format and unknown values of newer versions are ignored
+	SEDAPExpressMessage received = SEDAPExpressMessage.deserialize(message.toString().replace("BATCHING=TRUE", "BATCHING=TRUE ENCODINGS2=X"));
+	Assertions.assertEquals(ALL, SEDAPExpressCapabilities.fromMessage(received));
+
+	Assertions.assertNull(SEDAPExpressCapabilities.fromMessage(SEDAPExpressMessage.deserialize("HEARTBEAT;42;661D5420;89AD;U")));
+	Assertions.assertNull(SEDAPExpressCapabilities.fromMessage(SEDAPExpressMessage.deserialize("GENERIC;42;661D5420;89AD;U;;;ASCII;NONE;Hello")));
+    }
+
+    @Test
+    void testTCP() throws Exception {
+
+	SEDAPExpressTCPServer server = new SEDAPExpressTCPServer("127.0.0.1", 50237);
+	server.setCapabilities(ALL);
+	List<SEDAPExpressMessage> serverReceived = new CopyOnWriteArrayList<>();
+	server.subscribeMessages(serverReceived::add, MessageType.CONTACT, MessageType.GENERIC);
+	Assertions.assertTrue(server.connect());
+
+	SEDAPExpressTCPClient client = new SEDAPExpressTCPClient("127.0.0.1", 50237);
+	client.setCapabilities(ALL);
+	List<SEDAPExpressMessage> clientReceived = new CopyOnWriteArrayList<>();
+	client.subscribeMessages(clientReceived::add, MessageType.CONTACT, MessageType.GENERIC);
+
+	SEDAPExpressTCPClient legacy = new SEDAPExpressTCPClient("127.0.0.1", 50237);
+	List<SEDAPExpressMessage> legacyReceived = new CopyOnWriteArrayList<>();
+	legacy.subscribeMessages(legacyReceived::add, MessageType.CONTACT, MessageType.GENERIC);
+
+	try {
+	    Assertions.assertTrue(client.connect());
+	    waitFor(() -> client.getNegotiatedCapabilities() != null);
+
+	    // TCP supports only the text formats
+	    Assertions.assertEquals(Encoding.COMPRESSED, client.getNegotiatedCapabilities().getEncoding());
+	    Assertions.assertEquals(Compression.DEFLATE, client.getNegotiatedCapabilities().getCompression());
+
+	    client.sendSEDAPExpressMessage(SEDAPExpressMessage.deserialize(CONTACT));
+	    waitFor(() -> !serverReceived.isEmpty());
+	    Assertions.assertEquals(1, serverReceived.size());
+	    Assertions.assertEquals(SEDAPExpressMessage.deserialize(CONTACT).toString(), serverReceived.get(0).toString());
+
+	    // A legacy client only gets the text format and the capabilities as ordinary GENERIC message
+	    Assertions.assertTrue(legacy.connect());
+	    waitFor(() -> !legacyReceived.isEmpty());
+	    Assertions.assertNotNull(SEDAPExpressCapabilities.fromMessage(legacyReceived.get(0)));
+
+	    server.sendSEDAPExpressMessage(SEDAPExpressMessage.deserialize(CONTACT));
+	    waitFor(() -> (legacyReceived.size() == 2) && (clientReceived.size() == 1));
+	    Assertions.assertEquals(SEDAPExpressMessage.deserialize(CONTACT).toString(), legacyReceived.get(1).toString());
+	    Assertions.assertEquals(SEDAPExpressMessage.deserialize(CONTACT).toString(), clientReceived.get(0).toString());
+
+	} finally {
+	    legacy.stopCommunicator();
+	    client.stopCommunicator();
+	    server.stopCommunicator();
+	}
+    }
+
+    @Test
+    void testWebSocket() throws Exception {
+
+	SEDAPExpressWebSocketServer server = new SEDAPExpressWebSocketServer("127.0.0.1", 50238);
+	server.setCapabilities(ALL);
+	List<SEDAPExpressMessage> serverReceived = new CopyOnWriteArrayList<>();
+	server.subscribeMessages(serverReceived::add, MessageType.CONTACT, MessageType.HEARTBEAT);
+	Assertions.assertTrue(server.connect());
+
+	SEDAPExpressWebSocketClient client = new SEDAPExpressWebSocketClient("ws://127.0.0.1:50238/SEDAPEXPRESS");
+	client.setCapabilities(new SEDAPExpressCapabilities(EnumSet.allOf(Encoding.class), EnumSet.allOf(Compression.class), 1000, true));
+	List<SEDAPExpressMessage> clientReceived = new CopyOnWriteArrayList<>();
+	client.subscribeMessages(clientReceived::add, MessageType.CONTACT, MessageType.HEARTBEAT);
+
+	try {
+	    Assertions.assertTrue(client.connect());
+	    waitFor(() -> client.getNegotiatedCapabilities() != null);
+
+	    Assertions.assertEquals(Encoding.PROTOBUF, client.getNegotiatedCapabilities().getEncoding());
+	    Assertions.assertEquals(1000, client.getNegotiatedCapabilities().getMaxFrameSize());
+
+	    List<SEDAPExpressMessage> batch = new ArrayList<>();
+	    for (int i = 0; i < 100; i++) {
+		batch.add(SEDAPExpressMessage.deserialize(CONTACT));
+	    }
+	    client.sendSEDAPExpressMessages(batch);
+	    waitFor(() -> serverReceived.size() == 100);
+	    Assertions.assertEquals(100, serverReceived.size());
+	    Assertions.assertEquals(batch.get(0).toString(), serverReceived.get(99).toString());
+
+	    // The server waits for the capabilities of the client before it sends protobuf frames
+	    server.sendSEDAPExpressMessages(batch);
+	    server.sendSEDAPExpressMessage(SEDAPExpressMessage.deserialize("HEARTBEAT;42;661D5420;89AD;U"));
+	    waitFor(() -> clientReceived.size() == 101);
+	    Assertions.assertEquals(101, clientReceived.size());
+	    Assertions.assertEquals(SEDAPExpressMessage.deserialize("HEARTBEAT;42;661D5420;89AD;U").toString(), clientReceived.get(100).toString());
+
+	} finally {
+	    client.stopCommunicator();
+	    server.stopCommunicator();
+	}
+    }
+}
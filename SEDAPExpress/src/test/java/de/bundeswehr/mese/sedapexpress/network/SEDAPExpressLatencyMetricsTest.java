@@ -0,0 +1,63 @@
+/**
+ * Note: This license has also been called the “Simplified BSD License” and the “FreeBSD License”.
+ *
+ * Copyright 2024-2025 UNIITY POC: Volker Voß, Federal Armed Forces of Germany
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS “AS IS” AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSEnARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ * OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY
+ * OF SUCH DAMAGE.
+ */
+package de.bundeswehr.mese.sedapexpress.network;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import de.bundeswehr.uniity.sedapexpress.network.SEDAPExpressLatencyMetrics;
+
+class SEDAPExpressLatencyMetricsTest {
+
+    @Test
+    void testPercentiles() {
+
+	SEDAPExpressLatencyMetrics metrics = new SEDAPExpressLatencyMetrics();
+	Assertions.assertEquals(0.0, metrics.getPercentileMillis(99));
+
+	for (int i = 0; i < 99; i++) {
+	    metrics.record(TimeUnit.MILLISECONDS.toNanos(1));
+	}
+	metrics.record(TimeUnit.MILLISECONDS.toNanos(500));
+	metrics.recordRejected();
+
+	Assertions.assertEquals(100, metrics.getCount());
+	Assertions.assertEquals(1, metrics.getRejected());
+	Assertions.assertEquals(500.0, metrics.getMaxMillis(), 0.001);
+	Assertions.assertEquals(5.99, metrics.getMeanMillis(), 0.001);
+
+	// Resolution of the histogram is a factor of two
+	Assertions.assertTrue((metrics.getPercentileMillis(50) >= 1.0) && (metrics.getPercentileMillis(50) <= 2.1));
+	Assertions.assertTrue((metrics.getPercentileMillis(99) >= 1.0) && (metrics.getPercentileMillis(99) <= 2.1));
+	Assertions.assertEquals(500.0, metrics.getPercentileMillis(100), 0.001);
+
+	metrics.reset();
+	Assertions.assertEquals(0, metrics.getCount());
+	Assertions.assertEquals(0.0, metrics.getMaxMillis());
+    }
+}
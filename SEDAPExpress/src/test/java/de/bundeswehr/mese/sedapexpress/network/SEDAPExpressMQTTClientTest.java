@@ -0,0 +1,435 @@
+/**
+ * Note: This license has also been called the “Simplified BSD License” and the “FreeBSD License”.
+ *
+ * Copyright 2024-2025 UNIITY POC: Volker Voß, Federal Armed Forces of Germany
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS “AS IS” AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSEnARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ * OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY
+ * OF SUCH DAMAGE.
+ */
+package de.bundeswehr.mese.sedapexpress.network;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage.MessageType;
+import de.bundeswehr.uniity.sedapexpress.network.SEDAPExpressMQTTClient;
+import de.bundeswehr.uniity.sedapexpress.network.SEDAPExpressOutboundJournal;
+
+class SEDAPExpressMQTTClientTest {
+
+    private static final String CONTACT = "CONTACT;5E;661D4410;66A3;R;;;%d;%s;53.32;8.11;0;;;;120;275;;;;;;;FGS Bayern;AR;SFSPFCLFF------;;;;";
+
+    private static SEDAPExpressMQTTClient createClient(int port, String user) {
+	return new SEDAPExpressMQTTClient("tcp://127.0.0.1:" + port, "tracks", user, "secret", (InputStream) null, null, null);
+    }
+
+    private static void waitFor(List<?> list, int size) throws InterruptedException {
+
+	for (int i = 0; (i < 500) && (list.size() < size); i++) {
+	    Thread.sleep(10);
+	}
+    }
+
+    private static void waitForSubscriptions(MQTTTestBroker broker, int count) throws InterruptedException {
+
+	for (int i = 0; (i < 500) && (broker.getSubscriptionCount() < count); i++) {
+	    Thread.sleep(10);
+	}
+	Assertions.assertEquals(count, broker.getSubscriptionCount());
+    }
+
+    @Test
+    void testSubscriptionTopics() {
+
+	Assertions.assertEquals(List.of("SEDAP-X/tracks/+/+"), SEDAPExpressMQTTClient.createSubscriptionTopics("SEDAP-X/tracks", null, null));
+	Assertions.assertEquals(List.of("$share/processing/SEDAP-X/tracks/+/+"), SEDAPExpressMQTTClient.createSubscriptionTopics("SEDAP-X/tracks", "processing", List.of()));
+	Assertions.assertEquals(List.of("$share/processing/SEDAP-X/tracks/CONTACT/#", "$share/processing/SEDAP-X/tracks/EMISSION/#"),
+		SEDAPExpressMQTTClient.createSubscriptionTopics("SEDAP-X/tracks", "processing", List.of(MessageType.EMISSION, MessageType.CONTACT)));
+
+	SEDAPExpressMQTTClient client = createClient(1883, "user");
+	Assertions.assertThrows(IllegalArgumentException.class, () -> client.setSharedSubscription("a/b"));
+	client.setSubscribedTypes(List.of(MessageType.COMMAND));
+	Assertions.assertEquals(List.of("SEDAP-X/tracks/COMMAND/#"), client.getSubscriptionTopics());
+    }
+
+    @Test
+    void testSharedSubscription() throws Exception {
+
+	try (MQTTTestBroker broker = new MQTTTestBroker(50233)) {
+
+	    SEDAPExpressMQTTClient producer = createClient(50233, "producer");
+	    producer.setSubscribedTypes(List.of(MessageType.TEXT));
+
+	    List<SEDAPExpressMessage> received1 = new CopyOnWriteArrayList<>();
+	    SEDAPExpressMQTTClient consumer1 = createClient(50233, "consumer1");
+	    consumer1.setSharedSubscription("processing");
+	    consumer1.setSubscribedTypes(List.of(MessageType.CONTACT));
+	    consumer1.subscribeMessages(received1::add, MessageType.CONTACT);
+
+	    List<SEDAPExpressMessage> received2 = new CopyOnWriteArrayList<>();
+	    SEDAPExpressMQTTClient consumer2 = createClient(50233, "consumer2");
+	    consumer2.setSharedSubscription("processing");
+	    consumer2.setSubscribedTypes(List.of(MessageType.CONTACT));
+	    consumer2.subscribeMessages(received2::add, MessageType.CONTACT);
+
+	    try {
+		Assertions.assertTrue(consumer1.connect());
+		Assertions.assertTrue(consumer2.connect());
+		Assertions.assertTrue(producer.connect());
+		waitForSubscriptions(broker, 3);
+
+		for (int i = 0; i < 100; i++) {
+		    producer.sendSEDAPExpressMessage(SEDAPExpressMessage.deserialize(String.format(CONTACT, 100 + i, "FALSE")));
+		}
+
+		for (int i = 0; (i < 500) && (received1.size() + received2.size() < 100); i++) {
+		    Thread.sleep(10);
+		}
+
+		// Every message is delivered to exactly one consumer of the group
+		Assertions.assertEquals(100, received1.size() + received2.size());
+		Assertions.assertEquals(50, received1.size());
+		Assertions.assertEquals(50, received2.size());
+
+	    } finally {
+		producer.stopCommunicator();
+		consumer1.stopCommunicator();
+		consumer2.stopCommunicator();
+	    }
+	}
+    }
+
+    @Test
+    void testRetainedTopics() throws Exception {
+
+	try (MQTTTestBroker broker = new MQTTTestBroker(50234)) {
+
+	    SEDAPExpressMQTTClient producer = createClient(50234, "producer");
+	    producer.setSubscribedTypes(List.of(MessageType.TEXT));
+	    producer.enableRetainedTopics();
+
+	    List<SEDAPExpressMessage> received = new CopyOnWriteArrayList<>();
+	    SEDAPExpressMQTTClient lateJoiner = createClient(50234, "console");
+	    lateJoiner.setSubscribedTypes(List.of(MessageType.CONTACT));
+	    lateJoiner.subscribeMessages(received::add, MessageType.CONTACT);
+
+	    try {
+		Assertions.assertTrue(producer.connect());
+
+		for (int i = 0; i < 3; i++) {
+		    producer.sendSEDAPExpressMessage(SEDAPExpressMessage.deserialize(String.format(CONTACT, 100 + i, "FALSE")));
+		}
+		producer.sendSEDAPExpressMessage(SEDAPExpressMessage.deserialize(String.format(CONTACT, 101, "TRUE")));
+
+		for (int i = 0; (i < 500) && (producer.getDeliveryMetrics().getCount() < 5); i++) {
+		    Thread.sleep(10);
+		}
+		Assertions.assertEquals(5, producer.getDeliveryMetrics().getCount());
+		Assertions.assertEquals(2, broker.getRetained().size());
+
+		// The late joiner gets the current picture from the broker
+		Assertions.assertTrue(lateJoiner.connect());
+		waitFor(received, 2);
+		Thread.sleep(100);
+		Assertions.assertEquals(2, received.size());
+
+	    } finally {
+		producer.stopCommunicator();
+		lateJoiner.stopCommunicator();
+	    }
+	}
+    }
+
+    @Test
+    void testBrokerReceiveMaximum() throws Exception {
+
+	try (MQTTTestBroker broker = new MQTTTestBroker(50256)) {
+
+	    broker.setReceiveMaximum(3);
+
+	    SEDAPExpressMQTTClient producer = createClient(50256, "producer");
+	    producer.setSubscribedTypes(List.of(MessageType.TEXT));
+	    producer.setMaxInflight(10);
+
+	    try {
+		Assertions.assertTrue(producer.connect());
+		waitForSubscriptions(broker, 1);
+
+		// The window is limited to the receive maximum of the broker, the publisher waits for a free slot instead of retrying
+		broker.holdAcknowledgements();
+		for (int i = 0; i < 20; i++) {
+		    producer.sendSEDAPExpressMessage(SEDAPExpressMessage.deserialize(String.format(CONTACT, 100 + i, "FALSE")));
+		}
+		for (int i = 0; (i < 500) && (broker.getPublishedCount() < 3); i++) {
+		    Thread.sleep(10);
+		}
+		Thread.sleep(200);
+		Assertions.assertEquals(3, broker.getPublishedCount());
+		Assertions.assertEquals(3, producer.getInflightCount());
+		Assertions.assertEquals(16, producer.getQueuedCount());
+
+		broker.releaseAcknowledgements();
+		for (int i = 0; (i < 500) && (producer.getDeliveryMetrics().getCount() < 20); i++) {
+		    Thread.sleep(10);
+		}
+		Assertions.assertEquals(20, producer.getDeliveryMetrics().getCount());
+		Assertions.assertEquals(0, producer.getInflightCount());
+		Assertions.assertEquals(0, producer.getFailedDeliveries());
+
+	    } finally {
+		producer.stopCommunicator();
+	    }
+	}
+    }
+
+    @Test
+    void testInflightWindow() throws Exception {
+
+	try (MQTTTestBroker broker = new MQTTTestBroker(50246)) {
+
+	    SEDAPExpressMQTTClient producer = createClient(50246, "producer");
+	    producer.setSubscribedTypes(List.of(MessageType.TEXT));
+	    producer.setMaxInflight(5);
+
+	    try {
+		Assertions.assertTrue(producer.connect());
+		waitForSubscriptions(broker, 1);
+
+		// The broker does not acknowledge, so the publisher stops at the end of the window
+		broker.holdAcknowledgements();
+		for (int i = 0; i < 20; i++) {
+		    producer.sendSEDAPExpressMessage(SEDAPExpressMessage.deserialize(String.format(CONTACT, 100 + i, "FALSE")));
+		}
+		for (int i = 0; (i < 500) && (broker.getPublishedCount() < 5); i++) {
+		    Thread.sleep(10);
+		}
+		Thread.sleep(200);
+		Assertions.assertEquals(5, broker.getPublishedCount());
+		Assertions.assertEquals(5, producer.getInflightCount());
+		// One more message has already been taken by the publisher, which waits for a free slot
+		Assertions.assertEquals(14, producer.getQueuedCount());
+		Assertions.assertEquals(0, producer.getDeliveryMetrics().getCount());
+
+		// Every acknowledgement opens the window for the next message
+		broker.releaseAcknowledgements();
+		for (int i = 0; (i < 500) && (producer.getDeliveryMetrics().getCount() < 20); i++) {
+		    Thread.sleep(10);
+		}
+		Assertions.assertEquals(20, producer.getDeliveryMetrics().getCount());
+		Assertions.assertEquals(20, broker.getPublishedCount());
+		Assertions.assertEquals(0, producer.getInflightCount());
+		Assertions.assertEquals(0, producer.getQueuedCount());
+		Assertions.assertEquals(0, producer.getFailedDeliveries());
+
+	    } finally {
+		producer.stopCommunicator();
+	    }
+	}
+    }
+
+    @Test
+    void testBatching() throws Exception {
+
+	try (MQTTTestBroker broker = new MQTTTestBroker(50247)) {
+
+	    SEDAPExpressMQTTClient single = createClient(50247, "single");
+	    single.setSubscribedTypes(List.of(MessageType.TEXT));
+
+	    SEDAPExpressMQTTClient batching = createClient(50247, "batching");
+	    batching.setSubscribedTypes(List.of(MessageType.TEXT));
+	    batching.enableBatching(SEDAPExpressMQTTClient.DEFAULT_BATCH_BYTES, 100);
+
+	    // Batched and single payloads are handled by every receiver, whether it batches itself or not
+	    List<SEDAPExpressMessage> received1 = new CopyOnWriteArrayList<>();
+	    SEDAPExpressMQTTClient consumer1 = createClient(50247, "consumer1");
+	    consumer1.setSubscribedTypes(List.of(MessageType.CONTACT));
+	    consumer1.subscribeMessages(received1::add, MessageType.CONTACT);
+
+	    List<SEDAPExpressMessage> received2 = new CopyOnWriteArrayList<>();
+	    SEDAPExpressMQTTClient consumer2 = createClient(50247, "consumer2");
+	    consumer2.setSubscribedTypes(List.of(MessageType.CONTACT));
+	    consumer2.enableBatching(SEDAPExpressMQTTClient.DEFAULT_BATCH_BYTES, 100);
+	    consumer2.subscribeMessages(received2::add, MessageType.CONTACT);
+
+	    try {
+		Assertions.assertTrue(single.connect());
+		Assertions.assertTrue(batching.connect());
+		Assertions.assertTrue(consumer1.connect());
+		Assertions.assertTrue(consumer2.connect());
+		waitForSubscriptions(broker, 4);
+
+		for (int i = 0; i < 5; i++) {
+		    single.sendSEDAPExpressMessage(SEDAPExpressMessage.deserialize(String.format(CONTACT, 100 + i, "FALSE")));
+		}
+		for (int i = 0; (i < 500) && (broker.getPublishedCount() < 5); i++) {
+		    Thread.sleep(10);
+		}
+		for (int i = 0; i < 20; i++) {
+		    batching.sendSEDAPExpressMessage(SEDAPExpressMessage.deserialize(String.format(CONTACT, 200 + i, "FALSE")));
+		}
+
+		waitFor(received1, 25);
+		waitFor(received2, 25);
+		Assertions.assertEquals(25, received1.size());
+		Assertions.assertEquals(25, received2.size());
+		for (int i = 0; i < 25; i++) {
+		    Assertions.assertEquals(SEDAPExpressMessage.deserialize(String.format(CONTACT, (i < 5) ? 100 + i : 195 + i, "FALSE")).toString(), received1.get(i).toString());
+		    Assertions.assertEquals(received1.get(i).toString(), received2.get(i).toString());
+		}
+
+		// The single messages are not flagged, the batches carry the number of their lines
+		List<MQTTTestBroker.Publish> publishes = broker.getPublishes();
+		for (MQTTTestBroker.Publish publish : publishes.subList(0, 5)) {
+		    Assertions.assertFalse(publish.userProperties().containsKey(SEDAPExpressMQTTClient.BATCH_PROPERTY));
+		}
+		Assertions.assertTrue(publishes.size() < 25);
+		int batched = 0;
+		for (MQTTTestBroker.Publish publish : publishes.subList(5, publishes.size())) {
+		    final int lines = new String(publish.payload()).split("\n").length;
+		    final String count = publish.userProperties().get(SEDAPExpressMQTTClient.BATCH_PROPERTY);
+		    Assertions.assertEquals((lines > 1) ? String.valueOf(lines) : null, count);
+		    batched += lines;
+		}
+		Assertions.assertEquals(20, batched);
+
+	    } finally {
+		single.stopCommunicator();
+		batching.stopCommunicator();
+		consumer1.stopCommunicator();
+		consumer2.stopCommunicator();
+	    }
+	}
+    }
+
+    @Test
+    void testDeliveryPolicies() throws Exception {
+
+	try (MQTTTestBroker broker = new MQTTTestBroker(50248)) {
+
+	    SEDAPExpressMQTTClient producer = createClient(50248, "producer");
+	    producer.setSubscribedTypes(List.of(MessageType.COMMAND));
+	    producer.setDeliveryPolicy(MessageType.CONTACT, new SEDAPExpressMQTTClient.DeliveryPolicy(0, false, 30));
+	    producer.setDeliveryPolicy(MessageType.TEXT, new SEDAPExpressMQTTClient.DeliveryPolicy(2, false, 0));
+	    producer.setDeliveryPolicy(MessageType.HEARTBEAT, new SEDAPExpressMQTTClient.DeliveryPolicy(1, true, 0));
+	    Assertions.assertThrows(IllegalArgumentException.class, () -> new SEDAPExpressMQTTClient.DeliveryPolicy(3, false, 0));
+
+	    List<SEDAPExpressMessage> received = new CopyOnWriteArrayList<>();
+	    SEDAPExpressMQTTClient consumer = createClient(50248, "consumer");
+	    consumer.setSubscribedTypes(List.of(MessageType.CONTACT, MessageType.TEXT, MessageType.HEARTBEAT));
+	    consumer.subscribeMessages(received::add, MessageType.CONTACT, MessageType.TEXT, MessageType.HEARTBEAT);
+
+	    try {
+		Assertions.assertTrue(producer.connect());
+		Assertions.assertTrue(consumer.connect());
+		waitForSubscriptions(broker, 4);
+
+		producer.sendSEDAPExpressMessage(SEDAPExpressMessage.deserialize(String.format(CONTACT, 100, "FALSE")));
+		producer.sendSEDAPExpressMessage(SEDAPExpressMessage.deserialize("TEXT;43;661D5421;89AD;U;;;;\"Hello\";"));
+		producer.sendSEDAPExpressMessage(SEDAPExpressMessage.deserialize("HEARTBEAT;42;661D5420;89AD;U"));
+
+		waitFor(received, 3);
+		Assertions.assertEquals(3, received.size());
+		for (int i = 0; (i < 500) && (producer.getDeliveryMetrics().getCount() < 3); i++) {
+		    Thread.sleep(10);
+		}
+		Assertions.assertEquals(3, producer.getDeliveryMetrics().getCount());
+
+		// QoS and expiry interval as given by the policy of the message type
+		List<MQTTTestBroker.Publish> publishes = broker.getPublishes();
+		Assertions.assertEquals(3, publishes.size());
+		Assertions.assertEquals("SEDAP-X/tracks/CONTACT", publishes.get(0).topic());
+		Assertions.assertEquals(0, publishes.get(0).qos());
+		Assertions.assertEquals(30, publishes.get(0).expiryInterval());
+		Assertions.assertEquals("SEDAP-X/tracks/TEXT", publishes.get(1).topic());
+		Assertions.assertEquals(2, publishes.get(1).qos());
+		Assertions.assertEquals(0, publishes.get(1).expiryInterval());
+		Assertions.assertEquals(1, publishes.get(2).qos());
+
+		// Only the heartbeat is retained
+		Assertions.assertEquals(List.of("SEDAP-X/tracks/HEARTBEAT"), List.copyOf(broker.getRetained().keySet()));
+
+	    } finally {
+		producer.stopCommunicator();
+		consumer.stopCommunicator();
+	    }
+	}
+    }
+
+    @Test
+    void testJournalReplay(@TempDir Path directory) throws Exception {
+
+	try (MQTTTestBroker broker = new MQTTTestBroker(50235); SEDAPExpressOutboundJournal journal = new SEDAPExpressOutboundJournal(directory)) {
+
+	    SEDAPExpressMQTTClient producer = createClient(50235, "producer");
+	    producer.setSubscribedTypes(List.of(MessageType.TEXT));
+	    producer.setOutboundJournal(journal);
+
+	    List<SEDAPExpressMessage> received = new CopyOnWriteArrayList<>();
+	    SEDAPExpressMQTTClient consumer = createClient(50235, "consumer");
+	    consumer.setSubscribedTypes(List.of(MessageType.CONTACT));
+	    consumer.subscribeMessages(received::add, MessageType.CONTACT);
+
+	    try {
+		Assertions.assertTrue(producer.connect());
+		Assertions.assertTrue(consumer.connect());
+		waitForSubscriptions(broker, 2);
+
+		// Network outage, the messages are kept in the journal
+		broker.suspendConnections();
+		for (int i = 0; (i < 500) && (producer.isReady() || consumer.isReady()); i++) {
+		    Thread.sleep(10);
+		}
+		for (int i = 0; i < 10; i++) {
+		    producer.sendSEDAPExpressMessage(SEDAPExpressMessage.deserialize(String.format(CONTACT, 100 + i, "FALSE")));
+		}
+		Assertions.assertEquals(10, producer.getQueuedCount());
+
+		// Replay after the automatic reconnect of the producer, while the consumer is still offline
+		broker.resumeConnections("producer");
+		for (int i = 0; (i < 2000) && (journal.getPendingCount() > 0); i++) {
+		    Thread.sleep(10);
+		}
+		Assertions.assertEquals(0, journal.getPendingCount());
+		Assertions.assertTrue(received.isEmpty());
+
+		// The consumer resumes its session and gets the messages collected by the broker
+		broker.resumeConnections();
+		for (int i = 0; (i < 2000) && (received.size() < 10); i++) {
+		    Thread.sleep(10);
+		}
+		Assertions.assertEquals(10, received.size());
+		for (int i = 0; i < 10; i++) {
+		    Assertions.assertEquals(SEDAPExpressMessage.deserialize(String.format(CONTACT, 100 + i, "FALSE")).toString(), received.get(i).toString());
+		}
+
+	    } finally {
+		producer.stopCommunicator();
+		consumer.stopCommunicator();
+	    }
+	}
+    }
+}
@@ -0,0 +1,130 @@
+/**
+ * Note: This license has also been called the “Simplified BSD License” and the “FreeBSD License”.
+ *
+ * Copyright 2024-2025 UNIITY POC: Volker Voß, Federal Armed Forces of Germany
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS “AS IS” AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSEnARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ * OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY
+ * OF SUCH DAMAGE.
+ */
+package de.bundeswehr.mese.sedapexpress.network;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage.Classification;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage.MessageType;
+import de.bundeswehr.uniity.sedapexpress.network.SEDAPExpressMessageFilter;
+
+class SEDAPExpressMessageFilterTest {
+
+    private static final SEDAPExpressMessage CONTACT_BREMERHAVEN = SEDAPExpressMessage.deserialize("CONTACT;5E;661D4410;66A3;R;;;100;FALSE;53.32;8.11;0;;;;120;275;;;;;;;FGS Bayern;AR;SFSPFCLFF------;;;;VXNlIENIMjI=");
+
+    private static final SEDAPExpressMessage CONTACT_MEDITERRANEAN = SEDAPExpressMessage.deserialize("CONTACT;5F;661D5420;83C5;U;;;101;FALSE;36.32;12.11;2000;;;;44;;;;;;;;Unknown;O;;221333201;;;UG9zcyBOZXRoZXJsYW5kcw==");
+
+    private static final SEDAPExpressMessage OWNUNIT_ARCTIC = SEDAPExpressMessage.deserialize("OWNUNIT;11;1B351C87;22AA;U;TRUE;4389F10D;77.88;-10.12;5577.0;33.44;55.66;1.1;-2.2;3.3;Ownunit;SFGPIB----H----");
+
+    private static final SEDAPExpressMessage HEARTBEAT = SEDAPExpressMessage.deserialize("HEARTBEAT;42;661D5420;83C5;S");
+
+    @Test
+    void testAcceptAll() {
+
+	Assertions.assertSame(SEDAPExpressMessageFilter.ACCEPT_ALL, SEDAPExpressMessageFilter.fromQuery(Map.of("since", "0")));
+	Assertions.assertTrue(SEDAPExpressMessageFilter.ACCEPT_ALL.isAcceptAll());
+	Assertions.assertTrue(SEDAPExpressMessageFilter.ACCEPT_ALL.test(HEARTBEAT));
+	Assertions.assertEquals("", SEDAPExpressMessageFilter.ACCEPT_ALL.toQuery());
+    }
+
+    @Test
+    void testTypesSendersAndClassification() {
+
+	SEDAPExpressMessageFilter filter = new SEDAPExpressMessageFilter(List.of(MessageType.CONTACT, MessageType.HEARTBEAT), List.of("83c5"), Classification.Restricted, null);
+
+	Assertions.assertTrue(filter.test(CONTACT_MEDITERRANEAN));
+	Assertions.assertFalse(filter.test(CONTACT_BREMERHAVEN)); // Sender
+	Assertions.assertFalse(filter.test(OWNUNIT_ARCTIC)); // Type
+	Assertions.assertFalse(filter.test(HEARTBEAT)); // Classification
+    }
+
+    @Test
+    void testBoundingBox() {
+
+	SEDAPExpressMessageFilter filter = new SEDAPExpressMessageFilter(null, null, null, new double[] { 50.0, 5.0, 80.0, 15.0 });
+
+	Assertions.assertTrue(filter.test(CONTACT_BREMERHAVEN));
+	Assertions.assertFalse(filter.test(CONTACT_MEDITERRANEAN));
+	Assertions.assertFalse(filter.test(OWNUNIT_ARCTIC));
+	Assertions.assertTrue(filter.test(HEARTBEAT)); // No position
+
+	// Crossing the antimeridian
+	filter = new SEDAPExpressMessageFilter(null, null, null, new double[] { 70.0, 170.0, 80.0, -5.0 });
+	Assertions.assertTrue(filter.test(OWNUNIT_ARCTIC));
+	Assertions.assertFalse(filter.test(CONTACT_BREMERHAVEN));
+
+	Assertions.assertThrows(IllegalArgumentException.class, () -> new SEDAPExpressMessageFilter(null, null, null, new double[] { 80.0, 0.0, 70.0, 10.0 }));
+    }
+
+    @Test
+    void testQueryRoundTrip() {
+
+	Map<String, String> query = new HashMap<>();
+	query.put("types", "contact,OWNUNIT");
+	query.put("senders", "66A3,22AA");
+	query.put("maxClassification", "restricted");
+	query.put("bbox", "50,-20,80,15");
+
+	SEDAPExpressMessageFilter filter = SEDAPExpressMessageFilter.fromQuery(query);
+	Assertions.assertTrue(filter.test(CONTACT_BREMERHAVEN));
+	Assertions.assertTrue(filter.test(OWNUNIT_ARCTIC));
+	Assertions.assertFalse(filter.test(CONTACT_MEDITERRANEAN));
+
+	Map<String, String> parsed = new HashMap<>();
+	for (String parameter : filter.toQuery().split("&")) {
+	    String[] parts = parameter.split("=");
+	    parsed.put(parts[0], URLDecoder.decode(parts[1], StandardCharsets.UTF_8));
+	}
+	SEDAPExpressMessageFilter copy = SEDAPExpressMessageFilter.fromQuery(parsed);
+	Assertions.assertTrue(copy.test(CONTACT_BREMERHAVEN));
+	Assertions.assertFalse(copy.test(CONTACT_MEDITERRANEAN));
+
+	Assertions.assertThrows(IllegalArgumentException.class, () -> SEDAPExpressMessageFilter.fromQuery(Map.of("types", "NOTHING")));
+	Assertions.assertThrows(IllegalArgumentException.class, () -> SEDAPExpressMessageFilter.fromQuery(Map.of("bbox", "1,2,3")));
+    }
+
+    @Test
+    void testClassificationParameter() {
+
+	// Names and letters are case-insensitive
+	Assertions.assertEquals("maxClassification=T", SEDAPExpressMessageFilter.fromQuery(Map.of("maxClassification", "TOP_SECRET")).toQuery());
+	Assertions.assertEquals("maxClassification=T", SEDAPExpressMessageFilter.fromQuery(Map.of("maxClassification", "top_secret")).toQuery());
+	Assertions.assertEquals("maxClassification=S", SEDAPExpressMessageFilter.fromQuery(Map.of("maxClassification", "s")).toQuery());
+	Assertions.assertEquals("maxClassification=-", SEDAPExpressMessageFilter.fromQuery(Map.of("maxClassification", "-")).toQuery());
+
+	// Unknown values are rejected instead of being mapped to None
+	Assertions.assertThrows(IllegalArgumentException.class, () -> SEDAPExpressMessageFilter.fromQuery(Map.of("maxClassification", "X")));
+	Assertions.assertThrows(IllegalArgumentException.class, () -> SEDAPExpressMessageFilter.fromQuery(Map.of("maxClassification", "TOPSECRET")));
+    }
+}
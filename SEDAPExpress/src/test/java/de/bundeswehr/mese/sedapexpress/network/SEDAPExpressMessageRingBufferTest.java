@@ -0,0 +1,123 @@
+/**
+ * Note: This license has also been called the “Simplified BSD License” and the “FreeBSD License”.
+ *
+ * Copyright 2024-2025 UNIITY POC: Volker Voß, Federal Armed Forces of Germany
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS “AS IS” AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSEnARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ * OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY
+ * OF SUCH DAMAGE.
+ */
+package de.bundeswehr.mese.sedapexpress.network;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage;
+import de.bundeswehr.uniity.sedapexpress.network.SEDAPExpressMessageRingBuffer;
+import de.bundeswehr.uniity.sedapexpress.network.SEDAPExpressMessageRingBuffer.Batch;
+
+class SEDAPExpressMessageRingBufferTest {
+
+    private static SEDAPExpressMessage createMessage(int number) {
+	return SEDAPExpressMessage.deserialize("HEARTBEAT;" + String.format("%02X", number) + ";661D5420;89AD;U");
+    }
+
+    @Test
+    void testIndependentReaders() {
+
+	SEDAPExpressMessageRingBuffer buffer = new SEDAPExpressMessageRingBuffer(10);
+
+	for (int i = 1; i <= 3; i++) {
+	    Assertions.assertEquals(i, buffer.append(createMessage(i)));
+	}
+
+	Batch first = buffer.readSince(0, 100);
+	Batch second = buffer.readSince(0, 100);
+
+	Assertions.assertEquals(3, first.getMessages().size());
+	Assertions.assertEquals(3, second.getMessages().size());
+	Assertions.assertEquals(3, first.getLastSequence());
+	Assertions.assertFalse(first.hasGap());
+
+	buffer.append(createMessage(4));
+
+	Batch next = buffer.readSince(first.getLastSequence(), 100);
+	Assertions.assertEquals(1, next.getMessages().size());
+	Assertions.assertEquals(4, next.getMessages().get(0).getNumber().byteValue());
+	Assertions.assertEquals(4, next.getLastSequence());
+
+	Batch empty = buffer.readSince(next.getLastSequence(), 100);
+	Assertions.assertTrue(empty.getMessages().isEmpty());
+	Assertions.assertEquals(4, empty.getLastSequence());
+    }
+
+    @Test
+    void testOverflowAndGap() {
+
+	SEDAPExpressMessageRingBuffer buffer = new SEDAPExpressMessageRingBuffer(5);
+
+	for (int i = 1; i <= 12; i++) {
+	    buffer.append(createMessage(i));
+	}
+
+	Assertions.assertEquals(8, buffer.getOldestSequence());
+	Assertions.assertEquals(12, buffer.getNewestSequence());
+
+	Batch batch = buffer.readSince(2, 100);
+	Assertions.assertTrue(batch.hasGap());
+	Assertions.assertEquals(5, batch.getMessages().size());
+	Assertions.assertEquals(8, batch.getMessages().get(0).getNumber().byteValue());
+	Assertions.assertEquals(12, batch.getLastSequence());
+
+	Batch limited = buffer.readSince(9, 2);
+	Assertions.assertEquals(2, limited.getMessages().size());
+	Assertions.assertEquals(11, limited.getLastSequence());
+    }
+
+    @Test
+    void testCursorOfPreviousInstance() {
+
+	SEDAPExpressMessageRingBuffer buffer = new SEDAPExpressMessageRingBuffer(5);
+	buffer.append(createMessage(1));
+
+	Batch batch = buffer.readSince(1000, 100);
+	Assertions.assertEquals(1, batch.getMessages().size());
+	Assertions.assertEquals(1, batch.getLastSequence());
+    }
+
+    @Test
+    void testAwaitSince() throws InterruptedException {
+
+	SEDAPExpressMessageRingBuffer buffer = new SEDAPExpressMessageRingBuffer(5);
+
+	Batch timeout = buffer.awaitSince(0, 100, 20);
+	Assertions.assertTrue(timeout.getMessages().isEmpty());
+
+	new Thread(() -> {
+	    try {
+		Thread.sleep(50);
+	    } catch (InterruptedException e) {
+	    }
+	    buffer.append(createMessage(1));
+	}).start();
+
+	Batch batch = buffer.awaitSince(0, 100, 5000);
+	Assertions.assertEquals(1, batch.getMessages().size());
+    }
+}
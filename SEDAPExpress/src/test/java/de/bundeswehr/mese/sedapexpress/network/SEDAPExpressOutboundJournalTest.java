@@ -0,0 +1,199 @@
+/**
+ * Note: This license has also been called the “Simplified BSD License” and the “FreeBSD License”.
+ *
+ * Copyright 2024-2025 UNIITY POC: Volker Voß, Federal Armed Forces of Germany
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS “AS IS” AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSEnARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ * OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY
+ * OF SUCH DAMAGE.
+ */
+package de.bundeswehr.mese.sedapexpress.network;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage.MessageType;
+import de.bundeswehr.uniity.sedapexpress.network.SEDAPExpressOutboundJournal;
+import de.bundeswehr.uniity.sedapexpress.network.SEDAPExpressOutboundJournal.Entry;
+
+class SEDAPExpressOutboundJournalTest {
+
+    private static final String CONTACT = "CONTACT;5E;661D4410;66A3;R;;;%d;FALSE;53.32;8.11;0;;;;120;275;;;;;;;FGS Bayern;AR;SFSPFCLFF------;;;;";
+
+    private static final String COMMAND = "COMMAND;%02X;661D4410;66A3;R;;;FFFF;%d;0;0;";
+
+    private static SEDAPExpressMessage contact(int id) {
+	return SEDAPExpressMessage.deserialize(String.format(CONTACT, id));
+    }
+
+    @Test
+    void testAcknowledgeAndRewind(@TempDir Path directory) throws Exception {
+
+	try (SEDAPExpressOutboundJournal journal = new SEDAPExpressOutboundJournal(directory)) {
+
+	    for (int i = 0; i < 3; i++) {
+		journal.append(contact(100 + i));
+	    }
+	    Assertions.assertEquals(3, journal.getPendingCount());
+
+	    Entry first = journal.take();
+	    Entry second = journal.take();
+	    Entry third = journal.take();
+	    Assertions.assertEquals(contact(100).toString(), first.message().toString());
+	    Assertions.assertNull(journal.poll(10, TimeUnit.MILLISECONDS));
+
+	    // Out of order acknowledgement, the unacknowledged first and third message are delivered again
+	    journal.acknowledge(second);
+	    journal.rewind();
+
+	    Assertions.assertEquals(first.position(), journal.take().position());
+	    Assertions.assertEquals(third.position(), journal.take().position());
+	    Assertions.assertNull(journal.poll(10, TimeUnit.MILLISECONDS));
+	    Assertions.assertEquals(2, journal.getPendingCount());
+	}
+    }
+
+    @Test
+    void testPartialRewind(@TempDir Path directory) throws Exception {
+
+	try (SEDAPExpressOutboundJournal journal = new SEDAPExpressOutboundJournal(directory)) {
+
+	    for (int i = 0; i < 5; i++) {
+		journal.append(contact(100 + i));
+	    }
+
+	    Entry first = journal.take();
+	    Entry second = journal.take();
+	    Entry third = journal.take();
+
+	    // Only the failed request is delivered again, before the messages not taken yet
+	    journal.rewind(List.of(second));
+	    Assertions.assertEquals(second.position(), journal.take().position());
+	    Entry fourth = journal.take();
+	    Assertions.assertEquals(contact(103).toString(), fourth.message().toString());
+
+	    // Acknowledgements of the other requests remain effective
+	    journal.acknowledge(first);
+	    journal.acknowledge(third);
+	    Assertions.assertEquals(3, journal.getPendingCount());
+
+	    // After a full rewind a late acknowledgement still prevents the delivery
+	    journal.rewind();
+	    journal.acknowledge(fourth);
+	    Assertions.assertEquals(second.position(), journal.take().position());
+	    Assertions.assertEquals(contact(104).toString(), journal.take().message().toString());
+	    Assertions.assertNull(journal.poll(10, TimeUnit.MILLISECONDS));
+	    Assertions.assertEquals(2, journal.getPendingCount());
+	}
+    }
+
+    @Test
+    void testReplayAfterRestart(@TempDir Path directory) throws Exception {
+
+	try (SEDAPExpressOutboundJournal journal = new SEDAPExpressOutboundJournal(directory)) {
+	    for (int i = 0; i < 10; i++) {
+		journal.append(contact(100 + i));
+	    }
+	    for (int i = 0; i < 4; i++) {
+		journal.acknowledge(journal.take());
+	    }
+	    // Taken, but not acknowledged before the "crash"
+	    journal.take();
+	}
+
+	try (SEDAPExpressOutboundJournal journal = new SEDAPExpressOutboundJournal(directory)) {
+
+	    Assertions.assertEquals(6, journal.getPendingCount());
+	    for (int i = 4; i < 10; i++) {
+		Entry entry = journal.poll(10, TimeUnit.MILLISECONDS);
+		Assertions.assertEquals(contact(100 + i).toString(), entry.message().toString());
+		journal.acknowledge(entry);
+	    }
+	    Assertions.assertNull(journal.poll(10, TimeUnit.MILLISECONDS));
+
+	    journal.append(contact(200));
+	    Assertions.assertEquals(contact(200).toString(), journal.take().message().toString());
+	}
+    }
+
+    @Test
+    void testPriorityEviction(@TempDir Path directory) throws Exception {
+
+	// Two segments of 64 KB
+	try (SEDAPExpressOutboundJournal journal = new SEDAPExpressOutboundJournal(directory, 128 * 1024)) {
+
+	    journal.append(SEDAPExpressMessage.deserialize(String.format(COMMAND, 1, 1)));
+
+	    int contacts = 0;
+	    while (journal.getEvictedCount() == 0) {
+		journal.append(contact(contacts++));
+	    }
+	    for (int i = 0; i < 1000; i++) {
+		journal.append(contact(contacts++));
+	    }
+
+	    Assertions.assertTrue(journal.getSize() <= 128 * 1024);
+	    Assertions.assertEquals(contacts + 1 - journal.getEvictedCount(), journal.getPendingCount());
+
+	    // The COMMAND survives the eviction of its segment and is still delivered first
+	    Assertions.assertEquals(MessageType.COMMAND, journal.take().message().getMessageType());
+	}
+    }
+
+    @Test
+    void testMixedPriorityEviction(@TempDir Path directory) throws Exception {
+
+	// Two segments of 64 KB, every segment contains COMMANDs between the contacts
+	try (SEDAPExpressOutboundJournal journal = new SEDAPExpressOutboundJournal(directory, 128 * 1024)) {
+
+	    List<String> commands = new ArrayList<>();
+	    int contacts = 0;
+	    while (journal.getEvictedCount() < 2000) {
+		if ((contacts % 50) == 0) {
+		    SEDAPExpressMessage command = SEDAPExpressMessage.deserialize(String.format(COMMAND, commands.size() & 0x7F, commands.size()));
+		    journal.append(command);
+		    // The journal stores the serialized message
+		    commands.add(SEDAPExpressMessage.deserialize(command.toString()).toString());
+		}
+		journal.append(contact(contacts++));
+	    }
+
+	    Assertions.assertTrue(journal.getSize() <= 128 * 1024);
+	    Assertions.assertEquals(commands.size() + contacts - journal.getEvictedCount(), journal.getPendingCount());
+
+	    // Only contacts have been evicted, the COMMANDs are delivered in their order
+	    List<Entry> entries = new ArrayList<>();
+	    Entry entry;
+	    while ((entry = journal.poll(10, TimeUnit.MILLISECONDS)) != null) {
+		entries.add(entry);
+	    }
+	    Assertions.assertEquals(journal.getPendingCount(), entries.size());
+
+	    List<String> taken = entries.stream().map(Entry::message).filter(message -> message.getMessageType() == MessageType.COMMAND).map(Object::toString).toList();
+	    Assertions.assertEquals(commands, taken);
+	}
+    }
+}
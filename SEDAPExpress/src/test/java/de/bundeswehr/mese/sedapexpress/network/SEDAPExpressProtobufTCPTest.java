@@ -0,0 +1,106 @@
+/**
+ * Note: This license has also been called the “Simplified BSD License” and the “FreeBSD License”.
+ *
+ * Copyright 2024-2025 UNIITY POC: Volker Voß, Federal Armed Forces of Germany
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS “AS IS” AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSEnARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ * OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY
+ * OF SUCH DAMAGE.
+ */
+package de.bundeswehr.mese.sedapexpress.network;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import de.bundeswehr.uniity.sedapexpress.messages.CONTACT;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage.Classification;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage.DeleteFlag;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage.MessageType;
+import de.bundeswehr.uniity.sedapexpress.network.SEDAPExpressProtobufTCPClient;
+import de.bundeswehr.uniity.sedapexpress.network.SEDAPExpressProtobufTCPServer;
+
+class SEDAPExpressProtobufTCPTest {
+
+    private static final String CONTACT = "CONTACT;5E;661D4410;66A3;R;;;%d;FALSE;53.32;8.11;0;;;;120;275;;;;;;;FGS Bayern;AR;SFSPFCLFF------;;;;";
+
+    private static void waitFor(List<?> list, int size) throws InterruptedException {
+
+	for (int i = 0; (i < 500) && (list.size() < size); i++) {
+	    Thread.sleep(10);
+	}
+    }
+
+    @Test
+    void testFullDuplex() throws Exception {
+
+	SEDAPExpressProtobufTCPServer server = new SEDAPExpressProtobufTCPServer("127.0.0.1", 50236);
+	List<SEDAPExpressMessage> serverReceived = new CopyOnWriteArrayList<>();
+	server.subscribeMessages(serverReceived::add, MessageType.HEARTBEAT, MessageType.CONTACT);
+	Assertions.assertTrue(server.connect());
+
+	SEDAPExpressProtobufTCPClient client = new SEDAPExpressProtobufTCPClient("127.0.0.1", 50236);
+	List<SEDAPExpressMessage> clientReceived = new CopyOnWriteArrayList<>();
+	client.subscribeMessages(clientReceived::add, MessageType.CONTACT);
+
+	try {
+	    Assertions.assertTrue(client.connect());
+
+	    for (int i = 0; (i < 100) && (server.getConnectionCount() == 0); i++) {
+		Thread.sleep(10);
+	    }
+	    Assertions.assertEquals(1, server.getConnectionCount());
+
+	    // Client to server, single and batched envelopes
+	    client.sendSEDAPExpressMessage(SEDAPExpressMessage.deserialize("HEARTBEAT;42;661D5420;89AD;U"));
+	    client.sendSEDAPExpressMessages(List.of(SEDAPExpressMessage.deserialize(String.format(CONTACT, 1)), SEDAPExpressMessage.deserialize("HEARTBEAT;44;661D5422;89AD;U")));
+
+	    waitFor(serverReceived, 3);
+	    Assertions.assertEquals(3, serverReceived.size());
+	    Assertions.assertEquals(SEDAPExpressMessage.deserialize(String.format(CONTACT, 1)).toString(), serverReceived.get(1).toString());
+
+	    // Server to client, many envelopes spanning several receive buffers and one envelope larger than a receive buffer
+	    List<SEDAPExpressMessage> batch = new ArrayList<>();
+	    for (int i = 0; i < 5000; i++) {
+		batch.add(SEDAPExpressMessage.deserialize(String.format(CONTACT, i)));
+	    }
+	    byte[] image = new byte[200000];
+	    Arrays.fill(image, (byte) 0x5A);
+	    CONTACT large = new CONTACT((byte) 0x10, 1713198096L, "66A3", Classification.Restricted, null, null, "IMG", DeleteFlag.FALSE, 53.32, 8.11, 0.0, null, null, null, null, null, null, null, null, null, null,
+		    null, "Image", "O", null, null, null, image, null);
+	    batch.add(large);
+
+	    server.sendSEDAPExpressMessages(batch);
+
+	    waitFor(clientReceived, 5001);
+	    Assertions.assertEquals(5001, clientReceived.size());
+	    Assertions.assertEquals(batch.get(4999).toString(), clientReceived.get(4999).toString());
+	    Assertions.assertArrayEquals(image, ((CONTACT) clientReceived.get(5000)).getImageData());
+
+	} finally {
+	    client.stopCommunicator();
+	    server.stopCommunicator();
+	}
+    }
+}
@@ -0,0 +1,253 @@
+/**
+ * Note: This license has also been called the “Simplified BSD License” and the “FreeBSD License”.
+ *
+ * Copyright 2024-2025 UNIITY POC: Volker Voß, Federal Armed Forces of Germany
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS “AS IS” AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSEnARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ * OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY
+ * OF SUCH DAMAGE.
+ */
+package de.bundeswehr.mese.sedapexpress.network;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage.MessageType;
+import de.bundeswehr.uniity.sedapexpress.network.SEDAPExpressOutboundJournal;
+import de.bundeswehr.uniity.sedapexpress.network.SEDAPExpressRESTClient;
+import de.bundeswehr.uniity.sedapexpress.utils.HTTPCompressionUtils;
+
+class SEDAPExpressRESTClientTest {
+
+    private static final String CONTACT = "CONTACT;66;1B351C87;59CE;U;FALSE;;%08X;;43.21;-111.22;10011.0;1.0;2.0;3.0;200.0;275.0;10.0;20.0;30.0;33.0;22.0;11.0;Track Alpha;RA;SFAPMF---------;221333201;FA550C;;";
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+
+	for (int i = 0; (i < 500) && !condition.getAsBoolean(); i++) {
+	    Thread.sleep(10);
+	}
+    }
+
+    private static void sendContacts(SEDAPExpressRESTClient client) throws IOException {
+
+	for (int id = 0; id < 50; id++) {
+	    client.sendSEDAPExpressMessage(SEDAPExpressMessage.deserialize(String.format(CONTACT, id)));
+	}
+    }
+
+    /**
+     * Minimal third-party server: records the content coding of the POST requests and optionally announces or rejects compressed requests
+     */
+    private static final class RecordingServer implements AutoCloseable {
+
+	private final HttpServer server;
+
+	private final List<String> postEncodings = new CopyOnWriteArrayList<>();
+
+	private final AtomicBoolean announce = new AtomicBoolean();
+
+	private final AtomicBoolean reject = new AtomicBoolean();
+
+	private final AtomicBoolean failPosts = new AtomicBoolean();
+
+	private volatile String responseType = "application/json;charset=UTF-8";
+
+	private volatile String responseBody = "{\"messages\":[]}";
+
+	RecordingServer(int port) throws IOException {
+
+	    this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+	    this.server.createContext("/", this::handle);
+	    this.server.start();
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+
+	    final String encoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+	    final String request = new String(HTTPCompressionUtils.decompress(exchange.getRequestBody(), encoding).readAllBytes(), StandardCharsets.UTF_8);
+
+	    if (this.announce.get()) {
+		exchange.getResponseHeaders().set("Accept-Encoding", HTTPCompressionUtils.ACCEPT_ENCODING);
+	    }
+
+	    int status = 200;
+	    byte[] body = this.responseBody.getBytes(StandardCharsets.UTF_8);
+
+	    if ("POST".equals(exchange.getRequestMethod())) {
+		if (this.reject.get() && (encoding != null)) {
+		    status = 415;
+		}
+		if (this.failPosts.get()) {
+		    status = 500;
+		}
+		// One entry per received message
+		for (int index = request.indexOf("CONTACT;"); index >= 0; index = request.indexOf("CONTACT;", index + 1)) {
+		    this.postEncodings.add(String.valueOf(encoding));
+		}
+	    }
+
+	    exchange.getResponseHeaders().set("Content-Type", this.responseType);
+	    try (OutputStream outputStream = exchange.getResponseBody()) {
+		exchange.sendResponseHeaders(status, body.length);
+		outputStream.write(body);
+	    }
+	}
+
+	@Override
+	public void close() {
+	    this.server.stop(0);
+	}
+    }
+
+    @Test
+    void testRequestCompression() throws Exception {
+
+	try (RecordingServer server = new RecordingServer(50243)) {
+
+	    SEDAPExpressRESTClient client = new SEDAPExpressRESTClient("http://127.0.0.1:50243/", 100);
+	    Assertions.assertTrue(client.connect());
+
+	    try {
+		// A server without announcement gets uncompressed requests
+		waitFor(() -> client.getRequestEncoding() == null);
+		sendContacts(client);
+		waitFor(() -> server.postEncodings.size() == 50);
+		Assertions.assertTrue(server.postEncodings.stream().allMatch("null"::equals));
+
+		// After the announcement in a GET response the requests are compressed
+		server.announce.set(true);
+		waitFor(() -> HTTPCompressionUtils.GZIP.equals(client.getRequestEncoding()));
+		sendContacts(client);
+		waitFor(() -> server.postEncodings.size() == 100);
+		Assertions.assertTrue(server.postEncodings.subList(50, 100).stream().allMatch(HTTPCompressionUtils.GZIP::equals));
+
+		// A rejected compressed request switches back to uncompressed requests
+		server.announce.set(false);
+		server.reject.set(true);
+		sendContacts(client);
+		waitFor(() -> server.postEncodings.size() == 150);
+		waitFor(() -> client.getRequestEncoding() == null);
+		sendContacts(client);
+		waitFor(() -> server.postEncodings.size() == 200);
+		Assertions.assertTrue(server.postEncodings.subList(150, 200).stream().allMatch("null"::equals));
+
+	    } finally {
+		client.stopCommunicator();
+	    }
+	}
+    }
+
+    @Test
+    void testSynchronousPostFailure(@TempDir Path directory) throws Exception {
+
+	// The POST request cannot even be created, because the URL is invalid
+	SEDAPExpressRESTClient client = new SEDAPExpressRESTClient("http://127.0.0.1:50244/invalid path/", 100);
+	client.setMaxConcurrentPosts(1);
+
+	// Counts the failed attempts of the sender thread
+	AtomicInteger attempts = new AtomicInteger();
+	Handler handler = new Handler() {
+
+	    @Override
+	    public void publish(LogRecord record) {
+		if ("runSender()".equals(record.getSourceMethodName())) {
+		    attempts.incrementAndGet();
+		}
+	    }
+
+	    @Override
+	    public void flush() {
+	    }
+
+	    @Override
+	    public void close() {
+	    }
+	};
+	Logger.getLogger(Logger.GLOBAL_LOGGER_NAME).addHandler(handler);
+
+	try (SEDAPExpressOutboundJournal journal = new SEDAPExpressOutboundJournal(directory)) {
+
+	    client.setOutboundJournal(journal);
+	    Assertions.assertTrue(client.connect());
+
+	    try {
+		sendContacts(client);
+
+		// The permit has been released and the journal rewound, so the sender tries again instead of blocking
+		waitFor(() -> attempts.get() >= 2);
+		Assertions.assertTrue(attempts.get() >= 2);
+		Assertions.assertEquals(50, journal.getPendingCount());
+
+	    } finally {
+		client.stopCommunicator();
+	    }
+	} finally {
+	    Logger.getLogger(Logger.GLOBAL_LOGGER_NAME).removeHandler(handler);
+	}
+    }
+
+    @Test
+    void testUnknownResponseTypeAndDroppedMessages() throws Exception {
+
+	try (RecordingServer server = new RecordingServer(50255)) {
+
+	    // Responses with an unknown content type are read as JSON
+	    server.responseType = "application/octet-stream";
+	    server.responseBody = "{\"messages\":[{\"message\":\"HEARTBEAT;42;661D5420;89AD;U\"}]}";
+	    server.failPosts.set(true);
+
+	    SEDAPExpressRESTClient client = new SEDAPExpressRESTClient("http://127.0.0.1:50255/", 100);
+	    List<SEDAPExpressMessage> received = new CopyOnWriteArrayList<>();
+	    client.subscribeMessages(received::add, MessageType.HEARTBEAT);
+	    Assertions.assertTrue(client.connect());
+
+	    try {
+		waitFor(() -> !received.isEmpty());
+		Assertions.assertFalse(received.isEmpty());
+
+		// Without journal the messages of the failed POST requests are dropped and counted
+		sendContacts(client);
+		waitFor(() -> client.getDroppedMessages() == 50);
+		Assertions.assertEquals(50, client.getDroppedMessages());
+
+	    } finally {
+		client.stopCommunicator();
+	    }
+	}
+    }
+}
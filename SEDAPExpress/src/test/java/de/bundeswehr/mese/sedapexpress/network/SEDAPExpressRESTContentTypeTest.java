@@ -0,0 +1,146 @@
+/**
+ * Note: This license has also been called the “Simplified BSD License” and the “FreeBSD License”.
+ *
+ * Copyright 2024-2025 UNIITY POC: Volker Voß, Federal Armed Forces of Germany
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS “AS IS” AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSEnARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ * OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY
+ * OF SUCH DAMAGE.
+ */
+package de.bundeswehr.mese.sedapexpress.network;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import de.bundeswehr.uniity.sedapexpress.network.SEDAPExpressRESTContentType;
+import de.bundeswehr.uniity.sedapexpress.protobuf.ProtobufMessage.SomeMessage;
+
+class SEDAPExpressRESTContentTypeTest {
+
+    private static final List<String> MESSAGES = List.of("HEARTBEAT;42;661D5420;89AD;U", "TEXT;43;661D5421;89AD;U;;;;\"Hällo\";", "CONTACT;5E;661D4410;66A3;R;;;100;FALSE;53.32;8.11");
+
+    @Test
+    void testRoundTrip() throws IOException {
+
+	for (SEDAPExpressRESTContentType type : SEDAPExpressRESTContentType.values()) {
+
+	    ByteArrayOutputStream out = new ByteArrayOutputStream();
+	    Assertions.assertEquals(3, type.write(out, MESSAGES));
+
+	    List<String> result = new ArrayList<>();
+	    Assertions.assertEquals(3, type.read(new ByteArrayInputStream(out.toByteArray()), result::add));
+	    Assertions.assertEquals(MESSAGES, result, type.name());
+	}
+    }
+
+    @Test
+    void testTextHasNoOverhead() throws IOException {
+
+	ByteArrayOutputStream out = new ByteArrayOutputStream();
+	SEDAPExpressRESTContentType.TEXT.write(out, MESSAGES);
+
+	Assertions.assertEquals(String.join("\n", MESSAGES) + "\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testTextLineSplitting() throws IOException {
+
+	// Line longer than the read buffer, CR LF, blank lines and no line feed at the end
+	String longLine = "TEXT;44;661D5422;89AD;U;;;;\"" + "ä".repeat(10000) + "\";";
+	byte[] batch = (MESSAGES.get(0) + "\r\n\n  \n" + longLine + "\n" + MESSAGES.get(1)).getBytes(StandardCharsets.UTF_8);
+
+	// Delivered in small pieces, which also split the multi-byte characters
+	InputStream input = new ByteArrayInputStream(batch) {
+
+	    @Override
+	    public synchronized int read(byte[] b, int off, int len) {
+		return super.read(b, off, Math.min(len, 3));
+	    }
+	};
+
+	List<String> result = new ArrayList<>();
+	Assertions.assertEquals(3, SEDAPExpressRESTContentType.TEXT.read(input, result::add));
+	Assertions.assertEquals(List.of(MESSAGES.get(0), longLine, MESSAGES.get(1)), result);
+    }
+
+    @Test
+    void testTextLineLimit() {
+
+	// Endless line without a line feed
+	InputStream input = new InputStream() {
+
+	    @Override
+	    public int read() {
+		return 'A';
+	    }
+
+	    @Override
+	    public int read(byte[] b, int off, int len) {
+		Arrays.fill(b, off, off + len, (byte) 'A');
+		return len;
+	    }
+	};
+
+	List<String> result = new ArrayList<>();
+	Assertions.assertThrows(SEDAPExpressRESTContentType.LineTooLongException.class, () -> SEDAPExpressRESTContentType.TEXT.read(input, result::add));
+	Assertions.assertTrue(result.isEmpty());
+    }
+
+    @Test
+    void testProtobufCompatibleWithSchema() throws IOException {
+
+	ByteArrayOutputStream out = new ByteArrayOutputStream();
+	SEDAPExpressRESTContentType.PROTOBUF.write(out, MESSAGES);
+
+	SomeMessage batch = SomeMessage.parseFrom(out.toByteArray());
+	Assertions.assertEquals(3, batch.getMessagesCount());
+	Assertions.assertEquals(MESSAGES.get(1), batch.getMessages(1).getMessage());
+
+	SomeMessage.Builder builder = SomeMessage.newBuilder();
+	MESSAGES.forEach(message -> builder.addMessages(SomeMessage.Messages.newBuilder().setMessage(message)));
+
+	List<String> result = new ArrayList<>();
+	SEDAPExpressRESTContentType.PROTOBUF.read(new ByteArrayInputStream(builder.build().toByteArray()), result::add);
+	Assertions.assertEquals(MESSAGES, result);
+    }
+
+    @Test
+    void testNegotiation() {
+
+	Assertions.assertEquals(SEDAPExpressRESTContentType.JSON, SEDAPExpressRESTContentType.negotiate(null));
+	Assertions.assertEquals(SEDAPExpressRESTContentType.JSON, SEDAPExpressRESTContentType.negotiate("*/*"));
+	Assertions.assertEquals(SEDAPExpressRESTContentType.JSON, SEDAPExpressRESTContentType.negotiate("image/png"));
+	Assertions.assertEquals(SEDAPExpressRESTContentType.TEXT, SEDAPExpressRESTContentType.negotiate("text/plain"));
+	Assertions.assertEquals(SEDAPExpressRESTContentType.PROTOBUF, SEDAPExpressRESTContentType.negotiate("application/json;q=0.5, application/x-protobuf"));
+	Assertions.assertEquals(SEDAPExpressRESTContentType.TEXT, SEDAPExpressRESTContentType.negotiate("application/x-protobuf;q=0, text/*;q=0.2"));
+
+	Assertions.assertEquals(SEDAPExpressRESTContentType.TEXT, SEDAPExpressRESTContentType.fromContentType("text/plain; charset=UTF-8"));
+	Assertions.assertEquals(SEDAPExpressRESTContentType.JSON, SEDAPExpressRESTContentType.fromContentType(null));
+	Assertions.assertNull(SEDAPExpressRESTContentType.fromContentType("application/xml"));
+    }
+}
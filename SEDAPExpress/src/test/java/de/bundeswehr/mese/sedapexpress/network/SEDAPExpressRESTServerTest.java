@@ -0,0 +1,266 @@
+/**
+ * Note: This license has also been called the “Simplified BSD License” and the “FreeBSD License”.
+ *
+ * Copyright 2024-2025 UNIITY POC: Volker Voß, Federal Armed Forces of Germany
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS “AS IS” AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSEnARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ * OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY
+ * OF SUCH DAMAGE.
+ */
+package de.bundeswehr.mese.sedapexpress.network;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage.MessageType;
+import de.bundeswehr.uniity.sedapexpress.network.SEDAPExpressRESTServer;
+import de.bundeswehr.uniity.sedapexpress.utils.HTTPCompressionUtils;
+
+class SEDAPExpressRESTServerTest {
+
+    @Test
+    void testAdmissionControl() throws Exception {
+
+	// The only thread of the server is blocked, so the following requests stay queued
+	ExecutorService executor = Executors.newFixedThreadPool(1);
+	CountDownLatch blocked = new CountDownLatch(1);
+	executor.execute(() -> {
+	    try {
+		blocked.await();
+	    } catch (InterruptedException e) {
+		Thread.currentThread().interrupt();
+	    }
+	});
+
+	SEDAPExpressRESTServer server = new SEDAPExpressRESTServer(50232, 100);
+	server.setMaxInFlightRequests(2, 7);
+	server.setExecutor(executor);
+	Assertions.assertTrue(server.connect());
+
+	HttpClient client = HttpClient.newHttpClient();
+
+	try {
+	    // Two queued requests occupy all slots
+	    List<CompletableFuture<HttpResponse<String>>> waiting = new ArrayList<>();
+	    for (int i = 0; i < 2; i++) {
+		waiting.add(client.sendAsync(HttpRequest.newBuilder(new URI("http://127.0.0.1:50232/SEDAPEXPRESS?since=0")).build(), HttpResponse.BodyHandlers.ofString()));
+	    }
+	    for (int i = 0; (i < 200) && (server.getInFlightRequests() < 2); i++) {
+		Thread.sleep(10);
+	    }
+	    Assertions.assertEquals(2, server.getInFlightRequests());
+
+	    HttpResponse<String> rejected = client.send(HttpRequest.newBuilder(new URI("http://127.0.0.1:50232/SEDAPEXPRESS?since=0")).build(), HttpResponse.BodyHandlers.ofString());
+	    Assertions.assertEquals(503, rejected.statusCode());
+	    Assertions.assertEquals("7", rejected.headers().firstValue("Retry-After").orElse(null));
+	    Assertions.assertEquals(1, server.getRequestMetrics().getRejected());
+
+	    // Releasing the thread answers the queued requests
+	    blocked.countDown();
+	    for (CompletableFuture<HttpResponse<String>> response : waiting) {
+		Assertions.assertEquals(200, response.get().statusCode());
+	    }
+
+	    for (int i = 0; (i < 200) && (server.getRequestMetrics().getCount() < 2); i++) {
+		Thread.sleep(10);
+	    }
+	    Assertions.assertEquals(2, server.getRequestMetrics().getCount());
+	    Assertions.assertTrue(server.getRequestMetrics().getMaxMillis() > 0);
+
+	    HttpResponse<String> accepted = client.send(HttpRequest.newBuilder(new URI("http://127.0.0.1:50232/SEDAPEXPRESS?since=0")).build(), HttpResponse.BodyHandlers.ofString());
+	    Assertions.assertEquals(200, accepted.statusCode());
+
+	} finally {
+	    blocked.countDown();
+	    server.stopCommunicator();
+	}
+    }
+
+    @Test
+    void testStreamsLeaveAdmissionControl() throws Exception {
+
+	SEDAPExpressRESTServer server = new SEDAPExpressRESTServer(50245, 100);
+	server.setMaxInFlightRequests(1, 1);
+	server.enableVirtualThreads();
+	Assertions.assertTrue(server.connect());
+
+	HttpClient client = HttpClient.newHttpClient();
+
+	try {
+	    // Waiting long-polling requests are counted as open streams, not as requests in flight. Each one is admitted as request, until it has
+	    // been recognized as long-polling request.
+	    List<CompletableFuture<HttpResponse<String>>> waiting = new ArrayList<>();
+	    for (int n = 1; n <= 2; n++) {
+		waiting.add(client.sendAsync(HttpRequest.newBuilder(new URI("http://127.0.0.1:50245/SEDAPEXPRESS?since=0&wait=5000")).build(), HttpResponse.BodyHandlers.ofString()));
+		for (int i = 0; (i < 200) && (server.getOpenStreams() < n); i++) {
+		    Thread.sleep(10);
+		}
+		Assertions.assertEquals(n, server.getOpenStreams());
+	    }
+	    Assertions.assertEquals(0, server.getInFlightRequests());
+
+	    // Plain requests are still admitted
+	    HttpResponse<String> accepted = client.send(HttpRequest.newBuilder(new URI("http://127.0.0.1:50245/SEDAPEXPRESS?since=0")).build(), HttpResponse.BodyHandlers.ofString());
+	    Assertions.assertEquals(200, accepted.statusCode());
+	    Assertions.assertEquals(0, server.getRequestMetrics().getRejected());
+
+	    server.sendSEDAPExpressMessage(SEDAPExpressMessage.deserialize("HEARTBEAT;42;661D5420;89AD;U"));
+	    for (CompletableFuture<HttpResponse<String>> response : waiting) {
+		Assertions.assertEquals(200, response.get().statusCode());
+	    }
+
+	    for (int i = 0; (i < 200) && (server.getOpenStreams() > 0); i++) {
+		Thread.sleep(10);
+	    }
+	    Assertions.assertEquals(0, server.getOpenStreams());
+
+	    // Only the plain request has been recorded in the latency metrics
+	    Assertions.assertEquals(1, server.getRequestMetrics().getCount());
+
+	} finally {
+	    server.stopCommunicator();
+	}
+    }
+
+    @Test
+    void testResponseCompression() throws Exception {
+
+	SEDAPExpressRESTServer server = new SEDAPExpressRESTServer(50242, 100);
+	Assertions.assertTrue(server.connect());
+
+	HttpClient client = HttpClient.newHttpClient();
+	HttpRequest request = HttpRequest.newBuilder(new URI("http://127.0.0.1:50242/SEDAPEXPRESS?since=0")).header("Accept-Encoding", HTTPCompressionUtils.GZIP).build();
+
+	try {
+	    // Small responses are sent uncompressed, the accepted request codings are always announced
+	    server.sendSEDAPExpressMessage(SEDAPExpressMessage.deserialize("HEARTBEAT;42;661D5420;89AD;U"));
+	    HttpResponse<byte[]> small = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+	    Assertions.assertEquals(200, small.statusCode());
+	    Assertions.assertTrue(small.headers().firstValue("Content-Encoding").isEmpty());
+	    Assertions.assertEquals(HTTPCompressionUtils.ACCEPT_ENCODING, small.headers().firstValue("Accept-Encoding").orElse(null));
+	    Assertions.assertTrue(new String(small.body(), StandardCharsets.UTF_8).contains("HEARTBEAT"));
+
+	    // Large responses are compressed while they are written
+	    for (int i = 0; i < 500; i++) {
+		server.sendSEDAPExpressMessage(SEDAPExpressMessage.deserialize("HEARTBEAT;" + (i % 100) + ";661D5420;89AD;U"));
+	    }
+	    HttpResponse<byte[]> large = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+	    Assertions.assertEquals(200, large.statusCode());
+	    Assertions.assertEquals(HTTPCompressionUtils.GZIP, large.headers().firstValue("Content-Encoding").orElse(null));
+
+	    try (InputStream body = HTTPCompressionUtils.decompress(new ByteArrayInputStream(large.body()), HTTPCompressionUtils.GZIP)) {
+		Assertions.assertEquals(501, new String(body.readAllBytes(), StandardCharsets.UTF_8).split("HEARTBEAT").length - 1);
+	    }
+
+	} finally {
+	    server.stopCommunicator();
+	}
+    }
+
+    @Test
+    void testPostValidation() throws Exception {
+
+	SEDAPExpressRESTServer server = new SEDAPExpressRESTServer(50253, 100);
+	Assertions.assertTrue(server.connect());
+
+	List<SEDAPExpressMessage> received = new CopyOnWriteArrayList<>();
+	server.subscribeMessages(received::add, MessageType.HEARTBEAT);
+
+	HttpClient client = HttpClient.newHttpClient();
+	URI uri = new URI("http://127.0.0.1:50253/SEDAPEXPRESS");
+
+	try {
+	    // Invalid lines are skipped and reported, the valid ones are distributed
+	    String text = "HEARTBEAT;42;661D5420;89AD;U\nNO MESSAGE\nHEARTBEAT;43;661D5420;89AD;U\n";
+	    HttpResponse<String> accepted = client.send(HttpRequest.newBuilder(uri).header("Content-Type", "text/plain;charset=UTF-8").POST(HttpRequest.BodyPublishers.ofString(text)).build(),
+		    HttpResponse.BodyHandlers.ofString());
+	    Assertions.assertEquals(200, accepted.statusCode());
+	    Assertions.assertTrue(accepted.body().contains("\"received\":2"));
+	    Assertions.assertTrue(accepted.body().contains("\"rejected\":1"));
+
+	    long deadline = System.currentTimeMillis() + 5000;
+	    while ((received.size() < 2) && (System.currentTimeMillis() < deadline)) {
+		Thread.sleep(10);
+	    }
+	    Assertions.assertEquals(2, received.size());
+
+	    // A malformed batch is rejected without distributing the messages in front of the error
+	    String json = "{\"messages\":[{\"message\":\"HEARTBEAT;44;661D5420;89AD;U\"},{\"message\":";
+	    HttpResponse<String> rejected = client.send(HttpRequest.newBuilder(uri).header("Content-Type", "application/json").POST(HttpRequest.BodyPublishers.ofString(json)).build(),
+		    HttpResponse.BodyHandlers.ofString());
+	    Assertions.assertEquals(400, rejected.statusCode());
+
+	    Thread.sleep(200);
+	    Assertions.assertEquals(2, received.size());
+
+	} finally {
+	    server.stopCommunicator();
+	}
+    }
+
+    @Test
+    void testClientCursors() throws Exception {
+
+	SEDAPExpressRESTServer server = new SEDAPExpressRESTServer(50254, 100);
+	Assertions.assertTrue(server.connect());
+
+	HttpClient client = HttpClient.newHttpClient();
+
+	try {
+	    server.sendSEDAPExpressMessage(SEDAPExpressMessage.deserialize("HEARTBEAT;42;661D5420;89AD;U"));
+
+	    // Clients behind the same address get all messages with their own cursor
+	    for (String id : List.of("a", "b")) {
+		HttpRequest request = HttpRequest.newBuilder(new URI("http://127.0.0.1:50254/SEDAPEXPRESS?client=" + id)).build();
+		Assertions.assertTrue(client.send(request, HttpResponse.BodyHandlers.ofString()).body().contains("HEARTBEAT;42"));
+		Assertions.assertFalse(client.send(request, HttpResponse.BodyHandlers.ofString()).body().contains("HEARTBEAT"));
+	    }
+
+	    // Requests without any parameter share one cursor
+	    HttpRequest shared = HttpRequest.newBuilder(new URI("http://127.0.0.1:50254/SEDAPEXPRESS")).build();
+	    Assertions.assertTrue(client.send(shared, HttpResponse.BodyHandlers.ofString()).body().contains("HEARTBEAT;42"));
+	    Assertions.assertFalse(client.send(shared, HttpResponse.BodyHandlers.ofString()).body().contains("HEARTBEAT"));
+
+	    server.sendSEDAPExpressMessage(SEDAPExpressMessage.deserialize("HEARTBEAT;43;661D5420;89AD;U"));
+	    HttpRequest request = HttpRequest.newBuilder(new URI("http://127.0.0.1:50254/SEDAPEXPRESS?client=a")).build();
+	    String body = client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+	    Assertions.assertTrue(body.contains("HEARTBEAT;43"));
+	    Assertions.assertFalse(body.contains("HEARTBEAT;42"));
+
+	} finally {
+	    server.stopCommunicator();
+	}
+    }
+}
@@ -0,0 +1,314 @@
+/**
+ * Note: This license has also been called the “Simplified BSD License” and the “FreeBSD License”.
+ *
+ * Copyright 2024-2025 UNIITY POC: Volker Voß, Federal Armed Forces of Germany
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS “AS IS” AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSEnARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ * OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY
+ * OF SUCH DAMAGE.
+ */
+package de.bundeswehr.mese.sedapexpress.network;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import de.bundeswehr.uniity.sedapexpress.messages.CONTACT;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage.MessageType;
+import de.bundeswehr.uniity.sedapexpress.network.SEDAPExpressCapabilities;
+import de.bundeswehr.uniity.sedapexpress.network.SEDAPExpressCapabilities.Compression;
+import de.bundeswehr.uniity.sedapexpress.network.SEDAPExpressCapabilities.Encoding;
+import de.bundeswehr.uniity.sedapexpress.network.SEDAPExpressMessageFilter;
+import de.bundeswehr.uniity.sedapexpress.network.SEDAPExpressProtobufTCPClient;
+import de.bundeswehr.uniity.sedapexpress.network.SEDAPExpressProtobufTCPServer;
+import de.bundeswehr.uniity.sedapexpress.network.SEDAPExpressReceivePipeline;
+import de.bundeswehr.uniity.sedapexpress.network.SEDAPExpressTCPClient;
+import de.bundeswehr.uniity.sedapexpress.network.SEDAPExpressTCPServer;
+import de.bundeswehr.uniity.sedapexpress.network.SEDAPExpressWebSocketClient;
+import de.bundeswehr.uniity.sedapexpress.network.SEDAPExpressWebSocketServer;
+
+class SEDAPExpressReceivePipelineTest {
+
+    private static final String CONTACT_TEMPLATE = "CONTACT;66;1B351C87;59CE;U;FALSE;;%08X;;43.21;-111.22;10011.0;1.0;2.0;3.0;200.0;275.0;10.0;20.0;30.0;33.0;22.0;11.0;Track Alpha;RA;SFAPMF---------;221333201;FA550C;;";
+
+    private static final SEDAPExpressCapabilities COMPRESSED = new SEDAPExpressCapabilities(EnumSet.of(Encoding.COMPRESSED), EnumSet.of(Compression.DEFLATE), 0, true);
+
+    private static String createContact(int id) {
+	return String.format(CONTACT_TEMPLATE, id);
+    }
+
+    private static int getId(SEDAPExpressMessage message) {
+	return Integer.parseInt(((CONTACT) message).getContactID(), 16);
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+
+	for (int i = 0; (i < 500) && !condition.getAsBoolean(); i++) {
+	    Thread.sleep(10);
+	}
+    }
+
+    @Test
+    void testOrder() throws Exception {
+
+	List<SEDAPExpressMessage> received = new ArrayList<>();
+	AtomicInteger concurrent = new AtomicInteger();
+	AtomicInteger maxConcurrent = new AtomicInteger();
+
+	// The small buffer lets the publisher wait for the slow decoding
+	try (SEDAPExpressReceivePipeline pipeline = new SEDAPExpressReceivePipeline(8, 4, message -> {
+	    maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+	    received.add(message);
+	    concurrent.decrementAndGet();
+	})) {
+
+	    Assertions.assertEquals(8, pipeline.getBufferSize());
+
+	    for (int id = 0; id < 2000; id++) {
+		Assertions.assertTrue(pipeline.publish(createContact(id), line -> {
+		    if (ThreadLocalRandom.current().nextInt(50) == 0) {
+			try {
+			    Thread.sleep(1);
+			} catch (InterruptedException e) {
+			}
+		    }
+		    return SEDAPExpressMessage.deserialize(line);
+		}));
+	    }
+
+	    waitFor(() -> pipeline.getDelivered() == 2000);
+	    Assertions.assertEquals(2000, pipeline.getPublished());
+	    Assertions.assertEquals(2000, pipeline.getDelivered());
+	    Assertions.assertEquals(2000, pipeline.getLagMetrics().getCount());
+	    Assertions.assertEquals(0, pipeline.getDepth());
+
+	    // Decoded in parallel, but dispatched in order by one thread
+	    Assertions.assertEquals(1, maxConcurrent.get());
+	    synchronized (received) {
+		for (int id = 0; id < 2000; id++) {
+		    Assertions.assertEquals(id, getId(received.get(id)));
+		}
+	    }
+	}
+    }
+
+    @Test
+    void testPublishers() throws Exception {
+
+	List<SEDAPExpressMessage> received = new CopyOnWriteArrayList<>();
+
+	try (SEDAPExpressReceivePipeline pipeline = new SEDAPExpressReceivePipeline(16, 3, received::add)) {
+
+	    // Every publisher uses its own range of IDs
+	    List<Thread> publishers = new ArrayList<>();
+	    for (int p = 0; p < 4; p++) {
+		final int first = p * 1000;
+		publishers.add(new Thread(() -> {
+		    for (int id = first; id < (first + 500); id++) {
+			pipeline.publish(createContact(id), SEDAPExpressMessage::deserialize);
+		    }
+		}));
+	    }
+	    publishers.forEach(Thread::start);
+	    for (Thread publisher : publishers) {
+		publisher.join(5000);
+	    }
+
+	    waitFor(() -> received.size() == 2000);
+	    Assertions.assertEquals(2000, received.size());
+
+	    // The order of every publisher has been kept
+	    int[] last = { -1, 999, 1999, 2999 };
+	    for (SEDAPExpressMessage message : received) {
+		int id = getId(message);
+		Assertions.assertEquals(last[id / 1000] + 1, id);
+		last[id / 1000] = id;
+	    }
+	}
+    }
+
+    @Test
+    void testDiscardAndFailure() throws Exception {
+
+	List<SEDAPExpressMessage> received = new CopyOnWriteArrayList<>();
+
+	SEDAPExpressReceivePipeline pipeline = new SEDAPExpressReceivePipeline(64, 2, message -> {
+	    if (getId(message) == 4) {
+		throw new IllegalStateException("Test");
+	    }
+	    received.add(message);
+	});
+
+	pipeline.setValidator(SEDAPExpressMessageFilter.fromQuery(Map.of(SEDAPExpressMessageFilter.TYPES_PARAMETER, "CONTACT")));
+
+	pipeline.publish(createContact(1), SEDAPExpressMessage::deserialize);
+	pipeline.publish("HEARTBEAT;42;661D5420;89AD;U", SEDAPExpressMessage::deserialize); // Rejected by the validator
+	pipeline.publish("Garbage", line -> null); // Not decodable
+	pipeline.publish(createContact(2), line -> {
+	    throw new IllegalArgumentException("Test");
+	});
+	pipeline.publish(createContact(3), SEDAPExpressMessage::deserialize);
+	pipeline.publish(createContact(4), SEDAPExpressMessage::deserialize); // Subscriber fails
+	pipeline.publish(createContact(5), SEDAPExpressMessage::deserialize);
+
+	// Closing still dispatches the published frames
+	pipeline.close();
+	Assertions.assertFalse(pipeline.publish(createContact(6), SEDAPExpressMessage::deserialize));
+
+	waitFor(() -> received.size() == 3);
+	Assertions.assertEquals(List.of(1, 3, 5), received.stream().map(SEDAPExpressReceivePipelineTest::getId).toList());
+	Assertions.assertEquals(7, pipeline.getPublished());
+	Assertions.assertEquals(2, pipeline.getDiscarded());
+	Assertions.assertEquals(2, pipeline.getFailed());
+    }
+
+    @Test
+    void testTCP() throws Exception {
+
+	SEDAPExpressTCPServer server = new SEDAPExpressTCPServer("127.0.0.1", 50239);
+	server.setCapabilities(COMPRESSED);
+	List<SEDAPExpressMessage> received = new CopyOnWriteArrayList<>();
+	server.subscribeMessages(received::add, MessageType.CONTACT, MessageType.GENERIC);
+	SEDAPExpressReceivePipeline pipeline = server.enableReceivePipeline(256, 4);
+	Assertions.assertTrue(server.connect());
+
+	SEDAPExpressTCPClient client = new SEDAPExpressTCPClient("127.0.0.1", 50239);
+	client.setCapabilities(COMPRESSED);
+
+	try {
+	    // The capabilities of the client are decoded by the pipeline, but not distributed
+	    Assertions.assertTrue(client.connect());
+	    waitFor(() -> client.getNegotiatedCapabilities() != null);
+
+	    for (int id = 0; id < 500; id++) {
+		client.sendSEDAPExpressMessage(SEDAPExpressMessage.deserialize(createContact(id)));
+	    }
+
+	    waitFor(() -> received.size() == 500);
+	    Assertions.assertEquals(500, received.size());
+	    for (int id = 0; id < 500; id++) {
+		Assertions.assertEquals(id, getId(received.get(id)));
+	    }
+	    Assertions.assertEquals(500, pipeline.getDelivered());
+
+	    // Without the pipeline the messages are distributed directly again
+	    server.disableReceivePipeline();
+	    Assertions.assertFalse(pipeline.isOpen());
+	    client.sendSEDAPExpressMessage(SEDAPExpressMessage.deserialize(createContact(500)));
+	    waitFor(() -> received.size() == 501);
+	    Assertions.assertEquals(501, received.size());
+	    Assertions.assertEquals(500, pipeline.getDelivered());
+
+	} finally {
+	    client.stopCommunicator();
+	    server.stopCommunicator();
+	}
+    }
+
+    @Test
+    void testProtobufTCP() throws Exception {
+
+	SEDAPExpressProtobufTCPServer server = new SEDAPExpressProtobufTCPServer("127.0.0.1", 50249);
+	List<SEDAPExpressMessage> received = new CopyOnWriteArrayList<>();
+	server.subscribeMessages(received::add, MessageType.CONTACT);
+	SEDAPExpressReceivePipeline pipeline = server.enableReceivePipeline(256, 4);
+	Assertions.assertTrue(server.connect());
+
+	SEDAPExpressProtobufTCPClient client = new SEDAPExpressProtobufTCPClient("127.0.0.1", 50249);
+
+	try {
+	    Assertions.assertTrue(client.connect());
+
+	    // The envelopes are copied out of the reused receive buffer before they are decoded
+	    List<SEDAPExpressMessage> batch = new ArrayList<>();
+	    for (int id = 0; id < 2000; id++) {
+		batch.add(SEDAPExpressMessage.deserialize(createContact(id)));
+	    }
+	    client.sendSEDAPExpressMessages(batch);
+
+	    waitFor(() -> received.size() == 2000);
+	    Assertions.assertEquals(2000, received.size());
+	    for (int id = 0; id < 2000; id++) {
+		Assertions.assertEquals(id, getId(received.get(id)));
+	    }
+	    Assertions.assertEquals(2000, pipeline.getDelivered());
+
+	} finally {
+	    client.stopCommunicator();
+	    server.stopCommunicator();
+	}
+    }
+
+    @Test
+    void testWebSocketProtobuf() throws Exception {
+
+	SEDAPExpressCapabilities protobuf = new SEDAPExpressCapabilities(EnumSet.of(Encoding.PROTOBUF), EnumSet.of(Compression.NONE), 0, true);
+
+	SEDAPExpressWebSocketServer server = new SEDAPExpressWebSocketServer("127.0.0.1", 50250);
+	server.setCapabilities(protobuf);
+	List<SEDAPExpressMessage> serverReceived = new CopyOnWriteArrayList<>();
+	server.subscribeMessages(serverReceived::add, MessageType.CONTACT, MessageType.GENERIC);
+	SEDAPExpressReceivePipeline serverPipeline = server.enableReceivePipeline(256, 4);
+	Assertions.assertTrue(server.connect());
+
+	SEDAPExpressWebSocketClient client = new SEDAPExpressWebSocketClient("ws://127.0.0.1:50250/SEDAPEXPRESS");
+	client.setCapabilities(protobuf);
+	List<SEDAPExpressMessage> clientReceived = new CopyOnWriteArrayList<>();
+	client.subscribeMessages(clientReceived::add, MessageType.CONTACT, MessageType.GENERIC);
+	SEDAPExpressReceivePipeline clientPipeline = client.enableReceivePipeline(256, 4);
+
+	try {
+	    // The capabilities are applied by the receiving thread, before any binary frame is handed over to the pipeline
+	    Assertions.assertTrue(client.connect());
+	    waitFor(() -> client.getNegotiatedCapabilities() != null);
+	    Assertions.assertEquals(Encoding.PROTOBUF, client.getNegotiatedCapabilities().getEncoding());
+
+	    List<SEDAPExpressMessage> batch = new ArrayList<>();
+	    for (int id = 0; id < 500; id++) {
+		batch.add(SEDAPExpressMessage.deserialize(createContact(id)));
+	    }
+	    client.sendSEDAPExpressMessages(batch);
+	    waitFor(() -> serverReceived.size() == 500);
+	    Assertions.assertEquals(500, serverReceived.size());
+	    Assertions.assertEquals(499, getId(serverReceived.get(499)));
+	    Assertions.assertEquals(500, serverPipeline.getDelivered());
+
+	    server.sendSEDAPExpressMessages(batch);
+	    waitFor(() -> clientReceived.size() == 500);
+	    Assertions.assertEquals(500, clientReceived.size());
+	    for (int id = 0; id < 500; id++) {
+		Assertions.assertEquals(id, getId(clientReceived.get(id)));
+	    }
+	    Assertions.assertEquals(500, clientPipeline.getDelivered());
+
+	} finally {
+	    client.stopCommunicator();
+	    server.stopCommunicator();
+	}
+    }
+}
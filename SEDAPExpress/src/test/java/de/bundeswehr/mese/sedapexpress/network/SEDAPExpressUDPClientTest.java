@@ -0,0 +1,130 @@
+/**
+ * Note: This license has also been called the “Simplified BSD License” and the “FreeBSD License”.
+ *
+ * Copyright 2024-2025 UNIITY POC: Volker Voß, Federal Armed Forces of Germany
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS “AS IS” AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSEnARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ * OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY
+ * OF SUCH DAMAGE.
+ */
+package de.bundeswehr.mese.sedapexpress.network;
+
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage.MessageType;
+import de.bundeswehr.uniity.sedapexpress.network.SEDAPExpressUDPClient;
+
+class SEDAPExpressUDPClientTest {
+
+    private static final String HEARTBEAT = "HEARTBEAT;%d;661D5420;%04X;U";
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+
+	for (int i = 0; (i < 500) && !condition.getAsBoolean(); i++) {
+	    Thread.sleep(10);
+	}
+    }
+
+    /**
+     * Datagrams from the own addresses are ignored by the client, so the test sends from another loopback address
+     */
+    private static DatagramSocket createSender() throws Exception {
+
+	try {
+	    return new DatagramSocket(new InetSocketAddress(InetAddress.getByName("127.0.0.2"), 0));
+	} catch (Exception e) {
+	    Assumptions.abort("127.0.0.2 is not available: " + e.getLocalizedMessage());
+	    return null;
+	}
+    }
+
+    @Test
+    void testReceivers() throws Exception {
+
+	SEDAPExpressUDPClient client = new SEDAPExpressUDPClient("127.0.0.1", 50240, 4);
+	List<SEDAPExpressMessage> received = new CopyOnWriteArrayList<>();
+	Set<Thread> threads = ConcurrentHashMap.newKeySet();
+	client.subscribeMessages(message -> {
+	    threads.add(Thread.currentThread());
+	    received.add(message);
+	}, MessageType.HEARTBEAT);
+
+	final int sockets = SEDAPExpressUDPClient.isReusePortSupported() ? 4 : 1;
+
+	try {
+	    // Reconnecting must not keep the closed sockets
+	    for (int round = 0; round < 2; round++) {
+
+		received.clear();
+		Assertions.assertTrue(client.connect());
+		Assertions.assertEquals(sockets, client.getReceivingSocketCount());
+
+		// Several senders, so the kernel distributes the flows over the sockets
+		for (int sender = 0; sender < 16; sender++) {
+		    try (DatagramSocket socket = createSender()) {
+			byte[] data = String.format(HEARTBEAT, round, sender).getBytes();
+			socket.send(new DatagramPacket(data, data.length, InetAddress.getByName("127.0.0.1"), 50240));
+		    }
+		}
+
+		waitFor(() -> received.size() == 16);
+		Assertions.assertEquals(16, received.size());
+
+		client.stopCommunicator();
+		Assertions.assertEquals(0, client.getReceivingSocketCount());
+	    }
+
+	    // The receiving threads of the sockets are daemons named after the port
+	    if (sockets > 1) {
+		Assertions.assertTrue(threads.stream().allMatch(thread -> thread.isDaemon() && thread.getName().startsWith("SEDAPExpressUDPClient-50240-")));
+	    }
+
+	} finally {
+	    client.stopCommunicator();
+	}
+    }
+
+    @Test
+    void testSingleSocketFallback() throws Exception {
+
+	// Multicast receivers always use one socket
+	SEDAPExpressUDPClient client = new SEDAPExpressUDPClient("239.255.0.1", 50241, 4);
+
+	try {
+	    Assertions.assertTrue(client.connect());
+	    Assertions.assertEquals(1, client.getReceivingSocketCount());
+	} finally {
+	    client.stopCommunicator();
+	}
+	Assertions.assertEquals(0, client.getReceivingSocketCount());
+    }
+}
@@ -0,0 +1,191 @@
+/**
+ * Note: This license has also been called the “Simplified BSD License” and the “FreeBSD License”.
+ *
+ * Copyright 2024-2025 UNIITY POC: Volker Voß, Federal Armed Forces of Germany
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS “AS IS” AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSEnARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ * OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY
+ * OF SUCH DAMAGE.
+ */
+package de.bundeswehr.mese.sedapexpress.network;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import de.bundeswehr.uniity.sedapexpress.network.SEDAPExpressUDPFEC;
+
+class SEDAPExpressUDPFECTest {
+
+    private static final InetSocketAddress SENDER = new InetSocketAddress("10.0.0.1", 10000);
+
+    /**
+     * Simple loss simulation: sends the given messages through the FEC coder over a channel which loses datagrams with the given probability
+     *
+     * @return the messages delivered to the receiver
+     */
+    private static Set<String> simulateLossyLink(SEDAPExpressUDPFEC sender, SEDAPExpressUDPFEC receiver, List<String> messages, double lossRate, long seed) {
+
+	final Random random = new Random(seed);
+	final Set<String> delivered = new HashSet<>();
+
+	for (String message : messages) {
+	    for (byte[] datagram : sender.encode(message.getBytes())) {
+		if (random.nextDouble() >= lossRate) {
+		    receiver.decode(SEDAPExpressUDPFECTest.SENDER, datagram, datagram.length).forEach(payload -> delivered.add(new String(payload)));
+		}
+	    }
+	}
+
+	return delivered;
+    }
+
+    private static List<String> createMessages(int count) {
+
+	final List<String> messages = new ArrayList<>();
+	for (int i = 0; i < count; i++) {
+	    messages.add("CONTACT;;;;;;;" + i + ";53.32" + i + ";8.11" + i + ";" + "x".repeat(i % 37) + ";;Ship");
+	}
+	return messages;
+    }
+
+    @Test
+    void testNoLoss() {
+
+	SEDAPExpressUDPFEC sender = new SEDAPExpressUDPFEC(4, 64, 5000);
+	SEDAPExpressUDPFEC receiver = new SEDAPExpressUDPFEC(4, 64, 5000);
+
+	List<String> messages = createMessages(100);
+
+	Assertions.assertEquals(new HashSet<>(messages), SEDAPExpressUDPFECTest.simulateLossyLink(sender, receiver, messages, 0.0, 1));
+	Assertions.assertEquals(0, receiver.getRecoveredDatagrams());
+    }
+
+    @Test
+    void testRecoverOneLossPerGroup() {
+
+	SEDAPExpressUDPFEC sender = new SEDAPExpressUDPFEC(4, 64, 5000);
+	SEDAPExpressUDPFEC receiver = new SEDAPExpressUDPFEC(4, 64, 5000);
+
+	List<String> messages = createMessages(40);
+	Set<String> delivered = new HashSet<>();
+
+	int counter = 0;
+	for (String message : messages) {
+	    List<byte[]> datagrams = sender.encode(message.getBytes());
+	    // Drop the third data datagram of every group
+	    if ((counter++ % 4) == 2) {
+		datagrams.remove(0);
+	    }
+	    datagrams.forEach(datagram -> receiver.decode(SEDAPExpressUDPFECTest.SENDER, datagram, datagram.length).forEach(payload -> delivered.add(new String(payload))));
+	}
+
+	Assertions.assertEquals(new HashSet<>(messages), delivered);
+	Assertions.assertEquals(10, receiver.getRecoveredDatagrams());
+    }
+
+    @Test
+    void testFlushIncompleteGroup() {
+
+	SEDAPExpressUDPFEC sender = new SEDAPExpressUDPFEC(8, 64, 5000);
+	SEDAPExpressUDPFEC receiver = new SEDAPExpressUDPFEC(8, 64, 5000);
+
+	List<byte[]> datagrams = new ArrayList<>();
+	datagrams.addAll(sender.encode("OWNUNIT;1".getBytes()));
+	datagrams.addAll(sender.encode("OWNUNIT;22".getBytes()));
+	datagrams.addAll(sender.encode("OWNUNIT;333".getBytes()));
+	datagrams.add(sender.flush(0));
+
+	Assertions.assertNull(sender.flush(0));
+
+	datagrams.remove(1); // Lost
+
+	Set<String> delivered = new HashSet<>();
+	datagrams.forEach(datagram -> receiver.decode(SEDAPExpressUDPFECTest.SENDER, datagram, datagram.length).forEach(payload -> delivered.add(new String(payload))));
+
+	Assertions.assertEquals(Set.of("OWNUNIT;1", "OWNUNIT;22", "OWNUNIT;333"), delivered);
+    }
+
+    @Test
+    void testUnrecoverableGroups() throws Exception {
+
+	SEDAPExpressUDPFEC sender = new SEDAPExpressUDPFEC(8, 64, 5000);
+	SEDAPExpressUDPFEC receiver = new SEDAPExpressUDPFEC(8, 64, 0);
+
+	// Flushed group with lost parity, but without missing data
+	List<byte[]> datagrams = new ArrayList<>();
+	datagrams.addAll(sender.encode("OWNUNIT;1".getBytes()));
+	datagrams.addAll(sender.encode("OWNUNIT;22".getBytes()));
+	sender.flush(0);
+
+	// Flushed group with lost parity and a gap
+	datagrams.addAll(sender.encode("OWNUNIT;333".getBytes()));
+	sender.encode("OWNUNIT;4444".getBytes());
+	datagrams.addAll(sender.encode("OWNUNIT;55555".getBytes()));
+	sender.flush(0);
+
+	datagrams.forEach(datagram -> receiver.decode(SEDAPExpressUDPFECTest.SENDER, datagram, datagram.length));
+
+	// The next datagram expires the pending groups
+	Thread.sleep(5);
+	byte[] last = sender.encode("OWNUNIT;6".getBytes()).get(0);
+	receiver.decode(SEDAPExpressUDPFECTest.SENDER, last, last.length);
+
+	Assertions.assertEquals(1, receiver.getUnrecoverableGroups());
+    }
+
+    @Test
+    void testDuplicatesAreIgnored() {
+
+	SEDAPExpressUDPFEC sender = new SEDAPExpressUDPFEC(2, 64, 5000);
+	SEDAPExpressUDPFEC receiver = new SEDAPExpressUDPFEC(2, 64, 5000);
+
+	byte[] first = sender.encode("TEXT;1".getBytes()).get(0);
+
+	Assertions.assertEquals(1, receiver.decode(SEDAPExpressUDPFECTest.SENDER, first, first.length).size());
+	Assertions.assertEquals(0, receiver.decode(SEDAPExpressUDPFECTest.SENDER, first, first.length).size());
+    }
+
+    @Test
+    void testRandomLossSimulation() {
+
+	List<String> messages = createMessages(10000);
+
+	for (double lossRate : new double[] { 0.01, 0.05, 0.1 }) {
+
+	    SEDAPExpressUDPFEC sender = new SEDAPExpressUDPFEC(4, 64, 5000);
+	    SEDAPExpressUDPFEC receiver = new SEDAPExpressUDPFEC(4, 64, 5000);
+
+	    Set<String> delivered = SEDAPExpressUDPFECTest.simulateLossyLink(sender, receiver, messages, lossRate, 4711);
+
+	    // Without FEC about lossRate * messages would be lost
+	    double residualLoss = 1.0 - ((double) delivered.size() / messages.size());
+
+	    Assertions.assertTrue(messages.containsAll(delivered));
+	    Assertions.assertTrue(residualLoss < (lossRate / 2), "Residual loss too high: " + residualLoss);
+	    Assertions.assertTrue(receiver.getRecoveredDatagrams() > 0);
+	}
+    }
+}
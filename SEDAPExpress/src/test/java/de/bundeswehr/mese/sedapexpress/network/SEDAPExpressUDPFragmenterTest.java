@@ -0,0 +1,140 @@
+/**
+ * Note: This license has also been called the “Simplified BSD License” and the “FreeBSD License”.
+ *
+ * Copyright 2024-2025 UNIITY POC: Volker Voß, Federal Armed Forces of Germany
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS “AS IS” AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSEnARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ * OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY
+ * OF SUCH DAMAGE.
+ */
+package de.bundeswehr.mese.sedapexpress.network;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import de.bundeswehr.uniity.sedapexpress.network.SEDAPExpressUDPFragmenter;
+
+class SEDAPExpressUDPFragmenterTest {
+
+    private static final InetSocketAddress SENDER = new InetSocketAddress("10.0.0.1", 10000);
+
+    private static byte[] createMessage(int size) {
+
+	byte[] data = new byte[size];
+	new Random(4711).nextBytes(data);
+	return data;
+    }
+
+    @Test
+    void testSmallMessageIsNotFragmented() {
+
+	SEDAPExpressUDPFragmenter fragmenter = new SEDAPExpressUDPFragmenter();
+
+	byte[] message = "HEARTBEAT;42;661D5420;89AD;U".getBytes();
+	List<byte[]> fragments = fragmenter.fragment(message);
+
+	Assertions.assertEquals(1, fragments.size());
+	Assertions.assertSame(message, fragments.get(0));
+	Assertions.assertFalse(SEDAPExpressUDPFragmenter.isFragment(message, message.length));
+    }
+
+    @Test
+    void testFragmentationAndReassemblyOutOfOrder() {
+
+	SEDAPExpressUDPFragmenter fragmenter = new SEDAPExpressUDPFragmenter();
+
+	byte[] message = createMessage(65000);
+	List<byte[]> fragments = new ArrayList<>(fragmenter.fragment(message));
+
+	Assertions.assertEquals(47, fragments.size());
+	fragments.forEach(fragment -> Assertions.assertTrue(fragment.length <= SEDAPExpressUDPFragmenter.DEFAULT_MAX_DATAGRAM_SIZE));
+
+	Collections.shuffle(fragments, new Random(42));
+
+	byte[] result = null;
+	for (int i = 0; i < fragments.size(); i++) {
+	    result = fragmenter.reassemble(SEDAPExpressUDPFragmenterTest.SENDER, fragments.get(i), fragments.get(i).length);
+	    if (i < fragments.size() - 1) {
+		Assertions.assertNull(result);
+	    }
+	}
+
+	Assertions.assertArrayEquals(message, result);
+	Assertions.assertEquals(0, fragmenter.getPendingMessages());
+    }
+
+    @Test
+    void testLostFragmentTimesOut() throws InterruptedException {
+
+	SEDAPExpressUDPFragmenter fragmenter = new SEDAPExpressUDPFragmenter(1000, 8, 100000, 10);
+
+	List<byte[]> lost = fragmenter.fragment(createMessage(5000));
+	for (int i = 1; i < lost.size(); i++) {
+	    Assertions.assertNull(fragmenter.reassemble(SEDAPExpressUDPFragmenterTest.SENDER, lost.get(i), lost.get(i).length));
+	}
+	Assertions.assertEquals(1, fragmenter.getPendingMessages());
+
+	Thread.sleep(50);
+
+	byte[] message = createMessage(3000);
+	byte[] result = null;
+	for (byte[] fragment : fragmenter.fragment(message)) {
+	    result = fragmenter.reassemble(SEDAPExpressUDPFragmenterTest.SENDER, fragment, fragment.length);
+	}
+
+	Assertions.assertArrayEquals(message, result);
+	Assertions.assertEquals(0, fragmenter.getPendingMessages());
+	Assertions.assertEquals(1, fragmenter.getDroppedMessages());
+    }
+
+    @Test
+    void testPendingMessagesAreBounded() {
+
+	SEDAPExpressUDPFragmenter fragmenter = new SEDAPExpressUDPFragmenter(1000, 4, 100000, 10000);
+
+	for (int i = 0; i < 10; i++) {
+	    byte[] first = fragmenter.fragment(createMessage(5000)).get(0);
+	    fragmenter.reassemble(SEDAPExpressUDPFragmenterTest.SENDER, first, first.length);
+	}
+
+	Assertions.assertEquals(4, fragmenter.getPendingMessages());
+	Assertions.assertEquals(6, fragmenter.getDroppedMessages());
+    }
+
+    @Test
+    void testMaximumMessageSize() {
+
+	SEDAPExpressUDPFragmenter sender = new SEDAPExpressUDPFragmenter();
+	SEDAPExpressUDPFragmenter receiver = new SEDAPExpressUDPFragmenter(1400, 4, 10000, 10000);
+
+	byte[] result = null;
+	for (byte[] fragment : sender.fragment(createMessage(20000))) {
+	    result = receiver.reassemble(SEDAPExpressUDPFragmenterTest.SENDER, fragment, fragment.length);
+	}
+
+	Assertions.assertNull(result);
+	Assertions.assertEquals(1, receiver.getDroppedMessages());
+    }
+}
@@ -0,0 +1,187 @@
+/**
+ * Note: This license has also been called the “Simplified BSD License” and the “FreeBSD License”.
+ *
+ * Copyright 2024-2025 UNIITY POC: Volker Voß, Federal Armed Forces of Germany
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS “AS IS” AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSEnARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ * OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY
+ * OF SUCH DAMAGE.
+ */
+package de.bundeswehr.mese.sedapexpress.network;
+
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import de.bundeswehr.uniity.sedapexpress.messages.GENERIC;
+import de.bundeswehr.uniity.sedapexpress.messages.GENERIC.ContentType;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage.DataEncoding;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage.MessageType;
+import de.bundeswehr.uniity.sedapexpress.network.SEDAPExpressWebSocketClient;
+import de.bundeswehr.uniity.sedapexpress.network.SEDAPExpressWebSocketServer;
+
+class SEDAPExpressWebSocketTest {
+
+    private static void waitFor(List<?> list, int size) throws InterruptedException {
+
+	for (int i = 0; (i < 500) && (list.size() < size); i++) {
+	    Thread.sleep(10);
+	}
+    }
+
+    @Test
+    void testFullDuplex() throws Exception {
+
+	SEDAPExpressWebSocketServer server = new SEDAPExpressWebSocketServer("127.0.0.1", 50231);
+	List<SEDAPExpressMessage> serverReceived = new CopyOnWriteArrayList<>();
+	server.subscribeMessages(serverReceived::add, MessageType.HEARTBEAT, MessageType.TEXT);
+	Assertions.assertTrue(server.connect());
+
+	SEDAPExpressWebSocketClient client = new SEDAPExpressWebSocketClient("ws://127.0.0.1:50231/SEDAPEXPRESS");
+	List<SEDAPExpressMessage> clientReceived = new CopyOnWriteArrayList<>();
+	client.subscribeMessages(clientReceived::add, MessageType.HEARTBEAT, MessageType.TEXT);
+
+	try {
+	    Assertions.assertTrue(client.connect());
+
+	    for (int i = 0; (i < 100) && (server.getConnectionCount() == 0); i++) {
+		Thread.sleep(10);
+	    }
+	    Assertions.assertEquals(1, server.getConnectionCount());
+
+	    // Client to server, single and batched frames
+	    client.sendSEDAPExpressMessage(SEDAPExpressMessage.deserialize("HEARTBEAT;42;661D5420;89AD;U"));
+	    client.sendSEDAPExpressMessages(List.of(SEDAPExpressMessage.deserialize("HEARTBEAT;43;661D5421;89AD;U"), SEDAPExpressMessage.deserialize("HEARTBEAT;44;661D5422;89AD;U")));
+
+	    waitFor(serverReceived, 3);
+	    Assertions.assertEquals(3, serverReceived.size());
+	    Assertions.assertEquals(SEDAPExpressMessage.deserialize("HEARTBEAT;44;661D5422;89AD;U").toString(), serverReceived.get(2).toString());
+
+	    // Server to client, including a frame larger than 64 KB
+	    server.sendSEDAPExpressMessage(SEDAPExpressMessage.deserialize("HEARTBEAT;45;661D5423;89AD;U"));
+	    List<SEDAPExpressMessage> batch = new CopyOnWriteArrayList<>();
+	    for (int i = 0; i < 3000; i++) {
+		batch.add(SEDAPExpressMessage.deserialize("HEARTBEAT;46;661D5424;89AD;U"));
+	    }
+	    server.sendSEDAPExpressMessages(batch);
+
+	    waitFor(clientReceived, 3001);
+	    Assertions.assertEquals(3001, clientReceived.size());
+	    Assertions.assertEquals(SEDAPExpressMessage.deserialize("HEARTBEAT;45;661D5423;89AD;U").toString(), clientReceived.get(0).toString());
+
+	} finally {
+	    client.stopCommunicator();
+	    server.stopCommunicator();
+	}
+    }
+
+    private static GENERIC createGeneric(int size) {
+	return new GENERIC((byte) 0, 1713198096L, "89AD", null, null, null, ContentType.ASCII, DataEncoding.NONE, "A".repeat(size));
+    }
+
+    private static void waitForConnections(SEDAPExpressWebSocketServer server, int count) throws InterruptedException {
+
+	for (int i = 0; (i < 500) && (server.getConnectionCount() != count); i++) {
+	    Thread.sleep(10);
+	}
+    }
+
+    @Test
+    void testSlowClient() throws Exception {
+
+	SEDAPExpressWebSocketServer server = new SEDAPExpressWebSocketServer("127.0.0.1", 50251);
+	server.setMaxQueuedBytes(1024 * 1024);
+	Assertions.assertTrue(server.connect());
+
+	SEDAPExpressWebSocketClient client = new SEDAPExpressWebSocketClient("ws://127.0.0.1:50251/SEDAPEXPRESS");
+	List<SEDAPExpressMessage> clientReceived = new CopyOnWriteArrayList<>();
+	client.subscribeMessages(clientReceived::add, MessageType.GENERIC);
+
+	// Completes the handshake, but never reads the frames
+	Socket slow = new Socket();
+	slow.setReceiveBufferSize(4096);
+
+	try {
+	    slow.connect(new InetSocketAddress("127.0.0.1", 50251));
+	    slow.getOutputStream().write(("GET /SEDAPEXPRESS HTTP/1.1\r\nHost: 127.0.0.1\r\nUpgrade: websocket\r\nConnection: Upgrade\r\nSec-WebSocket-Key: dGhlIHNhbXBsZSBub25jZQ==\r\nSec-WebSocket-Version: 13\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+	    waitForConnections(server, 1);
+	    Assertions.assertTrue(client.connect());
+	    waitForConnections(server, 2);
+	    Assertions.assertEquals(2, server.getConnectionCount());
+
+	    // The sender is never blocked by the slow client, which is disconnected when its queue overflows
+	    final long start = System.nanoTime();
+	    for (int i = 0; i < 1000; i++) {
+		server.sendSEDAPExpressMessage(createGeneric(20000));
+		Thread.sleep(1);
+	    }
+	    Assertions.assertTrue((System.nanoTime() - start) < 20_000_000_000L);
+
+	    waitForConnections(server, 1);
+	    Assertions.assertEquals(1, server.getConnectionCount());
+
+	    waitFor(clientReceived, 1000);
+	    Assertions.assertEquals(1000, clientReceived.size());
+
+	} finally {
+	    slow.close();
+	    client.stopCommunicator();
+	    server.stopCommunicator();
+	}
+    }
+
+    @Test
+    void testTooBigReconnect() throws Exception {
+
+	SEDAPExpressWebSocketServer server = new SEDAPExpressWebSocketServer("127.0.0.1", 50252);
+	Assertions.assertTrue(server.connect());
+
+	SEDAPExpressWebSocketClient client = new SEDAPExpressWebSocketClient("ws://127.0.0.1:50252/SEDAPEXPRESS");
+	List<SEDAPExpressMessage> clientReceived = new CopyOnWriteArrayList<>();
+	client.subscribeMessages(clientReceived::add, MessageType.HEARTBEAT, MessageType.GENERIC);
+
+	try {
+	    Assertions.assertTrue(client.connect());
+	    waitForConnections(server, 1);
+	    Assertions.assertEquals(1, server.getConnectionCount());
+
+	    // The client closes the connection with 1009 and reconnects
+	    server.sendSEDAPExpressMessage(createGeneric(SEDAPExpressWebSocketServer.MAX_MESSAGE_SIZE + 1));
+	    waitForConnections(server, 0);
+	    Assertions.assertEquals(0, server.getConnectionCount());
+	    waitForConnections(server, 1);
+	    Assertions.assertEquals(1, server.getConnectionCount());
+
+	    server.sendSEDAPExpressMessage(SEDAPExpressMessage.deserialize("HEARTBEAT;42;661D5420;89AD;U"));
+	    waitFor(clientReceived, 1);
+	    Assertions.assertEquals(1, clientReceived.size());
+	    Assertions.assertEquals(MessageType.HEARTBEAT, clientReceived.get(0).getMessageType());
+
+	} finally {
+	    client.stopCommunicator();
+	    server.stopCommunicator();
+	}
+    }
+}
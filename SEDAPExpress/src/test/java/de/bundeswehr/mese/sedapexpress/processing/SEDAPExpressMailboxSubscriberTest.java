@@ -0,0 +1,210 @@
+/**
+ * Note: This license has also been called the “Simplified BSD License” and the “FreeBSD License”.
+ *
+ * Copyright 2024-2025 UNIITY POC: Volker Voß, Federal Armed Forces of Germany
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS “AS IS” AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSEnARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ * OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY
+ * OF SUCH DAMAGE.
+ */
+package de.bundeswehr.mese.sedapexpress.processing;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import de.bundeswehr.uniity.sedapexpress.messages.CONTACT;
+import de.bundeswehr.uniity.sedapexpress.messages.HEARTBEAT;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage.Classification;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage.DeleteFlag;
+import de.bundeswehr.uniity.sedapexpress.processing.SEDAPExpressMailboxSubscriber;
+import de.bundeswehr.uniity.sedapexpress.processing.SEDAPExpressMailboxSubscriber.Ordering;
+import de.bundeswehr.uniity.sedapexpress.processing.SEDAPExpressMailboxSubscriber.OverflowPolicy;
+
+class SEDAPExpressMailboxSubscriberTest {
+
+    private static CONTACT createContact(String contactID, int number) {
+
+	return new CONTACT((byte) number, 1713198000000L, "59CE", Classification.Unclas, null, null, contactID, DeleteFlag.FALSE, 53.0, 8.0, null, null, null, null, null, null, null, null, null, null, null, null, null, "",
+		null, null, null, null, null);
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+
+	for (int i = 0; (i < 500) && !condition.getAsBoolean(); i++) {
+	    Thread.sleep(10);
+	}
+    }
+
+    @Test
+    void testOrderPerKey() throws Exception {
+
+	List<SEDAPExpressMessage> received = new CopyOnWriteArrayList<>();
+
+	try (SEDAPExpressMailboxSubscriber mailbox = new SEDAPExpressMailboxSubscriber(message -> {
+	    try {
+		Thread.sleep(1);
+	    } catch (InterruptedException e) {
+	    }
+	    received.add(message);
+	}, Ordering.PER_KEY, 1000, OverflowPolicy.BLOCK, SEDAPExpressMailboxSubscriber.DEFAULT_KEY, null, 4)) {
+
+	    // The slow subscriber does not delay the caller
+	    long start = System.nanoTime();
+	    for (int number = 0; number < 25; number++) {
+		for (int track = 0; track < 8; track++) {
+		    mailbox.processSEDAPExpressMessage(createContact("T" + track, number));
+		}
+	    }
+	    Assertions.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 100);
+
+	    waitFor(() -> received.size() == 200);
+	    Assertions.assertEquals(200, received.size());
+	    Assertions.assertEquals(200, mailbox.getDelivered());
+	    Assertions.assertEquals(200, mailbox.getLagMetrics().getCount());
+	    Assertions.assertEquals(0, mailbox.getDepth());
+	    Assertions.assertTrue(mailbox.getMaxDepth() > 1);
+
+	    // Every track has been delivered in order
+	    Map<String, Integer> last = new HashMap<>();
+	    for (SEDAPExpressMessage message : received) {
+		String contactID = ((CONTACT) message).getContactID();
+		int number = message.getNumber().intValue();
+		Assertions.assertEquals(last.getOrDefault(contactID, -1) + 1, number);
+		last.put(contactID, number);
+	    }
+	}
+    }
+
+    @Test
+    void testOverflow() throws Exception {
+
+	for (OverflowPolicy policy : List.of(OverflowPolicy.DROP_NEWEST, OverflowPolicy.DROP_OLDEST)) {
+
+	    CountDownLatch release = new CountDownLatch(1);
+	    List<SEDAPExpressMessage> received = new CopyOnWriteArrayList<>();
+
+	    try (SEDAPExpressMailboxSubscriber mailbox = new SEDAPExpressMailboxSubscriber(message -> {
+		try {
+		    release.await();
+		} catch (InterruptedException e) {
+		}
+		received.add(message);
+	    }, Ordering.GLOBAL, 10, policy)) {
+
+		// The first message blocks the subscriber, 10 wait in the mailbox
+		mailbox.processSEDAPExpressMessage(createContact("T", 0));
+		waitFor(() -> mailbox.getDepth() == 0);
+		for (int number = 1; number <= 30; number++) {
+		    mailbox.processSEDAPExpressMessage(createContact("T", number));
+		}
+
+		Assertions.assertEquals(10, mailbox.getDepth());
+		Assertions.assertEquals(20, mailbox.getDropped());
+
+		release.countDown();
+		waitFor(() -> received.size() == 11);
+		Assertions.assertEquals(11, received.size());
+
+		// DROP_NEWEST keeps 1-10, DROP_OLDEST keeps 21-30
+		int expected = (policy == OverflowPolicy.DROP_NEWEST) ? 10 : 30;
+		Assertions.assertEquals(expected, received.get(10).getNumber().intValue());
+	    }
+	}
+    }
+
+    @Test
+    void testBlock() throws Exception {
+
+	CountDownLatch release = new CountDownLatch(1);
+	List<SEDAPExpressMessage> received = new CopyOnWriteArrayList<>();
+
+	try (SEDAPExpressMailboxSubscriber mailbox = new SEDAPExpressMailboxSubscriber(message -> {
+	    try {
+		release.await();
+	    } catch (InterruptedException e) {
+	    }
+	    received.add(message);
+	}, Ordering.PER_MESSAGE_TYPE, 2, OverflowPolicy.BLOCK)) {
+
+	    Thread producer = new Thread(() -> {
+		for (int number = 0; number < 10; number++) {
+		    mailbox.processSEDAPExpressMessage(createContact("T", number));
+		}
+	    });
+	    producer.start();
+
+	    // The producer waits for free space in the mailbox
+	    waitFor(() -> mailbox.getDepth() == 2);
+	    Thread.sleep(50);
+	    Assertions.assertTrue(producer.isAlive());
+
+	    release.countDown();
+	    producer.join(5000);
+	    waitFor(() -> received.size() == 10);
+	    Assertions.assertEquals(10, received.size());
+	    Assertions.assertEquals(0, mailbox.getDropped());
+	}
+    }
+
+    @Test
+    void testFailingSubscriber() throws Exception {
+
+	List<SEDAPExpressMessage> received = new CopyOnWriteArrayList<>();
+
+	SEDAPExpressMailboxSubscriber mailbox = new SEDAPExpressMailboxSubscriber(message -> {
+	    if (message instanceof HEARTBEAT) {
+		throw new IllegalStateException("Test");
+	    }
+	    received.add(message);
+	}, Ordering.GLOBAL, 100, OverflowPolicy.BLOCK);
+
+	try {
+
+	    List<SEDAPExpressMessage> messages = new ArrayList<>();
+	    for (int number = 0; number < 10; number++) {
+		messages.add(createContact("T", number));
+		messages.add(SEDAPExpressMessage.deserialize("HEARTBEAT;42;661D5420;89AD;U"));
+	    }
+	    messages.forEach(mailbox::processSEDAPExpressMessage);
+
+	    waitFor(() -> (mailbox.getDelivered() + mailbox.getFailed()) == 20);
+	    Assertions.assertEquals(10, received.size());
+	    Assertions.assertEquals(10, mailbox.getFailed());
+	    Assertions.assertEquals(9, received.get(9).getNumber().intValue());
+
+	    // Closed mailboxes drop new messages
+	    mailbox.close();
+	    mailbox.processSEDAPExpressMessage(createContact("T", 10));
+	    Assertions.assertEquals(1, mailbox.getDropped());
+
+	} finally {
+	    mailbox.close();
+	}
+    }
+}
@@ -0,0 +1,148 @@
+/**
+ * Note: This license has also been called the “Simplified BSD License” and the “FreeBSD License”.
+ *
+ * Copyright 2024-2025 UNIITY POC: Volker Voß, Federal Armed Forces of Germany
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS “AS IS” AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSEnARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ * OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY
+ * OF SUCH DAMAGE.
+ */
+package de.bundeswehr.mese.sedapexpress.protobuf;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.UnknownFieldSet;
+
+import de.bundeswehr.uniity.sedapexpress.messages.EMISSION;
+import de.bundeswehr.uniity.sedapexpress.messages.EMISSION.FreqAgility;
+import de.bundeswehr.uniity.sedapexpress.messages.EMISSION.Function;
+import de.bundeswehr.uniity.sedapexpress.messages.EMISSION.PRFAgility;
+import de.bundeswehr.uniity.sedapexpress.messages.GENERIC;
+import de.bundeswehr.uniity.sedapexpress.messages.GENERIC.ContentType;
+import de.bundeswehr.uniity.sedapexpress.messages.GRAPHIC;
+import de.bundeswehr.uniity.sedapexpress.messages.GRAPHIC.GraphicType;
+import de.bundeswehr.uniity.sedapexpress.messages.KEYEXCHANGE;
+import de.bundeswehr.uniity.sedapexpress.messages.KEYEXCHANGE.AlgorithmType;
+import de.bundeswehr.uniity.sedapexpress.messages.METEO;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage.Acknowledgement;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage.Classification;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage.DataEncoding;
+import de.bundeswehr.uniity.sedapexpress.messages.SEDAPExpressMessage.DeleteFlag;
+import de.bundeswehr.uniity.sedapexpress.messages.TIMESYNC;
+import de.bundeswehr.uniity.sedapexpress.protobuf.SEDAPExpressProtobufCodec;
+
+class SEDAPExpressProtobufCodecTest {
+
+    private static final String CONTACT = "CONTACT;66;1B351C87;59CE;U;TRUE;FFAA327B;1000;;43.21;-111.22;10011.0;1.0;2.0;3.0;200.0;275.0;10.0;20.0;30.0;33.0;22.0;11.0;Track Alpha;RA;SFAPMF---------;221333201;FA550C;;VGVzdFRyYWNr";
+
+    private static List<SEDAPExpressMessage> createMessages() {
+
+	List<SEDAPExpressMessage> messages = new ArrayList<>();
+
+	messages.add(SEDAPExpressMessage.deserialize("ACKNOWLEDGE;18;661D64C0;129E;R;;;LASSY;COMMAND;2B"));
+	messages.add(SEDAPExpressMessage.deserialize("COMMAND;55;1B351C87;5BCD;S;TRUE;4389F10D;7D31;1221;01;0C;hold-engagement;1000"));
+	messages.add(SEDAPExpressMessage.deserialize(CONTACT));
+	messages.add(SEDAPExpressMessage.deserialize("CONTACT;60;54742310;4371;S;TRUE;;102;TRUE;53.32;8.11"));
+	messages.add(new EMISSION((byte) 0x12, 1713198096L, "7FA3", Classification.Secret, Acknowledgement.TRUE, null, "E1", DeleteFlag.FALSE, 53.1, 8.2, 10.0, 53.3, 8.4, null, 45.5,
+		List.of(9400.0, 9410.5), 20.0, 80.0, FreqAgility.Agile, PRFAgility.Jittered, Function.ESM_Radar, 3, "SHSPCL---------".toCharArray(), "Emitter"));
+	messages.add(new GENERIC((byte) 0x13, 1713198097L, "7FA3", Classification.Unclas, null, null, ContentType.JSON, DataEncoding.NONE, "{\"a\":1}"));
+	messages.add(new GRAPHIC((byte) 0x14, 1713198098L, "7FA3", Classification.Unclas, null, null, GraphicType.Circle, 2.5, 0xFF0000FF, 0x00FF0080, null, DataEncoding.NONE, "Zone"));
+	messages.add(SEDAPExpressMessage.deserialize("HEARTBEAT;42;661D5420;89AD;U;;;FE2A"));
+	messages.add(new KEYEXCHANGE((byte) 0x15, 1713198099L, "7FA3", Classification.Restricted, Acknowledgement.FALSE, null, "FE2A", AlgorithmType.values()[0], 1, 256, 2048, BigInteger.valueOf(0xFFFFFFFBL),
+		BigInteger.valueOf(5), 0x1122334455667788L, null));
+	messages.add(new METEO((byte) 0x16, 1713198100L, "7FA3", Classification.Unclas, null, null, 5.5, 1.2, 270.0, 12.5, 30.0, 18.0, 9.0, 70.0, 1013.25, 12.0, 250.0, 10000.0, 1500.0, 4.0));
+	messages.add(SEDAPExpressMessage.deserialize("OWNUNIT;11;1B351C87;22AA;U;TRUE;4389F10D;77.88;-10.12;5577.0;33.44;55.66;1.1;-2.2;3.3;Ownunit;SFGPIB----H----"));
+	messages.add(SEDAPExpressMessage.deserialize("RESEND;20;661D64C0;129E;R;;;FE2A;TEXT;5D"));
+	messages.add(SEDAPExpressMessage.deserialize("STATUS;41;50505050;BB91;C;TRUE;93B37ACC;2;1;#20.3;#30.4;#40.5;;;MTAuOC4wLjY=;cnRzcDovLzEwLjguMC42L3N0cmVhbTE=;U2FtcGxlVGV4dCE="));
+	messages.add(SEDAPExpressMessage.deserialize("TEXT;26;661D7032;324E;U;;;E4F1;4;BASE64;IlRoaXMgaXMgYSBjaGF0IG1lc3NhZ2UhIg=="));
+	messages.add(new TIMESYNC((byte) 0x17, 1713198101L, "7FA3", Classification.Unclas, null, null, 1713198101123L));
+
+	return messages;
+    }
+
+    @Test
+    void testRoundTripAllTypes() throws IOException {
+
+	for (SEDAPExpressMessage message : createMessages()) {
+
+	    byte[] data = SEDAPExpressProtobufCodec.encode(message);
+	    SEDAPExpressMessage decoded = SEDAPExpressProtobufCodec.decode(data);
+
+	    Assertions.assertEquals(message.getClass(), decoded.getClass());
+	    Assertions.assertEquals(message.toString(), decoded.toString());
+	}
+    }
+
+    @Test
+    void testBatch() throws IOException {
+
+	List<SEDAPExpressMessage> messages = createMessages();
+
+	ByteArrayOutputStream out = new ByteArrayOutputStream();
+	Assertions.assertEquals(messages.size(), SEDAPExpressProtobufCodec.writeBatch(out, messages));
+
+	List<SEDAPExpressMessage> result = new ArrayList<>();
+	Assertions.assertEquals(messages.size(), SEDAPExpressProtobufCodec.readBatch(new ByteArrayInputStream(out.toByteArray()), result::add));
+
+	for (int i = 0; i < messages.size(); i++) {
+	    Assertions.assertEquals(messages.get(i).toString(), result.get(i).toString());
+	}
+    }
+
+    @Test
+    void testWireFormat() throws IOException {
+
+	SEDAPExpressMessage contact = SEDAPExpressMessage.deserialize(CONTACT);
+	byte[] data = SEDAPExpressProtobufCodec.encode(contact);
+
+	// Envelope with the field "contact" and a Contact with double fields
+	UnknownFieldSet envelope = UnknownFieldSet.parseFrom(data);
+	Assertions.assertTrue(envelope.hasField(3));
+	UnknownFieldSet content = UnknownFieldSet.parseFrom(envelope.getField(3).getLengthDelimitedList().get(0));
+	Assertions.assertEquals(43.21, Double.longBitsToDouble(content.getField(10).getFixed64List().get(0)));
+	Assertions.assertEquals("Track Alpha", content.getField(24).getLengthDelimitedList().get(0).toStringUtf8());
+	Assertions.assertEquals(2, content.getField(25).getVarintList().size());
+
+	// Unknown fields of newer versions are skipped
+	ByteArrayOutputStream extended = new ByteArrayOutputStream();
+	CodedOutputStream output = CodedOutputStream.newInstance(extended);
+	output.writeString(99, "future");
+	output.writeRawBytes(SEDAPExpressProtobufCodec.encodeContent(contact));
+	output.writeUInt64(100, 42);
+	output.flush();
+
+	ByteArrayOutputStream envelopeBytes = new ByteArrayOutputStream();
+	output = CodedOutputStream.newInstance(envelopeBytes);
+	output.writeByteArray(3, extended.toByteArray());
+	output.writeString(50, "future");
+	output.flush();
+
+	Assertions.assertEquals(contact.toString(), SEDAPExpressProtobufCodec.decode(envelopeBytes.toByteArray()).toString());
+    }
+}
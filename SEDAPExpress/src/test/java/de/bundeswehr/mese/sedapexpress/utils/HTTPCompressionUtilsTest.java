@@ -0,0 +1,164 @@
+/**
+ * Note: This license has also been called the “Simplified BSD License” and the “FreeBSD License”.
+ *
+ * Copyright 2024-2025 UNIITY POC: Volker Voß, Federal Armed Forces of Germany
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted
+ * provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided with
+ * the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS “AS IS” AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSEnARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ * OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY
+ * OF SUCH DAMAGE.
+ */
+package de.bundeswehr.mese.sedapexpress.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import de.bundeswehr.uniity.sedapexpress.utils.HTTPCompressionUtils;
+
+class HTTPCompressionUtilsTest {
+
+    private static byte[] createBatch() {
+
+	StringBuilder batch = new StringBuilder("{\"messages\":[");
+	for (int i = 0; i < 200; i++) {
+	    batch.append("{\"message\":\"CONTACT;").append(i).append(";661D5420;89AD;U;").append(100 + i).append(";;53.32;8.11;0;;;;;;;;;;;;;SFSPCLFFF-------;Ship;\"},");
+	}
+	batch.append("{\"message\":\"HEARTBEAT;42;661D5420;89AD;U\"}]}");
+	return batch.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testNegotiateEncoding() {
+
+	Assertions.assertNull(HTTPCompressionUtils.negotiateEncoding(null));
+	Assertions.assertNull(HTTPCompressionUtils.negotiateEncoding("br, identity"));
+	Assertions.assertEquals(HTTPCompressionUtils.GZIP, HTTPCompressionUtils.negotiateEncoding("deflate, gzip"));
+	Assertions.assertEquals(HTTPCompressionUtils.DEFLATE, HTTPCompressionUtils.negotiateEncoding("gzip;q=0, deflate;q=0.5"));
+	Assertions.assertEquals(HTTPCompressionUtils.GZIP, HTTPCompressionUtils.negotiateEncoding("*"));
+	Assertions.assertNull(HTTPCompressionUtils.negotiateEncoding("gzip; q=0"));
+    }
+
+    @Test
+    void testRoundTrip() throws IOException {
+
+	byte[] batch = createBatch();
+
+	// The deflaters are returned to the pool and reused
+	for (int i = 0; i < 3; i++) {
+	    for (String encoding : new String[] { HTTPCompressionUtils.GZIP, HTTPCompressionUtils.DEFLATE }) {
+
+		byte[] compressed = HTTPCompressionUtils.compress(batch, encoding);
+		Assertions.assertTrue(compressed.length * 5 < batch.length);
+
+		try (InputStream in = HTTPCompressionUtils.decompress(new ByteArrayInputStream(compressed), encoding)) {
+		    Assertions.assertArrayEquals(batch, in.readAllBytes());
+		}
+	    }
+	}
+    }
+
+    @Test
+    void testStreamingRoundTrip() throws IOException {
+
+	byte[] batch = createBatch();
+
+	for (int i = 0; i < 2; i++) {
+	    for (String encoding : new String[] { HTTPCompressionUtils.GZIP, HTTPCompressionUtils.DEFLATE }) {
+
+		// Written in small pieces like by the content types
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		try (OutputStream out = HTTPCompressionUtils.compress(compressed, encoding)) {
+		    for (int offset = 0; offset < batch.length; offset += 100) {
+			out.write(batch, offset, Math.min(100, batch.length - offset));
+		    }
+		}
+
+		Assertions.assertArrayEquals(HTTPCompressionUtils.compress(batch, encoding), compressed.toByteArray());
+		try (InputStream in = HTTPCompressionUtils.decompress(new ByteArrayInputStream(compressed.toByteArray()), encoding)) {
+		    Assertions.assertArrayEquals(batch, in.readAllBytes());
+		}
+	    }
+	}
+    }
+
+    @Test
+    void testConcurrentStreams() throws Exception {
+
+	byte[] batch = createBatch();
+
+	// Two bodies compressed at the same time by one thread and by many threads, each stream has its own deflater
+	ByteArrayOutputStream first = new ByteArrayOutputStream();
+	ByteArrayOutputStream second = new ByteArrayOutputStream();
+	try (OutputStream out1 = HTTPCompressionUtils.compress(first, HTTPCompressionUtils.GZIP); OutputStream out2 = HTTPCompressionUtils.compress(second, HTTPCompressionUtils.GZIP)) {
+	    for (int offset = 0; offset < batch.length; offset += 100) {
+		out1.write(batch, offset, Math.min(100, batch.length - offset));
+		out2.write(batch, offset, Math.min(100, batch.length - offset));
+	    }
+	}
+	Assertions.assertArrayEquals(HTTPCompressionUtils.compress(batch, HTTPCompressionUtils.GZIP), first.toByteArray());
+	Assertions.assertArrayEquals(first.toByteArray(), second.toByteArray());
+
+	ExecutorService executor = Executors.newFixedThreadPool(32);
+	try {
+	    List<Future<byte[]>> results = new ArrayList<>();
+	    for (int i = 0; i < 100; i++) {
+		results.add(executor.submit(() -> HTTPCompressionUtils.compress(batch, HTTPCompressionUtils.DEFLATE)));
+	    }
+	    byte[] expected = HTTPCompressionUtils.compress(batch, HTTPCompressionUtils.DEFLATE);
+	    for (Future<byte[]> result : results) {
+		Assertions.assertArrayEquals(expected, result.get());
+	    }
+	} finally {
+	    executor.shutdown();
+	}
+    }
+
+    @Test
+    void testGzipIsStandardConform() throws IOException {
+
+	byte[] batch = createBatch();
+
+	try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(HTTPCompressionUtils.compress(batch, HTTPCompressionUtils.GZIP)))) {
+	    Assertions.assertArrayEquals(batch, in.readAllBytes());
+	}
+    }
+
+    @Test
+    void testUnsupportedEncoding() {
+
+	Assertions.assertTrue(HTTPCompressionUtils.isSupported(null));
+	Assertions.assertTrue(HTTPCompressionUtils.isSupported("identity"));
+	Assertions.assertFalse(HTTPCompressionUtils.isSupported("br"));
+
+	Assertions.assertThrows(IOException.class, () -> HTTPCompressionUtils.decompress(new ByteArrayInputStream(new byte[0]), "br"));
+	Assertions.assertThrows(IllegalArgumentException.class, () -> HTTPCompressionUtils.compress(new byte[0], "br"));
+    }
+}